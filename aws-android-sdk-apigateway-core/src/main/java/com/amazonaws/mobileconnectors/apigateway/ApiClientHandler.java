@@ -29,25 +29,35 @@ import com.amazonaws.http.HttpResponse;
 import com.amazonaws.http.UrlHttpClient;
 import com.amazonaws.mobileconnectors.apigateway.annotation.Operation;
 import com.amazonaws.mobileconnectors.apigateway.annotation.Parameter;
+import com.amazonaws.util.ByteArrayContentInputStream;
 import com.amazonaws.util.DateUtils;
 import com.amazonaws.util.IOUtils;
 import com.amazonaws.util.StringUtils;
+import com.amazonaws.util.Utf8ByteArrayWriter;
 import com.amazonaws.util.json.DateDeserializer;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-
-import java.io.ByteArrayInputStream;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.EOFException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.Reader;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.lang.reflect.Type;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Invocation handler responsible for serializing a request and deserializing a
@@ -79,6 +89,9 @@ class ApiClientHandler implements InvocationHandler {
     private final HttpRequestFactory requestFactory;
     private final ClientConfiguration clientConfiguration;
 
+    // what is known of a method before it's invoked, computed on first use
+    private final Map<Method, MethodPlan> plans = new ConcurrentHashMap<Method, MethodPlan>();
+
     ApiClientHandler(String endpoint, String apiName,
             Signer signer, AWSCredentialsProvider provider, String apiKey,
             ClientConfiguration clientConfiguration) {
@@ -99,7 +112,7 @@ class ApiClientHandler implements InvocationHandler {
 
         try {
             // the execute method call flow
-            if (isExecuteMethod(method)) {
+            if (getPlan(method).isExecute) {
                 final HttpRequest httpRequest = invokeExecuteMethod(args);
                 final HttpResponse response = client.execute(httpRequest);
 
@@ -108,7 +121,7 @@ class ApiClientHandler implements InvocationHandler {
                 final HttpRequest httpRequest = createHttpRequest(method, args);
                 final HttpResponse response = client.execute(httpRequest);
 
-                return handleResponse(response, method);
+                return handleResponse(response, getPlan(method));
             }
 
         } catch (final ApiClientException ace) {
@@ -147,43 +160,33 @@ class ApiClientHandler implements InvocationHandler {
      * @return a {@link Request} object
      */
     Request<?> buildRequest(Method method, Object[] args) {
-        final Operation op = method.getAnnotation(Operation.class);
-        if (op == null) {
+        final MethodPlan plan = getPlan(method);
+        if (plan.op == null) {
             throw new IllegalArgumentException("Method isn't annotated with Operation");
         }
 
         final Request<?> request = new DefaultRequest<Object>(apiName);
-        request.setResourcePath(op.path());
         request.setEndpoint(URI.create(endpoint));
 
-        String content = null;
-        final Annotation[][] annotations = method.getParameterAnnotations();
-        final int length = annotations.length;
-        for (int i = 0; i < length; i++) {
-            // content body
-            if (annotations[i].length == 0) {
-                if (content != null) {
-                    throw new IllegalStateException("Can't have more than one Body");
-                }
-                content = args[i] == null ? null : GSON_WITH_DATE_FORMATTER.toJson(args[i]);
-                continue;
-            }
-
-            for (final Annotation annotation : annotations[i]) {
-                if (annotation instanceof Parameter) {
-                    processParameter(request, (Parameter) annotation, args[i]);
-                    break;
-                }
+        Object body = null;
+        final String[] pathValues = new String[plan.pathTemplate.size()];
+        for (int i = 0; i < plan.parameters.length; i++) {
+            final Object arg = args[i];
+            if (i == plan.bodyIndex) {
+                body = arg;
+            } else if (plan.parameters[i] != null) {
+                processParameter(request, plan, plan.parameters[i], arg, pathValues);
             }
         }
+        request.setResourcePath(plan.expandPath(pathValues));
 
-        final boolean hasContent = content != null;
-        setHttpMethod(request, op.method(), hasContent);
+        final boolean hasContent = body != null;
+        setHttpMethod(request, plan.op.method(), hasContent);
 
         if (hasContent) {
-            final byte[] contentBytes = content.getBytes(StringUtils.UTF8);
-            request.setContent(new ByteArrayInputStream(contentBytes));
-            request.addHeader("Content-Length", String.valueOf(contentBytes.length));
+            final ByteArrayContentInputStream content = toJson(body, plan);
+            request.setContent(content);
+            request.addHeader("Content-Length", String.valueOf(content.getLength()));
         }
 
         request.addHeader("Content-Type", "application/json");
@@ -201,14 +204,44 @@ class ApiClientHandler implements InvocationHandler {
         return request;
     }
 
+    /**
+     * Serializes the body straight to UTF-8 bytes, as
+     * {@link Gson#toJson(Object)} would.
+     */
+    @SuppressWarnings({
+            "unchecked", "rawtypes"
+    })
+    private ByteArrayContentInputStream toJson(Object body, MethodPlan plan) {
+        // the declared type is only a hint, Gson serializes the runtime type
+        final TypeAdapter adapter = body.getClass() == plan.bodyType
+                ? plan.bodyAdapter
+                : GSON_WITH_DATE_FORMATTER.getAdapter(body.getClass());
+        final Utf8ByteArrayWriter out = new Utf8ByteArrayWriter();
+        try {
+            final JsonWriter writer = new JsonWriter(out);
+            writer.setLenient(true);
+            writer.setHtmlSafe(true);
+            writer.setSerializeNulls(false);
+            adapter.write(writer, body);
+            writer.close();
+        } catch (final IOException e) {
+            throw new JsonIOException(e);
+        }
+        return out.toInputStream();
+    }
+
     /**
      * Process an argument annotated with {@link Parameter}.
      *
      * @param request request to be set
+     * @param plan plan of the method
      * @param p annotation
      * @param arg argument
+     * @param pathValues values of the path parameters, by their position in
+     *            the path
      */
-    void processParameter(Request<?> request, Parameter p, Object arg) {
+    void processParameter(Request<?> request, MethodPlan plan, Parameter p, Object arg,
+            String[] pathValues) {
         final String name = p.name();
         final String location = p.location();
 
@@ -219,9 +252,12 @@ class ApiClientHandler implements InvocationHandler {
         if ("header".equals(location)) {
             request.addHeader(name, String.valueOf(arg));
         } else if ("path".equals(location)) {
-            String path = request.getResourcePath();
-            path = path.replaceAll("\\{" + name + "\\}", String.valueOf(arg));
-            request.setResourcePath(path);
+            final String value = String.valueOf(arg);
+            for (int i = 1; i < pathValues.length; i += 2) {
+                if (name.equals(plan.pathTemplate.get(i))) {
+                    pathValues[i] = value;
+                }
+            }
         } else if ("query".equals(location)) {
             if (Map.class.isAssignableFrom(arg.getClass())) {
                 @SuppressWarnings("unchecked")
@@ -266,22 +302,23 @@ class ApiClientHandler implements InvocationHandler {
      * Converts response to method's declared returned object
      *
      * @param response http response
-     * @param method method
+     * @param plan plan of the method
      * @return object of method's declared returned type
      * @throws Throwable
      */
-    Object handleResponse(HttpResponse response, Method method) throws Throwable {
+    Object handleResponse(HttpResponse response, MethodPlan plan) throws Throwable {
         final int code = response.getStatusCode();
         final InputStream content = response.getContent();
         // successful request if code is 2xx
         if (code >= HTTP_RESPONSE_OK && code < HTTP_RESPONSE_LAST_SUCCESS_STATUSCODE) {
-            final Type t = method.getReturnType();
-            if (t != void.class && content != null) {
-                final Reader reader = new InputStreamReader(response.getContent(),
-                        StringUtils.UTF8);
-                final Object obj = GSON_WITH_DATE_FORMATTER.fromJson(reader, t);
-                reader.close();
-                return obj;
+            if (plan.returnAdapter != null && content != null) {
+                final JsonReader reader = new JsonReader(new InputStreamReader(content,
+                        StringUtils.UTF8));
+                try {
+                    return fromJson(reader, plan.returnAdapter);
+                } finally {
+                    reader.close();
+                }
             } else {
                 // discard response
                 if (content != null) {
@@ -302,6 +339,46 @@ class ApiClientHandler implements InvocationHandler {
         }
     }
 
+    /**
+     * Reads a whole JSON document, as {@link Gson#fromJson(java.io.Reader, java.lang.reflect.Type)}
+     * would. An empty document is read as null.
+     */
+    private static Object fromJson(JsonReader reader, TypeAdapter<?> adapter) {
+        reader.setLenient(true);
+        boolean isEmpty = true;
+        final Object obj;
+        try {
+            reader.peek();
+            isEmpty = false;
+            obj = adapter.read(reader);
+            if (obj != null && reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonIOException("JSON document was not fully consumed.");
+            }
+        } catch (final EOFException e) {
+            if (isEmpty) {
+                return null;
+            }
+            throw new JsonSyntaxException(e);
+        } catch (final IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        } catch (final IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+        return obj;
+    }
+
+    /**
+     * Gets the plan of the given method, which is computed on first use.
+     */
+    MethodPlan getPlan(Method method) {
+        MethodPlan plan = plans.get(method);
+        if (plan == null) {
+            plan = new MethodPlan(method, isExecuteMethod(method));
+            plans.put(method, plan);
+        }
+        return plan;
+    }
+
     boolean isExecuteMethod(Method method) {
         final Operation op = method.getAnnotation(Operation.class);
         return op == null && "execute".equalsIgnoreCase(method.getName())
@@ -358,4 +435,106 @@ class ApiClientHandler implements InvocationHandler {
     void setClient(HttpClient client) {
         this.client = client;
     }
+
+    /**
+     * What is known of a method before it's invoked: its annotations, the
+     * placeholders of its path, and the Gson adapters of its body and
+     * returned object.
+     */
+    static final class MethodPlan {
+        final boolean isExecute;
+        final Operation op;
+        // parameter annotation by argument index, or null if none
+        final Parameter[] parameters;
+        // argument index of the body, or -1 if none
+        final int bodyIndex;
+        final Class<?> bodyType;
+        final TypeAdapter<?> bodyAdapter;
+        // null if nothing is returned
+        final TypeAdapter<?> returnAdapter;
+        // literal parts of the path, alternating with placeholder names
+        final List<String> pathTemplate = new ArrayList<String>();
+
+        MethodPlan(Method method, boolean isExecute) {
+            this.isExecute = isExecute;
+            op = method.getAnnotation(Operation.class);
+
+            // only methods annotated with Operation are turned into requests
+            final Annotation[][] annotations = op == null
+                    ? new Annotation[0][]
+                    : method.getParameterAnnotations();
+            parameters = new Parameter[annotations.length];
+            int body = -1;
+            for (int i = 0; i < annotations.length; i++) {
+                // content body
+                if (annotations[i].length == 0) {
+                    if (body != -1) {
+                        throw new IllegalStateException("Can't have more than one Body");
+                    }
+                    body = i;
+                    continue;
+                }
+
+                for (final Annotation annotation : annotations[i]) {
+                    if (annotation instanceof Parameter) {
+                        parameters[i] = (Parameter) annotation;
+                        break;
+                    }
+                }
+            }
+            bodyIndex = body;
+            if (body != -1) {
+                bodyType = method.getParameterTypes()[body];
+                bodyAdapter = GSON_WITH_DATE_FORMATTER.getAdapter(bodyType);
+            } else {
+                bodyType = null;
+                bodyAdapter = null;
+            }
+            returnAdapter = op == null || method.getReturnType() == void.class
+                    ? null
+                    : GSON_WITH_DATE_FORMATTER.getAdapter(method.getReturnType());
+
+            if (op != null) {
+                parsePath(op.path());
+            }
+        }
+
+        private void parsePath(String path) {
+            int start = 0;
+            int open = path.indexOf('{');
+            while (open != -1) {
+                final int close = path.indexOf('}', open + 1);
+                if (close == -1) {
+                    break;
+                }
+                pathTemplate.add(path.substring(start, open));
+                pathTemplate.add(path.substring(open + 1, close));
+                start = close + 1;
+                open = path.indexOf('{', start);
+            }
+            pathTemplate.add(path.substring(start));
+        }
+
+        /**
+         * Replaces the placeholders of the path with the given values, by
+         * their position in the path. Placeholders without a value are left as
+         * is.
+         */
+        String expandPath(String[] pathValues) {
+            if (pathTemplate.size() == 1) {
+                return pathTemplate.get(0);
+            }
+            final StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < pathTemplate.size(); i++) {
+                if (i % 2 == 0) {
+                    sb.append(pathTemplate.get(i));
+                } else if (pathValues[i] != null) {
+                    sb.append(pathValues[i]);
+                } else {
+                    sb.append('{').append(pathTemplate.get(i)).append('}');
+                }
+            }
+            return sb.toString();
+        }
+    }
 }
@@ -26,6 +26,8 @@ import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.CognitoCachingCredentialsProvider;
 import com.amazonaws.auth.IdentityChangedListener;
 import com.amazonaws.mobile.config.AWSConfiguration;
+import com.amazonaws.mobileconnectors.cognito.Dataset.SyncCallback;
+import com.amazonaws.mobileconnectors.cognito.exceptions.NetworkException;
 import com.amazonaws.mobileconnectors.cognito.exceptions.RegistrationFailedException;
 import com.amazonaws.mobileconnectors.cognito.exceptions.UnsubscribeFailedException;
 import com.amazonaws.mobileconnectors.cognito.internal.storage.CognitoSyncStorage;
@@ -41,6 +43,11 @@ import com.amazonaws.util.VersionInfoUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.amazonaws.logging.Log;
 import com.amazonaws.logging.LogFactory;
@@ -78,6 +85,12 @@ public class CognitoSyncManager {
      */
     private static final String DATABASE_NAME = "cognito_dataset_cache.db";
 
+    /**
+     * Max number of datasets synchronized at the same time by
+     * {@link #synchronizeAll(List, SyncCallback)}.
+     */
+    private static final int MAX_CONCURRENT_SYNCS = 4;
+
     /**
      * The local storage is singleton to avoid SQLite resource leak and thread
      * contention.
@@ -222,6 +235,93 @@ public class CognitoSyncManager {
         return dataset;
     }
 
+    /**
+     * Synchronizes the given datasets, a few at a time, and waits for them to
+     * finish. Each dataset is synchronized as with
+     * {@link Dataset#synchronize(SyncCallback)}, retries included, so a
+     * dataset in conflict doesn't hold back the others. The callback is
+     * notified for each dataset, possibly from several threads at the same
+     * time. Note: this is a network request, so calling this method in the
+     * main thread will result in NetworkOnMainThreadException.
+     *
+     * @param datasetNames names of the datasets, each must be [a-zA-Z0=9_.:-]+
+     * @param callback callback during synchronization
+     * @return whether each dataset was synchronized, and how long it took
+     */
+    public SyncAllResult synchronizeAll(List<String> datasetNames, final SyncCallback callback) {
+        if (callback == null) {
+            throw new IllegalArgumentException("callback can't be null");
+        }
+        final List<DefaultDataset> datasets = new ArrayList<DefaultDataset>();
+        for (String datasetName : datasetNames) {
+            datasets.add((DefaultDataset) openOrCreateDataset(datasetName));
+        }
+
+        final SyncAllResult result = new SyncAllResult();
+        if (datasets.isEmpty()) {
+            return result;
+        }
+        final long start = System.currentTimeMillis();
+        if (!DefaultDataset.isNetworkAvailable(context)) {
+            callback.onFailure(new NetworkException("Network connectivity unavailable."));
+            for (String datasetName : datasetNames) {
+                result.add(datasetName, false, 0);
+            }
+            return result;
+        }
+
+        // gets the credentials once here, rather than from every sync at the
+        // same time. If it fails, each sync reports the failure.
+        try {
+            provider.getCredentials();
+        } catch (AmazonClientException e) {
+            LOGGER.warn("failed to get credentials before synchronizing datasets", e);
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(MAX_CONCURRENT_SYNCS, datasets.size()));
+        final long[] latencies = new long[datasets.size()];
+        final List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+        try {
+            for (int i = 0; i < datasets.size(); i++) {
+                final DefaultDataset dataset = datasets.get(i);
+                final int index = i;
+                futures.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        long datasetStart = System.currentTimeMillis();
+                        dataset.discardPendingSyncRequest();
+                        boolean success = dataset.synchronizeNow(callback);
+                        latencies[index] = System.currentTimeMillis() - datasetStart;
+                        return success;
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                boolean success = false;
+                try {
+                    success = futures.get(i).get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    LOGGER.warn("interrupted while synchronizing datasets", e);
+                    executor.shutdownNow();
+                    // the datasets not waited for are reported as failed
+                    for (int j = i; j < futures.size(); j++) {
+                        result.add(datasetNames.get(j), false, latencies[j]);
+                    }
+                    break;
+                } catch (ExecutionException e) {
+                    LOGGER.error("failed to synchronize " + datasetNames.get(i), e.getCause());
+                }
+                result.add(datasetNames.get(i), success, latencies[i]);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        result.setTotalLatencyMillis(System.currentTimeMillis() - start);
+        return result;
+    }
+
     /**
      * Retrieves a list of datasets from local storage. It may not reflects
      * latest dataset on the remote storage until refreshDatasetMetadata is
@@ -257,6 +357,26 @@ public class CognitoSyncManager {
         LOGGER.info("All data has been wiped");
     }
 
+    /**
+     * Returns how many times the records of a dataset were read from memory
+     * rather than from the local database.
+     *
+     * @return the number of local cache hits
+     */
+    public long getLocalCacheHitCount() {
+        return local.getCacheHitCount();
+    }
+
+    /**
+     * Returns how many times the records of a dataset were read from the local
+     * database.
+     *
+     * @return the number of local cache misses
+     */
+    public long getLocalCacheMissCount() {
+        return local.getCacheMissCount();
+    }
+
     String getIdentityId() {
         return DatasetUtils.getIdentityId(provider);
     }
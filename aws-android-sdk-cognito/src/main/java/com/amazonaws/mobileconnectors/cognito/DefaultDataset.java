@@ -41,7 +41,6 @@ import com.amazonaws.mobileconnectors.cognito.internal.util.StringUtils;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -139,30 +138,42 @@ class DefaultDataset implements Dataset {
         new Thread(new Runnable() {
             @Override
             public void run() {
-                LOGGER.debug("start to synchronize " + datasetName);
+                synchronizeNow(callback);
+            }
+        }).start();
+    }
 
-                boolean result = false;
-                try {
-                    List<String> mergedDatasets = getLocalMergedDatasets();
-                    boolean doSync = true;
-                    if (!mergedDatasets.isEmpty()) {
-                        LOGGER.info("detected merge datasets " + datasetName);
-                        doSync = callback.onDatasetsMerged(DefaultDataset.this, mergedDatasets);
-                    }
-                    if (doSync) {
-                        result = synchronizeInternal(callback, MAX_RETRY);
-                    }
-                } catch (Exception e) {
-                    callback.onFailure(new DataStorageException("Unknown exception", e));
-                }
+    /**
+     * Synchronizes the dataset in the calling thread, with the retries of
+     * {@link #synchronize(SyncCallback)}.
+     *
+     * @param callback callback during synchronization
+     * @return true if synchronize successfully, false otherwise
+     */
+    boolean synchronizeNow(final SyncCallback callback) {
+        LOGGER.debug("start to synchronize " + datasetName);
 
-                if (result) {
-                    LOGGER.debug("successfully synchronize " + datasetName);
-                } else {
-                    LOGGER.debug("failed to synchronize " + datasetName);
-                }
+        boolean result = false;
+        try {
+            List<String> mergedDatasets = getLocalMergedDatasets();
+            boolean doSync = true;
+            if (!mergedDatasets.isEmpty()) {
+                LOGGER.info("detected merge datasets " + datasetName);
+                doSync = callback.onDatasetsMerged(DefaultDataset.this, mergedDatasets);
             }
-        }).start();
+            if (doSync) {
+                result = synchronizeInternal(callback, MAX_RETRY);
+            }
+        } catch (Exception e) {
+            callback.onFailure(new DataStorageException("Unknown exception", e));
+        }
+
+        if (result) {
+            LOGGER.debug("successfully synchronize " + datasetName);
+        } else {
+            LOGGER.debug("failed to synchronize " + datasetName);
+        }
+        return result;
     }
 
     /**
@@ -280,15 +291,16 @@ class DefaultDataset implements Dataset {
             }
 
             // if there are non-conflicting records from the remote, update them
-            // in local
+            // in local, along with the new last sync count
+            LOGGER.info(String.format("updated sync count %d", datasetUpdates.getSyncCount()));
             if (!remoteRecords.isEmpty()) {
                 LOGGER.info(String.format("save %d records to local", remoteRecords.size()));
-                local.putRecords(getIdentityId(), datasetName, remoteRecords);
+                local.mergeRemoteRecords(getIdentityId(), datasetName, remoteRecords,
+                        datasetUpdates.getSyncCount());
+            } else {
+                local.updateLastSyncCount(getIdentityId(), datasetName,
+                        datasetUpdates.getSyncCount());
             }
-            // new last sync count
-            LOGGER.info(String.format("updated sync count %d", datasetUpdates.getSyncCount()));
-            local.updateLastSyncCount(getIdentityId(), datasetName,
-                    datasetUpdates.getSyncCount());
         }
 
         return true;
@@ -465,13 +477,7 @@ class DefaultDataset implements Dataset {
 
     @Override
     public Map<String, String> getAll() {
-        Map<String, String> map = new HashMap<String, String>();
-        for (Record record : local.getRecords(getIdentityId(), datasetName)) {
-            if (!record.isDeleted()) {
-                map.put(record.getKey(), record.getValue());
-            }
-        }
-        return map;
+        return local.getValueMap(getIdentityId(), datasetName);
     }
 
     String getIdentityId() {
@@ -0,0 +1,108 @@
+/**
+ * Copyright 2013-2018 Amazon.com,
+ * Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Amazon Software License (the "License").
+ * You may not use this file except in compliance with the
+ * License. A copy of the License is located at
+ *
+ *     http://aws.amazon.com/asl/
+ *
+ * or in the "license" file accompanying this file. This file is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, express or implied. See the License
+ * for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.cognito;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of {@link CognitoSyncManager#synchronizeAll}: whether each
+ * dataset was synchronized, and how long it took.
+ * @deprecated The Amazon Cognito Sync SDK for Android is deprecated as of release 2.9.0. Please use the AWS AppSync SDK for Android along with AWS AppSync service instead.
+ */
+@Deprecated
+public class SyncAllResult {
+    private final Map<String, Boolean> results = new LinkedHashMap<String, Boolean>();
+    private final Map<String, Long> latencies = new LinkedHashMap<String, Long>();
+    private long totalLatencyMillis;
+
+    SyncAllResult() {
+    }
+
+    void add(String datasetName, boolean success, long latencyMillis) {
+        results.put(datasetName, success);
+        latencies.put(datasetName, latencyMillis);
+    }
+
+    void setTotalLatencyMillis(long totalLatencyMillis) {
+        this.totalLatencyMillis = totalLatencyMillis;
+    }
+
+    /**
+     * Gets the names of the datasets, in the order they were given
+     * @return datasetNames the names of the datasets
+     */
+    public List<String> getDatasetNames() {
+        return Collections.unmodifiableList(new ArrayList<String>(results.keySet()));
+    }
+
+    /**
+     * Whether the given dataset was synchronized
+     * @param datasetName the name of the dataset
+     * @return true if it was synchronized, false if it failed or wasn't
+     *         synchronized
+     */
+    public boolean isSuccessful(String datasetName) {
+        Boolean success = results.get(datasetName);
+        return success != null && success;
+    }
+
+    /**
+     * Whether all the datasets were synchronized
+     * @return true if all were synchronized, false otherwise
+     */
+    public boolean isAllSuccessful() {
+        return getFailedDatasetNames().isEmpty();
+    }
+
+    /**
+     * Gets the names of the datasets which failed to synchronize
+     * @return datasetNames the names of the failed datasets
+     */
+    public List<String> getFailedDatasetNames() {
+        List<String> failed = new ArrayList<String>();
+        for (Map.Entry<String, Boolean> entry : results.entrySet()) {
+            if (!entry.getValue()) {
+                failed.add(entry.getKey());
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Gets how long the given dataset took to synchronize, retries included,
+     * whether it succeeded or not
+     * @param datasetName the name of the dataset
+     * @return latency in milliseconds, or -1 if it isn't one of the datasets
+     */
+    public long getLatencyMillis(String datasetName) {
+        Long latency = latencies.get(datasetName);
+        return latency == null ? -1 : latency;
+    }
+
+    /**
+     * Gets how long all the datasets took to synchronize
+     * @return latency in milliseconds
+     */
+    public long getTotalLatencyMillis() {
+        return totalLatencyMillis;
+    }
+}
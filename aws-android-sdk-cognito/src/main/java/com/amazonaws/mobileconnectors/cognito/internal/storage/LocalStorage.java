@@ -115,6 +115,19 @@ public interface LocalStorage {
      * @param records a list of records
      */
     public void putRecords(String identityId, String datasetName, List<Record> records);
+
+    /**
+     * Puts a list of raw records pulled from remote into dataset, and updates
+     * its last sync count, in a single write (to be used in
+     * synchronizations).
+     * 
+     * @param identityId identity id
+     * @param datasetName dataset name
+     * @param records a list of records
+     * @param lastSyncCount the sync count of the records
+     */
+    public void mergeRemoteRecords(String identityId, String datasetName,
+            List<Record> records, long lastSyncCount);
     
     /**
      * Puts a list of raw records into thet dataset if 
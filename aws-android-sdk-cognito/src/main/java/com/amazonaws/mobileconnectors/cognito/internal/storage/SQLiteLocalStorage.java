@@ -32,17 +32,35 @@ import com.amazonaws.mobileconnectors.cognito.internal.util.DatasetUtils;
 import com.amazonaws.mobileconnectors.cognito.internal.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * An SQLite implementation of {@link LocalStorage}. Datasets are stored in a
  * SQLite database. There are two tables: 'datasets' table stores metadata of a
  * dataset; 'records' stores records of a dataset.
+ * <p>
+ * The records of a dataset are cached in memory the first time they are read,
+ * so that reading a dataset doesn't query the database again. Local writes
+ * update the cache right away and are written to the database shortly after,
+ * with the writes made in the meantime, in one transaction. They are written
+ * before any operation which reads or changes the database directly, e.g.
+ * when a dataset is synchronized. Only one instance should be used for a
+ * database, as {@link com.amazonaws.mobileconnectors.cognito.CognitoSyncManager}
+ * does, for the cache to stay coherent.
+ * </p>
  * @deprecated The Amazon Cognito Sync SDK for Android is deprecated as of release 2.9.0. Please use the AWS AppSync SDK for Android along with AWS AppSync service instead.
  */
 @Deprecated
@@ -173,6 +191,72 @@ public class SQLiteLocalStorage implements LocalStorage {
      */
     private final DatabaseHelper helper;
 
+    /**
+     * Delay before local writes are written to the database, so that the
+     * writes made in quick succession are committed together.
+     */
+    private static final long WRITE_BEHIND_DELAY_MS = 200;
+
+    /**
+     * Identifies a dataset of an identity.
+     */
+    private static final class DatasetId {
+        final String identityId;
+        final String datasetName;
+
+        DatasetId(String identityId, String datasetName) {
+            this.identityId = identityId;
+            this.datasetName = datasetName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof DatasetId)) {
+                return false;
+            }
+            DatasetId other = (DatasetId) o;
+            return StringUtils.equals(identityId, other.identityId)
+                    && StringUtils.equals(datasetName, other.datasetName);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (identityId == null ? 0 : identityId.hashCode())
+                    + (datasetName == null ? 0 : datasetName.hashCode());
+        }
+    }
+
+    /**
+     * Records of the datasets read so far, including the local writes which
+     * are pending. A cached map is never modified, writes replace it with a
+     * copy, so it's read without locking.
+     */
+    private final ConcurrentMap<DatasetId, Map<String, Record>> recordCache =
+            new ConcurrentHashMap<DatasetId, Map<String, Record>>();
+    /**
+     * Local writes not yet written to the database by dataset, then by key. A
+     * null value removes the record. Guarded by cacheLock.
+     */
+    private final Map<DatasetId, Map<String, String>> pendingWrites =
+            new HashMap<DatasetId, Map<String, String>>();
+    /**
+     * Guards writing the pending writes, and the database operations which
+     * must follow them. Acquired before cacheLock.
+     */
+    private final Object flushLock = new Object();
+    /**
+     * Guards the cache updates and the pending writes.
+     */
+    private final Object cacheLock = new Object();
+    /**
+     * Whether the pending writes are scheduled to be written. Guarded by
+     * cacheLock.
+     */
+    private boolean flushScheduled;
+    private final ScheduledExecutorService writeBehindExecutor;
+    private final AtomicLong cacheHitCount = new AtomicLong();
+    private final AtomicLong cacheMissCount = new AtomicLong();
+
     /**
      * Creates a {@link SQLiteLocalStorage} object.
      * 
@@ -181,6 +265,226 @@ public class SQLiteLocalStorage implements LocalStorage {
      */
     public SQLiteLocalStorage(Context context, String databaseName) {
         helper = new DatabaseHelper(context, databaseName);
+        writeBehindExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "SQLiteLocalStorage-write-behind");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Returns how many times the records of a dataset were read from the
+     * in-memory cache.
+     * 
+     * @return the number of cache hits
+     */
+    public long getCacheHitCount() {
+        return cacheHitCount.get();
+    }
+
+    /**
+     * Returns how many times the records of a dataset had to be read from the
+     * database.
+     * 
+     * @return the number of cache misses
+     */
+    public long getCacheMissCount() {
+        return cacheMissCount.get();
+    }
+
+    /**
+     * Returns the records of a dataset by key, reading them from the database
+     * if they aren't cached. The map must not be modified.
+     */
+    private Map<String, Record> getCachedRecords(String identityId, String datasetName) {
+        DatasetId id = new DatasetId(identityId, datasetName);
+        Map<String, Record> records = recordCache.get(id);
+        if (records != null) {
+            cacheHitCount.incrementAndGet();
+            return records;
+        }
+        cacheMissCount.incrementAndGet();
+        // no pending writes are being written while the records are read
+        synchronized (flushLock) {
+            synchronized (cacheLock) {
+                records = recordCache.get(id);
+                if (records == null) {
+                    records = new HashMap<String, Record>();
+                    for (Record record : queryRecords(helper.getWritableDatabase(),
+                            identityId, datasetName)) {
+                        records.put(record.getKey(), record);
+                    }
+                    Map<String, String> writes = pendingWrites.get(id);
+                    if (writes != null) {
+                        for (Map.Entry<String, String> entry : writes.entrySet()) {
+                            applyValue(records, entry.getKey(), entry.getValue());
+                        }
+                    }
+                    records = Collections.unmodifiableMap(records);
+                    recordCache.put(id, records);
+                }
+                return records;
+            }
+        }
+    }
+
+    /**
+     * Updates the given records as {@link #putValueInternal} updates the
+     * database.
+     */
+    private static void applyValue(Map<String, Record> records, String key, String value) {
+        Record record = records.get(key);
+        if (record != null && StringUtils.equals(record.getValue(), value)) {
+            return;
+        }
+        records.put(key, new Record.Builder(key)
+                .value(value)
+                .syncCount(record == null ? 0 : record.getSyncCount())
+                .lastModifiedDate(record == null ? new Date(0) : record.getLastModifiedDate())
+                .lastModifiedBy(record == null ? null : record.getLastModifiedBy())
+                .deviceLastModifiedDate(new Date())
+                .modified(true)
+                .build());
+    }
+
+    /**
+     * Writes the given values to the cache, and schedules writing them to the
+     * database.
+     */
+    private void putValues(String identityId, String datasetName, Map<String, String> values) {
+        DatasetId id = new DatasetId(identityId, datasetName);
+        // read the records first, so that they are updated in the cache
+        getCachedRecords(identityId, datasetName);
+        synchronized (cacheLock) {
+            Map<String, String> writes = pendingWrites.get(id);
+            if (writes == null) {
+                writes = new HashMap<String, String>();
+                pendingWrites.put(id, writes);
+            }
+            writes.putAll(values);
+
+            Map<String, Record> records = recordCache.get(id);
+            if (records != null) {
+                records = new HashMap<String, Record>(records);
+                for (Map.Entry<String, String> entry : values.entrySet()) {
+                    applyValue(records, entry.getKey(), entry.getValue());
+                }
+                recordCache.put(id, Collections.unmodifiableMap(records));
+            }
+
+            if (!flushScheduled) {
+                flushScheduled = true;
+                scheduleFlush();
+            }
+        }
+    }
+
+    /**
+     * Schedules writing the pending writes. Must be called with cacheLock
+     * held.
+     */
+    private void scheduleFlush() {
+        writeBehindExecutor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (cacheLock) {
+                    flushScheduled = false;
+                }
+                try {
+                    flush();
+                } catch (DataStorageException e) {
+                    // the writes are kept, try again later
+                    Log.e(TAG, "failed to write local changes of datasets", e);
+                    synchronized (cacheLock) {
+                        if (!flushScheduled) {
+                            flushScheduled = true;
+                            scheduleFlush();
+                        }
+                    }
+                }
+            }
+        }, WRITE_BEHIND_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the pending local writes to the database, in one transaction.
+     * The writes are only dropped once the transaction is committed, so they
+     * are written by the next flush if this one fails.
+     *
+     * @throws DataStorageException if the writes couldn't be written
+     */
+    void flush() {
+        synchronized (flushLock) {
+            Map<DatasetId, Map<String, String>> writes;
+            synchronized (cacheLock) {
+                if (pendingWrites.isEmpty()) {
+                    return;
+                }
+                writes = new HashMap<DatasetId, Map<String, String>>();
+                for (Map.Entry<DatasetId, Map<String, String>> dataset : pendingWrites.entrySet()) {
+                    writes.put(dataset.getKey(), new HashMap<String, String>(dataset.getValue()));
+                }
+            }
+
+            SQLiteDatabase db = helper.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (Map.Entry<DatasetId, Map<String, String>> dataset : writes.entrySet()) {
+                    DatasetId id = dataset.getKey();
+                    for (Map.Entry<String, String> entry : dataset.getValue().entrySet()) {
+                        if (!putValueInternal(db, id.identityId, id.datasetName,
+                                entry.getKey(), entry.getValue())) {
+                            Log.e(TAG, String.format("failed to put record [%s: %s] into dataset %s",
+                                    entry.getKey(), entry.getValue(), id.datasetName));
+                        }
+                    }
+                    updateLastModifiedTimestamp(db, id.identityId, id.datasetName);
+                }
+                db.setTransactionSuccessful();
+            } catch (RuntimeException e) {
+                throw new DataStorageException("failed to write local changes of datasets", e);
+            } finally {
+                db.endTransaction();
+            }
+            removeWrittenValues(writes);
+        }
+    }
+
+    /**
+     * Drops the pending writes which were written, keeping the ones changed
+     * since.
+     */
+    private void removeWrittenValues(Map<DatasetId, Map<String, String>> written) {
+        synchronized (cacheLock) {
+            for (Map.Entry<DatasetId, Map<String, String>> dataset : written.entrySet()) {
+                Map<String, String> writes = pendingWrites.get(dataset.getKey());
+                if (writes == null) {
+                    continue;
+                }
+                for (Map.Entry<String, String> entry : dataset.getValue().entrySet()) {
+                    if (writes.containsKey(entry.getKey())
+                            && StringUtils.equals(writes.get(entry.getKey()), entry.getValue())) {
+                        writes.remove(entry.getKey());
+                    }
+                }
+                if (writes.isEmpty()) {
+                    pendingWrites.remove(dataset.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the cached records of a dataset after it's changed in the
+     * database. Must be called with flushLock held.
+     */
+    private void invalidate(String identityId, String datasetName) {
+        synchronized (cacheLock) {
+            recordCache.remove(new DatasetId(identityId, datasetName));
+        }
     }
 
     /**
@@ -233,21 +537,13 @@ public class SQLiteLocalStorage implements LocalStorage {
 
     @Override
     public void putValue(String identityId, String datasetName, String key, String value) {
-        SQLiteDatabase db = helper.getWritableDatabase();
-        boolean result = putValueInternal(db, identityId, datasetName, key, value);
-        if (!result) {
-            Log.e(TAG, String.format("failed to put record [%s: %s] into dataset %s",
-                    key, value, datasetName));
-        } else {
-            updateLastModifiedTimestamp(db, identityId, datasetName);
-        }
+        putValues(identityId, datasetName, Collections.singletonMap(key, value));
     }
 
     @Override
     public Map<String, String> getValueMap(String identityId, String datasetName) {
         Map<String, String> values = new HashMap<String, String>();
-        List<Record> records = getRecords(identityId, datasetName);
-        for (Record record : records) {
+        for (Record record : getCachedRecords(identityId, datasetName).values()) {
             if (!record.isDeleted()) {
                 values.put(record.getKey(), record.getValue());
             }
@@ -257,17 +553,7 @@ public class SQLiteLocalStorage implements LocalStorage {
 
     @Override
     public void putAllValues(String identityId, String datasetName, Map<String, String> values) {
-        SQLiteDatabase db = helper.getWritableDatabase();
-        db.beginTransaction();
-        try {
-            for (Map.Entry<String, String> entry : values.entrySet()) {
-                putValueInternal(db, identityId, datasetName, entry.getKey(), entry.getValue());
-            }
-            updateLastModifiedTimestamp(db, identityId, datasetName);
-            db.setTransactionSuccessful();
-        } finally {
-            db.endTransaction();
-        }
+        putValues(identityId, datasetName, new HashMap<String, String>(values));
     }
 
     /**
@@ -282,7 +568,7 @@ public class SQLiteLocalStorage implements LocalStorage {
      */
     boolean putValueInternal(SQLiteDatabase db, String identityId, String datasetName,
             String key, String value) {
-        Record record = getRecord(identityId, datasetName, key);
+        Record record = queryRecord(db, identityId, datasetName, key);
         // compares value before putting it in database. If yes, return true.
         if (record != null && StringUtils.equals(record.getValue(), value)) {
             return true;
@@ -309,11 +595,13 @@ public class SQLiteLocalStorage implements LocalStorage {
                     }) == 1;
         }
     }
-    
+
     @Override
     public List<DatasetMetadata> getDatasets(String identityId) {
         List<DatasetMetadata> datasets = new ArrayList<DatasetMetadata>();
 
+        // the last modified dates are updated as local writes are written
+        flush();
         SQLiteDatabase db = helper.getWritableDatabase();
         Cursor c = db.query(TABLE_DATASETS, DatasetColumns.ALL,
                 DatasetColumns.IDENTITY_ID + " = ?",
@@ -333,6 +621,7 @@ public class SQLiteLocalStorage implements LocalStorage {
             throws DataStorageException {
         DatasetMetadata dataset = null;
 
+        flush();
         SQLiteDatabase db = helper.getWritableDatabase();
         Cursor c = db.query(TABLE_DATASETS, DatasetColumns.ALL,
                 DatasetColumns.IDENTITY_ID + " = ? AND " + DatasetColumns.DATASET_NAME + " = ?",
@@ -362,9 +651,15 @@ public class SQLiteLocalStorage implements LocalStorage {
 
     @Override
     public Record getRecord(String identityId, String datasetName, String key) {
+        return getCachedRecords(identityId, datasetName).get(key);
+    }
+
+    /**
+     * Reads a record from the database, or null if it doesn't exist.
+     */
+    Record queryRecord(SQLiteDatabase db, String identityId, String datasetName, String key) {
         Record record = null;
 
-        SQLiteDatabase db = helper.getWritableDatabase();
         Cursor c = db.query(TABLE_RECORDS, RecordColumns.ALL,
                 RecordColumns.IDENTITY_ID + " = ? AND "
                         + RecordColumns.DATASET_NAME + " = ? AND "
@@ -382,9 +677,15 @@ public class SQLiteLocalStorage implements LocalStorage {
 
     @Override
     public List<Record> getRecords(String identityId, String datasetName) {
+        return new ArrayList<Record>(getCachedRecords(identityId, datasetName).values());
+    }
+
+    /**
+     * Reads all the records of a dataset from the database.
+     */
+    List<Record> queryRecords(SQLiteDatabase db, String identityId, String datasetName) {
         List<Record> records = new ArrayList<Record>();
 
-        SQLiteDatabase db = helper.getWritableDatabase();
         Cursor c = db.query(TABLE_RECORDS, RecordColumns.ALL,
                 RecordColumns.IDENTITY_ID + " = ? AND "
                         + RecordColumns.DATASET_NAME + " = ?",
@@ -423,19 +724,44 @@ public class SQLiteLocalStorage implements LocalStorage {
 
     @Override
     public void putRecords(String identityId, String datasetName, List<Record> records) {
-        SQLiteDatabase db = helper.getWritableDatabase();
-        db.beginTransaction();
-        try {
-            for (Record record : records) {
-                updateOrInsertRecord(db, identityId, datasetName, record);
+        synchronized (flushLock) {
+            flush();
+            SQLiteDatabase db = helper.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (Record record : records) {
+                    updateOrInsertRecord(db, identityId, datasetName, record);
+                }
+
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+                invalidate(identityId, datasetName);
             }
+        }
+    }
 
-            db.setTransactionSuccessful();
-        } finally {
-            db.endTransaction();
+    @Override
+    public void mergeRemoteRecords(String identityId, String datasetName,
+            List<Record> records, long lastSyncCount) {
+        synchronized (flushLock) {
+            flush();
+            SQLiteDatabase db = helper.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (Record record : records) {
+                    updateOrInsertRecord(db, identityId, datasetName, record);
+                }
+                updateLastSyncCount(db, identityId, datasetName, lastSyncCount);
+
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+                invalidate(identityId, datasetName);
+            }
         }
     }
-    
+
     @Override
     public void conditionallyPutRecords(String identityId, String datasetName, List<Record> records, 
             List<Record> localRecords) {
@@ -444,71 +770,79 @@ public class SQLiteLocalStorage implements LocalStorage {
         for(Record record : localRecords){
             localRecordMap.put(record.getKey(), record);
         }
-        SQLiteDatabase db = helper.getWritableDatabase();
-        db.beginTransaction();
-        try {
-            for (Record record : records) {
-                /*
-                * Grab an instance of the record from the local store with the remote change's 
-                * key and the snapshot version.
-                * 1) If both are null the remote change is new and we should save. 
-                * 2) If both exist but the values and sync counts have changed, 
-                *    it has changed locally and we shouldn't overwrite with the remote changes, 
-                *    which will still exist in remote. 
-                * 3) If both exist and the values have not changed, we should save the remote change.
-                * 4) If the current check exists but it wasn't in the snapshot, we should save.
-                */
-                Record databaseRecord = getRecord(identityId, datasetName, record.getKey());
-                Record oldDatabaseRecord = localRecordMap.get(record.getKey());
-
-                if (databaseRecord != null && oldDatabaseRecord != null
-                        && (!StringUtils.equals(databaseRecord.getValue(), oldDatabaseRecord.getValue())
-                        || databaseRecord.getSyncCount() != oldDatabaseRecord.getSyncCount()
-                        || !StringUtils.equals(databaseRecord.getLastModifiedBy(), oldDatabaseRecord.getLastModifiedBy()))) {
-                    continue;
+        synchronized (flushLock) {
+            // local changes made since the snapshot are compared too
+            flush();
+            SQLiteDatabase db = helper.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (Record record : records) {
+                    /*
+                    * Grab an instance of the record from the local store with the remote change's 
+                    * key and the snapshot version.
+                    * 1) If both are null the remote change is new and we should save. 
+                    * 2) If both exist but the values and sync counts have changed, 
+                    *    it has changed locally and we shouldn't overwrite with the remote changes, 
+                    *    which will still exist in remote. 
+                    * 3) If both exist and the values have not changed, we should save the remote change.
+                    * 4) If the current check exists but it wasn't in the snapshot, we should save.
+                    */
+                    Record databaseRecord = queryRecord(db, identityId, datasetName, record.getKey());
+                    Record oldDatabaseRecord = localRecordMap.get(record.getKey());
+
+                    if (databaseRecord != null && oldDatabaseRecord != null
+                            && (!StringUtils.equals(databaseRecord.getValue(), oldDatabaseRecord.getValue())
+                            || databaseRecord.getSyncCount() != oldDatabaseRecord.getSyncCount()
+                            || !StringUtils.equals(databaseRecord.getLastModifiedBy(), oldDatabaseRecord.getLastModifiedBy()))) {
+                        continue;
+                    }
+                    updateOrInsertRecord(db, identityId, datasetName, record);
                 }
-                updateOrInsertRecord(db, identityId, datasetName, record);
-            }
 
-            db.setTransactionSuccessful();
-        } finally {
-            db.endTransaction();
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+                invalidate(identityId, datasetName);
+            }
         }
     }
 
     @Override
     public void deleteDataset(String identityId, String datasetName) {
-        // drop dataset table, and update metadata accordingly
-        SQLiteDatabase db = helper.getWritableDatabase();
-        db.beginTransaction();
-        try {
-            int rows = db.delete(TABLE_RECORDS,
-                    RecordColumns.IDENTITY_ID + " = ? AND " + RecordColumns.DATASET_NAME + " = ?",
-                    new String[] {
-                            identityId, datasetName
-                    });
-            Log.i(TAG, String.format("%d records were deleted from dataset %s",
-                    rows, datasetName));
-
-            ContentValues values = new ContentValues();
-            values.put(DatasetColumns.LAST_MODIFIED_TIMESTAMP, System.currentTimeMillis());
-            values.put(DatasetColumns.LAST_SYNC_COUNT, String.valueOf(-1));
-            rows = db.update(TABLE_DATASETS, values,
-                    DatasetColumns.IDENTITY_ID + " = ? AND "
-                            + DatasetColumns.DATASET_NAME + " = ?",
-                    new String[] {
-                            identityId, datasetName
-                    });
-            if (rows != 1) {
-                Log.e(TAG, String.format("couldn't mark dataset %s deleted",
-                        datasetName));
-            } else {
-                db.setTransactionSuccessful();
+        synchronized (flushLock) {
+            flush();
+            // drop dataset table, and update metadata accordingly
+            SQLiteDatabase db = helper.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                int rows = db.delete(TABLE_RECORDS,
+                        RecordColumns.IDENTITY_ID + " = ? AND " + RecordColumns.DATASET_NAME + " = ?",
+                        new String[] {
+                                identityId, datasetName
+                        });
+                Log.i(TAG, String.format("%d records were deleted from dataset %s",
+                        rows, datasetName));
+
+                ContentValues values = new ContentValues();
+                values.put(DatasetColumns.LAST_MODIFIED_TIMESTAMP, System.currentTimeMillis());
+                values.put(DatasetColumns.LAST_SYNC_COUNT, String.valueOf(-1));
+                rows = db.update(TABLE_DATASETS, values,
+                        DatasetColumns.IDENTITY_ID + " = ? AND "
+                                + DatasetColumns.DATASET_NAME + " = ?",
+                        new String[] {
+                                identityId, datasetName
+                        });
+                if (rows != 1) {
+                    Log.e(TAG, String.format("couldn't mark dataset %s deleted",
+                            datasetName));
+                } else {
+                    db.setTransactionSuccessful();
+                }
+            } finally {
+                db.endTransaction();
+                invalidate(identityId, datasetName);
             }
-        } finally {
-            db.endTransaction();
         }
-
     }
 
     @Override
@@ -549,20 +883,11 @@ public class SQLiteLocalStorage implements LocalStorage {
     @Override
     public List<Record> getModifiedRecords(String identityId, String datasetName) {
         List<Record> records = new ArrayList<Record>();
-
-        SQLiteDatabase db = helper.getWritableDatabase();
-        Cursor c = db.query(TABLE_RECORDS, RecordColumns.ALL,
-                RecordColumns.IDENTITY_ID + " = ? AND " + RecordColumns.DATASET_NAME + " = ? AND "
-                        + RecordColumns.MODIFIED + " = ?",
-                new String[] {
-                        identityId, datasetName,
-                        String.valueOf(1)
-                }, null, null, null);
-        while (c.moveToNext()) {
-            records.add(cursorToRecord(c));
+        for (Record record : getCachedRecords(identityId, datasetName).values()) {
+            if (record.isModified()) {
+                records.add(record);
+            }
         }
-        c.close();
-
         return records;
     }
 
@@ -570,13 +895,19 @@ public class SQLiteLocalStorage implements LocalStorage {
      * Close the local storage. Any operation called after this will fail.
      */
     public void close() {
+        // cancel the scheduled writes, they are written here
+        writeBehindExecutor.shutdownNow();
+        flush();
         helper.close();
     }
 
     @Override
     public void updateLastSyncCount(String identityId, String datasetName, long lastSyncCount) {
-        SQLiteDatabase db = helper.getWritableDatabase();
+        updateLastSyncCount(helper.getWritableDatabase(), identityId, datasetName, lastSyncCount);
+    }
 
+    private void updateLastSyncCount(SQLiteDatabase db, String identityId, String datasetName,
+            long lastSyncCount) {
         ContentValues values = new ContentValues();
         values.put(DatasetColumns.LAST_SYNC_COUNT, lastSyncCount);
         values.put(DatasetColumns.LAST_SYNC_TIMESTAMP, System.currentTimeMillis());
@@ -593,14 +924,20 @@ public class SQLiteLocalStorage implements LocalStorage {
 
     @Override
     public void wipeData() {
-        SQLiteDatabase db = helper.getWritableDatabase();
-        db.beginTransaction();
-        try {
-            db.execSQL("DELETE FROM " + TABLE_DATASETS);
-            db.execSQL("DELETE FROM " + TABLE_RECORDS);
-            db.setTransactionSuccessful();
-        } finally {
-            db.endTransaction();
+        synchronized (flushLock) {
+            synchronized (cacheLock) {
+                pendingWrites.clear();
+                recordCache.clear();
+            }
+            SQLiteDatabase db = helper.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                db.execSQL("DELETE FROM " + TABLE_DATASETS);
+                db.execSQL("DELETE FROM " + TABLE_RECORDS);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
         }
     }
 
@@ -644,7 +981,7 @@ public class SQLiteLocalStorage implements LocalStorage {
                     record.getKey(), datasetName));
         }
     }
-    
+
     /**
      * Updates dataset with the given record and clears the modified flag. This
      * is used to store remote change into local.
@@ -678,7 +1015,7 @@ public class SQLiteLocalStorage implements LocalStorage {
                     record.getKey(), record.getValue(), datasetName));
         }
     }
-    
+
     /**
      * Checks the metadata of all datasets for one identity id and another to 
      * see if any have the same name.
@@ -706,132 +1043,139 @@ public class SQLiteLocalStorage implements LocalStorage {
 
     @Override
     public synchronized void changeIdentityId(String oldIdentityId, String newIdentityId) {
-        SQLiteDatabase db = helper.getWritableDatabase();
-        db.beginTransaction();
-        try {
-            // if oldIdentityId is unknown, aka the dataset is created prior to
-            // having a cognito id, just reparent datasets from unknown to
-            // newIdentityId
-            if (DatasetUtils.UNKNOWN_IDENTITY_ID.equals(oldIdentityId)) {
-                Set<String> commonDatasetNames = getCommonDatasetNames(oldIdentityId, newIdentityId);
-                // append UNKNOWN to the name of all non unique datasets
-                if(commonDatasetNames.size() > 0){
-                    for(String oldDatasetName : commonDatasetNames){
-                        db.execSQL("UPDATE " + TABLE_DATASETS
-                                + " SET "
-                                + DatasetColumns.DATASET_NAME + " = '" + oldDatasetName + "." + oldIdentityId + "'"
-                                + " WHERE " + DatasetColumns.IDENTITY_ID + " = ?"
-                                + " AND " + DatasetColumns.DATASET_NAME + " = ?",
-                                new String[] {
-                                    oldIdentityId, 
-                                    oldDatasetName
-                                });
-                        
-                        db.execSQL("UPDATE " + TABLE_RECORDS
-                                + " SET "
-                                + RecordColumns.DATASET_NAME + " = '" + oldDatasetName + "." + oldIdentityId + "'"
-                                + " WHERE " + RecordColumns.IDENTITY_ID + " = ?"
-                                + " AND " + RecordColumns.DATASET_NAME + " = ?",
-                                new String[] {
-                                    oldIdentityId,
-                                    oldDatasetName
-                                });
+        synchronized (flushLock) {
+            flush();
+            SQLiteDatabase db = helper.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                // if oldIdentityId is unknown, aka the dataset is created prior to
+                // having a cognito id, just reparent datasets from unknown to
+                // newIdentityId
+                if (DatasetUtils.UNKNOWN_IDENTITY_ID.equals(oldIdentityId)) {
+                    Set<String> commonDatasetNames = getCommonDatasetNames(oldIdentityId, newIdentityId);
+                    // append UNKNOWN to the name of all non unique datasets
+                    if(commonDatasetNames.size() > 0){
+                        for(String oldDatasetName : commonDatasetNames){
+                            db.execSQL("UPDATE " + TABLE_DATASETS
+                                    + " SET "
+                                    + DatasetColumns.DATASET_NAME + " = '" + oldDatasetName + "." + oldIdentityId + "'"
+                                    + " WHERE " + DatasetColumns.IDENTITY_ID + " = ?"
+                                    + " AND " + DatasetColumns.DATASET_NAME + " = ?",
+                                    new String[] {
+                                        oldIdentityId, 
+                                        oldDatasetName
+                                    });
+
+                            db.execSQL("UPDATE " + TABLE_RECORDS
+                                    + " SET "
+                                    + RecordColumns.DATASET_NAME + " = '" + oldDatasetName + "." + oldIdentityId + "'"
+                                    + " WHERE " + RecordColumns.IDENTITY_ID + " = ?"
+                                    + " AND " + RecordColumns.DATASET_NAME + " = ?",
+                                    new String[] {
+                                        oldIdentityId,
+                                        oldDatasetName
+                                    });
+                        }
                     }
-                }
-                
-                // datasets table
-                db.execSQL("UPDATE " + TABLE_DATASETS
-                        + " SET "
-                        + DatasetColumns.IDENTITY_ID + " = '" + newIdentityId + "'"
-                        + " WHERE " + DatasetColumns.IDENTITY_ID + " = ?",
-                        new String[] {
-                            oldIdentityId
-                        });
-                
-                // records table
-                db.execSQL("UPDATE " + TABLE_RECORDS
-                        + " SET "
-                        + RecordColumns.IDENTITY_ID + " = '" + newIdentityId + "'"
-                        + " WHERE " + RecordColumns.IDENTITY_ID + " = ?",
-                        new String[] {
-                            oldIdentityId
-                        });
-            } else {
-
-                // 1. copy oldIdentityId/dataset to newIdentityId/dataset
-                // datasets table
-                db.execSQL("INSERT INTO " + TABLE_DATASETS + "("
-                        + DatasetColumns.IDENTITY_ID + ","
-                        + DatasetColumns.DATASET_NAME + ","
-                        + DatasetColumns.CREATION_TIMESTAMP + ","
-                        + DatasetColumns.STORAGE_SIZE_BYTES + ","
-                        + DatasetColumns.RECORD_COUNT
-                        // last sync count is reset to default 0
-                        + ")"
-                        + " SELECT "
-                        + "'" + newIdentityId + "'," // assign new owner
-                        + DatasetColumns.DATASET_NAME + ","
-                        + DatasetColumns.CREATION_TIMESTAMP + ","
-                        + DatasetColumns.STORAGE_SIZE_BYTES + ","
-                        + DatasetColumns.RECORD_COUNT
-                        + " FROM " + TABLE_DATASETS
-                        + " WHERE " + DatasetColumns.IDENTITY_ID + " = ?",
-                        new String[] {
-                            oldIdentityId
-                        });
-                // records table
-                db.execSQL("INSERT INTO " + TABLE_RECORDS + "("
-                        + RecordColumns.IDENTITY_ID + ","
-                        + RecordColumns.DATASET_NAME + ","
-                        + RecordColumns.KEY + ","
-                        + RecordColumns.VALUE + ","
-                        // sync count is resset to default 0
-                        + RecordColumns.LAST_MODIFIED_TIMESTAMP + ","
-                        + RecordColumns.LAST_MODIFIED_BY + ","
-                        + RecordColumns.DEVICE_LAST_MODIFIED_TIMESTAMP
-                        // modified is reset to default 1 (dirty)
-                        + ")"
-                        + " SELECT "
-                        + "'" + newIdentityId + "'," // assign new owner
-                        + RecordColumns.DATASET_NAME + ","
-                        + RecordColumns.KEY + ","
-                        + RecordColumns.VALUE + ","
-                        + RecordColumns.LAST_MODIFIED_TIMESTAMP + ","
-                        + RecordColumns.LAST_MODIFIED_BY + ","
-                        + RecordColumns.DEVICE_LAST_MODIFIED_TIMESTAMP
-                        + " FROM " + TABLE_RECORDS
-                        + " WHERE " + RecordColumns.IDENTITY_ID + " = ?",
-                        new String[] {
-                            oldIdentityId
-                        });
 
-                // 2. rename oldIdentityId/dataset to
-                // newIdentityId/dataset.oldIdentityId
-                // datasets table
-                db.execSQL("UPDATE " + TABLE_DATASETS
-                        + " SET "
-                        + DatasetColumns.IDENTITY_ID + " = '" + newIdentityId + "', "
-                        + DatasetColumns.DATASET_NAME + " = "
-                        + DatasetColumns.DATASET_NAME + " || '." + oldIdentityId + "'"
-                        + " WHERE " + DatasetColumns.IDENTITY_ID + " = ?",
-                        new String[] {
-                            oldIdentityId
-                        });
-
-                // records table
-                db.execSQL("UPDATE " + TABLE_RECORDS
-                        + " SET "
-                        + RecordColumns.IDENTITY_ID + " = '" + newIdentityId + "', "
-                        + RecordColumns.DATASET_NAME + " = "
-                        + RecordColumns.DATASET_NAME + " || '." + oldIdentityId + "'"
-                        + " WHERE " + RecordColumns.IDENTITY_ID + " = ?",
-                        new String[] {
-                            oldIdentityId
-                        });
+                    // datasets table
+                    db.execSQL("UPDATE " + TABLE_DATASETS
+                            + " SET "
+                            + DatasetColumns.IDENTITY_ID + " = '" + newIdentityId + "'"
+                            + " WHERE " + DatasetColumns.IDENTITY_ID + " = ?",
+                            new String[] {
+                                oldIdentityId
+                            });
+
+                    // records table
+                    db.execSQL("UPDATE " + TABLE_RECORDS
+                            + " SET "
+                            + RecordColumns.IDENTITY_ID + " = '" + newIdentityId + "'"
+                            + " WHERE " + RecordColumns.IDENTITY_ID + " = ?",
+                            new String[] {
+                                oldIdentityId
+                            });
+                } else {
+
+                    // 1. copy oldIdentityId/dataset to newIdentityId/dataset
+                    // datasets table
+                    db.execSQL("INSERT INTO " + TABLE_DATASETS + "("
+                            + DatasetColumns.IDENTITY_ID + ","
+                            + DatasetColumns.DATASET_NAME + ","
+                            + DatasetColumns.CREATION_TIMESTAMP + ","
+                            + DatasetColumns.STORAGE_SIZE_BYTES + ","
+                            + DatasetColumns.RECORD_COUNT
+                            // last sync count is reset to default 0
+                            + ")"
+                            + " SELECT "
+                            + "'" + newIdentityId + "'," // assign new owner
+                            + DatasetColumns.DATASET_NAME + ","
+                            + DatasetColumns.CREATION_TIMESTAMP + ","
+                            + DatasetColumns.STORAGE_SIZE_BYTES + ","
+                            + DatasetColumns.RECORD_COUNT
+                            + " FROM " + TABLE_DATASETS
+                            + " WHERE " + DatasetColumns.IDENTITY_ID + " = ?",
+                            new String[] {
+                                oldIdentityId
+                            });
+                    // records table
+                    db.execSQL("INSERT INTO " + TABLE_RECORDS + "("
+                            + RecordColumns.IDENTITY_ID + ","
+                            + RecordColumns.DATASET_NAME + ","
+                            + RecordColumns.KEY + ","
+                            + RecordColumns.VALUE + ","
+                            // sync count is resset to default 0
+                            + RecordColumns.LAST_MODIFIED_TIMESTAMP + ","
+                            + RecordColumns.LAST_MODIFIED_BY + ","
+                            + RecordColumns.DEVICE_LAST_MODIFIED_TIMESTAMP
+                            // modified is reset to default 1 (dirty)
+                            + ")"
+                            + " SELECT "
+                            + "'" + newIdentityId + "'," // assign new owner
+                            + RecordColumns.DATASET_NAME + ","
+                            + RecordColumns.KEY + ","
+                            + RecordColumns.VALUE + ","
+                            + RecordColumns.LAST_MODIFIED_TIMESTAMP + ","
+                            + RecordColumns.LAST_MODIFIED_BY + ","
+                            + RecordColumns.DEVICE_LAST_MODIFIED_TIMESTAMP
+                            + " FROM " + TABLE_RECORDS
+                            + " WHERE " + RecordColumns.IDENTITY_ID + " = ?",
+                            new String[] {
+                                oldIdentityId
+                            });
+
+                    // 2. rename oldIdentityId/dataset to
+                    // newIdentityId/dataset.oldIdentityId
+                    // datasets table
+                    db.execSQL("UPDATE " + TABLE_DATASETS
+                            + " SET "
+                            + DatasetColumns.IDENTITY_ID + " = '" + newIdentityId + "', "
+                            + DatasetColumns.DATASET_NAME + " = "
+                            + DatasetColumns.DATASET_NAME + " || '." + oldIdentityId + "'"
+                            + " WHERE " + DatasetColumns.IDENTITY_ID + " = ?",
+                            new String[] {
+                                oldIdentityId
+                            });
+
+                    // records table
+                    db.execSQL("UPDATE " + TABLE_RECORDS
+                            + " SET "
+                            + RecordColumns.IDENTITY_ID + " = '" + newIdentityId + "', "
+                            + RecordColumns.DATASET_NAME + " = "
+                            + RecordColumns.DATASET_NAME + " || '." + oldIdentityId + "'"
+                            + " WHERE " + RecordColumns.IDENTITY_ID + " = ?",
+                            new String[] {
+                                oldIdentityId
+                            });
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+                // the datasets of both identities changed
+                synchronized (cacheLock) {
+                    recordCache.clear();
+                }
             }
-            db.setTransactionSuccessful();
-        } finally {
-            db.endTransaction();
         }
     }
 
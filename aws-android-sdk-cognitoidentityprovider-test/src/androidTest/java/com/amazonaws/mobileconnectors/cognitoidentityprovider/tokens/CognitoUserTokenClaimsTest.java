@@ -0,0 +1,94 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.cognitoidentityprovider.tokens;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Base64;
+
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.CognitoUserSession;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.exceptions.CognitoInternalErrorException;
+import com.amazonaws.util.StringUtils;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(AndroidJUnit4.class)
+public class CognitoUserTokenClaimsTest {
+    private static final String HEADER = "eyJ0eXAiOiAiSldUIiwgImFsZyI6IlJTMjU2In0=";
+    private static final String SIGNATURE = "e0VuY3J5cHRlZF9LZXl9";
+
+    private static String jwt(String payload) {
+        return HEADER + "."
+                + Base64.encodeToString(payload.getBytes(StringUtils.UTF8), Base64.URL_SAFE | Base64.NO_WRAP)
+                + "." + SIGNATURE;
+    }
+
+    @Test
+    public void testClaimsAreDecodedOnce() throws Exception {
+        final long exp = System.currentTimeMillis() / 1000L + 3600;
+        final CognitoAccessToken accessToken = new CognitoAccessToken(jwt("{\"exp\": \"" + exp
+                + "\", \"iat\": 1500000000, \"username\": \"DummyUserName\"}"));
+
+        final CognitoJWTClaims claims = accessToken.getClaims();
+        assertSame(claims, accessToken.getClaims());
+        assertEquals(exp * 1000L, accessToken.getExpiration().getTime());
+        assertEquals("DummyUserName", accessToken.getUsername());
+
+        final CognitoIdToken idToken = new CognitoIdToken(jwt("{\"exp\": " + exp
+                + ", \"iat\": 1500000000}"));
+        assertEquals(exp * 1000L, idToken.getExpiration().getTime());
+        assertEquals(1500000000000L, idToken.getIssuedAt().getTime());
+
+        final CognitoUserSession session = new CognitoUserSession(idToken, accessToken,
+                new CognitoRefreshToken("DummyRefreshToken"));
+        assertTrue(session.isValidForThreshold());
+        assertEquals("DummyUserName", session.getUsername());
+    }
+
+    @Test
+    public void testInvalidClaimsAreReported() {
+        final CognitoIdToken idToken = new CognitoIdToken(jwt("{\"exp\": \"never\"}"));
+        try {
+            idToken.getExpiration();
+            fail("expected an exception");
+        } catch (final CognitoInternalErrorException e) {
+            // expected
+        }
+        try {
+            idToken.getNotBefore();
+            fail("expected an exception");
+        } catch (final CognitoInternalErrorException e) {
+            // expected
+        }
+
+        final CognitoAccessToken accessToken = new CognitoAccessToken("not a JWT");
+        try {
+            accessToken.getExpiration();
+            fail("expected an exception");
+        } catch (final CognitoInternalErrorException e) {
+            // expected
+        }
+        assertNull(new CognitoUserSession(idToken, accessToken, null).getUsername());
+        assertFalse(new CognitoUserSession(idToken, accessToken, null).isValidForThreshold());
+    }
+}
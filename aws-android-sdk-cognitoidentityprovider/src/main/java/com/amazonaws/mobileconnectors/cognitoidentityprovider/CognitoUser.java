@@ -117,6 +117,9 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
@@ -188,13 +191,20 @@ public class CognitoUser {
     /**
      * The current session.
      */
-    private CognitoUserSession cipSession;
+    private volatile CognitoUserSession cipSession;
 
     /**
      * Lock for getCachedSession.
      */
     private static final Object GET_CACHED_SESSION_LOCK = new Object();
 
+    /**
+     * The refresh of the session in progress, which concurrent callers of
+     * getCachedSession wait for rather than refreshing the session again.
+     * Guarded by {@link #GET_CACHED_SESSION_LOCK}.
+     */
+    private FutureTask<CognitoUserSession> sessionRefresh;
+
     /**
      * Constructs a new Cognito User from a Cognito user identity pool
      * {@link CognitoUserPool} and userId.
@@ -1115,40 +1125,94 @@ public class CognitoUser {
      *         otherwise.
      */
     protected CognitoUserSession getCachedSession() {
-        synchronized (GET_CACHED_SESSION_LOCK) {
-            if (userId == null) {
-                throw new CognitoNotAuthorizedException("User-ID is null");
-            }
+        if (userId == null) {
+            throw new CognitoNotAuthorizedException("User-ID is null");
+        }
+
+        // The tokens decode their expiration once, so a valid session is
+        // returned without locking.
+        final CognitoUserSession currentSession = cipSession;
+        if (currentSession != null && currentSession.isValidForThreshold()) {
+            return currentSession;
+        }
 
+        final FutureTask<CognitoUserSession> refresh;
+        boolean refreshing = false;
+        synchronized (GET_CACHED_SESSION_LOCK) {
             if (cipSession != null) {
                 if (cipSession.isValidForThreshold()) {
                     return cipSession;
                 }
             }
 
-            final CognitoUserSession cognitoUserSessionFromStore = readCachedTokens();
+            if (sessionRefresh == null) {
+                final CognitoUserSession cognitoUserSessionFromStore = readCachedTokens();
+
+                if (cognitoUserSessionFromStore.isValidForThreshold()) {
+                    cipSession = cognitoUserSessionFromStore;
+                    return cipSession;
+                }
 
-            if (cognitoUserSessionFromStore.isValidForThreshold()) {
-                cipSession = cognitoUserSessionFromStore;
-                return cipSession;
+                if (cognitoUserSessionFromStore.getRefreshToken() == null) {
+                    throw new CognitoNotAuthorizedException("User is not authenticated");
+                }
+                sessionRefresh = new FutureTask<CognitoUserSession>(
+                        new Callable<CognitoUserSession>() {
+                            @Override
+                            public CognitoUserSession call() {
+                                return refreshCachedSession(cognitoUserSessionFromStore);
+                            }
+                        });
+                refreshing = true;
             }
+            refresh = sessionRefresh;
+        }
 
-            if (cognitoUserSessionFromStore.getRefreshToken() != null) {
-                try {
-                    cipSession = refreshSession(cognitoUserSessionFromStore);
-                    cacheTokens(cipSession);
-                    return cipSession;
-                } catch (final NotAuthorizedException nae) {
-                    clearCachedTokens();
-                    throw new CognitoNotAuthorizedException("User is not authenticated", nae);
-                } catch (final UserNotFoundException unfe) {
-                    clearCachedTokens();
-                    throw new CognitoNotAuthorizedException("User does not exist", unfe);
-                } catch (final Exception e) {
-                    throw new CognitoInternalErrorException("Failed to authenticate user", e);
+        // The session is refreshed outside of the lock, once for all callers.
+        if (refreshing) {
+            try {
+                refresh.run();
+            } finally {
+                synchronized (GET_CACHED_SESSION_LOCK) {
+                    sessionRefresh = null;
                 }
             }
-            throw new CognitoNotAuthorizedException("User is not authenticated");
+        }
+        try {
+            return refresh.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CognitoInternalErrorException("Failed to authenticate user", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CognitoInternalErrorException("Failed to authenticate user", e.getCause());
+        }
+    }
+
+    /**
+     * Refreshes the given session, and caches the new one.
+     *
+     * @param cognitoUserSessionFromStore REQUIRED: the session read from the
+     *            store, with a refresh token.
+     * @return the new session.
+     */
+    private CognitoUserSession refreshCachedSession(
+            CognitoUserSession cognitoUserSessionFromStore) {
+        try {
+            final CognitoUserSession session = refreshSession(cognitoUserSessionFromStore);
+            cacheTokens(session);
+            cipSession = session;
+            return session;
+        } catch (final NotAuthorizedException nae) {
+            clearCachedTokens();
+            throw new CognitoNotAuthorizedException("User is not authenticated", nae);
+        } catch (final UserNotFoundException unfe) {
+            clearCachedTokens();
+            throw new CognitoNotAuthorizedException("User does not exist", unfe);
+        } catch (final Exception e) {
+            throw new CognitoInternalErrorException("Failed to authenticate user", e);
         }
     }
 
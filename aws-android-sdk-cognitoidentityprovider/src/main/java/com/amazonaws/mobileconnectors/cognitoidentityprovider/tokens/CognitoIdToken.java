@@ -18,7 +18,6 @@
 package com.amazonaws.mobileconnectors.cognitoidentityprovider.tokens;
 
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.exceptions.CognitoInternalErrorException;
-import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoJWTParser;
 
 import java.util.Date;
 
@@ -27,8 +26,6 @@ import java.util.Date;
  */
 public class CognitoIdToken extends CognitoUserToken {
 
-    private static final int SECS = 1000;
-
     /**
      * Create a new id token.
      *
@@ -54,13 +51,8 @@ public class CognitoIdToken extends CognitoUserToken {
      */
     public Date getExpiration() {
         try {
-            final String claim = CognitoJWTParser.getClaim(super.getToken(), "exp");
-            if (claim == null) {
-                return null;
-            }
-            final long epocTimeSec = Long.parseLong(claim);
-            final long epocTimeMilliSec = epocTimeSec * SECS;
-            return new Date(epocTimeMilliSec);
+            final Long expiration = getClaims().getExpiration();
+            return new Date(expiration != null ? expiration : getClaims().getTime("exp"));
         } catch (final Exception e) {
             throw new CognitoInternalErrorException(e.getMessage(), e);
         }
@@ -73,13 +65,7 @@ public class CognitoIdToken extends CognitoUserToken {
      */
     public Date getNotBefore() {
         try {
-            final String claim = CognitoJWTParser.getClaim(super.getToken(), "nbf");
-            if (claim == null) {
-                return null;
-            }
-            final long epocTimeSec = Long.parseLong(claim);
-            final long epocTimeMilliSec = epocTimeSec * SECS;
-            return new Date(epocTimeMilliSec);
+            return new Date(getClaims().getTime("nbf"));
         } catch (final Exception e) {
             throw new CognitoInternalErrorException(e.getMessage(), e);
         }
@@ -92,13 +78,7 @@ public class CognitoIdToken extends CognitoUserToken {
      */
     public Date getIssuedAt() {
         try {
-            final String claim = CognitoJWTParser.getClaim(super.getToken(), "iat");
-            if (claim == null) {
-                return null;
-            }
-            final long epocTimeSec = Long.parseLong(claim);
-            final long epocTimeMilliSec = epocTimeSec * SECS;
-            return new Date(epocTimeMilliSec);
+            return new Date(getClaims().getTime("iat"));
         } catch (final Exception e) {
             throw new CognitoInternalErrorException(e.getMessage(), e);
         }
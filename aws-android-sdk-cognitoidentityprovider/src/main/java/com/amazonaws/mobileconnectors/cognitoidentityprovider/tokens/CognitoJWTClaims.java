@@ -0,0 +1,108 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.cognitoidentityprovider.tokens;
+
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.exceptions.CognitoParameterInvalidException;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoJWTParser;
+
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The claims of a JWT, decoded once so that reading them, e.g. the expiration
+ * checked before every call with a session, doesn't decode and parse the
+ * token again. Immutable.
+ */
+final class CognitoJWTClaims {
+    private static final int SECS = 1000;
+
+    private final Map<String, String> claims;
+    /* The expiration in milliseconds, or null if it isn't a valid claim. */
+    private final Long expiration;
+
+    private CognitoJWTClaims(Map<String, String> claims) {
+        this.claims = claims;
+        Long exp = null;
+        try {
+            exp = getTime("exp");
+        } catch (final Exception e) {
+            // reported if the expiration is read
+        }
+        this.expiration = exp;
+    }
+
+    /**
+     * Decodes the claims of the given JWT.
+     *
+     * @param jwt REQUIRED: valid JSON Web Token as String.
+     * @return the claims.
+     * @throws CognitoParameterInvalidException if the token is not valid.
+     */
+    static CognitoJWTClaims parse(String jwt) {
+        try {
+            final JSONObject payload = CognitoJWTParser.getPayload(jwt);
+            final Map<String, String> claims = new HashMap<String, String>();
+            final Iterator<String> names = payload.keys();
+            while (names.hasNext()) {
+                final String name = names.next();
+                claims.put(name, payload.get(name).toString());
+            }
+            return new CognitoJWTClaims(Collections.unmodifiableMap(claims));
+        } catch (final Exception e) {
+            throw new CognitoParameterInvalidException("invalid token");
+        }
+    }
+
+    /**
+     * Returns a claim as a String, as
+     * {@link CognitoJWTParser#getClaim(String, String)} does.
+     *
+     * @param name REQUIRED: claim name as String.
+     * @return claim from the JWT as a String.
+     * @throws CognitoParameterInvalidException if the token has no such claim.
+     */
+    String getClaim(String name) {
+        final String claim = claims.get(name);
+        if (claim == null) {
+            throw new CognitoParameterInvalidException("invalid token");
+        }
+        return claim;
+    }
+
+    /**
+     * Returns a claim which is a time in seconds since the epoch.
+     *
+     * @param name REQUIRED: claim name as String.
+     * @return the time in milliseconds since the epoch.
+     * @throws CognitoParameterInvalidException if the token has no such claim.
+     * @throws NumberFormatException if the claim is not a time.
+     */
+    long getTime(String name) {
+        return Long.parseLong(getClaim(name)) * SECS;
+    }
+
+    /**
+     * @return the expiration, or null if it isn't a valid claim, in which
+     *         case {@link #getTime(String)} reports why.
+     */
+    Long getExpiration() {
+        return expiration;
+    }
+}
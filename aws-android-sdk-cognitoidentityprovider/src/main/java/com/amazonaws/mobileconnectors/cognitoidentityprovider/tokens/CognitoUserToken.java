@@ -23,6 +23,8 @@ package com.amazonaws.mobileconnectors.cognitoidentityprovider.tokens;
 public class CognitoUserToken {
     // A Cognito Token - can be an Access, Id or Refresh token
     private final String token;
+    // The claims of the token, decoded the first time they are read
+    private volatile CognitoJWTClaims claims;
 
     /**
      * Constructor.
@@ -36,4 +38,17 @@ public class CognitoUserToken {
     protected String getToken() {
         return token;
     }
+
+    /**
+     * Decodes the claims of this token, which must be a JWT, once.
+     */
+    CognitoJWTClaims getClaims() {
+        CognitoJWTClaims result = claims;
+        if (result == null) {
+            // racing threads decode the same claims
+            result = CognitoJWTClaims.parse(token);
+            claims = result;
+        }
+        return result;
+    }
 }
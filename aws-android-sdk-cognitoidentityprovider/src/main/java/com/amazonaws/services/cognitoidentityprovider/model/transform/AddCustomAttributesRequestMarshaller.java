@@ -19,7 +19,6 @@ import static com.amazonaws.util.StringUtils.UTF8;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.OutputStreamWriter;
-import java.io.StringWriter;
 import java.io.Writer;
 
 import com.amazonaws.AmazonClientException;
@@ -30,7 +29,8 @@ import com.amazonaws.services.cognitoidentityprovider.model.*;
 import com.amazonaws.transform.Marshaller;
 import com.amazonaws.util.BinaryUtils;
 import com.amazonaws.util.StringUtils;
-import com.amazonaws.util.StringInputStream;
+import com.amazonaws.util.ByteArrayContentInputStream;
+import com.amazonaws.util.Utf8ByteArrayWriter;
 import com.amazonaws.util.json.AwsJsonWriter;
 import com.amazonaws.util.json.JsonUtils;
 
@@ -56,8 +56,8 @@ public class AddCustomAttributesRequestMarshaller implements
         String uriResourcePath = "/";
         request.setResourcePath(uriResourcePath);
         try {
-            StringWriter stringWriter = new StringWriter();
-            AwsJsonWriter jsonWriter = JsonUtils.getJsonWriter(stringWriter);
+            Utf8ByteArrayWriter contentWriter = new Utf8ByteArrayWriter();
+            AwsJsonWriter jsonWriter = JsonUtils.getJsonWriter(contentWriter);
             jsonWriter.beginObject();
 
             if (addCustomAttributesRequest.getUserPoolId() != null) {
@@ -81,10 +81,9 @@ public class AddCustomAttributesRequestMarshaller implements
 
             jsonWriter.endObject();
             jsonWriter.close();
-            String snippet = stringWriter.toString();
-            byte[] content = snippet.getBytes(UTF8);
-            request.setContent(new StringInputStream(snippet));
-            request.addHeader("Content-Length", Integer.toString(content.length));
+            ByteArrayContentInputStream content = contentWriter.toInputStream();
+            request.setContent(content);
+            request.addHeader("Content-Length", Integer.toString(content.getLength()));
         } catch (Throwable t) {
             throw new AmazonClientException(
                     "Unable to marshall request to JSON: " + t.getMessage(), t);
@@ -423,6 +423,71 @@ public class AWSKeyValueStoreIntegrationTest extends CoreIntegrationTestBase {
         }
     }
 
+    @Test
+    public void testEditCommit() {
+        awsKeyValueStore.put("session-token", "a-dummy-session-token");
+
+        awsKeyValueStore.edit()
+                .put("access-key", "a-dummy-access-key")
+                .put("secret-access-key", "a-dummy-secret-access-key")
+                .remove("session-token")
+                .commit();
+        assertEquals("a-dummy-access-key", awsKeyValueStore.get("access-key"));
+        assertEquals("a-dummy-secret-access-key", awsKeyValueStore.get("secret-access-key"));
+        assertNull(awsKeyValueStore.get("session-token"));
+
+        AWSKeyValueStore keyStore2 = new AWSKeyValueStore(InstrumentationRegistry.getTargetContext(),
+                DEFAULT_SHARED_PREFERENCES_NAME,
+                true);
+        assertEquals("a-dummy-access-key", keyStore2.get("access-key"));
+        assertEquals("a-dummy-secret-access-key", keyStore2.get("secret-access-key"));
+
+        // a value changed through another store is read again
+        keyStore2.edit()
+                .put("access-key", "b-dummy-access-key")
+                .put("secret-access-key", null)
+                .commit();
+        assertEquals("b-dummy-access-key", awsKeyValueStore.get("access-key"));
+        assertNull(awsKeyValueStore.get("secret-access-key"));
+    }
+
+    @Test
+    public void benchmarkCredentialsRefresh() {
+        final int iterations = 20;
+        final String[] keys = {
+                "accessKey", "secretKey", "sessionToken", "expirationDate", "identityId"
+        };
+
+        long begin = System.nanoTime();
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            for (String key : keys) {
+                awsKeyValueStore.put(key, key + "-" + iteration);
+            }
+        }
+        long end = System.nanoTime();
+        Log.d(TAG, "Credentials refresh with put: " + String.valueOf((end - begin) / iterations) + " ns.");
+
+        begin = System.nanoTime();
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            AWSKeyValueStore.Editor editor = awsKeyValueStore.edit();
+            for (String key : keys) {
+                editor.put(key, key + "-" + iteration);
+            }
+            editor.commit();
+        }
+        end = System.nanoTime();
+        Log.d(TAG, "Credentials refresh with edit: " + String.valueOf((end - begin) / iterations) + " ns.");
+
+        begin = System.nanoTime();
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            for (String key : keys) {
+                assertEquals(key + "-" + (iterations - 1), awsKeyValueStore.get(key));
+            }
+        }
+        end = System.nanoTime();
+        Log.d(TAG, "Credentials read: " + String.valueOf((end - begin) / iterations) + " ns.");
+    }
+
     @Test
     public void benchmarkKeyStoreOperations() {
         long begin = System.nanoTime();
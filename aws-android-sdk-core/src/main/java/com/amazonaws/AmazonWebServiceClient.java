@@ -32,6 +32,7 @@ import com.amazonaws.regions.Region;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.util.AWSRequestMetrics;
 import com.amazonaws.util.AWSRequestMetrics.Field;
+import com.amazonaws.util.AWSRequestMetricsCompact;
 import com.amazonaws.util.AwsHostNameUtils;
 import com.amazonaws.util.Classes;
 import com.amazonaws.util.StringUtils;
@@ -42,6 +43,8 @@ import com.amazonaws.logging.LogFactory;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -97,6 +100,10 @@ public abstract class AmazonWebServiceClient {
     @SuppressWarnings("checkstyle:visibilitymodifier")
     protected int timeOffset;
 
+    /* The service name computed for each client class. */
+    private static final Map<Class<?>, String> SERVICE_NAMES =
+            new ConcurrentHashMap<Class<?>, String>();
+
     /** AWS signer for authenticating requests. */
     private volatile Signer signer;
 
@@ -733,15 +740,21 @@ public abstract class AmazonWebServiceClient {
     protected final void endClientExecution(
             AWSRequestMetrics awsRequestMetrics, Request<?> request,
             Response<?> response, boolean loggingAwsRequestMetrics) {
+        RequestMetricCollector c = null;
         if (request != null) {
             awsRequestMetrics.endEvent(Field.ClientExecuteTime);
             awsRequestMetrics.getTimingInfo().endTiming();
-            final RequestMetricCollector c = findRequestMetricCollector(request);
+            c = findRequestMetricCollector(request);
             c.collectMetrics(request, response);
         }
         if (loggingAwsRequestMetrics) {
             awsRequestMetrics.log();
         }
+        if (c != null && !c.isRetainingRequestMetrics()
+                && awsRequestMetrics instanceof AWSRequestMetricsCompact) {
+            // the metrics are done with, let the next request reuse them
+            ((AWSRequestMetricsCompact) awsRequestMetrics).release();
+        }
     }
 
     /**
@@ -771,7 +784,7 @@ public abstract class AmazonWebServiceClient {
         if (serviceName == null) {
             synchronized (this) {
                 if (serviceName == null) {
-                    serviceName = computeServiceName();
+                    serviceName = computeServiceNameCached();
                     return serviceName;
                 }
             }
@@ -790,6 +803,20 @@ public abstract class AmazonWebServiceClient {
         this.serviceName = serviceName;
     }
 
+    /**
+     * Returns the service name computed for the class of this client, which
+     * only depends on the class, so it is computed once per class.
+     */
+    private String computeServiceNameCached() {
+        final Class<?> clientClass = getClass();
+        String name = SERVICE_NAMES.get(clientClass);
+        if (name == null) {
+            name = computeServiceName();
+            SERVICE_NAMES.put(clientClass, name);
+        }
+        return name;
+    }
+
     /**
      * Returns the service name of this AWS http client by first looking it up
      * from the SDK internal configuration, and if not found, derive it from the
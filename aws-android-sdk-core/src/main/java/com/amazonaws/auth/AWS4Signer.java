@@ -19,6 +19,7 @@ import com.amazonaws.AmazonClientException;
 import com.amazonaws.Request;
 import com.amazonaws.util.AwsHostNameUtils;
 import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.ByteArrayContentInputStream;
 import com.amazonaws.util.DateUtils;
 import com.amazonaws.util.HttpUtils;
 import com.amazonaws.util.StringUtils;
@@ -294,18 +295,45 @@ public class AWS4Signer extends AbstractAWSSigner
         final String stringToSign = getStringToSign(algorithm, timeStamp, scope,
                 getCanonicalRequest(request, contentSha256));
 
+        final byte[] kSigning = newSigningKey(sanitizedCredentials, dateStamp,
+                regionName, serviceName);
+
+        final byte[] signature = sign(stringToSign.getBytes(StringUtils.UTF8), kSigning,
+                SigningAlgorithm.HmacSHA256);
+        return new HeaderSigningResult(timeStamp, scope, kSigning, signature);
+    }
+
+    /**
+     * Returns the signing key for the given credentials and scope. Derived
+     * keys are reused from the {@link AWS4SigningKeyCache} until the date
+     * stamp rolls over or the credentials change.
+     *
+     * @param credentials the sanitized credentials used to sign the request.
+     * @param dateStamp the date stamp of the scope, in yyyyMMdd format.
+     * @param regionName the region name of the scope.
+     * @param serviceName the service name of the scope.
+     * @return the AWS4 signing key.
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    protected final byte[] newSigningKey(AWSCredentials credentials, String dateStamp,
+            String regionName, String serviceName) {
+        final String secretKey = credentials.getAWSSecretKey();
+        final AWS4SigningKeyCache cache = AWS4SigningKeyCache.getDefault();
+        byte[] kSigning = cache.get(secretKey, dateStamp, regionName, serviceName);
+        if (kSigning != null) {
+            return kSigning;
+        }
+
         // AWS4 uses a series of derived keys, formed by hashing different
         // pieces of data
-        final byte[] kSecret = ("AWS4" + sanitizedCredentials.getAWSSecretKey())
-                .getBytes(StringUtils.UTF8);
+        final byte[] kSecret = ("AWS4" + secretKey).getBytes(StringUtils.UTF8);
         final byte[] kDate = sign(dateStamp, kSecret, SigningAlgorithm.HmacSHA256);
         final byte[] kRegion = sign(regionName, kDate, SigningAlgorithm.HmacSHA256);
         final byte[] kService = sign(serviceName, kRegion, SigningAlgorithm.HmacSHA256);
-        final byte[] kSigning = sign(TERMINATOR, kService, SigningAlgorithm.HmacSHA256);
+        kSigning = sign(TERMINATOR, kService, SigningAlgorithm.HmacSHA256);
 
-        final byte[] signature = sign(stringToSign.getBytes(StringUtils.UTF8), kSigning,
-                SigningAlgorithm.HmacSHA256);
-        return new HeaderSigningResult(timeStamp, scope, kSigning, signature);
+        cache.put(secretKey, dateStamp, regionName, serviceName, kSigning);
+        return kSigning;
     }
 
     protected final String getTimeStamp(long dateMilli) {
@@ -352,6 +380,10 @@ public class AWS4Signer extends AbstractAWSSigner
      */
     protected String calculateContentHash(Request<?> request) {
         final InputStream payloadStream = getBinaryRequestPayloadStream(request);
+        if (payloadStream instanceof ByteArrayContentInputStream) {
+            // hashed in place, and only once for all the retries
+            return ((ByteArrayContentInputStream) payloadStream).getContentSha256Hex();
+        }
         payloadStream.mark(-1);
         final String contentSha256 = BinaryUtils.toHex(hash(payloadStream));
         try {
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.auth;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of AWS4 derived signing keys. A signing key only depends on
+ * the secret key, the date stamp, the region and the service, so it can be
+ * reused for every request signed with the same scope on the same day instead
+ * of being re-derived with four HMAC passes per request.
+ * <p>
+ * Entries are keyed by the credential scope and remember the secret key they
+ * were derived from. A lookup with a different secret key (i.e. the
+ * credentials were rotated) is treated as a miss, and storing a key for a new
+ * date stamp drops all the entries of earlier days. The cache is thread-safe.
+ */
+public final class AWS4SigningKeyCache {
+
+    /** Default maximum number of signing keys held by the cache. */
+    public static final int DEFAULT_MAX_ENTRIES = 64;
+
+    private static final AWS4SigningKeyCache DEFAULT_CACHE =
+            new AWS4SigningKeyCache(DEFAULT_MAX_ENTRIES);
+
+    private final InternalCache internalCache;
+
+    /** The most recent date stamp a key was stored for. */
+    private String latestDateStamp;
+
+    /**
+     * Creates a new cache that will contain, at most the specified number of
+     * signing keys.
+     *
+     * @param maxEntries The maximum size of this cache.
+     */
+    public AWS4SigningKeyCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        internalCache = new InternalCache(maxEntries);
+    }
+
+    /**
+     * @return the process wide signing key cache shared by the AWS4 signers.
+     */
+    public static AWS4SigningKeyCache getDefault() {
+        return DEFAULT_CACHE;
+    }
+
+    /**
+     * Returns a copy of the signing key derived for the given secret key and
+     * scope, or null if no such key is cached.
+     *
+     * @param secretKey the AWS secret key the signing key is derived from.
+     * @param dateStamp the date stamp of the scope, in yyyyMMdd format.
+     * @param regionName the region name of the scope.
+     * @param serviceName the service name of the scope.
+     * @return the cached signing key, or null.
+     */
+    public byte[] get(String secretKey, String dateStamp, String regionName,
+            String serviceName) {
+        final String scope = scopeOf(dateStamp, regionName, serviceName);
+        final SigningKey signingKey;
+        synchronized (this) {
+            signingKey = internalCache.get(scope);
+        }
+        if (signingKey == null || !signingKey.secretKey.equals(secretKey)) {
+            return null;
+        }
+        return signingKey.copyOfKey();
+    }
+
+    /**
+     * Stores the signing key derived for the given secret key and scope,
+     * possibly evicting the least recently used entry if the cache is at its
+     * size limit.
+     *
+     * @param secretKey the AWS secret key the signing key is derived from.
+     * @param dateStamp the date stamp of the scope, in yyyyMMdd format.
+     * @param regionName the region name of the scope.
+     * @param serviceName the service name of the scope.
+     * @param key the derived signing key.
+     */
+    public void put(String secretKey, String dateStamp, String regionName,
+            String serviceName, byte[] key) {
+        if (secretKey == null || dateStamp == null || key == null) {
+            return;
+        }
+        final String scope = scopeOf(dateStamp, regionName, serviceName);
+        final SigningKey signingKey = new SigningKey(secretKey, dateStamp, key);
+        synchronized (this) {
+            if (latestDateStamp == null || latestDateStamp.compareTo(dateStamp) < 0) {
+                evictBefore(dateStamp);
+                latestDateStamp = dateStamp;
+            }
+            internalCache.put(scope, signingKey);
+        }
+    }
+
+    /**
+     * Removes all the cached signing keys.
+     */
+    public synchronized void clear() {
+        internalCache.clear();
+        latestDateStamp = null;
+    }
+
+    /**
+     * @return the number of signing keys currently cached.
+     */
+    public synchronized int size() {
+        return internalCache.size();
+    }
+
+    private void evictBefore(String dateStamp) {
+        final Iterator<SigningKey> iterator = internalCache.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().dateStamp.compareTo(dateStamp) < 0) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static String scopeOf(String dateStamp, String regionName, String serviceName) {
+        return dateStamp + "/" + regionName + "/" + serviceName;
+    }
+
+    private static final class SigningKey {
+        private final String secretKey;
+        private final String dateStamp;
+        private final byte[] key;
+
+        SigningKey(String secretKey, String dateStamp, byte[] key) {
+            this.secretKey = secretKey;
+            this.dateStamp = dateStamp;
+            this.key = new byte[key.length];
+            System.arraycopy(key, 0, this.key, 0, key.length);
+        }
+
+        byte[] copyOfKey() {
+            final byte[] keyCopy = new byte[key.length];
+            System.arraycopy(key, 0, keyCopy, 0, key.length);
+            return keyCopy;
+        }
+    }
+
+    /**
+     * Access ordered LinkedHashMap that evicts the least recently used entry
+     * once the max size has been reached.
+     */
+    private static final class InternalCache extends LinkedHashMap<String, SigningKey> {
+        private static final long serialVersionUID = 1L;
+        private static final float LOAD_FACTOR = 0.75f;
+        private final int maxSize;
+
+        InternalCache(int maxSize) {
+            super(maxSize, LOAD_FACTOR, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SigningKey> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
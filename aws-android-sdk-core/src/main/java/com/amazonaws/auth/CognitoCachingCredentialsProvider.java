@@ -463,9 +463,15 @@ public class CognitoCachingCredentialsProvider
         return identityId;
     }
 
+    /**
+     * Returns the cached session credentials if they are still valid, and
+     * otherwise fetches and saves new ones. Called by
+     * {@link #getCredentials()} with the write lock of {@link #credentialsLock}
+     * held, either for a caller or to refresh the credentials in the
+     * background.
+     */
     @Override
-    public AWSSessionCredentials getCredentials() {
-    	credentialsLock.writeLock().lock();
+    AWSSessionCredentials fetchCredentials() {
         try {
             // return only if the credentials are valid
         	if (sessionCredentials == null) {
@@ -478,7 +484,7 @@ public class CognitoCachingCredentialsProvider
         	// super will validate loaded credentials
         	// and fetch if necessary
             LOG.debug("Making a network call to fetch credentials.");
-        	super.getCredentials();
+        	super.fetchCredentials();
 
         	// null check before saving credentials
         	if (sessionCredentialsExpiration != null) {
@@ -492,14 +498,11 @@ public class CognitoCachingCredentialsProvider
                 // If the fetch failed then the credentials don't
                 // match the current id, so clear them
                 super.setIdentityId(null);
-                super.getCredentials();
-                return sessionCredentials;
+                return super.fetchCredentials();
             }
             else {
                 throw e;
             }
-        } finally {
-        	credentialsLock.writeLock().unlock();
         }
     }
     
@@ -559,10 +562,12 @@ public class CognitoCachingCredentialsProvider
     	try {
 	        super.clearCredentials();
             LOG.debug("Clearing credentials from SharedPreferences");
-            awsKeyValueStore.remove(namespace(AK_KEY));
-            awsKeyValueStore.remove(namespace(SK_KEY));
-            awsKeyValueStore.remove(namespace(ST_KEY));
-            awsKeyValueStore.remove(namespace(EXP_KEY));
+            awsKeyValueStore.edit()
+                    .remove(namespace(AK_KEY))
+                    .remove(namespace(SK_KEY))
+                    .remove(namespace(ST_KEY))
+                    .remove(namespace(EXP_KEY))
+                    .commit();
     	} finally {
     		credentialsLock.writeLock().unlock();
     	}
@@ -637,10 +642,12 @@ public class CognitoCachingCredentialsProvider
     private void saveCredentials(final AWSSessionCredentials sessionCredentials, final long time) {
         LOG.debug("Saving credentials to SharedPreferences");
         if (sessionCredentials != null) {
-            awsKeyValueStore.put(namespace(AK_KEY), sessionCredentials.getAWSAccessKeyId());
-            awsKeyValueStore.put(namespace(SK_KEY), sessionCredentials.getAWSSecretKey());
-            awsKeyValueStore.put(namespace(ST_KEY), sessionCredentials.getSessionToken());
-            awsKeyValueStore.put(namespace(EXP_KEY), String.valueOf(time));
+            awsKeyValueStore.edit()
+                    .put(namespace(AK_KEY), sessionCredentials.getAWSAccessKeyId())
+                    .put(namespace(SK_KEY), sessionCredentials.getAWSSecretKey())
+                    .put(namespace(ST_KEY), sessionCredentials.getSessionToken())
+                    .put(namespace(EXP_KEY), String.valueOf(time))
+                    .commit();
         }
     }
 
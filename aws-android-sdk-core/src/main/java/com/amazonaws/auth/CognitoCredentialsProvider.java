@@ -38,6 +38,11 @@ import com.amazonaws.logging.Log;
 import com.amazonaws.logging.LogFactory;
 import org.json.JSONObject;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.Date;
 import java.util.HashMap;
@@ -82,7 +87,7 @@ public class CognitoCredentialsProvider implements AWSCredentialsProvider {
     protected AWSSecurityTokenService securityTokenService;
 
     protected int sessionDuration;
-    protected int refreshThreshold;
+    protected volatile int refreshThreshold;
     protected String unauthRoleArn;
     protected String authRoleArn;
     protected String customRoleArn;
@@ -91,6 +96,31 @@ public class CognitoCredentialsProvider implements AWSCredentialsProvider {
 
     protected final ReentrantReadWriteLock credentialsLock;
 
+    /**
+     * Runs the refreshes started while the current session credentials are
+     * still valid, shared by all the providers.
+     */
+    private static final ExecutorService REFRESH_EXECUTOR = Executors
+            .newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r);
+                    t.setName("android-sdk-credentials-refresh-thread");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+
+    /**
+     * The session credentials last returned while holding the lock, read by
+     * {@link #getCredentials()} without taking the lock. Null whenever the
+     * credentials have to be looked at under the lock again.
+     */
+    private volatile CredentialsSnapshot credentialsSnapshot;
+
+    /** Set while a refresh is running in the background. */
+    private final AtomicBoolean refreshInProgress = new AtomicBoolean(false);
+
     /**
      * Constructs a new {@link CognitoCredentialsProvider}, which will use the
      * specified Amazon Cognito identity pool to make a request, using the basic
@@ -435,6 +465,7 @@ public class CognitoCredentialsProvider implements AWSCredentialsProvider {
         credentialsLock.writeLock().lock();
         try {
             sessionCredentialsExpiration = expiration;
+            credentialsSnapshot = null;
         } finally {
             credentialsLock.writeLock().unlock();
         }
@@ -457,20 +488,98 @@ public class CognitoCredentialsProvider implements AWSCredentialsProvider {
      * If the current session has expired/credentials are invalid, a new session
      * is started, establishing the credentials. In either case, those
      * credentials are returned
+     * <p>
+     * Valid credentials are returned without taking any lock. Once they are
+     * within the refresh threshold of expiring, a new session is started in
+     * the background while the current credentials keep being returned;
+     * callers only wait for a new session when the current one has expired.
+     * </p>
      */
     @Override
     public AWSSessionCredentials getCredentials() {
+        final CredentialsSnapshot snapshot = credentialsSnapshot;
+        if (snapshot != null) {
+            final long timeRemaining = snapshot.getTimeRemaining();
+            if (timeRemaining >= refreshThreshold * 1000L) {
+                return snapshot.credentials;
+            }
+            if (timeRemaining > 0) {
+                refreshInBackground();
+                return snapshot.credentials;
+            }
+        }
+
         credentialsLock.writeLock().lock();
         try {
-            if (needsNewSession()) {
-                startSession();
-            }
-            return sessionCredentials;
+            final AWSSessionCredentials credentials = fetchCredentials();
+            publishCredentials();
+            return credentials;
         } finally {
             credentialsLock.writeLock().unlock();
         }
     }
 
+    /**
+     * Returns the session credentials, starting a new session first if the
+     * current one needs to be refreshed. Called with the write lock of
+     * {@link #credentialsLock} held.
+     *
+     * @return the session credentials
+     */
+    AWSSessionCredentials fetchCredentials() {
+        if (needsNewSession()) {
+            startSession();
+        }
+        return sessionCredentials;
+    }
+
+    /**
+     * Makes the current session credentials available to
+     * {@link #getCredentials()} without the lock. Called with the write lock of
+     * {@link #credentialsLock} held.
+     */
+    private void publishCredentials() {
+        if (sessionCredentials != null && sessionCredentialsExpiration != null) {
+            credentialsSnapshot = new CredentialsSnapshot(sessionCredentials,
+                    sessionCredentialsExpiration.getTime());
+        } else {
+            credentialsSnapshot = null;
+        }
+    }
+
+    /**
+     * Starts a new session in the background, unless one is already being
+     * started. A failure is only logged, as the current credentials are still
+     * valid and the session is started again once they expire.
+     */
+    private void refreshInBackground() {
+        if (!refreshInProgress.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            REFRESH_EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        credentialsLock.writeLock().lock();
+                        try {
+                            fetchCredentials();
+                            publishCredentials();
+                        } finally {
+                            credentialsLock.writeLock().unlock();
+                        }
+                    } catch (final RuntimeException e) {
+                        log.warn("Failed to refresh the session credentials in the background", e);
+                    } finally {
+                        refreshInProgress.set(false);
+                    }
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            refreshInProgress.set(false);
+        }
+    }
+
     /**
      * Set the duration of the session credentials created by this client in
      * seconds. Values must be supported by AssumeRoleWithWebIdentityRequest.
@@ -630,6 +739,7 @@ public class CognitoCredentialsProvider implements AWSCredentialsProvider {
         credentialsLock.writeLock().lock();
         try {
             startSession();
+            publishCredentials();
         } finally {
             credentialsLock.writeLock().unlock();
         }
@@ -658,6 +768,7 @@ public class CognitoCredentialsProvider implements AWSCredentialsProvider {
     public void clearCredentials() {
         credentialsLock.writeLock().lock();
         try {
+            credentialsSnapshot = null;
             sessionCredentials = null;
             sessionCredentialsExpiration = null;
         } finally {
@@ -896,4 +1007,27 @@ public class CognitoCredentialsProvider implements AWSCredentialsProvider {
     public void unregisterIdentityChangedListener(IdentityChangedListener listener) {
         identityProvider.unregisterIdentityChangedListener(listener);
     }
+
+    /**
+     * Session credentials with their expiration time, published together.
+     */
+    private static final class CredentialsSnapshot {
+        private final AWSSessionCredentials credentials;
+        private final long expirationTime;
+
+        CredentialsSnapshot(AWSSessionCredentials credentials, long expirationTime) {
+            this.credentials = credentials;
+            this.expirationTime = expirationTime;
+        }
+
+        /**
+         * Returns the time left before the credentials expire, in
+         * milliseconds, allowing for the global time offset.
+         */
+        long getTimeRemaining() {
+            final long currentTime = System.currentTimeMillis()
+                    - SDKGlobalConfiguration.getGlobalTimeOffset() * 1000;
+            return expirationTime - currentTime;
+        }
+    }
 }
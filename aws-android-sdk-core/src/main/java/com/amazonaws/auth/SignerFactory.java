@@ -115,7 +115,7 @@ public final class SignerFactory {
             throw new IllegalArgumentException();
         Signer signer;
         try {
-            signer = signerClass.newInstance();
+            signer = newSigner(signerClass);
         } catch (InstantiationException ex) {
             throw new IllegalStateException(
                     "Cannot create an instance of " + signerClass.getName(),
@@ -131,4 +131,22 @@ public final class SignerFactory {
         }
         return signer;
     }
+
+    /**
+     * Creates a signer of the given class. The standard signers, one of which
+     * is created for every client, are constructed without reflection.
+     */
+    private static Signer newSigner(Class<? extends Signer> signerClass)
+            throws InstantiationException, IllegalAccessException {
+        if (signerClass == AWS4Signer.class) {
+            return new AWS4Signer();
+        } else if (signerClass == QueryStringSigner.class) {
+            return new QueryStringSigner();
+        } else if (signerClass == AWS3Signer.class) {
+            return new AWS3Signer();
+        } else if (signerClass == NoOpSigner.class) {
+            return new NoOpSigner();
+        }
+        return signerClass.newInstance();
+    }
 }
@@ -15,6 +15,12 @@
 
 package com.amazonaws.auth;
 
+import com.amazonaws.AmazonClientException;
+
+import java.security.NoSuchAlgorithmException;
+
+import javax.crypto.Mac;
+
 /** Enum for the signing algorithm. */
 public enum SigningAlgorithm {
 
@@ -24,4 +30,33 @@ public enum SigningAlgorithm {
     /** HMAC SHA 256. */
     HmacSHA256;
 
+    private final ThreadLocal<Mac> macReference;
+
+    private SigningAlgorithm() {
+        final String algorithmName = this.toString();
+        macReference = new ThreadLocal<Mac>() {
+            @Override
+            protected Mac initialValue() {
+                try {
+                    return Mac.getInstance(algorithmName);
+                } catch (final NoSuchAlgorithmException e) {
+                    throw new AmazonClientException(
+                            "Unable to fetch Mac instance for Algorithm "
+                                    + algorithmName + e.getMessage(),
+                            e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the thread local reference for the {@link Mac} of this
+     * algorithm. The instance must be initialized with a key before each use
+     * and must not be shared with other threads.
+     *
+     * @return the Mac instance of the current thread.
+     */
+    public Mac getMac() {
+        return macReference.get();
+    }
 }
@@ -24,13 +24,24 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Factory for creating request/response handler chains.
  */
 public class HandlerChainFactory {
 
+    /*
+     * The handler classes listed in each resource, keyed by handler API and
+     * resource. Shared by all clients so that the resources are only parsed
+     * once per process.
+     */
+    private static final Map<String, List<Class<?>>> HANDLER_CLASSES =
+            new ConcurrentHashMap<String, List<Class<?>>>();
+
     /**
      * For backward compatibility, constructs a new request handler chain
      * adapted to {@link RequestHandler2} by analyzing the specified classpath
@@ -58,16 +69,56 @@ public class HandlerChainFactory {
         return createRequestHandlerChain(resource, RequestHandler2.class);
     }
 
-    @SuppressWarnings("checkstyle:emptyblock")
     private List<RequestHandler2> createRequestHandlerChain(String resource,
             Class<?> handlerApiClass) {
         List<RequestHandler2> handlers = new ArrayList<RequestHandler2>();
+        try {
+            for (Class<?> requestHandlerClass : getHandlerClasses(resource, handlerApiClass)) {
+                Object requestHandlerObject = requestHandlerClass.newInstance();
+                if (handlerApiClass == RequestHandler2.class) {
+                    RequestHandler2 h = (RequestHandler2) requestHandlerObject;
+                    handlers.add(h);
+                } else if (handlerApiClass == RequestHandler.class) {
+                    RequestHandler h = (RequestHandler) requestHandlerObject;
+                    handlers.add(RequestHandler2.adapt(h));
+                } else {
+                    throw new IllegalStateException();
+                }
+            }
+        } catch (Exception e) {
+            throw new AmazonClientException(
+                    "Unable to instantiate request handler chain for client: "
+                            + e.getMessage(), e);
+        }
+        return handlers;
+    }
+
+    /**
+     * Returns the handler classes listed in the given resource, which is only
+     * read and resolved the first time. Handlers are still instantiated for
+     * each chain since they may hold state.
+     */
+    private List<Class<?>> getHandlerClasses(String resource, Class<?> handlerApiClass)
+            throws IOException, ClassNotFoundException {
+        final String key = handlerApiClass.getName() + ":" + resource;
+        List<Class<?>> handlerClasses = HANDLER_CLASSES.get(key);
+        if (handlerClasses == null) {
+            handlerClasses = loadHandlerClasses(resource, handlerApiClass);
+            HANDLER_CLASSES.put(key, handlerClasses);
+        }
+        return handlerClasses;
+    }
+
+    @SuppressWarnings("checkstyle:emptyblock")
+    private List<Class<?>> loadHandlerClasses(String resource, Class<?> handlerApiClass)
+            throws IOException, ClassNotFoundException {
+        List<Class<?>> handlerClasses = new ArrayList<Class<?>>();
         BufferedReader reader = null;
 
         try {
             InputStream input = getClass().getResourceAsStream(resource);
             if (input == null)
-                return handlers;
+                return Collections.emptyList();
 
             reader = new BufferedReader(new InputStreamReader(input, StringUtils.UTF8));
             while (true) {
@@ -80,18 +131,7 @@ public class HandlerChainFactory {
                 Class<?> requestHandlerClass = ClassLoaderHelper.loadClass(
                         requestHandlerClassName,
                         handlerApiClass, getClass());
-                Object requestHandlerObject = requestHandlerClass.newInstance();
-                if (handlerApiClass.isInstance(requestHandlerObject)) {
-                    if (handlerApiClass == RequestHandler2.class) {
-                        RequestHandler2 h = (RequestHandler2) requestHandlerObject;
-                        handlers.add(h);
-                    } else if (handlerApiClass == RequestHandler.class) {
-                        RequestHandler h = (RequestHandler) requestHandlerObject;
-                        handlers.add(RequestHandler2.adapt(h));
-                    } else {
-                        throw new IllegalStateException();
-                    }
-                } else {
+                if (!handlerApiClass.isAssignableFrom(requestHandlerClass)) {
                     throw new AmazonClientException(
                             "Unable to instantiate request handler chain for client.  "
                                     + "Listed request handler ('"
@@ -99,11 +139,8 @@ public class HandlerChainFactory {
                                     + "does not implement the "
                                     + handlerApiClass + " API.");
                 }
+                handlerClasses.add(requestHandlerClass);
             }
-        } catch (Exception e) {
-            throw new AmazonClientException(
-                    "Unable to instantiate request handler chain for client: "
-                            + e.getMessage(), e);
         } finally {
             try {
                 if (reader != null) {
@@ -112,6 +149,6 @@ public class HandlerChainFactory {
             } catch (IOException e) {
             }
         }
-        return handlers;
+        return Collections.unmodifiableList(handlerClasses);
     }
 }
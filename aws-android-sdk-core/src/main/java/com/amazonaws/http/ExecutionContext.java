@@ -19,7 +19,9 @@ import com.amazonaws.AmazonWebServiceClient;
 import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.auth.Signer;
 import com.amazonaws.handlers.RequestHandler2;
+import com.amazonaws.metrics.AwsSdkMetrics;
 import com.amazonaws.util.AWSRequestMetrics;
+import com.amazonaws.util.AWSRequestMetricsCompact;
 import com.amazonaws.util.AWSRequestMetricsFullSupport;
 
 import java.net.URI;
@@ -62,9 +64,13 @@ public class ExecutionContext {
     public ExecutionContext(List<RequestHandler2> requestHandler2s,
             boolean isMetricEnabled, AmazonWebServiceClient awsClient) {
         this.requestHandler2s = requestHandler2s;
-        awsRequestMetrics = isMetricEnabled
-                ? new AWSRequestMetricsFullSupport()
-                : new AWSRequestMetrics();
+        if (!isMetricEnabled) {
+            awsRequestMetrics = new AWSRequestMetrics();
+        } else if (AwsSdkMetrics.isCompactRequestMetricsEnabled()) {
+            awsRequestMetrics = new AWSRequestMetricsCompact();
+        } else {
+            awsRequestMetrics = new AWSRequestMetricsFullSupport();
+        }
         this.awsClient = awsClient;
     }
 
@@ -20,6 +20,7 @@ import java.util.regex.PatternSyntaxException;
 
 public class HostRegexToRegionMapping {
     private final String hostNameRegex;
+    private final Pattern hostNamePattern;
     private final String regionName;
 
     public HostRegexToRegionMapping(
@@ -29,8 +30,9 @@ public class HostRegexToRegionMapping {
                     "Invalid HostRegexToRegionMapping configuration: " +
                             "hostNameRegex must be non-empty");
         }
+        final Pattern pattern;
         try {
-            Pattern.compile(hostNameRegex);
+            pattern = Pattern.compile(hostNameRegex);
         } catch (PatternSyntaxException e) {
             throw new IllegalArgumentException(
                     "Invalid HostRegexToRegionMapping configuration: " +
@@ -43,6 +45,7 @@ public class HostRegexToRegionMapping {
                             "regionName must be non-empty");
         }
         this.hostNameRegex = hostNameRegex;
+        this.hostNamePattern = pattern;
         this.regionName = regionName;
     }
 
@@ -50,6 +53,14 @@ public class HostRegexToRegionMapping {
         return hostNameRegex;
     }
 
+    /**
+     * @return the host name regex, compiled once when this mapping was
+     *         created.
+     */
+    public Pattern getHostNamePattern() {
+        return hostNamePattern;
+    }
+
     public String getRegionName() {
         return regionName;
     }
@@ -28,8 +28,10 @@ import java.security.SecureRandom;
 import java.security.spec.AlgorithmParameterSpec;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.crypto.Cipher;
 import javax.crypto.spec.GCMParameterSpec;
@@ -49,7 +51,14 @@ public class AWSKeyValueStore {
     // In-memory store operates on the key passed in and does not use the suffixes.
     private Map<String, String> cache;
 
-    private boolean isPersistenceEnabled;
+    // Values decrypted by this store, keyed by the data key, with the encrypted
+    // data they were decrypted from. A value is only returned while the same
+    // encrypted data is still in SharedPreferences, so reading a value again
+    // doesn't have to decrypt it or take the lock of the store.
+    private final Map<String, DecryptedValue> decryptedValues =
+            new ConcurrentHashMap<String, DecryptedValue>();
+
+    private volatile boolean isPersistenceEnabled;
     Context context;
     SharedPreferences sharedPreferencesForData;
     private final String sharedPreferencesName;
@@ -102,6 +111,11 @@ public class AWSKeyValueStore {
 
     private static final int AWS_KEY_VALUE_STORE_VERSION = 1;
 
+    /**
+     * Marks a key removed in an {@link Editor}, as opposed to one set to null.
+     */
+    private static final Object REMOVED_VALUE = new Object();
+
     private int apiLevel;
 
     private static Map<String, String> getCacheForKey(String key) {
@@ -146,6 +160,7 @@ public class AWSKeyValueStore {
         try {
             boolean previousIsPersistenceEnabled = this.isPersistenceEnabled;
             this.isPersistenceEnabled = isPersistenceEnabled;
+            decryptedValues.clear();
             // Transitioning from false to true for isPersistenceEnabled
             if (isPersistenceEnabled && !previousIsPersistenceEnabled) {
                 this.sharedPreferencesForData = context.getSharedPreferences(sharedPreferencesName,
@@ -200,14 +215,31 @@ public class AWSKeyValueStore {
      * Only if the in-memory cache does not contain the data,
      * go to the persistent store, read the data and return.
      *
+     * A value that was already decrypted is returned without taking the lock
+     * of the store, as long as the encrypted data in the persistent store
+     * hasn't changed since.
+     *
      * @param dataKey key that identifies the value to be retrieved.
      * @return the value corresponding to the key.
      */
-    public synchronized String get(final String dataKey) {
+    public String get(final String dataKey) {
         if (dataKey == null) {
             return null;
         }
 
+        if (isPersistenceEnabled) {
+            final DecryptedValue decryptedValue = decryptedValues.get(dataKey);
+            final SharedPreferences sharedPreferences = sharedPreferencesForData;
+            if (decryptedValue != null && sharedPreferences != null
+                    && decryptedValue.encryptedData.equals(sharedPreferences.getString(
+                            getDataKeyUsedInPersistentStore(dataKey), null))) {
+                return decryptedValue.value;
+            }
+        }
+        return getFromStore(dataKey);
+    }
+
+    private synchronized String getFromStore(final String dataKey) {
         if (!isPersistenceEnabled) {
             return cache.get(dataKey);
         }
@@ -258,6 +290,10 @@ public class AWSKeyValueStore {
 
             // Update the in-memory cache after read from disk.
             cache.put(dataKey, decryptedDataInString);
+            if (encryptedData != null && decryptedDataInString != null) {
+                decryptedValues.put(dataKey,
+                        new DecryptedValue(encryptedData, decryptedDataInString));
+            }
             return decryptedDataInString;
         } catch (Exception ex) {
             logger.error("Error in retrieving value for dataKey = " + dataKey, ex);
@@ -281,35 +317,192 @@ public class AWSKeyValueStore {
      * @param dataKey key that identifies the value
      * @param value data that needs to be stored
      */
-    public synchronized void put(final String dataKey, final String value) {
-        if (dataKey == null) {
-            logger.error("dataKey is null.");
-            return;
+    public void put(final String dataKey, final String value) {
+        edit().put(dataKey, value).commit();
+    }
+
+    /**
+     * Starts a batch of changes to the key-value store, applied together by
+     * {@link Editor#commit()}. The values of a batch are encrypted with the
+     * same encryption key and cipher and written to the persistent store at
+     * once, instead of once per value.
+     *
+     * <pre>
+     * awsKeyValueStore.edit()
+     *         .put(&quot;accessKey&quot;, accessKey)
+     *         .put(&quot;secretKey&quot;, secretKey)
+     *         .commit();
+     * </pre>
+     *
+     * @return an editor for a batch of changes.
+     */
+    public Editor edit() {
+        return new Editor();
+    }
+
+    /**
+     * A batch of changes to the key-value store, obtained from
+     * {@link AWSKeyValueStore#edit()}. Nothing is changed until
+     * {@link #commit()} is called.
+     */
+    public final class Editor {
+        private final Map<String, Object> changes = new LinkedHashMap<String, Object>();
+
+        private Editor() {
+        }
+
+        /**
+         * Stores the key-value pair on commit, as {@link AWSKeyValueStore#put}
+         * does. A null value removes the key-value pair.
+         *
+         * @param dataKey key that identifies the value
+         * @param value data that needs to be stored
+         * @return this editor.
+         */
+        public Editor put(final String dataKey, final String value) {
+            if (dataKey == null) {
+                logger.error("dataKey is null.");
+                return this;
+            }
+            changes.remove(dataKey);
+            changes.put(dataKey, value);
+            return this;
+        }
+
+        /**
+         * Removes the key-value pair on commit, as
+         * {@link AWSKeyValueStore#remove} does.
+         *
+         * @param dataKey identifies the key-value pair to be removed
+         * @return this editor.
+         */
+        public Editor remove(final String dataKey) {
+            if (dataKey == null) {
+                logger.error("dataKey is null.");
+                return this;
+            }
+            changes.remove(dataKey);
+            changes.put(dataKey, REMOVED_VALUE);
+            return this;
         }
 
+        /**
+         * Applies the changes of this batch, first in memory and then, if
+         * isPersistenceEnabled is true, in a single write to the persistent
+         * store.
+         *
+         * In cases of error while persisting to disk, the subsequent read of
+         * the value that couldn't be stored will get null.
+         */
+        public void commit() {
+            if (!changes.isEmpty()) {
+                AWSKeyValueStore.this.commit(changes);
+            }
+        }
+    }
+
+    private synchronized void commit(final Map<String, Object> changes) {
         // Irrespective of persistence is enabled or not, store in memory.
-        cache.put(dataKey, value);
+        for (final Map.Entry<String, Object> change : changes.entrySet()) {
+            if (change.getValue() == REMOVED_VALUE) {
+                cache.remove(change.getKey());
+            } else {
+                cache.put(change.getKey(), (String) change.getValue());
+            }
+        }
         if (!isPersistenceEnabled) {
             return;
         }
 
         // Persistence
         // Convert string to bytes -> Encrypt -> Base64 encode -> Store
-        if (value == null) {
-            logger.debug("Value is null. Removing the data, IV and version from SharedPreferences");
-            cache.remove(dataKey);
-            remove(dataKey);
-            return;
-        }
+        final SharedPreferences.Editor editor = sharedPreferencesForData.edit();
+        Key encryptionKey = null;
+        Cipher cipher = null;
+        boolean canEncrypt = true;
+        for (final Map.Entry<String, Object> change : changes.entrySet()) {
+            final String dataKey = change.getKey();
+
+            // dataKey becomes dataKey.encrypted
+            final String dataKeyInPersistentStore = getDataKeyUsedInPersistentStore(dataKey);
+            decryptedValues.remove(dataKey);
+
+            if (change.getValue() == null || change.getValue() == REMOVED_VALUE) {
+                if (change.getValue() == null) {
+                    logger.debug("Value is null. Removing the data, IV and version from SharedPreferences");
+                }
+                cache.remove(dataKey);
+                editor.remove(dataKeyInPersistentStore)
+                        .remove(dataKeyInPersistentStore + SHARED_PREFERENCES_IV_SUFFIX)
+                        .remove(dataKeyInPersistentStore + SHARED_PREFERENCES_STORE_VERSION_SUFFIX);
+                continue;
+            }
 
-        // dataKey becomes dataKey.encrypted
-        String dataKeyInPersistentStore = getDataKeyUsedInPersistentStore(dataKey);
+            if (encryptionKey == null && canEncrypt) {
+                encryptionKey = getOrGenerateEncryptionKey();
+                canEncrypt = encryptionKey != null;
+            }
+            if (!canEncrypt) {
+                logger.error("Error in storing value for dataKey = " + dataKey +
+                        ". This data has not been stored in the persistent store.");
+                // Don't leave a previous value behind in the persistent store.
+                editor.remove(dataKeyInPersistentStore)
+                        .remove(dataKeyInPersistentStore + SHARED_PREFERENCES_IV_SUFFIX)
+                        .remove(dataKeyInPersistentStore + SHARED_PREFERENCES_STORE_VERSION_SUFFIX);
+                continue;
+            }
+            final String value = (String) change.getValue();
+
+            try {
+                if (cipher == null) {
+                    cipher = Cipher.getInstance(CIPHER_AES_GCM_NOPADDING);
+                }
+
+                // Encrypt
+                byte[] iv = generateInitializationVector();
+                if (iv == null) {
+                    throw new Exception("The generated IV for dataKey = " + dataKey +" is null.");
+                }
 
+                String base64EncodedEncryptedString = encrypt(cipher, encryptionKey,
+                        getAlgorithmParameterSpecForIV(iv),
+                        value);
+                if (base64EncodedEncryptedString == null) {
+                    throw new Exception("Error in encrypting the value for dataKey = " + dataKey);
+                }
+
+                // Persist
+                String base64EncodedIV = Base64.encodeAsString(iv);
+                if (base64EncodedIV == null) {
+                    throw new Exception("Error in Base64 encoding the IV for dataKey = " + dataKey);
+                }
+
+                editor.putString(dataKeyInPersistentStore, base64EncodedEncryptedString) // Data
+                        .putString(dataKeyInPersistentStore + SHARED_PREFERENCES_IV_SUFFIX, base64EncodedIV) // IV
+                        .putString(dataKeyInPersistentStore + SHARED_PREFERENCES_STORE_VERSION_SUFFIX, String.valueOf(AWS_KEY_VALUE_STORE_VERSION)); // KeyValueStore Version
+                decryptedValues.put(dataKey, new DecryptedValue(base64EncodedEncryptedString, value));
+            } catch (Exception ex) {
+                logger.error("Error in storing value for dataKey = " + dataKey +
+                        ". This data has not been stored in the persistent store.", ex);
+                // Don't leave a previous value behind in the persistent store.
+                editor.remove(dataKeyInPersistentStore)
+                        .remove(dataKeyInPersistentStore + SHARED_PREFERENCES_IV_SUFFIX)
+                        .remove(dataKeyInPersistentStore + SHARED_PREFERENCES_STORE_VERSION_SUFFIX);
+            }
+        }
+        editor.apply();
+    }
+
+    /**
+     * Based on the encryption key alias, retrieve the encryption key.
+     * If the encryption key cannot be retrieved, create a new encryption key
+     * with the encryption key alias.
+     *
+     * @return the encryption key, or null if it couldn't be created.
+     */
+    private Key getOrGenerateEncryptionKey() {
         String encryptionKeyAlias = getEncryptionKeyAlias();
 
-        // Based on the encryption key alias, retrieve the encryption key
-        // If the encryption key cannot be retrieved, create a new encryption key
-        // with the encryption key alias.
         Key encryptionKey = retrieveEncryptionKey(encryptionKeyAlias);
         if (encryptionKey == null) {
             // If the encryption key is null, create a new encryption key
@@ -319,37 +512,9 @@ public class AWSKeyValueStore {
                 logger.error("Error in generating the encryption key for encryptionKeyAlias: " +
                         encryptionKeyAlias + " used to encrypt the data before storing. " +
                         "Skipping persisting the data in the persistent store.");
-                return;
             }
         }
-
-        try {
-            // Encrypt
-            byte[] iv = generateInitializationVector();
-            if (iv == null) {
-                throw new Exception("The generated IV for dataKey = " + dataKey +" is null.");
-            }
-
-            String base64EncodedEncryptedString = encrypt(encryptionKey,
-                    getAlgorithmParameterSpecForIV(iv),
-                    value);
-
-            // Persist
-            String base64EncodedIV = Base64.encodeAsString(iv);
-            if (base64EncodedIV == null) {
-                throw new Exception("Error in Base64 encoding the IV for dataKey = " + dataKey);
-            }
-
-            sharedPreferencesForData
-                    .edit()
-                    .putString(dataKeyInPersistentStore, base64EncodedEncryptedString) // Data
-                    .putString(dataKeyInPersistentStore + SHARED_PREFERENCES_IV_SUFFIX, base64EncodedIV) // IV
-                    .putString(dataKeyInPersistentStore + SHARED_PREFERENCES_STORE_VERSION_SUFFIX, String.valueOf(AWS_KEY_VALUE_STORE_VERSION)) // KeyValueStore Version
-                    .apply();
-        } catch (Exception ex) {
-            logger.error("Error in storing value for dataKey = " + dataKey +
-                    ". This data has not been stored in the persistent store.", ex);
-        }
+        return encryptionKey;
     }
 
     /**
@@ -364,6 +529,7 @@ public class AWSKeyValueStore {
     public synchronized void remove(String dataKey) {
         // Irrespective of persistence is enabled or not, mutate in memory.
         cache.remove(dataKey);
+        decryptedValues.remove(dataKey);
 
         if (isPersistenceEnabled) {
             final String keyUsedInPersistentStore = getDataKeyUsedInPersistentStore(dataKey);
@@ -384,6 +550,7 @@ public class AWSKeyValueStore {
      */
     public synchronized void clear() {
         cache.clear();
+        decryptedValues.clear();
 
         if (isPersistenceEnabled) {
             sharedPreferencesForData.edit()
@@ -397,14 +564,15 @@ public class AWSKeyValueStore {
      * encryption of data, Base64 encode the encrypted data and return the
      * base64 encoded string.
      *
+     * @param cipher the AES/GCM/NoPadding cipher, initialized here for the
+     *            key and initialization vector given
      * @param encryptionKey key used to encrypt the data
      * @param ivSpec spec that wraps the initialization vector used in encryption
      * @param data data to be encrypted in string
      * @return base64 encoded string of the encrypted data.
      */
-    private String encrypt(Key encryptionKey, AlgorithmParameterSpec ivSpec, String data) {
+    private String encrypt(Cipher cipher, Key encryptionKey, AlgorithmParameterSpec ivSpec, String data) {
         try {
-            Cipher cipher = Cipher.getInstance(CIPHER_AES_GCM_NOPADDING);
             cipher.init(Cipher.ENCRYPT_MODE,
                     encryptionKey,
                     ivSpec);
@@ -610,4 +778,18 @@ public class AWSKeyValueStore {
             }
         }
     }
+
+    /**
+     * A value decrypted by this store, with the encrypted data it was
+     * decrypted from.
+     */
+    private static final class DecryptedValue {
+        private final String encryptedData;
+        private final String value;
+
+        DecryptedValue(String encryptedData, String value) {
+            this.encryptedData = encryptedData;
+            this.value = value;
+        }
+    }
 }
@@ -239,6 +239,12 @@ public enum AwsSdkMetrics {
      */
     private static volatile boolean singleMetricNamespace;
 
+    /**
+     * True if request metrics are to be recorded in the compact form of
+     * {@link com.amazonaws.util.AWSRequestMetricsCompact}; false otherwise.
+     */
+    private static volatile boolean compactRequestMetricsEnabled;
+
     static {
         String defaultMetrics = System.getProperty(DEFAULT_METRICS_SYSTEM_PROPERTY);
         DEFAULT_METRICS_ENABLED = defaultMetrics != null;
@@ -436,6 +442,29 @@ public enum AwsSdkMetrics {
         AwsSdkMetrics.singleMetricNamespace = singleMetricNamespace;
     }
 
+    /**
+     * @return true if request metrics are recorded in a compact form which is
+     * reused across requests; false otherwise.
+     */
+    public static boolean isCompactRequestMetricsEnabled() {
+        return compactRequestMetricsEnabled;
+    }
+
+    /**
+     * Used to set whether request metrics are to be recorded in a compact
+     * form, which allocates much less per request than the default one and
+     * is reused across requests whenever the request metric collector in use
+     * doesn't keep the requests it collects.
+     *
+     * @param compactRequestMetricsEnabled true if request metrics are to be
+     *            recorded in a compact form; false otherwise.
+     * @see RequestMetricCollector#isRetainingRequestMetrics()
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public static void setCompactRequestMetricsEnabled(boolean compactRequestMetricsEnabled) {
+        AwsSdkMetrics.compactRequestMetricsEnabled = compactRequestMetricsEnabled;
+    }
+
     /**
      * @return true if metrics at the AWS SDK level is enabled; false if
      * disabled.
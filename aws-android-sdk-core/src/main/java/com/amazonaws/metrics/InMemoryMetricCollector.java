@@ -0,0 +1,532 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.metrics;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.http.HttpResponse;
+import com.amazonaws.logging.Log;
+import com.amazonaws.util.AWSRequestMetrics;
+import com.amazonaws.util.AWSRequestMetrics.Field;
+import com.amazonaws.util.TimingInfo;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A metric collector that keeps per-service, per-operation request metrics in
+ * memory: the number of requests, failures, throttled requests and retries,
+ * the bytes sent and received, and a histogram of the client side latency.
+ * <p>
+ * Recording a request doesn't take any lock, and the memory used is bounded:
+ * every operation takes a fixed amount of memory, and once
+ * {@link #getMaxOperations()} operations are tracked, any new one is counted
+ * under {@link #OTHER}. To use it:
+ *
+ * <pre>
+ * InMemoryMetricCollector collector = new InMemoryMetricCollector();
+ * collector.start();
+ * AwsSdkMetrics.setCompactRequestMetricsEnabled(true);
+ * AwsSdkMetrics.setMetricCollector(collector);
+ * ...
+ * for (InMemoryMetricCollector.OperationMetrics metrics : collector.getSnapshot()) {
+ *     long p99 = metrics.getLatencyPercentileMicros(99);
+ * }
+ * collector.dump(LogFactory.getLog(MyActivity.class));
+ * </pre>
+ */
+public class InMemoryMetricCollector extends MetricCollector {
+
+    /** The name metrics are counted under when too many are tracked. */
+    public static final String OTHER = "Other";
+
+    /** The default maximum number of operations tracked. */
+    public static final int DEFAULT_MAX_OPERATIONS = 256;
+
+    private static final String UNKNOWN = "Unknown";
+    private static final String REQUEST_SUFFIX = "Request";
+    private static final String CONTENT_LENGTH = "Content-Length";
+    private static final int STATUS_TOO_MANY_REQUESTS = 429;
+    private static final int MAX_STRIPES = 4;
+
+    /** Same error codes as RetryUtils#isThrottlingException. */
+    private static final Set<String> THROTTLING_ERROR_CODES = new HashSet<String>(Arrays.asList(
+            "Throttling", "ThrottlingException", "ProvisionedThroughputExceededException"));
+
+    /** Operation names by the class of the original request. */
+    private static final ConcurrentMap<Class<?>, String> OPERATION_NAMES =
+            new ConcurrentHashMap<Class<?>, String>();
+
+    private final ConcurrentMap<String, ConcurrentMap<String, OperationStats>> services =
+            new ConcurrentHashMap<String, ConcurrentMap<String, OperationStats>>();
+    private final AtomicInteger operationCount = new AtomicInteger();
+    private final int maxOperations;
+    private final int stripeMask;
+    private volatile OperationStats overflow;
+    private volatile boolean enabled;
+
+    private final RequestMetricCollector requestMetricCollector = new RequestMetricCollector() {
+        @Override
+        public void collectMetrics(Request<?> request, Response<?> response) {
+            if (enabled) {
+                record(request, response);
+            }
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        @Override
+        public boolean isRetainingRequestMetrics() {
+            return false;
+        }
+    };
+
+    /**
+     * Constructs a collector tracking up to {@link #DEFAULT_MAX_OPERATIONS}
+     * operations. The collector must be started before it records anything.
+     */
+    public InMemoryMetricCollector() {
+        this(DEFAULT_MAX_OPERATIONS);
+    }
+
+    /**
+     * Constructs a collector. The collector must be started before it records
+     * anything.
+     *
+     * @param maxOperations the maximum number of distinct operations tracked.
+     */
+    public InMemoryMetricCollector(int maxOperations) {
+        if (maxOperations < 1) {
+            throw new IllegalArgumentException("maxOperations must be positive");
+        }
+        this.maxOperations = maxOperations;
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final int stripes = Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, processors)));
+        this.stripeMask = stripes - 1;
+        this.overflow = new OperationStats(OTHER, OTHER, stripes);
+    }
+
+    @Override
+    public boolean start() {
+        enabled = true;
+        return true;
+    }
+
+    @Override
+    public boolean stop() {
+        if (!enabled) {
+            return false;
+        }
+        enabled = false;
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public RequestMetricCollector getRequestMetricCollector() {
+        return requestMetricCollector;
+    }
+
+    @Override
+    public ServiceMetricCollector getServiceMetricCollector() {
+        return ServiceMetricCollector.NONE;
+    }
+
+    /**
+     * @return the maximum number of distinct operations tracked.
+     */
+    public int getMaxOperations() {
+        return maxOperations;
+    }
+
+    /**
+     * Returns the metrics of every operation recorded so far, sorted by
+     * service and operation name. Requests completing while the snapshot is
+     * taken may be partially included.
+     *
+     * @return a snapshot of the metrics.
+     */
+    public List<OperationMetrics> getSnapshot() {
+        final List<OperationMetrics> snapshot = new ArrayList<OperationMetrics>();
+        for (final Map<String, OperationStats> operations : services.values()) {
+            for (final OperationStats stats : operations.values()) {
+                snapshot.add(stats.snapshot());
+            }
+        }
+        final OperationMetrics other = overflow.snapshot();
+        if (other.getRequestCount() > 0) {
+            snapshot.add(other);
+        }
+        Collections.sort(snapshot, OperationMetrics.BY_NAME);
+        return snapshot;
+    }
+
+    /**
+     * Discards all the metrics recorded so far.
+     */
+    public void reset() {
+        services.clear();
+        operationCount.set(0);
+        overflow = new OperationStats(OTHER, OTHER, stripeMask + 1);
+    }
+
+    /**
+     * Logs a line for every operation recorded so far at info level.
+     *
+     * @param log the log to write to.
+     */
+    public void dump(Log log) {
+        for (final OperationMetrics metrics : getSnapshot()) {
+            log.info(metrics);
+        }
+    }
+
+    /**
+     * Writes a line for every operation recorded so far. The writer is
+     * flushed but not closed.
+     *
+     * @param writer the writer, e.g. of a file.
+     * @throws IOException if writing fails.
+     */
+    public void dump(Writer writer) throws IOException {
+        for (final OperationMetrics metrics : getSnapshot()) {
+            writer.write(metrics.toString());
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    /**
+     * Records the metrics of a completed request.
+     *
+     * @param request the request.
+     * @param response the response, or null if the request failed.
+     */
+    void record(Request<?> request, Response<?> response) {
+        final AWSRequestMetrics metrics = request.getAWSRequestMetrics();
+        final OperationStats stats = getStats(request.getServiceName(),
+                request.getOriginalRequest());
+        final int stripe = (int) Thread.currentThread().getId() & stripeMask;
+
+        long latencyMicros = -1;
+        int retries = 0;
+        boolean throttled = false;
+        if (metrics != null) {
+            final TimingInfo timingInfo = metrics.getTimingInfo();
+            final Long endTimeNano = timingInfo.getEndTimeNanoIfKnown();
+            if (endTimeNano != null) {
+                latencyMicros = TimeUnit.NANOSECONDS.toMicros(
+                        endTimeNano.longValue() - timingInfo.getStartTimeNano());
+            }
+            final Number requestCount = timingInfo.getCounter(Field.RequestCount.name());
+            if (requestCount != null) {
+                retries = Math.max(0, requestCount.intValue() - 1);
+            }
+            throttled = isThrottled(metrics);
+        }
+
+        final HttpResponse httpResponse = response == null ? null : response.getHttpResponse();
+        stats.record(stripe, latencyMicros, response == null, throttled, retries,
+                contentLength(request.getHeaders()),
+                httpResponse == null ? 0 : contentLength(httpResponse.getHeaders()));
+    }
+
+    private OperationStats getStats(String serviceName, AmazonWebServiceRequest originalRequest) {
+        final String service = serviceName == null ? UNKNOWN : serviceName;
+        final String operation = operationName(originalRequest);
+        ConcurrentMap<String, OperationStats> operations = services.get(service);
+        if (operations == null) {
+            operations = new ConcurrentHashMap<String, OperationStats>();
+            final ConcurrentMap<String, OperationStats> existing =
+                    services.putIfAbsent(service, operations);
+            if (existing != null) {
+                operations = existing;
+            }
+        }
+        final OperationStats stats = operations.get(operation);
+        if (stats != null) {
+            return stats;
+        }
+        if (operationCount.incrementAndGet() > maxOperations) {
+            operationCount.decrementAndGet();
+            return overflow;
+        }
+        final OperationStats created = new OperationStats(service, operation, stripeMask + 1);
+        final OperationStats existing = operations.putIfAbsent(operation, created);
+        if (existing != null) {
+            operationCount.decrementAndGet();
+            return existing;
+        }
+        return created;
+    }
+
+    private static String operationName(AmazonWebServiceRequest originalRequest) {
+        if (originalRequest == null) {
+            return UNKNOWN;
+        }
+        final Class<?> requestClass = originalRequest.getClass();
+        String name = OPERATION_NAMES.get(requestClass);
+        if (name == null) {
+            name = requestClass.getSimpleName();
+            if (name.endsWith(REQUEST_SUFFIX) && name.length() > REQUEST_SUFFIX.length()) {
+                name = name.substring(0, name.length() - REQUEST_SUFFIX.length());
+            }
+            OPERATION_NAMES.put(requestClass, name);
+        }
+        return name;
+    }
+
+    private static boolean isThrottled(AWSRequestMetrics metrics) {
+        final List<Object> errorCodes = metrics.getProperty(Field.AWSErrorCode);
+        if (errorCodes != null) {
+            for (final Object errorCode : errorCodes) {
+                if (errorCode != null && THROTTLING_ERROR_CODES.contains(errorCode)) {
+                    return true;
+                }
+            }
+        }
+        final List<Object> statusCodes = metrics.getProperty(Field.StatusCode);
+        if (statusCodes != null) {
+            for (final Object statusCode : statusCodes) {
+                if (statusCode instanceof Integer
+                        && ((Integer) statusCode).intValue() == STATUS_TOO_MANY_REQUESTS) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static long contentLength(Map<String, String> headers) {
+        if (headers == null) {
+            return 0;
+        }
+        String value = headers.get(CONTENT_LENGTH);
+        if (value == null) {
+            value = headers.get("content-length");
+        }
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (final NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * The mutable metrics of one operation, striped by thread.
+     */
+    private static final class OperationStats {
+        private static final int REQUESTS = 0;
+        private static final int FAILED = 1;
+        private static final int THROTTLED = 2;
+        private static final int RETRIES = 3;
+        private static final int BYTES_IN = 4;
+        private static final int BYTES_OUT = 5;
+        private static final int LATENCY_TOTAL = 6;
+        /** Eight longs per stripe, so that stripes don't share a cache line. */
+        private static final int SLOTS = 8;
+
+        private final String serviceName;
+        private final String operationName;
+        private final AtomicLongArray counters;
+        private final LatencyHistogram latencies;
+
+        OperationStats(String serviceName, String operationName, int stripes) {
+            this.serviceName = serviceName;
+            this.operationName = operationName;
+            this.counters = new AtomicLongArray(stripes * SLOTS);
+            this.latencies = new LatencyHistogram(stripes);
+        }
+
+        void record(int stripe, long latencyMicros, boolean failed, boolean throttled,
+                int retries, long bytesOut, long bytesIn) {
+            final int base = stripe * SLOTS;
+            counters.incrementAndGet(base + REQUESTS);
+            if (failed) {
+                counters.incrementAndGet(base + FAILED);
+            }
+            if (throttled) {
+                counters.incrementAndGet(base + THROTTLED);
+            }
+            if (retries > 0) {
+                counters.addAndGet(base + RETRIES, retries);
+            }
+            if (bytesIn > 0) {
+                counters.addAndGet(base + BYTES_IN, bytesIn);
+            }
+            if (bytesOut > 0) {
+                counters.addAndGet(base + BYTES_OUT, bytesOut);
+            }
+            if (latencyMicros >= 0) {
+                counters.addAndGet(base + LATENCY_TOTAL, latencyMicros);
+                latencies.record(stripe, latencyMicros);
+            }
+        }
+
+        OperationMetrics snapshot() {
+            final long[] totals = new long[SLOTS];
+            for (int i = 0; i < counters.length(); i++) {
+                totals[i % SLOTS] += counters.get(i);
+            }
+            return new OperationMetrics(serviceName, operationName, totals[REQUESTS],
+                    totals[FAILED], totals[THROTTLED], totals[RETRIES], totals[BYTES_IN],
+                    totals[BYTES_OUT], totals[LATENCY_TOTAL], latencies.getCounts());
+        }
+    }
+
+    /**
+     * An immutable snapshot of the metrics of one operation. Latencies are
+     * measured from the start to the end of the client execution, including
+     * retries, and are accurate to about 6%.
+     */
+    public static final class OperationMetrics {
+        static final Comparator<OperationMetrics> BY_NAME =
+                new Comparator<OperationMetrics>() {
+                    @Override
+                    public int compare(OperationMetrics a, OperationMetrics b) {
+                        final int byService = a.serviceName.compareTo(b.serviceName);
+                        return byService != 0 ? byService
+                                : a.operationName.compareTo(b.operationName);
+                    }
+                };
+
+        private final String serviceName;
+        private final String operationName;
+        private final long requestCount;
+        private final long failedCount;
+        private final long throttledCount;
+        private final long retryCount;
+        private final long bytesIn;
+        private final long bytesOut;
+        private final long totalLatencyMicros;
+        private final long[] latencyCounts;
+        private final long latencyCount;
+
+        OperationMetrics(String serviceName, String operationName, long requestCount,
+                long failedCount, long throttledCount, long retryCount, long bytesIn,
+                long bytesOut, long totalLatencyMicros, long[] latencyCounts) {
+            this.serviceName = serviceName;
+            this.operationName = operationName;
+            this.requestCount = requestCount;
+            this.failedCount = failedCount;
+            this.throttledCount = throttledCount;
+            this.retryCount = retryCount;
+            this.bytesIn = bytesIn;
+            this.bytesOut = bytesOut;
+            this.totalLatencyMicros = totalLatencyMicros;
+            this.latencyCounts = latencyCounts;
+            long count = 0;
+            for (final long c : latencyCounts) {
+                count += c;
+            }
+            this.latencyCount = count;
+        }
+
+        /** @return the service name, e.g. "AmazonS3". */
+        public String getServiceName() {
+            return serviceName;
+        }
+
+        /** @return the operation name, e.g. "PutObject". */
+        public String getOperationName() {
+            return operationName;
+        }
+
+        /** @return the number of requests completed. */
+        public long getRequestCount() {
+            return requestCount;
+        }
+
+        /** @return the number of requests that failed. */
+        public long getFailedCount() {
+            return failedCount;
+        }
+
+        /** @return the number of requests that were throttled at least once. */
+        public long getThrottledCount() {
+            return throttledCount;
+        }
+
+        /** @return the total number of retries. */
+        public long getRetryCount() {
+            return retryCount;
+        }
+
+        /** @return the total response content length, in bytes. */
+        public long getBytesIn() {
+            return bytesIn;
+        }
+
+        /** @return the total request content length, in bytes. */
+        public long getBytesOut() {
+            return bytesOut;
+        }
+
+        /** @return the mean latency in microseconds, or 0 if unknown. */
+        public long getMeanLatencyMicros() {
+            return latencyCount == 0 ? 0 : totalLatencyMicros / latencyCount;
+        }
+
+        /**
+         * @param percentile the percentile, between 0 and 100.
+         * @return the latency in microseconds below or at which the given
+         *         percentage of requests completed, or 0 if unknown.
+         */
+        public long getLatencyPercentileMicros(double percentile) {
+            return LatencyHistogram.valueAtPercentile(latencyCounts, latencyCount, percentile);
+        }
+
+        @Override
+        public String toString() {
+            return serviceName + "." + operationName
+                    + " requests=" + requestCount
+                    + " failed=" + failedCount
+                    + " throttled=" + throttledCount
+                    + " retries=" + retryCount
+                    + " bytesIn=" + bytesIn
+                    + " bytesOut=" + bytesOut
+                    + " meanUs=" + getMeanLatencyMicros()
+                    + " p50Us=" + getLatencyPercentileMicros(50)
+                    + " p90Us=" + getLatencyPercentileMicros(90)
+                    + " p99Us=" + getLatencyPercentileMicros(99)
+                    + " maxUs=" + getLatencyPercentileMicros(100);
+        }
+    }
+}
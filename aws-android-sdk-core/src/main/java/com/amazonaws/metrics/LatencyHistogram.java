@@ -0,0 +1,128 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size, lock-free histogram of latencies in microseconds.
+ * <p>
+ * Values are recorded into log-linear buckets: every power of two is split
+ * into {@link #SUB_BUCKET_COUNT} equally sized buckets, so that any recorded
+ * value is known to within 1/16 (about 6%) of its magnitude, from 1
+ * microsecond up to more than an hour. The counts are striped over a few
+ * arrays picked by thread to keep concurrent writers off each other's cache
+ * lines; they are only summed up when a snapshot is taken.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1;
+
+    /** The highest power of two that is tracked; 2^32 us is over 71 minutes. */
+    private static final int MAX_EXPONENT = 31;
+
+    /** The number of buckets; values past the last one are clamped to it. */
+    static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray[] stripes;
+
+    /**
+     * @param stripeCount the number of stripes, a power of two.
+     */
+    LatencyHistogram(int stripeCount) {
+        stripes = new AtomicLongArray[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new AtomicLongArray(BUCKET_COUNT);
+        }
+    }
+
+    /**
+     * Records a single value.
+     *
+     * @param stripe the stripe of the calling thread.
+     * @param valueMicros the latency in microseconds.
+     */
+    void record(int stripe, long valueMicros) {
+        stripes[stripe].incrementAndGet(bucketIndex(valueMicros));
+    }
+
+    /**
+     * @return the counts of every bucket, summed over all the stripes.
+     */
+    long[] getCounts() {
+        final long[] counts = new long[BUCKET_COUNT];
+        for (final AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] += stripe.get(i);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @param value the value, in microseconds.
+     * @return the index of the bucket the value falls in.
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return value < 0 ? 0 : (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT
+                + (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & SUB_BUCKET_MASK);
+    }
+
+    /**
+     * @param index the index of a bucket.
+     * @return the highest value that falls in the bucket.
+     */
+    static long highestValueInBucket(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKET_COUNT - 1;
+        final long lowest = (long) (SUB_BUCKET_COUNT + (index & SUB_BUCKET_MASK)) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * @param counts the bucket counts, as returned by {@link #getCounts()}.
+     * @param total the sum of the counts.
+     * @param percentile the percentile, between 0 and 100.
+     * @return the value below or at which the given percentage of the
+     *         recorded values fall, or 0 if nothing was recorded.
+     */
+    static long valueAtPercentile(long[] counts, long total, double percentile) {
+        if (total <= 0) {
+            return 0;
+        }
+        final double clamped = Math.min(Math.max(percentile, 0.0), 100.0);
+        final long rank = Math.max(1, (long) Math.ceil(clamped / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return highestValueInBucket(i);
+            }
+        }
+        return highestValueInBucket(counts.length - 1);
+    }
+}
@@ -51,6 +51,19 @@ public abstract class RequestMetricCollector {
         return true;
     }
 
+    /**
+     * Returns whether this collector may still access the metrics of a
+     * request once {@link #collectMetrics(Request, Response)} has returned,
+     * e.g. to process them asynchronously. If not, the metrics may be reused
+     * for another request right away.
+     *
+     * @return true if this collector keeps the request metrics; true by
+     *         default.
+     */
+    public boolean isRetainingRequestMetrics() {
+        return true;
+    }
+
     /** A convenient instance of a no-op request metric collector. */
     public static final RequestMetricCollector NONE = new RequestMetricCollector() {
         @Override
@@ -61,5 +74,10 @@ public abstract class RequestMetricCollector {
         public boolean isEnabled() {
             return false;
         }
+
+        @Override
+        public boolean isRetainingRequestMetrics() {
+            return false;
+        }
     };
 }
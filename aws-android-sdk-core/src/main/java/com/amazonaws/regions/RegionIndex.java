@@ -0,0 +1,82 @@
+/*
+ * Copyright 2013-2019 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.regions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable index of a list of regions by region name and by the host of
+ * each service endpoint, so that lookups don't scan all the regions. It is
+ * built once when the regions are loaded and can be read without locking.
+ */
+final class RegionIndex {
+
+    private final List<Region> regions;
+    private final Map<String, Region> regionsByName;
+    private final Map<String, Region> regionsByHost;
+
+    /**
+     * @param regions the regions, in the order they were loaded. When several
+     *            regions share a host or a name the first one wins, as it
+     *            did for a scan of the list.
+     */
+    RegionIndex(List<Region> regions) {
+        this.regions = Collections.unmodifiableList(new ArrayList<Region>(regions));
+
+        final Map<String, Region> byName = new HashMap<String, Region>();
+        final Map<String, Region> byHost = new HashMap<String, Region>();
+        for (final Region region : this.regions) {
+            if (!byName.containsKey(region.getName())) {
+                byName.put(region.getName(), region);
+            }
+            for (final String endpoint : region.getServiceEndpoints().values()) {
+                final String host = RegionUtils.getUriByEndpoint(endpoint).getHost();
+                if (host != null && !byHost.containsKey(host)) {
+                    byHost.put(host, region);
+                }
+            }
+        }
+        this.regionsByName = byName;
+        this.regionsByHost = byHost;
+    }
+
+    /**
+     * @return an immutable list of the regions.
+     */
+    List<Region> getRegions() {
+        return regions;
+    }
+
+    /**
+     * @param regionName the region name.
+     * @return the region with the given name, or null.
+     */
+    Region getRegion(String regionName) {
+        return regionsByName.get(regionName);
+    }
+
+    /**
+     * @param host the host of a service endpoint.
+     * @return the region having a service at the given host, or null.
+     */
+    Region getRegionByHost(String host) {
+        return regionsByHost.get(host);
+    }
+}
@@ -35,7 +35,8 @@ import java.util.List;
  */
 public class RegionUtils {
 
-    private static List<Region> regions;
+    /* Built by init(), read without locking once set. */
+    private static volatile RegionIndex index;
 
     // Use the same logger as the http client
     private static final Log log = LogFactory.getLog("com.amazonaws.request");
@@ -43,12 +44,21 @@ public class RegionUtils {
     /**
      * @return a list of the available AWS regions.
      */
-    public static synchronized List<Region> getRegions() {
-        if (regions == null) {
-            init();
-        }
+    public static List<Region> getRegions() {
+        return getIndex().getRegions();
+    }
 
-        return regions;
+    private static RegionIndex getIndex() {
+        RegionIndex current = index;
+        if (current == null) {
+            synchronized (RegionUtils.class) {
+                if (index == null) {
+                    init();
+                }
+                current = index;
+            }
+        }
+        return current;
     }
 
     /**
@@ -57,8 +67,7 @@ public class RegionUtils {
      *
      * @see ServiceAbbreviations
      */
-    @SuppressWarnings("checkstyle:hiddenfield")
-    public static synchronized List<Region> getRegionsForService(String serviceAbbreviation) {
+    public static List<Region> getRegionsForService(String serviceAbbreviation) {
         List<Region> regions = new LinkedList<Region>();
         for (Region r : getRegions()) {
             if (r.isServiceSupported(serviceAbbreviation)) {
@@ -74,13 +83,7 @@ public class RegionUtils {
      * null.
      */
     public static Region getRegion(String regionName) {
-        for (Region r : getRegions()) {
-            if (r.getName().equals(regionName)) {
-                return r;
-            }
-        }
-
-        return null;
+        return getIndex().getRegion(regionName);
     }
 
     /**
@@ -100,13 +103,9 @@ public class RegionUtils {
         URI targetEndpointUri = getUriByEndpoint(endpoint);
         String targetHost = targetEndpointUri.getHost();
 
-        for (Region region : getRegions()) {
-            for (String serviceEndpoint : region.getServiceEndpoints().values()) {
-                URI serviceEndpointUrl = getUriByEndpoint(serviceEndpoint);
-
-                if (serviceEndpointUrl.getHost().equals(targetHost))
-                    return region;
-            }
+        Region region = getIndex().getRegionByHost(targetHost);
+        if (region != null) {
+            return region;
         }
 
         throw new IllegalArgumentException("No region found with any service for endpoint "
@@ -131,11 +130,11 @@ public class RegionUtils {
         }
 
         // Fall back onto the version we ship with the SDK
-        if (regions == null) {
+        if (index == null) {
             initSDKRegions();
         }
         // Throw out RuntimeException explicitly
-        if (regions == null) {
+        if (index == null) {
             throw new RuntimeException("Failed to initialize the regions.");
         }
     }
@@ -161,7 +160,7 @@ public class RegionUtils {
     private static void initRegions(InputStream regionsFile) {
         try {
             RegionMetadataParser parser = new RegionMetadataParser();
-            regions = parser.parseRegionMetadata(regionsFile);
+            index = new RegionIndex(parser.parseRegionMetadata(regionsFile));
         } catch (Exception e) {
             log.warn("Failed to parse regional endpoints", e);
         }
@@ -175,7 +174,7 @@ public class RegionUtils {
         if (log.isDebugEnabled()) {
             log.debug("Initializing the regions with default regions");
         }
-        regions = RegionDefaults.getRegions();
+        index = new RegionIndex(RegionDefaults.getRegions());
     }
 
     /**
@@ -183,7 +182,7 @@ public class RegionUtils {
      * parse the endpoint if it doesn't include protocol. This method will add
      * the protocol if this happens.
      */
-    private static URI getUriByEndpoint(String endpoint) {
+    static URI getUriByEndpoint(String endpoint) {
         URI targetEndpointUri = null;
         try {
             targetEndpointUri = new URI(endpoint);
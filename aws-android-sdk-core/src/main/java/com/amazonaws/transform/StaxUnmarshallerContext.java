@@ -25,6 +25,8 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Contains the unmarshalling state for the parsing of an XML response. The
@@ -44,6 +46,9 @@ public class StaxUnmarshallerContext {
     public final Deque<String> stack = new LinkedList<String>();
     private String stackString = "";
 
+    /** The names of the open elements, outermost first. */
+    private String[] elementNames = new String[16];
+
     private Map<String, String> metadata = new HashMap<String, String>();
     private List<MetadataExpression> metadataExpressions = new ArrayList<MetadataExpression>();
 
@@ -144,19 +149,43 @@ public class StaxUnmarshallerContext {
      *         the XML document, starting from the specified depth.
      */
     public boolean testExpression(String expression, int startingStackDepth) {
-        if (".".equals(expression))
+        return testExpression(PathExpression.compile(expression), startingStackDepth);
+    }
+
+    /**
+     * Tests the specified compiled expression against the current position in
+     * the XML document being parsed, and restricts the expression to matching
+     * at the specified stack depth.
+     *
+     * @param expression The compiled psuedo-xpath expression to test.
+     * @param startingStackDepth The depth in the stack representing where the
+     *            expression must start matching in order for this method to
+     *            return true.
+     * @return True if the specified expression matches the current position in
+     *         the XML document, starting from the specified depth.
+     */
+    public boolean testExpression(PathExpression expression, int startingStackDepth) {
+        if (expression.matchesAnyPosition) {
             return true;
+        }
 
-        int index = -1;
-        while ((index = expression.indexOf("/", index + 1)) > -1) {
-            // Don't consider attributes a new depth level
-            if (expression.charAt(index + 1) != '@') {
-                startingStackDepth++;
-            }
+        final int depth = getCurrentDepth();
+        if (depth != startingStackDepth + expression.depthOffset) {
+            return false;
         }
 
-        return (getCurrentDepth() == startingStackDepth
-                && stackString.endsWith("/" + expression));
+        final String[] elements = expression.elements;
+        final int first = depth - elements.length;
+        if (first < 0) {
+            return false;
+        }
+        for (int i = 0; i < elements.length; i++) {
+            final String name = elementNames[first + i];
+            if (name != elements[i] && !elements[i].equals(name)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -192,7 +221,7 @@ public class StaxUnmarshallerContext {
         // look for meta data
         if (currentEventType == XmlPullParser.START_TAG) {
             for (MetadataExpression metadataExpression : metadataExpressions) {
-                if (testExpression(metadataExpression.expression,
+                if (testExpression(metadataExpression.pathExpression,
                         metadataExpression.targetDepth)) {
                     metadata.put(metadataExpression.key, readText());
                     break;
@@ -230,6 +259,65 @@ public class StaxUnmarshallerContext {
         metadataExpressions.add(new MetadataExpression(expression, targetDepth, storageKey));
     }
 
+    /**
+     * A psuedo-xpath expression compiled for matching against the position of
+     * an {@link StaxUnmarshallerContext}. The expression is split into its
+     * element names once, so that testing it doesn't allocate. Compiled
+     * expressions are interned, which suits the constant expressions of the
+     * unmarshallers.
+     */
+    public static final class PathExpression {
+
+        private static final ConcurrentMap<String, PathExpression> COMPILED =
+                new ConcurrentHashMap<String, PathExpression>();
+
+        private final String expression;
+        private final boolean matchesAnyPosition;
+        private final String[] elements;
+        private final int depthOffset;
+
+        private PathExpression(String expression) {
+            this.expression = expression;
+            this.matchesAnyPosition = ".".equals(expression);
+            this.elements = expression.split("/", -1);
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = elements[i].intern();
+            }
+
+            int offset = 0;
+            for (int i = 1; i < elements.length; i++) {
+                // Don't consider attributes a new depth level
+                if (!elements[i].startsWith("@")) {
+                    offset++;
+                }
+            }
+            this.depthOffset = offset;
+        }
+
+        /**
+         * Returns the compiled form of the specified expression.
+         *
+         * @param expression The psuedo-xpath expression to compile.
+         * @return The compiled expression.
+         */
+        public static PathExpression compile(String expression) {
+            PathExpression compiled = COMPILED.get(expression);
+            if (compiled == null) {
+                compiled = new PathExpression(expression);
+                final PathExpression existing = COMPILED.putIfAbsent(expression, compiled);
+                if (existing != null) {
+                    compiled = existing;
+                }
+            }
+            return compiled;
+        }
+
+        @Override
+        public String toString() {
+            return expression;
+        }
+    }
+
     /*
      * Private Interface
      */
@@ -242,11 +330,13 @@ public class StaxUnmarshallerContext {
     private static class MetadataExpression {
 
         public String expression;
+        public PathExpression pathExpression;
         public int targetDepth;
         public String key;
 
         public MetadataExpression(String expression, int targetDepth, String key) {
             this.expression = expression;
+            this.pathExpression = PathExpression.compile(expression);
             this.targetDepth = targetDepth;
             this.key = key;
         }
@@ -254,10 +344,19 @@ public class StaxUnmarshallerContext {
 
     private void updateContext() {
         if (currentEventType == XmlPullParser.START_TAG) {
-            stackString += "/" + xpp.getName();
+            final String name = xpp.getName();
+            final int depth = stack.size();
+            if (depth == elementNames.length) {
+                final String[] names = new String[depth * 2];
+                System.arraycopy(elementNames, 0, names, 0, depth);
+                elementNames = names;
+            }
+            elementNames[depth] = name;
+            stackString += "/" + name;
             stack.push(stackString);
         } else if (currentEventType == XmlPullParser.END_TAG) {
             stack.pop();
+            elementNames[stack.size()] = null;
             stackString = stack.isEmpty() ? "" : stack.peek();
         }
     }
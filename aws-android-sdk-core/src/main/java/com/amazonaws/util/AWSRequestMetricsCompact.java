@@ -0,0 +1,336 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.util;
+
+import com.amazonaws.logging.Log;
+import com.amazonaws.logging.LogFactory;
+import com.amazonaws.metrics.AwsSdkMetrics;
+import com.amazonaws.metrics.MetricType;
+import com.amazonaws.metrics.RequestMetricCollector;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An alternative to {@link AWSRequestMetricsFullSupport} that records the
+ * predefined {@link Field} metrics into a {@link RequestMetricsRecord}, i.e.
+ * arrays indexed by field instead of maps of lists keyed by name, reused
+ * across requests executed by the same thread.
+ * <p>
+ * The counters, properties and sub-measurements of a field can be read as
+ * usual. Anything else, such as a metric that is not a {@link Field} or the
+ * maps of all the counters or sub-measurements, expands these metrics into an
+ * {@link AWSRequestMetricsFullSupport} which is used from then on.
+ * <p>
+ * This class is instantiated instead of {@link AWSRequestMetricsFullSupport}
+ * when request metric collection is required and
+ * {@link AwsSdkMetrics#isCompactRequestMetricsEnabled()}.
+ *
+ * @deprecated metrics is deprecated
+ */
+@Deprecated
+public class AWSRequestMetricsCompact extends AWSRequestMetrics {
+    private static final Log LATENCY_LOGGER = LogFactory.getLog("com.amazonaws.latency");
+    private static final Map<String, Integer> FIELD_INDEXES = new HashMap<String, Integer>();
+
+    static {
+        for (final Field field : RequestMetricsRecord.FIELDS) {
+            FIELD_INDEXES.put(field.name(), field.ordinal());
+        }
+    }
+
+    /* The record, until these metrics are expanded or released. */
+    private RequestMetricsRecord record;
+    /* The legacy form of these metrics, once expanded. */
+    private AWSRequestMetricsFullSupport expanded;
+
+    /**
+     * Constructs the metrics of a request, reusing a record released by the
+     * current thread if possible.
+     */
+    public AWSRequestMetricsCompact() {
+        super(new CompactTimingInfo());
+        ((CompactTimingInfo) timingInfo).metrics = this;
+        record = RequestMetricsRecord.acquire();
+    }
+
+    private static int indexOf(MetricType f) {
+        return f instanceof Field ? ((Field) f).ordinal() : -1;
+    }
+
+    private static int indexOf(String name) {
+        final Integer index = FIELD_INDEXES.get(name);
+        return index == null ? -1 : index.intValue();
+    }
+
+    /**
+     * @return the record to use for the field at the given index, or null if
+     *         the expanded metrics must be used instead.
+     */
+    private RequestMetricsRecord recordFor(int index) {
+        return index < 0 || expanded != null ? null : record;
+    }
+
+    /**
+     * Copies what has been recorded so far into an
+     * {@link AWSRequestMetricsFullSupport}, unless already done.
+     *
+     * @return the expanded metrics.
+     */
+    private AWSRequestMetricsFullSupport expand() {
+        if (expanded == null) {
+            expanded = new AWSRequestMetricsFullSupport();
+            if (record != null) {
+                record.copyTo(expanded);
+                RequestMetricsRecord.release(record);
+                record = null;
+            }
+        }
+        return expanded;
+    }
+
+    /**
+     * Releases the record of these metrics so that it can be reused by the
+     * next request executed by the current thread. This must only be called
+     * once the request metric collector is done with the request, i.e. once
+     * {@link RequestMetricCollector#collectMetrics} has returned and the
+     * collector doesn't keep the request; these metrics are empty afterwards.
+     */
+    public void release() {
+        if (record != null) {
+            RequestMetricsRecord.release(record);
+            record = null;
+        }
+    }
+
+    @Override
+    public void startEvent(String eventName) {
+        startEvent(indexOf(eventName), eventName);
+    }
+
+    @Override
+    public void startEvent(MetricType f) {
+        startEvent(indexOf(f), f.name());
+    }
+
+    private void startEvent(int index, String eventName) {
+        final RequestMetricsRecord r = recordFor(index);
+        if (r != null) {
+            r.startEvent(index, System.nanoTime());
+        } else {
+            expand().startEvent(eventName);
+        }
+    }
+
+    @Override
+    public void endEvent(String eventName) {
+        endEvent(indexOf(eventName), eventName);
+    }
+
+    @Override
+    public void endEvent(MetricType f) {
+        endEvent(indexOf(f), f.name());
+    }
+
+    private void endEvent(int index, String eventName) {
+        final RequestMetricsRecord r = recordFor(index);
+        if (r == null) {
+            expand().endEvent(eventName);
+        } else if (!r.endEvent(index, System.nanoTime())) {
+            LogFactory.getLog(getClass()).warn(
+                    "Trying to end an event which was never started: " + eventName);
+        }
+    }
+
+    @Override
+    public void incrementCounter(String event) {
+        incrementCounter(indexOf(event), event);
+    }
+
+    @Override
+    public void incrementCounter(MetricType f) {
+        incrementCounter(indexOf(f), f.name());
+    }
+
+    private void incrementCounter(int index, String event) {
+        final RequestMetricsRecord r = recordFor(index);
+        if (r != null) {
+            r.incrementCounter(index);
+        } else {
+            expand().incrementCounter(event);
+        }
+    }
+
+    @Override
+    public void setCounter(String counterName, long count) {
+        setCounter(indexOf(counterName), counterName, count);
+    }
+
+    @Override
+    public void setCounter(MetricType f, long count) {
+        setCounter(indexOf(f), f.name(), count);
+    }
+
+    private void setCounter(int index, String counterName, long count) {
+        final RequestMetricsRecord r = recordFor(index);
+        if (r != null) {
+            r.setCounter(index, count);
+        } else {
+            expand().setCounter(counterName, count);
+        }
+    }
+
+    @Override
+    public void addProperty(String propertyName, Object value) {
+        addProperty(indexOf(propertyName), propertyName, value);
+    }
+
+    @Override
+    public void addProperty(MetricType f, Object value) {
+        addProperty(indexOf(f), f.name(), value);
+    }
+
+    private void addProperty(int index, String propertyName, Object value) {
+        final RequestMetricsRecord r = recordFor(index);
+        if (r != null) {
+            r.addProperty(index, value);
+        } else {
+            expand().addProperty(propertyName, value);
+        }
+    }
+
+    /**
+     * Returns the values of a property. Unlike
+     * {@link AWSRequestMetricsFullSupport#getProperty(String)}, the list
+     * returned for a {@link Field} is a copy, unless these metrics have been
+     * expanded.
+     */
+    @Override
+    public List<Object> getProperty(String propertyName) {
+        return getProperty(indexOf(propertyName), propertyName);
+    }
+
+    @Override
+    public List<Object> getProperty(MetricType f) {
+        return getProperty(indexOf(f), f.name());
+    }
+
+    private List<Object> getProperty(int index, String propertyName) {
+        final RequestMetricsRecord r = recordFor(index);
+        return r != null ? r.getProperty(index) : expand().getProperty(propertyName);
+    }
+
+    @Override
+    public void log() {
+        if (!LATENCY_LOGGER.isInfoEnabled()) {
+            return;
+        }
+        if (expanded != null || record == null) {
+            expand().log();
+            return;
+        }
+        final StringBuilder builder = new StringBuilder();
+        record.appendTo(builder);
+        LATENCY_LOGGER.info(builder.toString());
+    }
+
+    /** Always returns true. */
+    @Override
+    public final boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * The timing info of {@link AWSRequestMetricsCompact}, which reads and
+     * writes the counters and sub-measurements of its metrics.
+     */
+    private static final class CompactTimingInfo extends TimingInfo {
+        private AWSRequestMetricsCompact metrics;
+
+        CompactTimingInfo() {
+            super(Long.valueOf(System.currentTimeMillis()), System.nanoTime(), null);
+        }
+
+        private TimingInfo expanded() {
+            return metrics.expand().getTimingInfo();
+        }
+
+        @Override
+        public void addSubMeasurement(String subMeasurementName, TimingInfo ti) {
+            // events can't be recorded with arbitrary start times
+            expanded().addSubMeasurement(subMeasurementName, ti);
+        }
+
+        @Override
+        public TimingInfo getSubMeasurement(String subMeasurementName) {
+            return getSubMeasurement(subMeasurementName, 0);
+        }
+
+        @Override
+        public TimingInfo getSubMeasurement(String subMesurementName, int index) {
+            final List<TimingInfo> timings = getAllSubMeasurements(subMesurementName);
+            if (index < 0 || timings == null || index >= timings.size()) {
+                return null;
+            }
+            return timings.get(index);
+        }
+
+        @Override
+        public TimingInfo getLastSubMeasurement(String subMeasurementName) {
+            final List<TimingInfo> timings = getAllSubMeasurements(subMeasurementName);
+            if (timings == null || timings.isEmpty()) {
+                return null;
+            }
+            return timings.get(timings.size() - 1);
+        }
+
+        @Override
+        public List<TimingInfo> getAllSubMeasurements(String subMeasurementName) {
+            final int index = indexOf(subMeasurementName);
+            final RequestMetricsRecord r = metrics.recordFor(index);
+            return r != null ? r.getEvents(index)
+                    : expanded().getAllSubMeasurements(subMeasurementName);
+        }
+
+        @Override
+        public Map<String, List<TimingInfo>> getSubMeasurementsByName() {
+            return expanded().getSubMeasurementsByName();
+        }
+
+        @Override
+        public Number getCounter(String key) {
+            final int index = indexOf(key);
+            final RequestMetricsRecord r = metrics.recordFor(index);
+            return r != null ? r.getCounter(index) : expanded().getCounter(key);
+        }
+
+        @Override
+        public Map<String, Number> getAllCounters() {
+            return expanded().getAllCounters();
+        }
+
+        @Override
+        public void setCounter(String key, long count) {
+            metrics.setCounter(key, count);
+        }
+
+        @Override
+        public void incrementCounter(String key) {
+            metrics.incrementCounter(key);
+        }
+    }
+}
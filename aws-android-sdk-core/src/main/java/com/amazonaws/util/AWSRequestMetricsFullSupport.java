@@ -78,9 +78,19 @@ public class AWSRequestMetricsFullSupport extends AWSRequestMetrics {
      */
     @Override
     public void startEvent(String eventName) {
+        startEvent(eventName, System.nanoTime());
+    }
+
+    /**
+     * Starts an event at the given time.
+     *
+     * @param eventName the name of the event to start.
+     * @param startTimeNano the start time in nanosecond.
+     */
+    void startEvent(String eventName, long startTimeNano) {
         /* This will overwrite past events */
         // ignoring the wall clock time
-        eventsBeingProfiled.put(eventName, TimingInfo.startTimingFullSupport(System.nanoTime()));
+        eventsBeingProfiled.put(eventName, TimingInfo.startTimingFullSupport(startTimeNano));
     }
 
     @Override
@@ -22,6 +22,8 @@ import com.amazonaws.logging.LogFactory;
 
 import java.net.InetAddress;
 import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -33,6 +35,20 @@ public class AwsHostNameUtils {
     private static final Pattern S3_ENDPOINT_PATTERN =
             Pattern.compile("^(?:.+\\.)?s3[.-]([a-z0-9-]+)$");
 
+    /*
+     * Bound on the memoized region names. Clients talk to a handful of hosts,
+     * so the memo is cleared rather than evicted from when it fills up.
+     */
+    private static final int MAX_CACHED_REGION_NAMES = 256;
+
+    /* Region names parsed so far, keyed by host and service hint. */
+    private static final Map<String, String> REGION_NAMES =
+            new ConcurrentHashMap<String, String>();
+
+    /* The 'service.[region]' pattern of each service hint seen so far. */
+    private static final Map<String, Pattern> SERVICE_HINT_PATTERNS =
+            new ConcurrentHashMap<String, Pattern>();
+
     /**
      * @deprecated in favor of {@link #parseRegionName(String, String)}.
      * @param endpoint the URI endpoint.
@@ -45,7 +61,8 @@ public class AwsHostNameUtils {
 
     /**
      * Attempts to parse the region name from an endpoint based on conventions
-     * about the endpoint format.
+     * about the endpoint format. Results are memoized, so that signing
+     * requests to the same host doesn't parse it again.
      *
      * @param host the hostname to parse
      * @param serviceHint an optional hint about the service for the endpoint
@@ -58,6 +75,21 @@ public class AwsHostNameUtils {
         if (host == null) {
             throw new IllegalArgumentException("hostname cannot be null");
         }
+        // a host name can't contain '/'
+        final String key = serviceHint == null ? host : host + "/" + serviceHint;
+        String regionName = REGION_NAMES.get(key);
+        if (regionName == null) {
+            regionName = parseRegionNameUncached(host, serviceHint);
+            if (REGION_NAMES.size() >= MAX_CACHED_REGION_NAMES) {
+                REGION_NAMES.clear();
+            }
+            REGION_NAMES.put(key, regionName);
+        }
+        return regionName;
+    }
+
+    private static String parseRegionNameUncached(final String host,
+            final String serviceHint) {
         String regionNameInInternalConfig = parseRegionNameByInternalConfig(host);
         if (regionNameInInternalConfig != null) {
             return regionNameInInternalConfig;
@@ -76,11 +108,15 @@ public class AwsHostNameUtils {
         if (serviceHint != null) {
             // If we have a service hint, look for 'service.[region]' or
             // 'service-[region]' in the endpoint's hostname.
-            Pattern pattern = Pattern.compile(
-                    "^(?:.+\\.)?"
-                            + Pattern.quote(serviceHint)
-                            + "[.-]([a-z0-9-]+)\\."
-                    );
+            Pattern pattern = SERVICE_HINT_PATTERNS.get(serviceHint);
+            if (pattern == null) {
+                pattern = Pattern.compile(
+                        "^(?:.+\\.)?"
+                                + Pattern.quote(serviceHint)
+                                + "[.-]([a-z0-9-]+)\\."
+                        );
+                SERVICE_HINT_PATTERNS.put(serviceHint, pattern);
+            }
 
             Matcher matcher = pattern.matcher(host);
             if (matcher.find()) {
@@ -138,8 +174,7 @@ public class AwsHostNameUtils {
         InternalConfig internConfig = InternalConfig.Factory.getInternalConfig();
 
         for (HostRegexToRegionMapping mapping : internConfig.getHostRegexToRegionMappings()) {
-            String hostNameRegex = mapping.getHostNameRegex();
-            if (host.matches(hostNameRegex)) {
+            if (mapping.getHostNamePattern().matcher(host).matches()) {
                 return mapping.getRegionName();
             }
         }
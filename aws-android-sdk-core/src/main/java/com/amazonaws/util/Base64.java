@@ -15,6 +15,10 @@
 
 package com.amazonaws.util;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+
 /**
  * A Base 64 CODEC API. See http://www.ietf.org/rfc/rfc4648.txt
  *
@@ -43,6 +47,19 @@ public enum Base64 {
         return bytes == null || bytes.length == 0 ? bytes : CODEC.encode(bytes);
     }
 
+    /**
+     * Writes the base 64 encoding of the remaining bytes of the given buffer
+     * to the given writer, a chunk at a time rather than as a whole string.
+     * The position of the buffer is left unchanged.
+     *
+     * @param bytes the bytes.
+     * @param out the writer to write the encoded characters to.
+     * @throws IOException if the writer fails.
+     */
+    public static void encode(ByteBuffer bytes, Writer out) throws IOException {
+        CODEC.encode(bytes, out);
+    }
+
     /**
      * Decodes the given base 64 encoded string, skipping carriage returns, line
      * feeds and spaces as needed.
@@ -56,11 +73,23 @@ public enum Base64 {
         if (b64.length() == 0) {
             return new byte[0];
         }
+        if (!hasWhitespace(b64)) {
+            return CODEC.decode(b64);
+        }
         byte[] buf = new byte[b64.length()];
         int len = CodecUtils.sanitize(b64, buf);
         return CODEC.decode(buf, len);
     }
 
+    private static boolean hasWhitespace(String b64) {
+        for (int i = 0; i < b64.length(); i++) {
+            final char c = b64.charAt(i);
+            if (c == '\r' || c == '\n' || c == ' ')
+                return true;
+        }
+        return false;
+    }
+
     /**
      * Decodes the given base 64 encoded bytes.
      * @param b64 the base 64 encoded bytes.
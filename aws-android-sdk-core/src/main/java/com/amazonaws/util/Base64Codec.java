@@ -17,6 +17,10 @@ package com.amazonaws.util;
 
 import static com.amazonaws.util.CodecUtils.sanityCheckLastPos;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+
 /**
  * A Base 64 codec implementation.
  *
@@ -44,6 +48,8 @@ class Base64Codec implements Codec {
     private static final int MASK_6BITS = (1 << BITS_6) - 1;
     // Alphabet as defined at http://www.ietf.org/rfc/rfc4648.txt
     private static final byte PAD = '=';
+    // bytes encoded at a time when streaming, a multiple of 3
+    private static final int CHUNK_BYTES = 3 * 1024;
 
     private static class LazyHolder {
         private static final byte[] DECODED = decodeTable();
@@ -246,6 +252,114 @@ class Base64Codec implements Codec {
         return dest;
     }
 
+    /**
+     * Encodes the remaining bytes of the given buffer to the given writer a
+     * chunk at a time, so that neither the bytes nor the encoded characters
+     * are ever held in full. The position of the buffer is left unchanged.
+     */
+    void encode(ByteBuffer src, Writer out) throws IOException {
+        final int length = src.remaining();
+        final int chunkBytes = Math.min(length, CHUNK_BYTES);
+        final char[] dest = new char[(chunkBytes + 2) / BITS_3 * BITS_4];
+
+        if (src.hasArray()) {
+            final byte[] array = src.array();
+            final int start = src.arrayOffset() + src.position();
+            for (int s = 0; s < length; s += chunkBytes) {
+                final int n = Math.min(chunkBytes, length - s);
+                out.write(dest, 0, encode(array, start + s, n, dest));
+            }
+            return;
+        }
+        final ByteBuffer in = src.duplicate();
+        final byte[] chunk = new byte[chunkBytes];
+        while (in.hasRemaining()) {
+            final int n = Math.min(chunkBytes, in.remaining());
+            in.get(chunk, 0, n);
+            out.write(dest, 0, encode(chunk, 0, n, dest));
+        }
+    }
+
+    /**
+     * Encodes the given bytes as characters, padding the final quantum.
+     *
+     * @return the number of characters encoded.
+     */
+    private int encode(byte[] src, int offset, int length, char[] dest) {
+        final int end = offset + length;
+        final int whole = end - length % BITS_3;
+        int s = offset, d = 0;
+
+        for (; s < whole; s += BITS_3) {
+            final int p = (src[s] & 0xff) << 16 | (src[s + 1] & 0xff) << 8 | src[s + 2] & 0xff;
+            dest[d++] = (char) alpahbets[p >>> 18];
+            dest[d++] = (char) alpahbets[p >>> 12 & MASK_6BITS];
+            dest[d++] = (char) alpahbets[p >>> BITS_6 & MASK_6BITS];
+            dest[d++] = (char) alpahbets[p & MASK_6BITS];
+        }
+        if (s < end) {
+            final int p = (src[s] & 0xff) << 16 | (s + 1 < end ? (src[s + 1] & 0xff) << 8 : 0);
+            dest[d++] = (char) alpahbets[p >>> 18];
+            dest[d++] = (char) alpahbets[p >>> 12 & MASK_6BITS];
+            dest[d++] = s + 1 < end ? (char) alpahbets[p >>> BITS_6 & MASK_6BITS] : (char) PAD;
+            dest[d++] = (char) PAD;
+        }
+        return d;
+    }
+
+    /**
+     * Decodes the given characters straight into an array of the exact size
+     * of the result, without first copying them into bytes.
+     *
+     * @param src the base 64 encoded characters, without any white space.
+     * @return the decoded result.
+     */
+    byte[] decode(CharSequence src) {
+        final int length = src.length();
+        if (length % BITS_4 != 0)
+            throw new IllegalArgumentException(
+                    "Input is expected to be encoded in multiple of 4 bytes but found: " + length);
+
+        int pads = 0;
+        for (int last = length - 1; pads < 2 && last > -1; last--, pads++) {
+            if (src.charAt(last) != PAD)
+                break;
+        }
+        // final quantum in unit of bytes
+        final int fq = BITS_3 - pads;
+        final byte[] dest = new byte[length / BITS_4 * BITS_3 - pads];
+        int s = 0, d = 0;
+
+        for (; d < dest.length - fq % BITS_3; s += BITS_4, d += BITS_3) {
+            final int p = pos(src.charAt(s)) << 18 | pos(src.charAt(s + 1)) << 12
+                    | pos(src.charAt(s + 2)) << BITS_6 | pos(src.charAt(s + 3));
+            dest[d] = (byte) (p >>> 16);
+            dest[d + 1] = (byte) (p >>> 8);
+            dest[d + 2] = (byte) p;
+        }
+
+        if (fq < BITS_3) {
+            final int p1 = pos(src.charAt(s + 1));
+            dest[d++] = (byte) (pos(src.charAt(s)) << 2 | p1 >>> BITS_4 & MASK_2BITS);
+            if (fq == 1) {
+                sanityCheckLastPos(p1, MASK_4BITS);
+            } else {
+                final int p2 = pos(src.charAt(s + 2));
+                dest[d] = (byte) ((p1 & MASK_4BITS) << BITS_4 | p2 >>> 2 & MASK_4BITS);
+                sanityCheckLastPos(p2, MASK_2BITS);
+            }
+        }
+        return dest;
+    }
+
+    private int pos(char in) {
+        final int pos = in < LazyHolder.DECODED.length ? LazyHolder.DECODED[in] : -1;
+
+        if (pos > -1)
+            return pos;
+        throw new IllegalArgumentException("Invalid base 64 character: \'" + in + "\'");
+    }
+
     protected int pos(byte in) {
         int pos = LazyHolder.DECODED[in];
 
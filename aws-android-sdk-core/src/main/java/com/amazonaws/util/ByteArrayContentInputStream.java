@@ -0,0 +1,81 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.util;
+
+import com.amazonaws.AmazonClientException;
+
+import java.io.ByteArrayInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The content of a request, read from the beginning of a byte array which is
+ * not copied. Like any {@link ByteArrayInputStream}, it can be read again
+ * after {@link #reset()}, so it can be signed and resent on retries. It also
+ * keeps the SHA-256 hash of its content once computed, so that a request
+ * signed more than once only hashes its content once.
+ *
+ * @see Utf8ByteArrayWriter#toInputStream()
+ */
+public class ByteArrayContentInputStream extends ByteArrayInputStream {
+
+    private String sha256Hex;
+
+    /**
+     * @param buf the content, which must not be modified afterwards.
+     * @param length the length of the content, from the beginning of the
+     *            array.
+     */
+    public ByteArrayContentInputStream(byte[] buf, int length) {
+        super(buf, 0, length);
+    }
+
+    /**
+     * @return the length of the content in bytes, regardless of how much of
+     *         it has been read.
+     */
+    public int getLength() {
+        return count;
+    }
+
+    /**
+     * Returns the hex encoded SHA-256 hash of the content that is left to be
+     * read, without reading it. The hash of the whole content is computed at
+     * most once.
+     *
+     * @return the hex encoded SHA-256 hash of the remaining content.
+     */
+    public synchronized String getContentSha256Hex() {
+        if (pos != 0) {
+            return BinaryUtils.toHex(sha256(pos));
+        }
+        if (sha256Hex == null) {
+            sha256Hex = BinaryUtils.toHex(sha256(0));
+        }
+        return sha256Hex;
+    }
+
+    private byte[] sha256(int offset) {
+        try {
+            final MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(buf, offset, count - offset);
+            return md.digest();
+        } catch (final NoSuchAlgorithmException e) {
+            throw new AmazonClientException("Unable to compute hash while signing request: "
+                    + e.getMessage(), e);
+        }
+    }
+}
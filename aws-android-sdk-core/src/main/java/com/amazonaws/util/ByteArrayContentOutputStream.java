@@ -0,0 +1,36 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.util;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * A {@link ByteArrayOutputStream} whose content can be read with
+ * {@link #toInputStream()} without being copied, e.g. the compressed content
+ * of a request.
+ */
+public class ByteArrayContentOutputStream extends ByteArrayOutputStream {
+
+    /**
+     * Returns the content written so far as a stream over the same array.
+     * Nothing should be written afterwards.
+     *
+     * @return the content written.
+     */
+    public synchronized ByteArrayContentInputStream toInputStream() {
+        return new ByteArrayContentInputStream(buf, count);
+    }
+}
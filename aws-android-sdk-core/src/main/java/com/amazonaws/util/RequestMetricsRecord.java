@@ -0,0 +1,246 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.util;
+
+import com.amazonaws.util.AWSRequestMetrics.Field;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The metrics of a single request, kept in arrays indexed by the ordinal of
+ * {@link Field} instead of maps keyed by name. Ended events and properties are
+ * appended to parallel arrays in the order they are recorded, which only grow
+ * when a request records more than a handful of them, e.g. on retries.
+ * <p>
+ * Records are reused: {@link #acquire()} hands out the record last released
+ * on the calling thread, if any. This class is not thread safe, as a request
+ * is executed by a single thread at a time.
+ */
+@SuppressWarnings("deprecation")
+final class RequestMetricsRecord {
+
+    static final Field[] FIELDS = Field.values();
+
+    private static final int FIELD_COUNT = FIELDS.length;
+    private static final int INITIAL_CAPACITY = 8;
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+
+    /** The record released last on each thread, ready to be reused. */
+    private static final ThreadLocal<RequestMetricsRecord> POOL =
+            new ThreadLocal<RequestMetricsRecord>();
+
+    /** The start time of the last event started, by field. */
+    private final long[] eventStartNanos = new long[FIELD_COUNT];
+
+    private int[] eventFields = new int[INITIAL_CAPACITY];
+    private long[] eventStarts = new long[INITIAL_CAPACITY];
+    private long[] eventEnds = new long[INITIAL_CAPACITY];
+    private int eventCount;
+
+    private final long[] counters = new long[FIELD_COUNT];
+    private final boolean[] countersSet = new boolean[FIELD_COUNT];
+
+    private int[] propertyFields = new int[INITIAL_CAPACITY];
+    private Object[] propertyValues = new Object[INITIAL_CAPACITY];
+    private int propertyCount;
+
+    private RequestMetricsRecord() {
+        Arrays.fill(eventStartNanos, NOT_STARTED);
+    }
+
+    /**
+     * @return a cleared record, reused from the calling thread if possible.
+     */
+    static RequestMetricsRecord acquire() {
+        final RequestMetricsRecord record = POOL.get();
+        if (record == null) {
+            return new RequestMetricsRecord();
+        }
+        POOL.set(null);
+        return record;
+    }
+
+    /**
+     * Clears the given record and keeps it for reuse by the calling thread.
+     * The record must not be used by the caller afterwards.
+     *
+     * @param record the record to release.
+     */
+    static void release(RequestMetricsRecord record) {
+        record.clear();
+        POOL.set(record);
+    }
+
+    private void clear() {
+        Arrays.fill(eventStartNanos, NOT_STARTED);
+        eventCount = 0;
+        Arrays.fill(counters, 0);
+        Arrays.fill(countersSet, false);
+        // don't hold on to the values of the last request
+        Arrays.fill(propertyValues, 0, propertyCount, null);
+        propertyCount = 0;
+    }
+
+    void startEvent(int field, long startTimeNano) {
+        eventStartNanos[field] = startTimeNano;
+    }
+
+    /**
+     * Ends the last event started for the given field. As with
+     * {@link AWSRequestMetricsFullSupport}, ending the same event again
+     * records another measurement from the same start time.
+     *
+     * @return false if the event was never started.
+     */
+    boolean endEvent(int field, long endTimeNano) {
+        final long start = eventStartNanos[field];
+        if (start == NOT_STARTED) {
+            return false;
+        }
+        if (eventCount == eventFields.length) {
+            final int capacity = eventCount * 2;
+            eventFields = Arrays.copyOf(eventFields, capacity);
+            eventStarts = Arrays.copyOf(eventStarts, capacity);
+            eventEnds = Arrays.copyOf(eventEnds, capacity);
+        }
+        eventFields[eventCount] = field;
+        eventStarts[eventCount] = start;
+        eventEnds[eventCount] = endTimeNano;
+        eventCount++;
+        return true;
+    }
+
+    void setCounter(int field, long count) {
+        counters[field] = count;
+        countersSet[field] = true;
+    }
+
+    void incrementCounter(int field) {
+        // same as TimingInfoFullSupport, which counts in ints
+        setCounter(field, countersSet[field] ? (int) counters[field] + 1 : 1);
+    }
+
+    /**
+     * @return the counter of the given field, or null if it was never set.
+     */
+    Number getCounter(int field) {
+        return countersSet[field] ? Long.valueOf(counters[field]) : null;
+    }
+
+    void addProperty(int field, Object value) {
+        if (propertyCount == propertyFields.length) {
+            final int capacity = propertyCount * 2;
+            propertyFields = Arrays.copyOf(propertyFields, capacity);
+            propertyValues = Arrays.copyOf(propertyValues, capacity);
+        }
+        propertyFields[propertyCount] = field;
+        propertyValues[propertyCount] = value;
+        propertyCount++;
+    }
+
+    /**
+     * @return a new list of the values of the given property in the order
+     *         they were added, or null if there are none.
+     */
+    List<Object> getProperty(int field) {
+        List<Object> values = null;
+        for (int i = 0; i < propertyCount; i++) {
+            if (propertyFields[i] == field) {
+                if (values == null) {
+                    values = new ArrayList<Object>(2);
+                }
+                values.add(propertyValues[i]);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return a new list of the ended events of the given field in the order
+     *         they were ended, or null if there are none.
+     */
+    List<TimingInfo> getEvents(int field) {
+        List<TimingInfo> events = null;
+        for (int i = 0; i < eventCount; i++) {
+            if (eventFields[i] == field) {
+                if (events == null) {
+                    events = new ArrayList<TimingInfo>(2);
+                }
+                events.add(TimingInfo.unmodifiableTimingInfo(eventStarts[i], eventEnds[i]));
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Replays everything recorded so far into the given legacy metrics, which
+     * are expected to be empty.
+     *
+     * @param metrics the metrics to copy to.
+     */
+    void copyTo(AWSRequestMetricsFullSupport metrics) {
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            if (eventStartNanos[i] != NOT_STARTED) {
+                metrics.startEvent(FIELDS[i].name(), eventStartNanos[i]);
+            }
+        }
+        final TimingInfo timingInfo = metrics.getTimingInfo();
+        for (int i = 0; i < eventCount; i++) {
+            timingInfo.addSubMeasurement(FIELDS[eventFields[i]].name(),
+                    TimingInfo.unmodifiableTimingInfo(eventStarts[i], eventEnds[i]));
+        }
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            if (countersSet[i]) {
+                metrics.setCounter(FIELDS[i].name(), counters[i]);
+            }
+        }
+        for (int i = 0; i < propertyCount; i++) {
+            metrics.addProperty(FIELDS[propertyFields[i]].name(), propertyValues[i]);
+        }
+    }
+
+    /**
+     * Formats the record the same way as
+     * {@link AWSRequestMetricsFullSupport#log()}, in field order.
+     *
+     * @param builder the builder to append to.
+     */
+    void appendTo(StringBuilder builder) {
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            final List<Object> values = getProperty(field);
+            if (values != null) {
+                keyValueFormat(FIELDS[field], values, builder);
+            }
+        }
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            if (countersSet[field]) {
+                keyValueFormat(FIELDS[field], counters[field], builder);
+            }
+        }
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            final List<TimingInfo> events = getEvents(field);
+            if (events != null) {
+                keyValueFormat(FIELDS[field], events, builder);
+            }
+        }
+    }
+
+    private static void keyValueFormat(Object key, Object value, StringBuilder builder) {
+        builder.append(key).append('=').append(value).append(", ");
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.util;
+
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * A writer which encodes what is written to it as UTF-8 straight into a
+ * growable byte array, e.g. the JSON content of a request. Once done, the
+ * array is read with {@link #toInputStream()} without being copied, unlike
+ * writing to a {@link java.io.StringWriter} and then encoding the string.
+ * <p>
+ * As with {@link String#getBytes(java.nio.charset.Charset)}, unpaired
+ * surrogates are encoded as '?'. This class is not thread safe.
+ */
+public class Utf8ByteArrayWriter extends Writer {
+    private static final int DEFAULT_CAPACITY = 256;
+    private static final byte REPLACEMENT = '?';
+
+    private byte[] buf;
+    private int count;
+    /* A high surrogate waiting for the low surrogate to follow, or 0. */
+    private char highSurrogate;
+
+    /**
+     * Constructs a writer with a small initial capacity.
+     */
+    public Utf8ByteArrayWriter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity the initial capacity, in bytes.
+     */
+    public Utf8ByteArrayWriter(int initialCapacity) {
+        buf = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    @Override
+    public void write(int c) {
+        ensureCapacity(4);
+        encode((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        if (off < 0 || len < 0 || len > cbuf.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        // most characters are encoded in a single byte
+        ensureCapacity(len);
+        for (int i = off; i < off + len; i++) {
+            final char c = cbuf[i];
+            if (c < 0x80 && highSurrogate == 0) {
+                if (count == buf.length) {
+                    ensureCapacity(off + len - i);
+                }
+                buf[count++] = (byte) c;
+            } else {
+                ensureCapacity(4);
+                encode(c);
+            }
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        if (off < 0 || len < 0 || len > str.length() - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        ensureCapacity(len);
+        for (int i = off; i < off + len; i++) {
+            final char c = str.charAt(i);
+            if (c < 0x80 && highSurrogate == 0) {
+                if (count == buf.length) {
+                    ensureCapacity(off + len - i);
+                }
+                buf[count++] = (byte) c;
+            } else {
+                ensureCapacity(4);
+                encode(c);
+            }
+        }
+    }
+
+    @Override
+    public Utf8ByteArrayWriter append(CharSequence csq) {
+        final CharSequence s = csq == null ? "null" : csq;
+        return append(s, 0, s.length());
+    }
+
+    @Override
+    public Utf8ByteArrayWriter append(CharSequence csq, int start, int end) {
+        final CharSequence s = csq == null ? "null" : csq;
+        final String str = s.subSequence(start, end).toString();
+        write(str, 0, str.length());
+        return this;
+    }
+
+    /** Encodes a character; the capacity for 4 bytes must be ensured. */
+    private void encode(char c) {
+        if (highSurrogate != 0) {
+            final char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                final int codePoint = Character.toCodePoint(high, c);
+                buf[count++] = (byte) (0xF0 | (codePoint >> 18));
+                buf[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buf[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buf[count++] = (byte) (0x80 | (codePoint & 0x3F));
+                return;
+            }
+            buf[count++] = REPLACEMENT;
+            ensureCapacity(4);
+        }
+        if (c < 0x80) {
+            buf[count++] = (byte) c;
+        } else if (c < 0x800) {
+            buf[count++] = (byte) (0xC0 | (c >> 6));
+            buf[count++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            buf[count++] = REPLACEMENT;
+        } else {
+            buf[count++] = (byte) (0xE0 | (c >> 12));
+            buf[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buf[count++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (bytes > buf.length - count) {
+            final int required = count + bytes;
+            buf = Arrays.copyOf(buf, Math.max(required, buf.length * 2));
+        }
+    }
+
+    /**
+     * @return the number of bytes encoded so far.
+     */
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * Terminates the content: a high surrogate that was written last is
+     * encoded as '?'.
+     */
+    @Override
+    public void close() {
+        if (highSurrogate != 0) {
+            highSurrogate = 0;
+            ensureCapacity(1);
+            buf[count++] = REPLACEMENT;
+        }
+    }
+
+    /**
+     * Closes this writer and returns its content as a stream over the same
+     * array, which is not copied. Nothing should be written afterwards.
+     *
+     * @return the content written.
+     */
+    public ByteArrayContentInputStream toInputStream() {
+        close();
+        return new ByteArrayContentInputStream(buf, count);
+    }
+
+    /**
+     * Closes this writer and returns a copy of its content, for callers which
+     * need an array of the exact length.
+     *
+     * @return the content written.
+     */
+    public byte[] toByteArray() {
+        close();
+        return Arrays.copyOf(buf, count);
+    }
+}
@@ -15,7 +15,7 @@
 
 package com.amazonaws.util.json;
 
-import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.Base64;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
@@ -152,11 +152,13 @@ final class GsonFactory implements AwsJsonFactory {
 
     private static final class GsonWriter implements AwsJsonWriter {
 
+        private final BlobWriter out;
         private final JsonWriter writer;
         private static final int NEGATIVE_THREE = -3;
 
         public GsonWriter(Writer out) {
-            writer = new JsonWriter(out);
+            this.out = new BlobWriter(out);
+            writer = new JsonWriter(this.out);
         }
 
         @Override
@@ -228,11 +230,12 @@ final class GsonFactory implements AwsJsonFactory {
 
         @Override
         public AwsJsonWriter value(ByteBuffer value) throws IOException {
-            value.mark();
-            byte[] bytes = new byte[value.remaining()];
-            value.get(bytes, 0, bytes.length);
-            value.reset();
-            writer.value(BinaryUtils.toBase64(bytes));
+            // Gson can't write a raw value, so an empty string is written in
+            // its place for Gson to add the name and separators, and the
+            // blob is then encoded between its quotes.
+            out.startCapture();
+            writer.value("");
+            out.endCapture(value);
             return this;
         }
 
@@ -252,4 +255,73 @@ final class GsonFactory implements AwsJsonFactory {
             writer.close();
         }
     }
+
+    /**
+     * Passes what Gson writes through to the underlying writer, except while
+     * capturing the empty string written in place of a blob, which is then
+     * written out with the base 64 encoded blob streamed between its quotes.
+     */
+    private static final class BlobWriter extends Writer {
+        private final Writer out;
+        private final StringBuilder captured = new StringBuilder();
+        private boolean capturing;
+
+        BlobWriter(Writer out) {
+            this.out = out;
+        }
+
+        void startCapture() {
+            captured.setLength(0);
+            capturing = true;
+        }
+
+        void endCapture(ByteBuffer value) throws IOException {
+            capturing = false;
+            final int length = captured.length();
+            if (length < 2 || captured.charAt(length - 1) != '"'
+                    || captured.charAt(length - 2) != '"') {
+                throw new IllegalStateException("Expected an empty string but found: " + captured);
+            }
+            out.append(captured, 0, length - 1);
+            Base64.encode(value, out);
+            out.write('"');
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            if (capturing) {
+                captured.append((char) c);
+            } else {
+                out.write(c);
+            }
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            if (capturing) {
+                captured.append(cbuf, off, len);
+            } else {
+                out.write(cbuf, off, len);
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            if (capturing) {
+                captured.append(str, off, off + len);
+            } else {
+                out.write(str, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
 }
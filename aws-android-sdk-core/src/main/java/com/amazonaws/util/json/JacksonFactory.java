@@ -16,13 +16,13 @@
 package com.amazonaws.util.json;
 
 import com.amazonaws.AmazonClientException;
-import com.amazonaws.util.BinaryUtils;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.math.BigDecimal;
@@ -280,11 +280,14 @@ final class JacksonFactory implements AwsJsonFactory {
 
         @Override
         public AwsJsonWriter value(ByteBuffer value) throws IOException {
-            value.mark();
-            byte[] bytes = new byte[value.remaining()];
-            value.get(bytes, 0, bytes.length);
-            value.reset();
-            writer.writeString(BinaryUtils.toBase64(bytes));
+            // Jackson encodes binary values a chunk at a time.
+            if (value.hasArray()) {
+                writer.writeBinary(value.array(), value.arrayOffset() + value.position(),
+                        value.remaining());
+            } else {
+                writer.writeBinary(new ByteBufferInputStream(value.duplicate()),
+                        value.remaining());
+            }
             return this;
         }
 
@@ -304,4 +307,38 @@ final class JacksonFactory implements AwsJsonFactory {
             writer.close();
         }
     }
+
+    /**
+     * Reads the remaining bytes of a buffer.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
 }
@@ -22,7 +22,9 @@ import static org.junit.Assert.assertTrue;
 
 import com.amazonaws.DefaultRequest;
 import com.amazonaws.Request;
+import com.amazonaws.util.ByteArrayContentInputStream;
 import com.amazonaws.util.StringUtils;
+import com.amazonaws.util.Utf8ByteArrayWriter;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -80,6 +82,33 @@ public class AWS4SignerTest {
                 request.getHeaders().get("Authorization"));
     }
 
+    @Test
+    public void testSigningByteArrayContent() throws Exception {
+        final String EXPECTED_AUTHORIZATION_HEADER =
+                "AWS4-HMAC-SHA256 Credential=access/19810216/us-east-1/demo/aws4_request, SignedHeaders=host;x-amz-archive-description;x-amz-date, Signature=77fe7c02927966018667f21d1dc3dfad9057e58401cbb9ed64f1b7868288e35a";
+
+        final AWSCredentials credentials = new BasicAWSCredentials("access", "secret");
+        final Request<?> request = generateBasicRequest();
+        final Utf8ByteArrayWriter writer = new Utf8ByteArrayWriter();
+        writer.write("{\"TableName\": \"foo\"}");
+        final ByteArrayContentInputStream content = writer.toInputStream();
+        request.setContent(content);
+
+        final Calendar c = new GregorianCalendar();
+        c.set(1981, 1, 16, 6, 30, 0);
+        c.setTimeZone(TimeZone.getTimeZone("UTC"));
+        signer.overrideDate(c.getTime());
+
+        // signed again as on a retry
+        for (int i = 0; i < 2; i++) {
+            signer.sign(request, credentials);
+            assertEquals(EXPECTED_AUTHORIZATION_HEADER,
+                    request.getHeaders().get("Authorization"));
+            // the content is hashed without being read
+            assertEquals(content.getLength(), content.available());
+        }
+    }
+
     @Test
     public void testPresigning() throws Exception {
         final String EXPECTED_AMZ_SIGNATURE = "909d8bc528fec51c0cc6daaa6c29291c519de10f77490d8af57872c29203ebdb";
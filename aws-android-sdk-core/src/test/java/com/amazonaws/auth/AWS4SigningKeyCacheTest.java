@@ -0,0 +1,101 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.auth;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class AWS4SigningKeyCacheTest {
+
+    private static final byte[] KEY = new byte[] {
+            1, 2, 3, 4
+    };
+
+    @Test
+    public void testGetReturnsStoredKey() {
+        final AWS4SigningKeyCache cache = new AWS4SigningKeyCache(4);
+        cache.put("secret", "20190101", "us-east-1", "kinesis", KEY);
+
+        assertArrayEquals(KEY, cache.get("secret", "20190101", "us-east-1", "kinesis"));
+        assertNull(cache.get("secret", "20190101", "us-west-2", "kinesis"));
+        assertNull(cache.get("secret", "20190101", "us-east-1", "mobiletargeting"));
+    }
+
+    @Test
+    public void testReturnedKeyIsACopy() {
+        final AWS4SigningKeyCache cache = new AWS4SigningKeyCache(4);
+        cache.put("secret", "20190101", "us-east-1", "kinesis", KEY);
+
+        cache.get("secret", "20190101", "us-east-1", "kinesis")[0] = 42;
+        assertArrayEquals(KEY, cache.get("secret", "20190101", "us-east-1", "kinesis"));
+    }
+
+    @Test
+    public void testRotatedSecretIsAMiss() {
+        final AWS4SigningKeyCache cache = new AWS4SigningKeyCache(4);
+        cache.put("secret", "20190101", "us-east-1", "kinesis", KEY);
+
+        assertNull(cache.get("rotated", "20190101", "us-east-1", "kinesis"));
+
+        final byte[] rotatedKey = new byte[] {
+                5, 6, 7, 8
+        };
+        cache.put("rotated", "20190101", "us-east-1", "kinesis", rotatedKey);
+        assertArrayEquals(rotatedKey, cache.get("rotated", "20190101", "us-east-1", "kinesis"));
+        assertNull(cache.get("secret", "20190101", "us-east-1", "kinesis"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testDayRolloverEvictsEarlierDays() {
+        final AWS4SigningKeyCache cache = new AWS4SigningKeyCache(4);
+        cache.put("secret", "20190101", "us-east-1", "kinesis", KEY);
+        cache.put("secret", "20190101", "us-east-1", "s3", KEY);
+        cache.put("secret", "20190102", "us-east-1", "kinesis", KEY);
+
+        assertEquals(1, cache.size());
+        assertNull(cache.get("secret", "20190101", "us-east-1", "s3"));
+        assertArrayEquals(KEY, cache.get("secret", "20190102", "us-east-1", "kinesis"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        final AWS4SigningKeyCache cache = new AWS4SigningKeyCache(2);
+        cache.put("secret", "20190101", "us-east-1", "kinesis", KEY);
+        cache.put("secret", "20190101", "us-east-1", "s3", KEY);
+        cache.get("secret", "20190101", "us-east-1", "kinesis");
+        cache.put("secret", "20190101", "us-east-1", "iotdata", KEY);
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("secret", "20190101", "us-east-1", "s3"));
+        assertArrayEquals(KEY, cache.get("secret", "20190101", "us-east-1", "kinesis"));
+    }
+
+    @Test
+    public void testSignerReusesCachedKey() {
+        final AWS4Signer signer = new AWS4Signer();
+        final AWSCredentials credentials = new BasicAWSCredentials("access", "secret");
+        final byte[] first = signer.newSigningKey(credentials, "20190101", "us-east-1", "demo");
+        final byte[] second = signer.newSigningKey(credentials, "20190101", "us-east-1", "demo");
+
+        assertArrayEquals(first, second);
+        assertArrayEquals(first, AWS4SigningKeyCache.getDefault()
+                .get("secret", "20190101", "us-east-1", "demo"));
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.auth;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.amazonaws.services.securitytoken.AWSSecurityTokenService;
+import com.amazonaws.services.securitytoken.model.AssumeRoleWithWebIdentityResult;
+import com.amazonaws.services.securitytoken.model.Credentials;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Date;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CognitoCredentialsProviderTest {
+
+    private static final long FRESH = TimeUnit.HOURS.toMillis(1);
+    private static final long EXPIRING = TimeUnit.SECONDS.toMillis(100);
+    private static final long EXPIRED = -TimeUnit.SECONDS.toMillis(1);
+
+    /** The time left on each session started, in order. */
+    private final ConcurrentLinkedQueue<Long> sessionLifetimes = new ConcurrentLinkedQueue<Long>();
+    private final AtomicInteger sessionCount = new AtomicInteger();
+    private volatile CountDownLatch sessionBlocker;
+    private CognitoCredentialsProvider provider;
+
+    @Before
+    public void setUp() {
+        final AWSSecurityTokenService sts = (AWSSecurityTokenService) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] {
+                    AWSSecurityTokenService.class
+                }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args)
+                            throws Throwable {
+                        if (!"assumeRoleWithWebIdentity".equals(method.getName())) {
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                        final CountDownLatch blocker = sessionBlocker;
+                        if (blocker != null) {
+                            blocker.await(10, TimeUnit.SECONDS);
+                        }
+                        final int session = sessionCount.incrementAndGet();
+                        return new AssumeRoleWithWebIdentityResult()
+                                .withCredentials(new Credentials()
+                                        .withAccessKeyId("accessKey" + session)
+                                        .withSecretAccessKey("secretKey" + session)
+                                        .withSessionToken("sessionToken" + session)
+                                        .withExpiration(new Date(System.currentTimeMillis()
+                                                + sessionLifetimes.poll())));
+                    }
+                });
+        final AWSCognitoIdentityProvider identityProvider = (AWSCognitoIdentityProvider) Proxy
+                .newProxyInstance(getClass().getClassLoader(), new Class<?>[] {
+                    AWSCognitoIdentityProvider.class
+                }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if ("refresh".equals(method.getName())
+                                || "getToken".equals(method.getName())) {
+                            return "token";
+                        }
+                        if ("isAuthenticated".equals(method.getName())) {
+                            return false;
+                        }
+                        return null;
+                    }
+                });
+        provider = new CognitoCredentialsProvider(identityProvider, "unauthRoleArn",
+                "authRoleArn", sts);
+    }
+
+    @Test
+    public void testReusesValidCredentials() {
+        sessionLifetimes.add(FRESH);
+        final AWSSessionCredentials credentials = provider.getCredentials();
+        assertEquals("accessKey1", credentials.getAWSAccessKeyId());
+        for (int i = 0; i < 100; i++) {
+            assertSame(credentials, provider.getCredentials());
+        }
+        assertEquals(1, sessionCount.get());
+    }
+
+    @Test
+    public void testRefreshesExpiringCredentialsInBackground() throws Exception {
+        sessionLifetimes.add(EXPIRING);
+        sessionLifetimes.add(FRESH);
+        final AWSSessionCredentials expiring = provider.getCredentials();
+
+        sessionBlocker = new CountDownLatch(1);
+        // while the new session is being started, the expiring credentials
+        // are still returned, and only one new session is started
+        for (int i = 0; i < 100; i++) {
+            assertSame(expiring, provider.getCredentials());
+        }
+        sessionBlocker.countDown();
+
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (provider.getCredentials() == expiring && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("accessKey2", provider.getCredentials().getAWSAccessKeyId());
+        assertEquals(2, sessionCount.get());
+    }
+
+    @Test
+    public void testExpiredCredentialsAreRefreshedBeforeReturning() {
+        sessionLifetimes.add(EXPIRED);
+        sessionLifetimes.add(FRESH);
+        // a session that is already expired is started again at once
+        assertEquals("accessKey1", provider.getCredentials().getAWSAccessKeyId());
+        assertEquals("accessKey2", provider.getCredentials().getAWSAccessKeyId());
+        assertEquals(2, sessionCount.get());
+    }
+
+    @Test
+    public void testClearCredentialsStartsNewSession() {
+        sessionLifetimes.add(FRESH);
+        sessionLifetimes.add(FRESH);
+        final AWSSessionCredentials credentials = provider.getCredentials();
+        provider.clearCredentials();
+        final AWSSessionCredentials newCredentials = provider.getCredentials();
+        assertTrue(credentials != newCredentials);
+        assertEquals("accessKey2", newCredentials.getAWSAccessKeyId());
+    }
+
+    @Test
+    public void testRefreshStartsNewSession() {
+        sessionLifetimes.add(FRESH);
+        sessionLifetimes.add(FRESH);
+        provider.getCredentials();
+        provider.refresh();
+        assertEquals("accessKey2", provider.getCredentials().getAWSAccessKeyId());
+        assertEquals(2, sessionCount.get());
+    }
+}
@@ -16,7 +16,9 @@
 package com.amazonaws.handlers;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import com.amazonaws.AmazonClientException;
 
@@ -50,6 +52,44 @@ public class HandleChainFactoryTest {
         assertEquals(chain.get(0).hashCode(), 1);
     }
 
+    @Test
+    public void testNewRequestHandler2ChainCreatesNewHandlers() throws IOException {
+
+        List<RequestHandler2> first = new HandlerChainFactory()
+                .newRequestHandler2Chain("/com/amazonaws/handlers/request.handler2s");
+        List<RequestHandler2> second = new HandlerChainFactory()
+                .newRequestHandler2Chain("/com/amazonaws/handlers/request.handler2s");
+
+        assertEquals(second.size(), 1);
+        assertNotSame(first.get(0), second.get(0));
+        // the chain can be added to
+        second.add(new MockRequestHandler2());
+    }
+
+    @Test
+    public void testNewRequestHandler2ChainWithMissingResource() throws IOException {
+
+        List<RequestHandler2> chain = new HandlerChainFactory()
+                .newRequestHandler2Chain("/com/amazonaws/handlers/missing.handler2s");
+
+        assertTrue(chain.isEmpty());
+        chain.add(new MockRequestHandler2());
+    }
+
+    @Test
+    public void testMixedHandlersFailEveryTime() throws IOException {
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                new HandlerChainFactory()
+                        .newRequestHandlerChain("/com/amazonaws/handlers/mixed.handlers");
+                fail();
+            } catch (AmazonClientException e) {
+                // expected
+            }
+        }
+    }
+
     @Test(expected = AmazonClientException.class)
     public void testNewRequestHandlerChainFailsWhenRequest1AndRequest2HandlersMixed()
             throws IOException {
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.http.HttpResponse;
+import com.amazonaws.services.cognitoidentity.model.GetIdRequest;
+import com.amazonaws.services.cognitoidentity.model.ListIdentityPoolsRequest;
+import com.amazonaws.util.AWSRequestMetrics.Field;
+import com.amazonaws.util.AWSRequestMetricsFullSupport;
+import com.amazonaws.util.TimingInfo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class InMemoryMetricCollectorTest {
+
+    private static final String SERVICE = "AmazonCognitoIdentity";
+
+    private InMemoryMetricCollector collector;
+
+    @Before
+    public void setUp() {
+        collector = new InMemoryMetricCollector();
+        collector.start();
+    }
+
+    private static Request<?> request(AmazonWebServiceRequest originalRequest, long latencyMicros,
+            int requestCount, String errorCode) {
+        final Request<?> request = new DefaultRequest<Object>(originalRequest, SERVICE);
+        request.addHeader("Content-Length", "100");
+        final AWSRequestMetricsFullSupport metrics = new AWSRequestMetricsFullSupport();
+        metrics.setCounter(Field.RequestCount, requestCount);
+        if (errorCode != null) {
+            metrics.addProperty(Field.AWSErrorCode, errorCode);
+        }
+        final TimingInfo timingInfo = metrics.getTimingInfo();
+        timingInfo.setEndTimeNano(timingInfo.getStartTimeNano()
+                + TimeUnit.MICROSECONDS.toNanos(latencyMicros));
+        request.setAWSRequestMetrics(metrics);
+        return request;
+    }
+
+    private static Response<Object> response() {
+        return new Response<Object>(null, HttpResponse.builder().statusCode(200)
+                .header("Content-Length", "1000").build());
+    }
+
+    private void collect(Request<?> request, Response<?> response) {
+        collector.getRequestMetricCollector().collectMetrics(request, response);
+    }
+
+    @Test
+    public void testRecordsPerOperation() {
+        for (int i = 1; i <= 100; i++) {
+            collect(request(new GetIdRequest(), i * 1000, 1, null), response());
+        }
+        collect(request(new GetIdRequest(), 5000, 3, "ThrottlingException"), null);
+        collect(request(new ListIdentityPoolsRequest(), 2000, 1, null), response());
+
+        final List<InMemoryMetricCollector.OperationMetrics> snapshot = collector.getSnapshot();
+        assertEquals(2, snapshot.size());
+
+        final InMemoryMetricCollector.OperationMetrics getId = snapshot.get(0);
+        assertEquals(SERVICE, getId.getServiceName());
+        assertEquals("GetId", getId.getOperationName());
+        assertEquals(101, getId.getRequestCount());
+        assertEquals(1, getId.getFailedCount());
+        assertEquals(1, getId.getThrottledCount());
+        assertEquals(2, getId.getRetryCount());
+        assertEquals(101 * 100, getId.getBytesOut());
+        assertEquals(100 * 1000, getId.getBytesIn());
+        assertWithin(50000, getId.getLatencyPercentileMicros(50));
+        assertWithin(99000, getId.getLatencyPercentileMicros(99));
+        assertWithin(100000, getId.getLatencyPercentileMicros(100));
+
+        final InMemoryMetricCollector.OperationMetrics listPools = snapshot.get(1);
+        assertEquals("ListIdentityPools", listPools.getOperationName());
+        assertEquals(1, listPools.getRequestCount());
+        assertWithin(2000, listPools.getLatencyPercentileMicros(50));
+    }
+
+    @Test
+    public void testStoppedCollectorRecordsNothing() {
+        collector.stop();
+        assertFalse(collector.getRequestMetricCollector().isEnabled());
+        collect(request(new GetIdRequest(), 1000, 1, null), response());
+        assertTrue(collector.getSnapshot().isEmpty());
+    }
+
+    @Test
+    public void testOperationsPastTheLimitAreCountedAsOther() {
+        collector = new InMemoryMetricCollector(1);
+        collector.start();
+        collect(request(new GetIdRequest(), 1000, 1, null), response());
+        collect(request(new ListIdentityPoolsRequest(), 1000, 1, null), response());
+        collect(request(new ListIdentityPoolsRequest(), 1000, 1, null), response());
+
+        final List<InMemoryMetricCollector.OperationMetrics> snapshot = collector.getSnapshot();
+        assertEquals(2, snapshot.size());
+        assertEquals("GetId", snapshot.get(0).getOperationName());
+        assertEquals(InMemoryMetricCollector.OTHER, snapshot.get(1).getServiceName());
+        assertEquals(2, snapshot.get(1).getRequestCount());
+    }
+
+    @Test
+    public void testResetAndDump() throws Exception {
+        collect(request(new GetIdRequest(), 1000, 1, null), response());
+        final StringWriter writer = new StringWriter();
+        collector.dump(writer);
+        assertTrue(writer.toString(), writer.toString().startsWith(SERVICE + ".GetId requests=1 "));
+
+        collector.reset();
+        assertTrue(collector.getSnapshot().isEmpty());
+    }
+
+    @Test
+    public void testBucketsCoverAllValues() {
+        long previous = -1;
+        for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            final long highest = LatencyHistogram.highestValueInBucket(i);
+            assertTrue(highest > previous);
+            assertEquals(i, LatencyHistogram.bucketIndex(previous + 1));
+            assertEquals(i, LatencyHistogram.bucketIndex(highest));
+            previous = highest;
+        }
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1,
+                LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+        assertEquals(0, LatencyHistogram.bucketIndex(-1));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        // buckets are 1/16 of a power of two wide
+        assertTrue("expected about " + expected + " but was " + actual,
+                Math.abs(actual - expected) <= expected / 16 + 1);
+    }
+}
@@ -105,6 +105,32 @@ public class StaxUnmarshallerContextTest {
         assertFalse("expression not match", context.testExpression("imageSet/item_id", 2));
     }
 
+    @Test
+    public void testCompiledExpression() throws Exception {
+        context = getContext(XML_STRING, null);
+        while (context.getCurrentDepth() < 4) {
+            context.nextEvent();
+        }
+
+        StaxUnmarshallerContext.PathExpression expression =
+                StaxUnmarshallerContext.PathExpression.compile("imageSet/item/id");
+        assertTrue("compiled expressions are interned", expression ==
+                StaxUnmarshallerContext.PathExpression.compile("imageSet/item/id"));
+        assertEquals("imageSet/item/id", expression.toString());
+        assertTrue(context.testExpression(expression, 2));
+        assertFalse("depth not match", context.testExpression(expression, 1));
+        assertTrue(". always match", context.testExpression(
+                StaxUnmarshallerContext.PathExpression.compile("."), 0));
+        assertFalse("longer than the stack", context.testExpression(
+                "Envelope/DescribeImagesResponse/imageSet/item/id", 0));
+        assertFalse("attributes are not elements", context.testExpression("item/@id", 3));
+
+        // the expression moves with the document position
+        assertEquals("id", context.readText());
+        assertFalse(context.testExpression(expression, 2));
+        assertTrue(context.testExpression("imageSet/item", 2));
+    }
+
     @Test
     public void testMetadata() throws Exception {
         String key = "AWS_REQUEST_ID";
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.amazonaws.util.AWSRequestMetrics.Field;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+@SuppressWarnings("deprecation")
+public class AWSRequestMetricsCompactTest {
+
+    private static AWSRequestMetricsCompact record() {
+        final AWSRequestMetricsCompact metrics = new AWSRequestMetricsCompact();
+        metrics.addProperty(Field.ServiceName, "AmazonCognitoIdentity");
+        for (int i = 1; i <= 3; i++) {
+            metrics.setCounter(Field.RequestCount, i);
+            metrics.startEvent(Field.HttpRequestTime);
+            metrics.endEvent(Field.HttpRequestTime);
+            metrics.addProperty(Field.StatusCode, i == 3 ? 200 : 503);
+        }
+        metrics.incrementCounter(Field.Exception);
+        metrics.incrementCounter(Field.Exception);
+        metrics.startEvent(Field.ClientExecuteTime);
+        return metrics;
+    }
+
+    @Test
+    public void testReadsFields() {
+        final AWSRequestMetricsCompact metrics = record();
+        assertTrue(metrics.isEnabled());
+        assertEquals(Arrays.<Object> asList(503, 503, 200), metrics.getProperty(Field.StatusCode));
+        assertEquals(Arrays.<Object> asList("AmazonCognitoIdentity"),
+                metrics.getProperty("ServiceName"));
+        assertNull(metrics.getProperty(Field.AWSErrorCode));
+
+        final TimingInfo timingInfo = metrics.getTimingInfo();
+        assertEquals(3L, timingInfo.getCounter(Field.RequestCount.name()).longValue());
+        assertEquals(2L, timingInfo.getCounter(Field.Exception.name()).longValue());
+        assertNull(timingInfo.getCounter(Field.RetryCount.name()));
+        assertEquals(3, timingInfo.getAllSubMeasurements(Field.HttpRequestTime.name()).size());
+        assertTrue(timingInfo.getSubMeasurement(Field.HttpRequestTime.name()).isEndTimeKnown());
+        assertNotNull(timingInfo.getLastSubMeasurement(Field.HttpRequestTime.name()));
+        assertNull(timingInfo.getSubMeasurement(Field.HttpRequestTime.name(), 3));
+        assertNull(timingInfo.getSubMeasurement(Field.ClientExecuteTime.name()));
+
+        metrics.endEvent(Field.ClientExecuteTime);
+        assertNotNull(timingInfo.getSubMeasurement(Field.ClientExecuteTime.name()));
+    }
+
+    @Test
+    public void testExpandsIntoLegacyForm() {
+        final AWSRequestMetricsCompact metrics = record();
+        // not a predefined field
+        metrics.addProperty("custom", "value");
+
+        assertEquals(Arrays.<Object> asList("value"), metrics.getProperty("custom"));
+        assertEquals(Arrays.<Object> asList(503, 503, 200), metrics.getProperty(Field.StatusCode));
+        final TimingInfo timingInfo = metrics.getTimingInfo();
+        final Map<String, Number> counters = timingInfo.getAllCounters();
+        assertEquals(3L, counters.get(Field.RequestCount.name()).longValue());
+        assertEquals(2, counters.get(Field.Exception.name()).intValue());
+        assertEquals(3, timingInfo.getSubMeasurementsByName()
+                .get(Field.HttpRequestTime.name()).size());
+
+        // events started before expanding can still be ended
+        metrics.endEvent(Field.ClientExecuteTime);
+        assertNotNull(timingInfo.getSubMeasurement(Field.ClientExecuteTime.name()));
+        metrics.setCounter(Field.RequestCount, 4);
+        assertEquals(4L, timingInfo.getCounter(Field.RequestCount.name()).longValue());
+    }
+
+    @Test
+    public void testReleasedRecordIsReusedEmpty() {
+        final AWSRequestMetricsCompact metrics = record();
+        metrics.release();
+
+        final AWSRequestMetricsCompact next = new AWSRequestMetricsCompact();
+        assertNull(next.getProperty(Field.StatusCode));
+        assertNull(next.getTimingInfo().getCounter(Field.RequestCount.name()));
+        assertNull(next.getTimingInfo().getAllSubMeasurements(Field.HttpRequestTime.name()));
+        next.endEvent(Field.HttpRequestTime);
+        assertNull(next.getTimingInfo().getSubMeasurement(Field.HttpRequestTime.name()));
+
+        // the released metrics are empty
+        final List<Object> statusCodes = metrics.getProperty(Field.StatusCode);
+        assertNull(statusCodes);
+    }
+}
@@ -121,4 +121,20 @@ public class AwsHostNameUtilsTest {
                 "bucket.name.with.periods.s3-fips-us-gov-west-1.amazonaws.com", null));
     }
 
+    @Test
+    public void testMemoizedPerServiceHint() {
+        // the same host is parsed differently with and without a hint
+        final String host = "search.foo.us-west-1.example.com";
+        for (int i = 0; i < 2; i++) {
+            assertEquals("us-east-1", AwsHostNameUtils.parseRegionName(host, null));
+            assertEquals("us-west-1", AwsHostNameUtils.parseRegionName(host, "foo"));
+            assertEquals("us-east-1", AwsHostNameUtils.parseRegionName(host, "bar"));
+        }
+        // more hosts than are memoized
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("region-" + i, AwsHostNameUtils.parseRegionName(
+                    "foo.region-" + i + ".example.com", "foo"));
+        }
+    }
+
 }
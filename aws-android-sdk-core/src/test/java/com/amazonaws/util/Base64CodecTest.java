@@ -18,10 +18,13 @@ package com.amazonaws.util;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.Random;
 import java.util.UUID;
 
 public class Base64CodecTest
@@ -92,4 +95,45 @@ public class Base64CodecTest
             }
         }
     }
+
+    @Test
+    public void testStreamingLargeBuffers() throws Exception {
+        Random random = new Random(7);
+        for (int length : new int[] {
+                64 * 1024, 64 * 1024 + 1, 64 * 1024 + 2, 1024 * 1024, 5 * 1024 * 1024
+        }) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            String expected = Base64.encodeAsString(data);
+
+            for (ByteBuffer buffer : new ByteBuffer[] {
+                    ByteBuffer.wrap(data), ByteBuffer.allocateDirect(length).put(data)
+            }) {
+                buffer.rewind();
+                StringWriter out = new StringWriter(expected.length());
+                Base64.encode(buffer, out);
+                Assert.assertEquals(expected, out.toString());
+                Assert.assertEquals(0, buffer.position());
+            }
+            Assert.assertArrayEquals(data, Base64.decode(expected));
+            // the slower path when the input needs sanitizing
+            Assert.assertArrayEquals(data, Base64.decode(expected + "\r\n"));
+        }
+    }
+
+    @Test
+    public void testDecodingRejectsInvalidStrings() {
+        final String[] invalid = {
+                "Zm9", "Zm9v!mFy", "Zm9vYm\u00e9y", "Zm=v", "Zm9vYmF{"
+        };
+
+        for (String s : invalid) {
+            try {
+                Base64.decode(s);
+                Assert.fail(s);
+            } catch (IllegalArgumentException ex) {
+                // expected
+            }
+        }
+    }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.util;
+
+import static com.amazonaws.util.StringUtils.UTF8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.amazonaws.util.json.AwsJsonWriter;
+import com.amazonaws.util.json.JsonUtils;
+
+import org.junit.Test;
+
+import java.security.MessageDigest;
+import java.util.Random;
+
+public class Utf8ByteArrayWriterTest {
+
+    private static final String SAMPLE = "ascii éè € 中文 😀 end";
+
+    private static byte[] encode(String s, int chunkSize) throws Exception {
+        final Utf8ByteArrayWriter writer = new Utf8ByteArrayWriter(1);
+        for (int i = 0; i < s.length(); i += chunkSize) {
+            final int end = Math.min(s.length(), i + chunkSize);
+            if (i % 2 == 0) {
+                writer.write(s, i, end - i);
+            } else {
+                writer.write(s.substring(i, end).toCharArray());
+            }
+        }
+        return IOUtils.toByteArray(writer.toInputStream());
+    }
+
+    @Test
+    public void testEncodesLikeString() throws Exception {
+        for (final int chunkSize : new int[] {
+                1, 2, 3, 1000
+        }) {
+            assertArrayEquals(SAMPLE.getBytes(UTF8), encode(SAMPLE, chunkSize));
+        }
+        final Random random = new Random(42);
+        final char[] chars = new char[100000];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) random.nextInt(Character.MAX_VALUE + 1);
+        }
+        // includes unpaired surrogates
+        final String s = new String(chars);
+        assertArrayEquals(s.getBytes(UTF8), encode(s, 4096));
+        assertArrayEquals("a?b?".getBytes(UTF8), encode("a\ud83db\ude00", 1));
+        assertArrayEquals("a?".getBytes(UTF8), encode("a\ud83d", 1));
+    }
+
+    @Test
+    public void testJsonContent() throws Exception {
+        final Utf8ByteArrayWriter writer = new Utf8ByteArrayWriter();
+        final AwsJsonWriter jsonWriter = JsonUtils.getJsonWriter(writer);
+        jsonWriter.beginObject();
+        jsonWriter.name("Key").value(SAMPLE);
+        jsonWriter.endObject();
+        jsonWriter.close();
+        final ByteArrayContentInputStream content = writer.toInputStream();
+
+        final byte[] expected = ("{\"Key\":\"" + SAMPLE + "\"}").getBytes(UTF8);
+        assertEquals(expected.length, content.getLength());
+        assertEquals(BinaryUtils.toHex(MessageDigest.getInstance("SHA-256").digest(expected)),
+                content.getContentSha256Hex());
+        // repeatable
+        content.mark(-1);
+        assertArrayEquals(expected, IOUtils.toByteArray(content));
+        content.reset();
+        assertArrayEquals(expected, IOUtils.toByteArray(content));
+        assertEquals(expected.length, content.getLength());
+    }
+}
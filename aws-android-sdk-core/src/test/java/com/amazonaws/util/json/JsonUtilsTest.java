@@ -22,6 +22,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import com.amazonaws.util.BinaryUtils;
 import com.amazonaws.util.json.JsonUtils.JsonEngine;
 
 import org.junit.Test;
@@ -270,6 +271,40 @@ public class JsonUtilsTest {
         assertEquals("[\"" + target + "\"]", out.toString());
     }
 
+    @Test
+    public void testLargeByteBuffersInObject() throws IOException {
+        for (JsonEngine engine : JsonEngine.values()) {
+            JsonUtils.setJsonEngine(engine);
+            for (int length : new int[] {
+                    0, 1, 2, 3, 64 * 1024 + 1, 5 * 1024 * 1024
+            }) {
+                ByteBuffer heap = generateByteBuffer(length + 8);
+                heap.position(5);
+                heap.limit(5 + length);
+                ByteBuffer direct = ByteBuffer.allocateDirect(length);
+                direct.put(heap.duplicate()).flip();
+                byte[] bytes = new byte[length];
+                heap.duplicate().get(bytes);
+                String target = BinaryUtils.toBase64(bytes);
+
+                StringWriter out = new StringWriter();
+                JsonUtils.getJsonWriter(out)
+                        .beginObject()
+                        .name("a").value(heap)
+                        .name("b").value(direct)
+                        .name("c").value("c")
+                        .endObject()
+                        .close();
+                assertEquals(engine + " " + length, "{\"a\":\"" + target + "\",\"b\":\""
+                        + target + "\",\"c\":\"c\"}", out.toString());
+                // the buffers are not consumed
+                assertEquals(5, heap.position());
+                assertEquals(0, direct.position());
+            }
+        }
+        JsonUtils.setJsonEngine(JsonEngine.Gson);
+    }
+
     private ByteBuffer generateByteBuffer(int length) {
         byte[] bytes = new byte[length];
         for (int i = 0; i < length; i++) {
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
+
+import com.amazonaws.AmazonClientException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs the requests of one batch operation of the {@link DynamoDBMapper},
+ * keeping at most a fixed number of them in flight. With a parallelism of 1
+ * every task runs on the calling thread as soon as it is submitted.
+ *
+ * @param <T> the result type of the tasks
+ */
+final class BatchTaskExecutor<T> {
+
+    /**
+     * Runs the tasks of all the batch operations, so that threads are reused
+     * across calls rather than created for each one.
+     */
+    private static final ExecutorService BATCH_EXECUTOR = Executors
+            .newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r);
+                    t.setName("android-sdk-ddb-mapper-batch-thread");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+
+    private final int parallelism;
+    private final CompletionService<T> completionService;
+    private final Set<Future<T>> tasksInFlight = new HashSet<Future<T>>();
+    private final List<T> results = new ArrayList<T>();
+
+    /**
+     * @param parallelism the maximum number of tasks running at once, at least
+     *            1
+     */
+    BatchTaskExecutor(int parallelism) {
+        this.parallelism = parallelism;
+        completionService = parallelism > 1 ? new ExecutorCompletionService<T>(BATCH_EXECUTOR)
+                : null;
+    }
+
+    /**
+     * Submits a task, first waiting for a running task to finish if the
+     * maximum number of tasks is already in flight.
+     *
+     * @param task the task to run
+     */
+    void submit(Callable<T> task) {
+        if (completionService == null) {
+            results.add(call(task));
+            return;
+        }
+        if (tasksInFlight.size() == parallelism) {
+            takeResult();
+        }
+        tasksInFlight.add(completionService.submit(task));
+    }
+
+    /**
+     * Waits for all the submitted tasks to finish.
+     *
+     * @return the results of the tasks, in the order they finished
+     */
+    List<T> awaitResults() {
+        while (!tasksInFlight.isEmpty()) {
+            takeResult();
+        }
+        return results;
+    }
+
+    /**
+     * Cancels the tasks still running, interrupting them. Safe to call more
+     * than once.
+     */
+    void cancel() {
+        for (final Future<T> task : tasksInFlight) {
+            task.cancel(true);
+        }
+        tasksInFlight.clear();
+    }
+
+    private void takeResult() {
+        try {
+            final Future<T> task = completionService.take();
+            tasksInFlight.remove(task);
+            results.add(task.get());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException(e.getMessage(), e);
+        } catch (final ExecutionException e) {
+            throw toClientException(e.getCause());
+        }
+    }
+    private static <T> T call(Callable<T> task) {
+        try {
+            return task.call();
+        } catch (final Exception e) {
+            throw toClientException(e);
+        }
+    }
+
+    private static RuntimeException toClientException(Throwable t) {
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new AmazonClientException(t.getMessage(), t);
+    }
+}
@@ -71,6 +71,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -78,6 +79,10 @@ import java.util.Map.Entry;
 import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Object mapper for domain-object interaction with DynamoDB.
@@ -179,6 +184,8 @@ public class DynamoDBMapper {
     private final AmazonDynamoDB db;
     private final DynamoDBMapperConfig config;
     private final DynamoDBReflector reflector = new DynamoDBReflector();
+    private final ConcurrentMap<ConversionSchema, ItemConverter> converterCache =
+            new ConcurrentHashMap<ConversionSchema, ItemConverter>();
     private final DynamoDBTableSchemaParser schemaParser = new DynamoDBTableSchemaParser();
     private final VersionIncrementor incrementor = new VersionIncrementor();
 
@@ -187,8 +194,6 @@ public class DynamoDBMapper {
     /** The max back off time for batch write */
     static final long MAX_BACKOFF_IN_MILLISECONDS = 1000 * 3;
 
-    private static final long THREAD_SLEEP_TWO_SECONDS = 1000 * 2;
-
     /** The max number of items allowed in a BatchWrite request */
     static final int MAX_ITEMS_PER_BATCH = 25;
 
@@ -201,7 +206,7 @@ public class DynamoDBMapper {
     static final int BATCH_GET_MAX_RETRY_COUNT_ALL_KEYS = 5;
 
     private static final int EXPONENTIAL_BACKOFF_OFFSET = 500;
-    private static final int EXPONENTIAL_BACKOFF_RANDOMIZATION_OFFSET = 100;
+    private static final Random BACKOFF_RANDOM = new Random();
     /**
      * User agent for requests made using the {@link DynamoDBMapper}.
      */
@@ -1719,20 +1724,52 @@ public class DynamoDBMapper {
      */
     public List<FailedBatch> batchWrite(List<? extends Object> objectsToWrite,
             List<? extends Object> objectsToDelete, DynamoDBMapperConfig config) {
-        config = mergeConfig(config);
+        return batchWrite(objectsToWrite.iterator(), objectsToDelete.iterator(), config);
+    }
 
-        final List<FailedBatch> totalFailedBatches = new LinkedList<FailedBatch>();
+    /**
+     * Saves and deletes the objects returned by the given iterators using one
+     * or more calls to the
+     * {@link AmazonDynamoDB#batchWriteItem(BatchWriteItemRequest)} API.
+     * <p>
+     * Every object is converted before the first request is sent, so an
+     * object that can't be mapped fails the call without writing anything.
+     * Write requests are grouped by table, 25 objects of one table per
+     * request, and the rest are sent mixing tables. Up to
+     * {@link DynamoDBMapperConfig#getBatchParallelism()} requests are in
+     * flight at once. Unprocessed items are retried with a jittered
+     * exponential backoff.
+     * </p>
+     *
+     * @param objectsToWrite the objects to save to DynamoDB. <b>No version
+     *            checks are performed</b>.
+     * @param objectsToDelete the objects to delete from DynamoDB. <b>No
+     *            version checks are performed</b>.
+     * @param config Only {@link DynamoDBMapperConfig#getTableNameOverride()}
+     *            and {@link DynamoDBMapperConfig#getBatchParallelism()} are
+     *            considered; this method <b>always acts as if
+     *            SaveBehavior.CLOBBER was specified</b>.
+     * @return A list of failed batches which includes the unprocessed items and
+     *         the exceptions causing the failure.
+     * @see DynamoDBMapper#batchWrite(List, List, DynamoDBMapperConfig)
+     */
+    public List<FailedBatch> batchWrite(Iterator<? extends Object> objectsToWrite,
+            Iterator<? extends Object> objectsToDelete, DynamoDBMapperConfig config) {
+        config = mergeConfig(config);
 
-        final HashMap<String, List<WriteRequest>> requestItems = new HashMap<String, List<WriteRequest>>();
+        final Map<String, List<WriteRequest>> requestItems =
+                new LinkedHashMap<String, List<WriteRequest>>();
 
         final ItemConverter converter = getConverter(config);
 
         final List<ValueUpdate> inMemoryUpdates = new LinkedList<ValueUpdate>();
-        for (final Object toWrite : objectsToWrite) {
+        while (objectsToWrite.hasNext()) {
+            final Object toWrite = objectsToWrite.next();
             final Class<?> clazz = toWrite.getClass();
             final String tableName = getTableName(clazz, toWrite, config);
 
-            final Map<String, AttributeValue> attributeValues = new HashMap<String, AttributeValue>();
+            final Map<String, AttributeValue> attributeValues =
+                    new HashMap<String, AttributeValue>();
 
             // Look at every getter and construct a value object for it
             for (final Method method : reflector.getRelevantGetters(clazz)) {
@@ -1744,7 +1781,8 @@ public class DynamoDBMapper {
                 AttributeValue currentValue = null;
                 if (getterResult == null && reflector.isAssignableKey(method)) {
                     currentValue = getAutoGeneratedKeyAttributeValue(converter, method);
-                    inMemoryUpdates.add(new ValueUpdate(method, currentValue, toWrite, converter));
+                    inMemoryUpdates.add(new ValueUpdate(method, currentValue, toWrite,
+                            converter));
                 } else {
                     currentValue = converter.convert(method, getterResult);
                 }
@@ -1754,78 +1792,63 @@ public class DynamoDBMapper {
                 }
             }
 
-            if (!requestItems.containsKey(tableName)) {
-                requestItems.put(tableName, new LinkedList<WriteRequest>());
-            }
-
             final AttributeTransformer.Parameters<?> parameters =
                     toParameters(attributeValues, clazz, tableName, config);
 
-            requestItems.get(tableName).add(
+            addWriteRequest(requestItems, tableName,
                     new WriteRequest().withPutRequest(
                             new PutRequest().withItem(
                                     transformAttributes(parameters))));
         }
 
-        for (final Object toDelete : objectsToDelete) {
+        while (objectsToDelete.hasNext()) {
+            final Object toDelete = objectsToDelete.next();
             final Class<?> clazz = toDelete.getClass();
 
             final String tableName = getTableName(clazz, toDelete, config);
 
             final Map<String, AttributeValue> key = getKey(converter, toDelete);
 
-            if (!requestItems.containsKey(tableName)) {
-                requestItems.put(tableName, new LinkedList<WriteRequest>());
-            }
-
-            requestItems.get(tableName).add(
+            addWriteRequest(requestItems, tableName,
                     new WriteRequest().withDeleteRequest(new DeleteRequest().withKey(key)));
         }
 
-        // Break into chunks of 25 items and make service requests to DynamoDB
-        while (!requestItems.isEmpty()) {
-
-            final HashMap<String, List<WriteRequest>> batch =
-                    new HashMap<String, List<WriteRequest>>();
-
-            int i = 0;
-
-            final Iterator<Entry<String, List<WriteRequest>>> tableIter = requestItems.entrySet()
-                    .iterator();
-            while (tableIter.hasNext() && i < MAX_ITEMS_PER_BATCH) {
-
-                final Entry<String, List<WriteRequest>> tableRequest = tableIter.next();
-
-                batch.put(tableRequest.getKey(), new LinkedList<WriteRequest>());
-                final Iterator<WriteRequest> writeRequestIter = tableRequest.getValue().iterator();
-
-                while (writeRequestIter.hasNext() && i++ < MAX_ITEMS_PER_BATCH) {
-                    final WriteRequest writeRequest = writeRequestIter.next();
-                    batch.get(tableRequest.getKey()).add(writeRequest);
-                    writeRequestIter.remove();
+        final AtomicInteger throttledBatches = new AtomicInteger();
+        final BatchTaskExecutor<List<FailedBatch>> executor =
+                new BatchTaskExecutor<List<FailedBatch>>(getBatchParallelism(config));
+        final List<FailedBatch> totalFailedBatches = new LinkedList<FailedBatch>();
+        try {
+            // Send the full batches of each table, then what is left in chunks
+            // of 25 items, mixing tables
+            final Iterator<Entry<String, List<WriteRequest>>> tableIter =
+                    requestItems.entrySet().iterator();
+            while (tableIter.hasNext()) {
+                final Entry<String, List<WriteRequest>> tableRequests = tableIter.next();
+                final List<WriteRequest> requests = tableRequests.getValue();
+                final int fullBatches = requests.size() / MAX_ITEMS_PER_BATCH;
+                for (int i = 0; i < fullBatches; i++) {
+                    final Map<String, List<WriteRequest>> batch =
+                            new HashMap<String, List<WriteRequest>>();
+                    batch.put(tableRequests.getKey(), new ArrayList<WriteRequest>(
+                            requests.subList(i * MAX_ITEMS_PER_BATCH,
+                                    (i + 1) * MAX_ITEMS_PER_BATCH)));
+                    submitWriteBatch(executor, batch, throttledBatches);
                 }
-
-                // If we've processed all the write requests for this table,
-                // remove it from the parent iterator.
-                if (!writeRequestIter.hasNext()) {
+                requests.subList(0, fullBatches * MAX_ITEMS_PER_BATCH).clear();
+                if (requests.isEmpty()) {
                     tableIter.remove();
                 }
             }
+            while (!requestItems.isEmpty()) {
+                submitWriteBatch(executor, takeBatch(requestItems, MAX_ITEMS_PER_BATCH),
+                        throttledBatches);
+            }
 
-            final List<FailedBatch> failedBatches = writeOneBatch(batch);
-            if (failedBatches != null) {
+            for (final List<FailedBatch> failedBatches : executor.awaitResults()) {
                 totalFailedBatches.addAll(failedBatches);
-
-                // If contains throttling exception, we do a backoff
-                if (containsThrottlingException(failedBatches)) {
-                    try {
-                        Thread.sleep(THREAD_SLEEP_TWO_SECONDS);
-                    } catch (final InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        throw new AmazonClientException(e.getMessage(), e);
-                    }
-                }
             }
+        } finally {
+            executor.cancel();
         }
 
         // Once the entire batch is processed, update assigned keys in memory
@@ -1836,6 +1859,71 @@ public class DynamoDBMapper {
         return totalFailedBatches;
     }
 
+    /**
+     * Queues a write request for the given table.
+     */
+    private static void addWriteRequest(Map<String, List<WriteRequest>> requestItems,
+            String tableName, WriteRequest writeRequest) {
+        List<WriteRequest> tableRequests = requestItems.get(tableName);
+        if (tableRequests == null) {
+            tableRequests = new ArrayList<WriteRequest>();
+            requestItems.put(tableName, tableRequests);
+        }
+        tableRequests.add(writeRequest);
+    }
+
+    /**
+     * Submits one batch of write requests. When a batch fails with a
+     * throttling exception the task backs off before returning, longer for
+     * every consecutive throttled batch.
+     */
+    private void submitWriteBatch(BatchTaskExecutor<List<FailedBatch>> executor,
+            final Map<String, List<WriteRequest>> batch, final AtomicInteger throttledBatches) {
+        executor.submit(new Callable<List<FailedBatch>>() {
+            @Override
+            public List<FailedBatch> call() {
+                final List<FailedBatch> failedBatches = writeOneBatch(batch);
+                if (containsThrottlingException(failedBatches)) {
+                    pauseExponentially(throttledBatches.incrementAndGet());
+                } else {
+                    throttledBatches.set(0);
+                }
+                return failedBatches;
+            }
+        });
+    }
+
+    /**
+     * Removes up to maxItems requests from the given per table requests,
+     * taking whole tables first.
+     */
+    private static <V> Map<String, List<V>> takeBatch(Map<String, List<V>> requestItems,
+            int maxItems) {
+        final Map<String, List<V>> batch = new HashMap<String, List<V>>();
+        int count = 0;
+        final Iterator<Entry<String, List<V>>> tableIter = requestItems.entrySet().iterator();
+        while (tableIter.hasNext() && count < maxItems) {
+            final Entry<String, List<V>> tableRequest = tableIter.next();
+            final List<V> requests = tableRequest.getValue();
+            final int taken = Math.min(requests.size(), maxItems - count);
+            if (taken == requests.size()) {
+                batch.put(tableRequest.getKey(), requests);
+                tableIter.remove();
+            } else {
+                final List<V> head = requests.subList(0, taken);
+                batch.put(tableRequest.getKey(), new ArrayList<V>(head));
+                head.clear();
+            }
+            count += taken;
+        }
+        return batch;
+    }
+
+    private static int getBatchParallelism(DynamoDBMapperConfig config) {
+        final Integer parallelism = config.getBatchParallelism();
+        return parallelism == null ? 1 : parallelism;
+    }
+
     /**
      * Process one batch of requests(max 25). It will divide the batch if
      * receives request too large exception(the total size of the request is
@@ -1988,54 +2076,119 @@ public class DynamoDBMapper {
      *         mapping that table.
      */
     public Map<String, List<Object>> batchLoad(List<Object> itemsToGet, DynamoDBMapperConfig config) {
-        config = mergeConfig(config);
-        final boolean consistentReads = (config.getConsistentReads() == ConsistentReads.CONSISTENT);
-
         if (itemsToGet == null || itemsToGet.isEmpty()) {
             return new HashMap<String, List<Object>>();
         }
+        return batchLoad(itemsToGet.iterator(), config);
+    }
 
-        final Map<String, KeysAndAttributes> requestItems = new HashMap<String, KeysAndAttributes>();
-        final Map<String, Class<?>> classesByTableName = new HashMap<String, Class<?>>();
+    /**
+     * Retrieves multiple items from multiple tables using their primary keys.
+     * The key objects are consumed as the requests are sent, so callers don't
+     * have to hold every key in memory at once.
+     * <p>
+     * Keys are grouped by table; a request is sent as soon as 100 keys of one
+     * table are available. Up to
+     * {@link DynamoDBMapperConfig#getBatchParallelism()} requests are in
+     * flight at once. Unprocessed keys are retried with a jittered
+     * exponential backoff.
+     * </p>
+     *
+     * @param itemsToGet Key objects, corresponding to the class to fetch, with
+     *            their primary key values set.
+     * @param config Only {@link DynamoDBMapperConfig#getTableNameOverride()},
+     *            {@link DynamoDBMapperConfig#getConsistentReads()} and
+     *            {@link DynamoDBMapperConfig#getBatchParallelism()} are
+     *            considered.
+     * @return A map of the loaded objects. Each key in the map is the name of a
+     *         DynamoDB table. Each value in the map is a list of objects that
+     *         have been loaded from that table. All objects for each table can
+     *         be cast to the associated user defined type that is annotated as
+     *         mapping that table.
+     * @see DynamoDBMapper#batchLoad(List, DynamoDBMapperConfig)
+     */
+    public Map<String, List<Object>> batchLoad(Iterator<? extends Object> itemsToGet,
+            DynamoDBMapperConfig config) {
+        config = mergeConfig(config);
+
+        final Map<String, List<Map<String, AttributeValue>>> requestItems =
+                new LinkedHashMap<String, List<Map<String, AttributeValue>>>();
+        final Map<String, Class<?>> classesByTableName = new ConcurrentHashMap<String, Class<?>>();
         final Map<String, List<Object>> resultSet = new HashMap<String, List<Object>>();
-        int count = 0;
 
         final ItemConverter converter = getConverter(config);
 
-        for (final Object keyObject : itemsToGet) {
-            final Class<?> clazz = keyObject.getClass();
-
-            final String tableName = getTableName(clazz, keyObject, config);
-            classesByTableName.put(tableName, clazz);
+        final BatchTaskExecutor<Map<String, List<Object>>> executor =
+                new BatchTaskExecutor<Map<String, List<Object>>>(getBatchParallelism(config));
+        try {
+            while (itemsToGet.hasNext()) {
+                final Object keyObject = itemsToGet.next();
+                final Class<?> clazz = keyObject.getClass();
 
-            if (!requestItems.containsKey(tableName)) {
+                final String tableName = getTableName(clazz, keyObject, config);
+                classesByTableName.put(tableName, clazz);
 
-                requestItems.put(
-                        tableName,
-                        new KeysAndAttributes().withConsistentRead(consistentReads).withKeys(
-                                new LinkedList<Map<String, AttributeValue>>()));
+                List<Map<String, AttributeValue>> keys = requestItems.get(tableName);
+                if (keys == null) {
+                    keys = new ArrayList<Map<String, AttributeValue>>();
+                    requestItems.put(tableName, keys);
+                }
+                keys.add(getKey(converter, keyObject));
+
+                // Reach the maximum number which can be handled in a single
+                // batchGet
+                if (keys.size() == MAX_BATCH_GET_COUNT) {
+                    requestItems.remove(tableName);
+                    final Map<String, List<Map<String, AttributeValue>>> batch =
+                            new HashMap<String, List<Map<String, AttributeValue>>>();
+                    batch.put(tableName, keys);
+                    submitBatchGetRequest(executor, classesByTableName, batch, config, converter);
+                }
             }
 
-            requestItems.get(tableName).getKeys().add(
-                    getKey(converter, keyObject));
-
-            // Reach the maximum number which can be handled in a single
-            // batchGet
-            if (++count == MAX_BATCH_GET_COUNT) {
-                processBatchGetRequest(classesByTableName, requestItems, resultSet, config,
-                        converter);
-                requestItems.clear();
-                count = 0;
+            // Send what is left in chunks of 100 keys, mixing tables
+            while (!requestItems.isEmpty()) {
+                submitBatchGetRequest(executor, classesByTableName,
+                        takeBatch(requestItems, MAX_BATCH_GET_COUNT), config, converter);
             }
-        }
 
-        if (count > 0) {
-            processBatchGetRequest(classesByTableName, requestItems, resultSet, config, converter);
+            for (final Map<String, List<Object>> batchResult : executor.awaitResults()) {
+                for (final Entry<String, List<Object>> tableResult : batchResult.entrySet()) {
+                    final List<Object> objects = resultSet.get(tableResult.getKey());
+                    if (objects == null) {
+                        resultSet.put(tableResult.getKey(), tableResult.getValue());
+                    } else {
+                        objects.addAll(tableResult.getValue());
+                    }
+                }
+            }
+        } finally {
+            executor.cancel();
         }
 
         return resultSet;
     }
 
+    private void submitBatchGetRequest(BatchTaskExecutor<Map<String, List<Object>>> executor,
+            final Map<String, Class<?>> classesByTableName,
+            final Map<String, List<Map<String, AttributeValue>>> batch,
+            final DynamoDBMapperConfig config,
+            final ItemConverter converter) {
+        final boolean consistentReads = (config.getConsistentReads() == ConsistentReads.CONSISTENT);
+        final Map<String, KeysAndAttributes> requestItems = new HashMap<String, KeysAndAttributes>();
+        for (final Entry<String, List<Map<String, AttributeValue>>> tableKeys : batch.entrySet()) {
+            requestItems.put(tableKeys.getKey(), new KeysAndAttributes()
+                    .withConsistentRead(consistentReads).withKeys(tableKeys.getValue()));
+        }
+        executor.submit(new Callable<Map<String, List<Object>>>() {
+            @Override
+            public Map<String, List<Object>> call() {
+                return processBatchGetRequest(classesByTableName, requestItems, config,
+                        converter);
+            }
+        });
+    }
+
     /**
      * Retrieves the attributes for multiple items from multiple tables using
      * their primary keys.
@@ -2090,11 +2243,11 @@ public class DynamoDBMapper {
 
     /**
      * @param config never null
+     * @return the objects loaded from each table
      */
-    private void processBatchGetRequest(
+    private Map<String, List<Object>> processBatchGetRequest(
             final Map<String, Class<?>> classesByTableName,
             final Map<String, KeysAndAttributes> requestItems,
-            final Map<String, List<Object>> resultSet,
             final DynamoDBMapperConfig config,
             final ItemConverter converter) {
 
@@ -2103,6 +2256,7 @@ public class DynamoDBMapper {
                 .withRequestMetricCollector(config.getRequestMetricCollector());
         batchGetItemRequest.setRequestItems(requestItems);
 
+        final Map<String, List<Object>> resultSet = new HashMap<String, List<Object>>();
         int retries = 0;
 
         do {
@@ -2147,6 +2301,7 @@ public class DynamoDBMapper {
         } while (batchGetItemResult.getUnprocessedKeys() != null
                 && batchGetItemResult.getUnprocessedKeys().size() > 0);
 
+        return resultSet;
     }
 
     private final class ValueUpdate {
@@ -3184,24 +3339,41 @@ public class DynamoDBMapper {
     ItemConverter getConverter(DynamoDBMapperConfig config) {
         final ConversionSchema schema = config.getConversionSchema();
 
+        // The converters of the standard schemas are thread safe and cache
+        // the marshallers of every property they convert, so keep them
+        // around for the next operation.
+        final boolean cacheable = schema instanceof ConversionSchemas.StandardConversionSchema;
+        if (cacheable) {
+            final ItemConverter converter = converterCache.get(schema);
+            if (converter != null) {
+                return converter;
+            }
+        }
+
         final ConversionSchema.Dependencies params = new ConversionSchema.Dependencies()
                 .with(DynamoDBReflector.class, reflector)
                 .with(S3ClientCache.class, s3cc);
 
-        return schema.getConverter(params);
+        final ItemConverter converter = schema.getConverter(params);
+        if (cacheable) {
+            converterCache.put(schema, converter);
+        }
+        return converter;
     }
 
+    /**
+     * Sleeps for a random delay between half and all of an exponentially
+     * growing ceiling, so that concurrent batch requests retrying unprocessed
+     * items don't retry in lock step.
+     */
     private void pauseExponentially(int retries) {
         if (retries == 0) {
             return;
         }
 
-        final Random random = new Random();
-        long delay = 0;
-        final long scaleFactor = EXPONENTIAL_BACKOFF_OFFSET
-                + random.nextInt(EXPONENTIAL_BACKOFF_RANDOMIZATION_OFFSET);
-        delay = (long) (Math.pow(2, retries) * scaleFactor);
-        delay = Math.min(delay, MAX_BACKOFF_IN_MILLISECONDS);
+        final long ceiling = Math.min(EXPONENTIAL_BACKOFF_OFFSET << Math.min(retries, 16),
+                MAX_BACKOFF_IN_MILLISECONDS);
+        final long delay = ceiling / 2 + BACKOFF_RANDOM.nextInt((int) (ceiling / 2) + 1);
 
         try {
             Thread.sleep(delay);
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2011-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The mapping of a class annotated with {@link DynamoDBTable} or
+ * {@link DynamoDBDocument}, built once by the {@link DynamoDBReflector}. It
+ * holds the mapped properties of the class with their attribute names, key
+ * metadata and accessors, so that converting an item doesn't have to look any
+ * of them up again.
+ */
+final class DynamoDBMapperClassModel {
+
+    /**
+     * A mapped property of the class, read through its getter and written
+     * through its setter.
+     */
+    static final class Property {
+
+        private final Method getter;
+        private final Method setter;
+        private final DynamoDBMappingException missingSetter;
+        private final String attributeName;
+        private final boolean hashKey;
+        private final boolean rangeKey;
+        private final boolean versionAttribute;
+        private final boolean assignableKey;
+
+        Property(Method getter,
+                Method setter,
+                DynamoDBMappingException missingSetter,
+                String attributeName,
+                boolean hashKey,
+                boolean rangeKey,
+                boolean versionAttribute,
+                boolean assignableKey) {
+
+            this.getter = getter;
+            this.setter = setter;
+            this.missingSetter = missingSetter;
+            this.attributeName = attributeName;
+            this.hashKey = hashKey;
+            this.rangeKey = rangeKey;
+            this.versionAttribute = versionAttribute;
+            this.assignableKey = assignableKey;
+        }
+
+        Method getGetter() {
+            return getter;
+        }
+
+        /**
+         * Returns the setter of the property, throwing an exception if the
+         * class doesn't have one.
+         */
+        Method getSetter() {
+            if (setter == null) {
+                throw new DynamoDBMappingException(missingSetter.getMessage(),
+                        missingSetter.getCause());
+            }
+            return setter;
+        }
+
+        String getAttributeName() {
+            return attributeName;
+        }
+
+        boolean isHashKey() {
+            return hashKey;
+        }
+
+        boolean isRangeKey() {
+            return rangeKey;
+        }
+
+        boolean isVersionAttribute() {
+            return versionAttribute;
+        }
+
+        boolean isAssignableKey() {
+            return assignableKey;
+        }
+
+        /**
+         * Returns the value of the property of the object given.
+         */
+        Object get(Object object) {
+            return ReflectionUtils.safeInvoke(getter, object);
+        }
+
+        /**
+         * Sets the property of the object given to the value given.
+         */
+        void set(Object object, Object value) {
+            ReflectionUtils.safeInvoke(getSetter(), object, value);
+        }
+    }
+
+    private final Class<?> clazz;
+    private final List<Property> properties;
+    private final List<Method> getters;
+    private final List<Method> keyGetters;
+    private final Property hashKey;
+    private final Property rangeKey;
+
+    DynamoDBMapperClassModel(Class<?> clazz, List<Property> properties) {
+        this.clazz = clazz;
+        this.properties = Collections.unmodifiableList(new ArrayList<Property>(properties));
+
+        final List<Method> getters = new ArrayList<Method>(properties.size());
+        final List<Method> keyGetters = new ArrayList<Method>(2);
+        Property hashKey = null;
+        Property rangeKey = null;
+        for (final Property property : properties) {
+            getters.add(property.getGetter());
+            if (property.isHashKey() || property.isRangeKey()) {
+                keyGetters.add(property.getGetter());
+            }
+            if (hashKey == null && property.isHashKey()) {
+                hashKey = property;
+            }
+            if (rangeKey == null && property.isRangeKey()) {
+                rangeKey = property;
+            }
+        }
+        this.getters = Collections.unmodifiableList(getters);
+        this.keyGetters = Collections.unmodifiableList(keyGetters);
+        this.hashKey = hashKey;
+        this.rangeKey = rangeKey;
+    }
+
+    Class<?> getModelClass() {
+        return clazz;
+    }
+
+    /**
+     * Returns the mapped properties, in the order of the getters of the class.
+     */
+    List<Property> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Returns the getters of the mapped properties.
+     */
+    List<Method> getGetters() {
+        return getters;
+    }
+
+    /**
+     * Returns the getters of the hash and range key properties.
+     */
+    List<Method> getKeyGetters() {
+        return keyGetters;
+    }
+
+    /**
+     * Returns the hash key property, or null if the class doesn't have one.
+     */
+    Property getHashKey() {
+        return hashKey;
+    }
+
+    /**
+     * Returns the range key property, or null if the class doesn't have one.
+     */
+    Property getRangeKey() {
+        return rangeKey;
+    }
+}
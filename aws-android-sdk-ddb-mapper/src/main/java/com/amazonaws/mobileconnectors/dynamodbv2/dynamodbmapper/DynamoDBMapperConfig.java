@@ -52,6 +52,7 @@ public class DynamoDBMapperConfig {
         private PaginationLoadingStrategy paginationLoadingStrategy;
         private RequestMetricCollector requestMetricCollector;
         private ConversionSchema conversionSchema;
+        private Integer batchParallelism;
 
         /**
          * Creates a new builder initialized with the {@link #DEFAULT} values.
@@ -65,6 +66,7 @@ public class DynamoDBMapperConfig {
             paginationLoadingStrategy = DEFAULT.getPaginationLoadingStrategy();
             requestMetricCollector = DEFAULT.getRequestMetricCollector();
             conversionSchema = DEFAULT.getConversionSchema();
+            batchParallelism = DEFAULT.getBatchParallelism();
         }
 
         /**
@@ -255,6 +257,32 @@ public class DynamoDBMapperConfig {
             return this;
         }
 
+        /**
+         * @return the currently-configured number of concurrent batch requests
+         */
+        public Integer getBatchParallelism() {
+            return batchParallelism;
+        }
+
+        /**
+         * @param value the new number of concurrent batch requests, at least 1
+         */
+        public void setBatchParallelism(Integer value) {
+            if (value != null && value < 1) {
+                throw new IllegalArgumentException("batchParallelism must be at least 1");
+            }
+            batchParallelism = value;
+        }
+
+        /**
+         * @param value the new number of concurrent batch requests, at least 1
+         * @return this builder
+         */
+        public Builder withBatchParallelism(Integer value) {
+            setBatchParallelism(value);
+            return this;
+        }
+
         /**
          * Builds a new {@code DynamoDBMapperConfig} object.
          *
@@ -269,7 +297,8 @@ public class DynamoDBMapperConfig {
                     objectTableNameResolver,
                     paginationLoadingStrategy,
                     requestMetricCollector,
-                    conversionSchema);
+                    conversionSchema,
+                    batchParallelism);
         }
     }
 
@@ -528,6 +557,7 @@ public class DynamoDBMapperConfig {
     private final PaginationLoadingStrategy paginationLoadingStrategy;
     private final RequestMetricCollector requestMetricCollector;
     private final ConversionSchema conversionSchema;
+    private final Integer batchParallelism;
 
     /**
      * Legacy constructor, using default PaginationLoadingStrategy
@@ -611,6 +641,28 @@ public class DynamoDBMapperConfig {
             RequestMetricCollector requestMetricCollector,
             ConversionSchema conversionSchema) {
 
+        this(saveBehavior,
+                consistentReads,
+                tableNameOverride,
+                tableNameResolver,
+                objectTableNameResolver,
+                paginationLoadingStrategy,
+                requestMetricCollector,
+                conversionSchema,
+                null);
+    }
+
+    private DynamoDBMapperConfig(
+            SaveBehavior saveBehavior,
+            ConsistentReads consistentReads,
+            TableNameOverride tableNameOverride,
+            TableNameResolver tableNameResolver,
+            ObjectTableNameResolver objectTableNameResolver,
+            PaginationLoadingStrategy paginationLoadingStrategy,
+            RequestMetricCollector requestMetricCollector,
+            ConversionSchema conversionSchema,
+            Integer batchParallelism) {
+
         this.saveBehavior = saveBehavior;
         this.consistentReads = consistentReads;
         this.tableNameOverride = tableNameOverride;
@@ -619,6 +671,7 @@ public class DynamoDBMapperConfig {
         this.paginationLoadingStrategy = paginationLoadingStrategy;
         this.requestMetricCollector = requestMetricCollector;
         this.conversionSchema = conversionSchema;
+        this.batchParallelism = batchParallelism;
     }
 
     /**
@@ -736,6 +789,7 @@ public class DynamoDBMapperConfig {
                     defaults.getPaginationLoadingStrategy();
             this.requestMetricCollector = defaults.getRequestMetricCollector();
             this.conversionSchema = defaults.getConversionSchema();
+            this.batchParallelism = defaults.getBatchParallelism();
 
         } else {
 
@@ -773,6 +827,10 @@ public class DynamoDBMapperConfig {
                     ? defaults.getConversionSchema()
                     : overrides.getConversionSchema();
 
+            this.batchParallelism = (overrides.getBatchParallelism() == null)
+                    ? defaults.getBatchParallelism()
+                    : overrides.getBatchParallelism();
+
         }
     }
 
@@ -860,6 +918,17 @@ public class DynamoDBMapperConfig {
         return conversionSchema;
     }
 
+    /**
+     * Returns the maximum number of BatchWriteItem or BatchGetItem requests a
+     * batch operation of the mapper sends concurrently, or null if not
+     * specified. A value of 1 sends the requests one after another.
+     *
+     * @return the number of concurrent batch requests
+     */
+    public Integer getBatchParallelism() {
+        return batchParallelism;
+    }
+
     /**
      * Default configuration uses UPDATE behavior for saves and EVENTUALly
      * consistent reads, with no table name override and lazy-loading strategy.
@@ -872,5 +941,6 @@ public class DynamoDBMapperConfig {
             null, // ObjectTableNameResolver
             PaginationLoadingStrategy.LAZY_LOADING,
             null, // RequestMetricCollector
-            ConversionSchemas.DEFAULT);
+            ConversionSchemas.DEFAULT,
+            1); // batchParallelism
 }
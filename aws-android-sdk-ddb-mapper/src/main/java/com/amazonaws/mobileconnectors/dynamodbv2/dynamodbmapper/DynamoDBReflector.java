@@ -16,14 +16,12 @@
 package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Reflection assistant for {@link DynamoDBMapper}
@@ -32,39 +30,94 @@ class DynamoDBReflector {
 
     /*
      * Several caches for performance. Collectively, they can make this class
-     * over twice as fast.
+     * over twice as fast. The models and values are immutable, so the caches
+     * are read without locking; a value computed twice by racing threads is
+     * simply computed again.
      */
-    private final Map<Class<?>, Collection<Method>> getterCache = new HashMap<Class<?>, Collection<Method>>();
-    private final Map<Class<?>, Method> primaryHashKeyGetterCache = new HashMap<Class<?>, Method>();
-    private final Map<Class<?>, Method> primaryRangeKeyGetterCache = new HashMap<Class<?>, Method>();
+    private final ConcurrentMap<Class<?>, DynamoDBMapperClassModel> classModelCache =
+            new ConcurrentHashMap<Class<?>, DynamoDBMapperClassModel>();
 
     /*
      * All caches keyed by a Method use the getter for a particular mapped
      * property
      */
-    private final Map<Method, Method> setterCache = new HashMap<Method, Method>();
+    private final ConcurrentMap<Method, Method> setterCache =
+            new ConcurrentHashMap<Method, Method>();
 
-    private final Map<Method, String> attributeNameCache = new HashMap<Method, String>();
+    private final ConcurrentMap<Method, String> attributeNameCache =
+            new ConcurrentHashMap<Method, String>();
 
-    private final Map<Method, Boolean> versionAttributeGetterCache = new HashMap<Method, Boolean>();
-    private final Map<Method, Boolean> autoGeneratedKeyGetterCache = new HashMap<Method, Boolean>();
+    private final ConcurrentMap<Method, Boolean> versionAttributeGetterCache =
+            new ConcurrentHashMap<Method, Boolean>();
+    private final ConcurrentMap<Method, Boolean> autoGeneratedKeyGetterCache =
+            new ConcurrentHashMap<Method, Boolean>();
 
-    private final ReentrantReadWriteLock readWriteLockAttrName = new ReentrantReadWriteLock();
-    private final ReadLock readLockAttrName = readWriteLockAttrName.readLock();
-    private final WriteLock writeLockAttrName = readWriteLockAttrName.writeLock();
+    /**
+     * Returns the mapping model of the class given, building it on first use.
+     */
+    DynamoDBMapperClassModel getClassModel(Class<?> clazz) {
+        DynamoDBMapperClassModel model = classModelCache.get(clazz);
+        if (model == null) {
+            final List<Method> getters = findRelevantGetters(clazz);
+            final List<DynamoDBMapperClassModel.Property> properties =
+                    new ArrayList<DynamoDBMapperClassModel.Property>(getters.size());
+            for (final Method getter : getters) {
+                properties.add(newProperty(getter));
+            }
+            model = new DynamoDBMapperClassModel(clazz, properties);
+
+            final DynamoDBMapperClassModel existing = classModelCache.putIfAbsent(clazz, model);
+            if (existing != null) {
+                model = existing;
+            }
+        }
+        return model;
+    }
+
+    private DynamoDBMapperClassModel.Property newProperty(Method getter) {
+        Method setter = null;
+        DynamoDBMappingException missingSetter = null;
+        try {
+            setter = getSetter(getter);
+        } catch (DynamoDBMappingException e) {
+            // A class that is only ever saved doesn't need setters, so fail
+            // when the property is actually set
+            missingSetter = e;
+        }
+        makeAccessible(getter);
+        if (setter != null) {
+            makeAccessible(setter);
+        }
+
+        return new DynamoDBMapperClassModel.Property(
+                getter,
+                setter,
+                missingSetter,
+                getAttributeName(getter),
+                ReflectionUtils.getterOrFieldHasAnnotation(getter, DynamoDBHashKey.class),
+                ReflectionUtils.getterOrFieldHasAnnotation(getter, DynamoDBRangeKey.class),
+                isVersionAttributeGetter(getter),
+                isAssignableKey(getter));
+    }
+
+    /**
+     * Turns off the access checks Method.invoke otherwise repeats on every
+     * call, e.g. for the public accessors of a non-public class.
+     */
+    private static void makeAccessible(Method method) {
+        try {
+            method.setAccessible(true);
+        } catch (SecurityException e) {
+            // Keep the checks, the method is public anyway
+        }
+    }
 
     /**
      * Returns the set of getter methods which are relevant when marshalling or
      * unmarshalling an object.
      */
     Collection<Method> getRelevantGetters(Class<?> clazz) {
-        synchronized (getterCache) {
-            if (!getterCache.containsKey(clazz)) {
-                List<Method> relevantGetters = findRelevantGetters(clazz);
-                getterCache.put(clazz, relevantGetters);
-            }
-            return getterCache.get(clazz);
-        }
+        return getClassModel(clazz).getGetters();
     }
 
     static List<Method> findRelevantGetters(Class<?> clazz) {
@@ -100,38 +153,16 @@ class DynamoDBReflector {
      * given, or null if the class doesn't have one.
      */
     <T> Method getPrimaryRangeKeyGetter(Class<T> clazz) {
-        synchronized (primaryRangeKeyGetterCache) {
-            if (!primaryRangeKeyGetterCache.containsKey(clazz)) {
-                Method rangeKeyMethod = null;
-                for (Method method : getRelevantGetters(clazz)) {
-                    if (method.getParameterTypes().length == 0
-                            && ReflectionUtils.getterOrFieldHasAnnotation(method,
-                                    DynamoDBRangeKey.class)) {
-                        rangeKeyMethod = method;
-                        break;
-                    }
-                }
-                primaryRangeKeyGetterCache.put(clazz, rangeKeyMethod);
-            }
-            return primaryRangeKeyGetterCache.get(clazz);
-        }
+        final DynamoDBMapperClassModel.Property rangeKey = getClassModel(clazz).getRangeKey();
+        return rangeKey == null ? null : rangeKey.getGetter();
     }
 
     /**
      * Returns all annotated {@link DynamoDBHashKey} and
-     * {@link DynamoDBRangeKey} getters for the class given, throwing an
-     * exception if there isn't one. TODO: caching
+     * {@link DynamoDBRangeKey} getters for the class given.
      */
     <T> Collection<Method> getPrimaryKeyGetters(Class<T> clazz) {
-        List<Method> keyGetters = new LinkedList<Method>();
-        for (Method getter : getRelevantGetters(clazz)) {
-            if (ReflectionUtils.getterOrFieldHasAnnotation(getter, DynamoDBHashKey.class)
-                    || ReflectionUtils.getterOrFieldHasAnnotation(getter, DynamoDBRangeKey.class)) {
-                keyGetters.add(getter);
-            }
-        }
-
-        return keyGetters;
+        return getClassModel(clazz).getKeyGetters();
     }
 
     /**
@@ -139,27 +170,13 @@ class DynamoDBReflector {
      * throwing an exception if there isn't one.
      */
     <T> Method getPrimaryHashKeyGetter(Class<T> clazz) {
-        Method hashKeyMethod;
-        synchronized (primaryHashKeyGetterCache) {
-            if (!primaryHashKeyGetterCache.containsKey(clazz)) {
-                for (Method method : getRelevantGetters(clazz)) {
-                    if (method.getParameterTypes().length == 0
-                            && ReflectionUtils.getterOrFieldHasAnnotation(method,
-                                    DynamoDBHashKey.class)) {
-                        primaryHashKeyGetterCache.put(clazz, method);
-                        break;
-                    }
-                }
-            }
-            hashKeyMethod = primaryHashKeyGetterCache.get(clazz);
-        }
-
-        if (hashKeyMethod == null) {
+        final DynamoDBMapperClassModel.Property hashKey = getClassModel(clazz).getHashKey();
+        if (hashKey == null) {
             throw new DynamoDBMappingException(
                     "Public, zero-parameter hash key property must be annotated with "
                             + DynamoDBHashKey.class);
         }
-        return hashKeyMethod;
+        return hashKey.getGetter();
     }
 
     /**
@@ -178,13 +195,7 @@ class DynamoDBReflector {
      * Returns the attribute name corresponding to the given getter method.
      */
     String getAttributeName(Method getter) {
-        String attributeName;
-        readLockAttrName.lock();
-        try {
-            attributeName = attributeNameCache.get(getter);
-        } finally {
-            readLockAttrName.unlock();
-        }
+        String attributeName = attributeNameCache.get(getter);
         if (attributeName != null)
             return attributeName;
         DynamoDBHashKey hashKeyAnnotation = ReflectionUtils.getAnnotationFromGetterOrField(getter,
@@ -236,12 +247,7 @@ class DynamoDBReflector {
     }
 
     private String cacheAttributeName(Method getter, String attributeName) {
-        writeLockAttrName.lock();
-        try {
-            attributeNameCache.put(getter, attributeName);
-        } finally {
-            writeLockAttrName.unlock();
-        }
+        attributeNameCache.put(getter, attributeName);
         return attributeName;
     }
 
@@ -250,27 +256,28 @@ class DynamoDBReflector {
      * setter exists.
      */
     Method getSetter(Method getter) {
-        synchronized (setterCache) {
-            if (!setterCache.containsKey(getter)) {
-                String fieldName = ReflectionUtils.getFieldNameByGetter(getter, false);
-                String setterName = "set" + fieldName;
-                Method setter = null;
-                try {
-                    setter = getter.getDeclaringClass().getMethod(setterName,
-                            getter.getReturnType());
-                } catch (NoSuchMethodException e) {
-                    throw new DynamoDBMappingException(
-                            "Expected a public, one-argument method called " + setterName
-                                    + " on class " + getter.getDeclaringClass(), e);
-                } catch (SecurityException e) {
-                    throw new DynamoDBMappingException(
-                            "No access to public, one-argument method called " + setterName
-                                    + " on class " + getter.getDeclaringClass(), e);
-                }
-                setterCache.put(getter, setter);
+        Method setter = setterCache.get(getter);
+        if (setter == null) {
+            String fieldName = ReflectionUtils.getFieldNameByGetter(getter, false);
+            String setterName = "set" + fieldName;
+            try {
+                setter = getter.getDeclaringClass().getMethod(setterName,
+                        getter.getReturnType());
+            } catch (NoSuchMethodException e) {
+                throw new DynamoDBMappingException(
+                        "Expected a public, one-argument method called " + setterName
+                                + " on class " + getter.getDeclaringClass(), e);
+            } catch (SecurityException e) {
+                throw new DynamoDBMappingException(
+                        "No access to public, one-argument method called " + setterName
+                                + " on class " + getter.getDeclaringClass(), e);
+            }
+            final Method existing = setterCache.putIfAbsent(getter, setter);
+            if (existing != null) {
+                setter = existing;
             }
-            return setterCache.get(getter);
         }
+        return setter;
     }
 
     /**
@@ -278,36 +285,32 @@ class DynamoDBReflector {
      * version attribute.
      */
     boolean isVersionAttributeGetter(Method getter) {
-        synchronized (versionAttributeGetterCache) {
-            if (!versionAttributeGetterCache.containsKey(getter)) {
-                versionAttributeGetterCache.put(
-                        getter,
-                        getter.getName().startsWith("get")
-                                && getter.getParameterTypes().length == 0
-                                && ReflectionUtils.getterOrFieldHasAnnotation(getter,
-                                        DynamoDBVersionAttribute.class));
-            }
-            return versionAttributeGetterCache.get(getter);
+        Boolean versionAttributeGetter = versionAttributeGetterCache.get(getter);
+        if (versionAttributeGetter == null) {
+            versionAttributeGetter = getter.getName().startsWith("get")
+                    && getter.getParameterTypes().length == 0
+                    && ReflectionUtils.getterOrFieldHasAnnotation(getter,
+                            DynamoDBVersionAttribute.class);
+            versionAttributeGetterCache.put(getter, versionAttributeGetter);
         }
+        return versionAttributeGetter;
     }
 
     /**
      * Returns whether the method given is an assignable key getter.
      */
     boolean isAssignableKey(Method getter) {
-        synchronized (autoGeneratedKeyGetterCache) {
-            if (!autoGeneratedKeyGetterCache.containsKey(getter)) {
-                autoGeneratedKeyGetterCache.put(
-                        getter,
-                        ReflectionUtils.getterOrFieldHasAnnotation(getter,
-                                DynamoDBAutoGeneratedKey.class)
-                                && (ReflectionUtils.getterOrFieldHasAnnotation(getter,
-                                        DynamoDBHashKey.class) ||
-                                ReflectionUtils.getterOrFieldHasAnnotation(getter,
-                                        DynamoDBRangeKey.class)));
-            }
-            return autoGeneratedKeyGetterCache.get(getter);
+        Boolean assignableKey = autoGeneratedKeyGetterCache.get(getter);
+        if (assignableKey == null) {
+            assignableKey = ReflectionUtils.getterOrFieldHasAnnotation(getter,
+                    DynamoDBAutoGeneratedKey.class)
+                    && (ReflectionUtils.getterOrFieldHasAnnotation(getter,
+                            DynamoDBHashKey.class) ||
+                    ReflectionUtils.getterOrFieldHasAnnotation(getter,
+                            DynamoDBRangeKey.class));
+            autoGeneratedKeyGetterCache.put(getter, assignableKey);
         }
+        return assignableKey;
     }
 
     /**
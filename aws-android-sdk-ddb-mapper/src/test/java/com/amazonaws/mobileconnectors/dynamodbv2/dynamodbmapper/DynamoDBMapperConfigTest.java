@@ -135,6 +135,7 @@ public class DynamoDBMapperConfigTest {
         assertEquals(conf.getSaveBehavior(), conf.getSaveBehavior());
         assertEquals(conf.getTableNameOverride(), copy.getTableNameOverride());
         assertEquals(conf.getTableNameResolver(), copy.getTableNameResolver());
+        assertEquals(conf.getBatchParallelism(), copy.getBatchParallelism());
     }
 
     @Test
@@ -171,12 +172,16 @@ public class DynamoDBMapperConfigTest {
         b.setTableNameResolver(tnr);
         assertSame(b.getTableNameResolver(), tnr);
 
+        b.setBatchParallelism(4);
+        assertEquals(b.getBatchParallelism().intValue(), 4);
+
         DynamoDBMapperConfig conf = b.build();
         DynamoDBMapperConfig nullConfig = new DynamoDBMapperConfig.Builder()
                 .withConsistentReads(null)
                 .withConversionSchema(null).withObjectTableNameResolver(null)
                 .withPaginationLoadingStrategy(null).withRequestMetricCollector(null)
                 .withSaveBehavior(null).withTableNameOverride(null).withTableNameResolver(null)
+                .withBatchParallelism(null)
                 .build();
 
         DynamoDBMapperConfig copy = new DynamoDBMapperConfig(nullConfig, conf);
@@ -188,6 +193,19 @@ public class DynamoDBMapperConfigTest {
         assertEquals(copy.getSaveBehavior(), conf.getSaveBehavior());
         assertEquals(copy.getTableNameOverride(), conf.getTableNameOverride());
         assertEquals(copy.getTableNameResolver(), conf.getTableNameResolver());
+        assertEquals(copy.getBatchParallelism(), conf.getBatchParallelism());
+    }
+
+    @Test
+    public void testBatchParallelismDefaultsToOne() {
+        assertEquals(DynamoDBMapperConfig.DEFAULT.getBatchParallelism().intValue(), 1);
+        assertEquals(new DynamoDBMapperConfig.Builder().build().getBatchParallelism()
+                .intValue(), 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBatchParallelismMustBePositive() {
+        new DynamoDBMapperConfig.Builder().withBatchParallelism(0);
     }
 
     private static class TestObjectTableNameResolver implements ObjectTableNameResolver {
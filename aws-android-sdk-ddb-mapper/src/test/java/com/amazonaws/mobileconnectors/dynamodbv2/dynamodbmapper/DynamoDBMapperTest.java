@@ -46,10 +46,12 @@ import com.amazonaws.util.StringUtils;
 import org.easymock.Capture;
 import org.easymock.CaptureType;
 import org.easymock.EasyMock;
+import org.easymock.IAnswer;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -254,6 +256,122 @@ public class DynamoDBMapperTest {
 
     }
 
+    @Test
+    public void testBatchWriteWithParallelismGroupsRequestsByTable() {
+        List<Object> objectsToWrite = new ArrayList<Object>();
+        for (int i = 0; i < 60; i++) {
+            objectsToWrite.add(new MockTwoValuePlusVersionClass("PrimaryKey" + i, "Value", null));
+        }
+        for (int i = 0; i < 30; i++) {
+            objectsToWrite.add(new MockDifferentTableName("OtherPrimaryKey" + i, "OtherValue"));
+        }
+
+        EasyMock.reset(mockClient);
+        final List<Map<String, Integer>> requestSizes = Collections
+                .synchronizedList(new ArrayList<Map<String, Integer>>());
+        EasyMock.expect(mockClient.batchWriteItem(anyObject(BatchWriteItemRequest.class)))
+                .andAnswer(new IAnswer<BatchWriteItemResult>() {
+                    @Override
+                    public BatchWriteItemResult answer() {
+                        BatchWriteItemRequest request = (BatchWriteItemRequest) EasyMock
+                                .getCurrentArguments()[0];
+                        Map<String, Integer> sizes = new HashMap<String, Integer>();
+                        for (Map.Entry<String, List<WriteRequest>> entry : request
+                                .getRequestItems().entrySet()) {
+                            sizes.put(entry.getKey(), entry.getValue().size());
+                        }
+                        requestSizes.add(sizes);
+                        return new BatchWriteItemResult().withUnprocessedItems(
+                                new HashMap<String, List<WriteRequest>>());
+                    }
+                }).times(4);
+        EasyMock.replay(mockClient);
+
+        DynamoDBMapperConfig parallelConfig = new DynamoDBMapperConfig.Builder()
+                .withBatchParallelism(3).build();
+        List<FailedBatch> failedBatches = mapper.batchWrite(objectsToWrite.iterator(),
+                new ArrayList<Object>().iterator(), parallelConfig);
+
+        EasyMock.verify(mockClient);
+        assertEquals(failedBatches.size(), 0);
+
+        String table = "aws-android-sdk-dynamodbmapper-test";
+        String otherTable = "aws-android-sdk-dynamodbmapper-test-different-table";
+        Map<String, Integer> full = Collections.singletonMap(table, 25);
+        Map<String, Integer> otherFull = Collections.singletonMap(otherTable, 25);
+        Map<String, Integer> leftovers = new HashMap<String, Integer>();
+        leftovers.put(table, 10);
+        leftovers.put(otherTable, 5);
+
+        assertEquals(requestSizes.size(), 4);
+        assertEquals(Collections.frequency(requestSizes, full), 2);
+        assertEquals(Collections.frequency(requestSizes, otherFull), 1);
+        assertTrue(requestSizes.contains(leftovers));
+    }
+
+    @Test
+    public void testBatchWriteSendsNothingWhenAnObjectCantBeMapped() {
+        List<Object> objectsToWrite = new ArrayList<Object>();
+        for (int i = 0; i < 30; i++) {
+            objectsToWrite.add(new MockTwoValuePlusVersionClass("PrimaryKey" + i, "Value", null));
+        }
+        // not a table class
+        objectsToWrite.add(new Object());
+
+        EasyMock.reset(mockClient);
+        EasyMock.replay(mockClient);
+
+        try {
+            mapper.batchWrite(objectsToWrite, new ArrayList<Object>());
+            fail("Expected DynamoDBMappingException");
+        } catch (DynamoDBMappingException e) {
+            // no batch was sent before the mapping failed
+        }
+        EasyMock.verify(mockClient);
+    }
+
+    @Test
+    public void testBatchLoadWithParallelismMergesResults() {
+        List<Object> itemsToGet = new ArrayList<Object>();
+        for (int i = 0; i < 150; i++) {
+            itemsToGet.add(new MockDifferentTableName("PrimaryKey" + i, null));
+        }
+
+        EasyMock.reset(mockClient);
+        final List<Integer> requestSizes = Collections
+                .synchronizedList(new ArrayList<Integer>());
+        EasyMock.expect(mockClient.batchGetItem(anyObject(BatchGetItemRequest.class)))
+                .andAnswer(new IAnswer<BatchGetItemResult>() {
+                    @Override
+                    public BatchGetItemResult answer() {
+                        BatchGetItemRequest request = (BatchGetItemRequest) EasyMock
+                                .getCurrentArguments()[0];
+                        Map<String, List<Map<String, AttributeValue>>> responses =
+                                new HashMap<String, List<Map<String, AttributeValue>>>();
+                        for (Map.Entry<String, KeysAndAttributes> entry : request
+                                .getRequestItems().entrySet()) {
+                            requestSizes.add(entry.getValue().getKeys().size());
+                            responses.put(entry.getKey(), entry.getValue().getKeys());
+                        }
+                        return new BatchGetItemResult().withResponses(responses);
+                    }
+                }).times(2);
+        EasyMock.replay(mockClient);
+
+        DynamoDBMapperConfig parallelConfig = new DynamoDBMapperConfig.Builder()
+                .withBatchParallelism(2).build();
+        Map<String, List<Object>> loadResults = mapper.batchLoad(itemsToGet.iterator(),
+                parallelConfig);
+
+        EasyMock.verify(mockClient);
+        assertEquals(requestSizes.size(), 2);
+        assertTrue(requestSizes.contains(100));
+        assertTrue(requestSizes.contains(50));
+        assertEquals(loadResults.keySet().size(), 1);
+        assertEquals(loadResults.get("aws-android-sdk-dynamodbmapper-test-different-table")
+                .size(), 150);
+    }
+
     @Test
     public void testMergeExpectedAttributeValueConditions() {
         Map<String, ExpectedAttributeValue> internalAssertions = new HashMap<String, ExpectedAttributeValue>();
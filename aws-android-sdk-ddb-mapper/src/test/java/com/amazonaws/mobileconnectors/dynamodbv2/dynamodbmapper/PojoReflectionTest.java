@@ -16,7 +16,10 @@
 package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import org.junit.Test;
 
@@ -91,6 +94,24 @@ public class PojoReflectionTest {
         assertEquals("getAutogeneratedRangeKey", reflector.getPrimaryRangeKeyGetter(clazz)
                 .getName());
         assertEquals("autogeneratedRangeKey", reflector.getPrimaryRangeKeyName(clazz));
+
+        // The class model holds the same mapping
+        DynamoDBMapperClassModel model = reflector.getClassModel(clazz);
+        assertSame(model, reflector.getClassModel(clazz));
+        assertEquals(7, model.getProperties().size());
+        for (DynamoDBMapperClassModel.Property property : model.getProperties()) {
+            assertEquals(
+                    expectedAttributeNames.get(property.getGetter().getName()),
+                    property.getAttributeName());
+            assertEquals(reflector.isAssignableKey(property.getGetter()),
+                    property.isAssignableKey());
+            assertEquals(reflector.isVersionAttributeGetter(property.getGetter()),
+                    property.isVersionAttribute());
+            assertEquals(reflector.getSetter(property.getGetter()), property.getSetter());
+        }
+        assertEquals("getHashKey", model.getHashKey().getGetter().getName());
+        assertEquals("getAutogeneratedRangeKey", model.getRangeKey().getGetter().getName());
+        assertEquals(2, model.getKeyGetters().size());
     }
 
     /**
@@ -415,6 +436,49 @@ public class PojoReflectionTest {
                 reflector.getPrimaryRangeKeyName(TablePojoSubclass.class));
     }
 
+    @Test
+    public void testClassModelAccessors() {
+        DynamoDBMapperClassModel model = reflector.getClassModel(ReadOnlyPojo.class);
+        assertEquals(2, model.getProperties().size());
+        assertNull(model.getRangeKey());
+
+        ReadOnlyPojo pojo = new ReadOnlyPojo();
+        DynamoDBMapperClassModel.Property hashKey = model.getHashKey();
+        hashKey.set(pojo, "key");
+        assertEquals("key", hashKey.get(pojo));
+
+        // A missing setter only fails once the property is set
+        for (DynamoDBMapperClassModel.Property property : model.getProperties()) {
+            if (property != hashKey) {
+                assertEquals("computed", property.get(pojo));
+                try {
+                    property.set(pojo, "value");
+                    fail("Expected a DynamoDBMappingException");
+                } catch (DynamoDBMappingException expected) {
+                    assertTrue(expected.getMessage().contains("setComputedAttr"));
+                }
+            }
+        }
+    }
+
+    @DynamoDBTable(tableName = "table")
+    private static class ReadOnlyPojo {
+        private String hashKey;
+
+        @DynamoDBHashKey
+        public String getHashKey() {
+            return hashKey;
+        }
+
+        public void setHashKey(String hashKey) {
+            this.hashKey = hashKey;
+        }
+
+        public String getComputedAttr() {
+            return "computed";
+        }
+    }
+
     @DynamoDBTable(tableName = "table")
     private static class BaseTablePojo {
         @DynamoDBHashKey
@@ -0,0 +1,528 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.iot;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.logging.Log;
+import com.amazonaws.logging.LogFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Offline publish queue persisted in a file, so that queued messages survive
+ * a restart of the application.
+ * <p>
+ * The file is a ring buffer: a fixed size header followed by the messages,
+ * each stored as its length and its content. Messages are appended after the
+ * last message and removed from the head by moving the position of the first
+ * message in the header, wrapping around at the end of the file. The file
+ * grows by doubling when a message does not fit and shrinks back once the
+ * queue is empty. Adding and removing a message is O(1).
+ * <p>
+ * Delivery callbacks cannot be persisted. They are kept in memory next to the
+ * file; messages restored from the file are published without a callback.
+ * <p>
+ * Messages taken by {@link #pollForDelivery()} stay at the head of the file
+ * until their delivery is confirmed, so that a message in flight when the
+ * application stops is published again. Delivery is at least once: a message
+ * confirmed while an older one is still in flight is removed together with
+ * it, and is published again if the connection is lost before then.
+ */
+class AWSIotMqttFileOfflinePublishQueue extends AbstractQueue<AWSIotMqttQueueMessage>
+        implements AWSIotMqttOfflinePublishQueue {
+
+    private static final Log LOGGER = LogFactory.getLog(AWSIotMqttFileOfflinePublishQueue.class);
+
+    /** Initial and minimum length of the file. */
+    static final int INITIAL_LENGTH = 4096;
+    /** Header: file length, message count, first message and last message positions. */
+    private static final int HEADER_LENGTH = 16;
+    /** Length prefix of a message. */
+    private static final int MESSAGE_HEADER_LENGTH = 4;
+    /** Size of the buffer used to move data when the file grows. */
+    private static final int COPY_BUFFER_SIZE = 4096;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final byte[] buffer = new byte[HEADER_LENGTH];
+
+    private int fileLength;
+    private int messageCount;
+    private int firstPosition;
+    private int firstLength;
+    private int lastPosition;
+    private int lastLength;
+
+    /** Delivery callbacks of the queued messages, in the order of the file. */
+    private final ArrayDeque<PublishMessageUserData> userData =
+            new ArrayDeque<PublishMessageUserData>();
+
+    /** Messages taken for delivery, they are the first messages of the file. */
+    private final ArrayDeque<AWSIotMqttQueueMessage> delivering =
+            new ArrayDeque<AWSIotMqttQueueMessage>();
+    /** Messages taken for delivery and confirmed while an older one is not. */
+    private final Set<AWSIotMqttQueueMessage> delivered = Collections.newSetFromMap(
+            new IdentityHashMap<AWSIotMqttQueueMessage, Boolean>());
+    /** Position of the first message not taken for delivery. */
+    private int deliveryPosition;
+
+    /**
+     * Opens the queue stored in a file, creating the file if needed.
+     *
+     * @param file the file holding the queue.
+     * @throws IOException if the file cannot be opened.
+     */
+    AWSIotMqttFileOfflinePublishQueue(File file) throws IOException {
+        this.file = file;
+        final File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Unable to create directory " + parent);
+        }
+        raf = new RandomAccessFile(file, "rw");
+        if (!readHeader()) {
+            if (raf.length() > 0) {
+                LOGGER.warn("Discarding unreadable offline publish queue " + file);
+            }
+            reset();
+        }
+        for (int i = 0; i < messageCount; i++) {
+            userData.addLast(new PublishMessageUserData(null, null));
+        }
+    }
+
+    /**
+     * Gets the file holding the queue.
+     *
+     * @return the queue file.
+     */
+    File getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized List<AWSIotMqttQueueMessage> add(AWSIotMqttQueueMessage message,
+            int bound, boolean keepOldest) {
+        if (messageCount < bound) {
+            offer(message);
+            return Collections.emptyList();
+        }
+        final List<AWSIotMqttQueueMessage> dropped = new ArrayList<AWSIotMqttQueueMessage>();
+        if (keepOldest) {
+            dropped.add(message);
+            return dropped;
+        }
+        while (messageCount >= bound) {
+            dropped.add(poll());
+        }
+        offer(message);
+        return dropped;
+    }
+
+    @Override
+    public synchronized boolean offer(AWSIotMqttQueueMessage message) {
+        try {
+            append(serialize(message));
+        } catch (final IOException e) {
+            throw new AmazonClientException("Unable to write offline publish queue.", e);
+        }
+        userData.addLast(message.getUserData() != null ? message.getUserData()
+                : new PublishMessageUserData(null, null));
+        return true;
+    }
+
+    @Override
+    public synchronized AWSIotMqttQueueMessage poll() {
+        if (messageCount == 0) {
+            return null;
+        }
+        try {
+            final AWSIotMqttQueueMessage message = deserialize(readFirst(),
+                    userData.pollFirst());
+            if (!delivering.isEmpty()) {
+                delivered.remove(delivering.pollFirst());
+            }
+            removeFirst();
+            return message;
+        } catch (final IOException e) {
+            throw new AmazonClientException("Unable to read offline publish queue.", e);
+        }
+    }
+
+    @Override
+    public synchronized AWSIotMqttQueueMessage pollForDelivery() {
+        if (delivering.size() == messageCount) {
+            return null;
+        }
+        final int position = delivering.isEmpty() ? firstPosition : deliveryPosition;
+        try {
+            final int length = readLength(position);
+            final byte[] data = new byte[length];
+            ringRead(position + MESSAGE_HEADER_LENGTH, data, 0, length);
+            final Iterator<PublishMessageUserData> callbacks = userData.iterator();
+            for (int i = 0; i < delivering.size(); i++) {
+                callbacks.next();
+            }
+            final AWSIotMqttQueueMessage message = deserialize(data, callbacks.next());
+            delivering.addLast(message);
+            deliveryPosition = wrapPosition(position + MESSAGE_HEADER_LENGTH + length);
+            return message;
+        } catch (final IOException e) {
+            throw new AmazonClientException("Unable to read offline publish queue.", e);
+        }
+    }
+
+    @Override
+    public synchronized void confirmDelivery(AWSIotMqttQueueMessage message) {
+        boolean taken = false;
+        for (final AWSIotMqttQueueMessage m : delivering) {
+            if (m == message) {
+                taken = true;
+                break;
+            }
+        }
+        if (!taken) {
+            return;
+        }
+        delivered.add(message);
+        try {
+            while (!delivering.isEmpty() && delivered.remove(delivering.peekFirst())) {
+                delivering.pollFirst();
+                userData.pollFirst();
+                removeFirst();
+            }
+        } catch (final IOException e) {
+            throw new AmazonClientException("Unable to write offline publish queue.", e);
+        }
+    }
+
+    @Override
+    public synchronized void restoreUndelivered() {
+        delivering.clear();
+        delivered.clear();
+    }
+
+    @Override
+    public synchronized AWSIotMqttQueueMessage peek() {
+        if (messageCount == 0) {
+            return null;
+        }
+        try {
+            return deserialize(readFirst(), userData.peekFirst());
+        } catch (final IOException e) {
+            throw new AmazonClientException("Unable to read offline publish queue.", e);
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        return messageCount;
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return messageCount == 0;
+    }
+
+    @Override
+    public synchronized void clear() {
+        try {
+            reset();
+        } catch (final IOException e) {
+            throw new AmazonClientException("Unable to clear offline publish queue.", e);
+        }
+        userData.clear();
+        delivering.clear();
+        delivered.clear();
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the queued messages.
+     *
+     * @return iterator over the queued messages, oldest first.
+     */
+    @Override
+    public synchronized Iterator<AWSIotMqttQueueMessage> iterator() {
+        final List<AWSIotMqttQueueMessage> messages =
+                new ArrayList<AWSIotMqttQueueMessage>(messageCount);
+        try {
+            int position = firstPosition;
+            final Iterator<PublishMessageUserData> callbacks = userData.iterator();
+            for (int i = 0; i < messageCount; i++) {
+                final int length = readLength(position);
+                final byte[] data = new byte[length];
+                ringRead(position + MESSAGE_HEADER_LENGTH, data, 0, length);
+                messages.add(deserialize(data, callbacks.next()));
+                position = wrapPosition(position + MESSAGE_HEADER_LENGTH + length);
+            }
+        } catch (final IOException e) {
+            throw new AmazonClientException("Unable to read offline publish queue.", e);
+        }
+        return messages.iterator();
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            raf.close();
+        } catch (final IOException e) {
+            LOGGER.warn("Error closing offline publish queue.", e);
+        }
+    }
+
+    /**
+     * Gets the current length of the file. Used for unit tests.
+     *
+     * @return length of the file in bytes.
+     */
+    synchronized int getFileLength() {
+        return fileLength;
+    }
+
+    private static byte[] serialize(AWSIotMqttQueueMessage message) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+                message.getMessage().length + message.getTopic().length() + 8);
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(message.getQos().asInt());
+        out.writeUTF(message.getTopic());
+        out.writeInt(message.getMessage().length);
+        out.write(message.getMessage());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static AWSIotMqttQueueMessage deserialize(byte[] data, PublishMessageUserData userData)
+            throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        final AWSIotMqttQos qos = in.readByte() == 0 ? AWSIotMqttQos.QOS0 : AWSIotMqttQos.QOS1;
+        final String topic = in.readUTF();
+        final byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+        return new AWSIotMqttQueueMessage(topic, payload, qos, userData);
+    }
+
+    private boolean readHeader() throws IOException {
+        if (raf.length() < HEADER_LENGTH) {
+            return false;
+        }
+        raf.seek(0);
+        raf.readFully(buffer);
+        fileLength = readInt(buffer, 0);
+        messageCount = readInt(buffer, 4);
+        firstPosition = readInt(buffer, 8);
+        lastPosition = readInt(buffer, 12);
+        if (fileLength < INITIAL_LENGTH || fileLength > raf.length() || messageCount < 0
+                || (messageCount > 0 && (!isValidPosition(firstPosition)
+                        || !isValidPosition(lastPosition)))) {
+            return false;
+        }
+        firstLength = messageCount == 0 ? 0 : readLength(firstPosition);
+        lastLength = messageCount == 0 ? 0 : readLength(lastPosition);
+        return firstLength >= 0 && lastLength >= 0;
+    }
+
+    private boolean isValidPosition(int position) {
+        return position >= HEADER_LENGTH && position < fileLength;
+    }
+
+    private void writeHeader(int length, int count, int first, int last) throws IOException {
+        writeInt(buffer, 0, length);
+        writeInt(buffer, 4, count);
+        writeInt(buffer, 8, first);
+        writeInt(buffer, 12, last);
+        raf.seek(0);
+        raf.write(buffer);
+    }
+
+    private void reset() throws IOException {
+        writeHeader(INITIAL_LENGTH, 0, 0, 0);
+        raf.setLength(INITIAL_LENGTH);
+        fileLength = INITIAL_LENGTH;
+        messageCount = 0;
+        firstPosition = 0;
+        firstLength = 0;
+        lastPosition = 0;
+        lastLength = 0;
+    }
+
+    private void append(byte[] data) throws IOException {
+        final int length = MESSAGE_HEADER_LENGTH + data.length;
+        expandIfNecessary(length);
+        final boolean wasEmpty = messageCount == 0;
+        final int position = wasEmpty ? HEADER_LENGTH
+                : wrapPosition(lastPosition + MESSAGE_HEADER_LENGTH + lastLength);
+
+        final byte[] record = new byte[length];
+        writeInt(record, 0, data.length);
+        System.arraycopy(data, 0, record, MESSAGE_HEADER_LENGTH, data.length);
+        ringWrite(position, record, 0, length);
+        if (delivering.size() == messageCount) {
+            deliveryPosition = position;
+        }
+
+        // the message becomes visible once the header points to it
+        writeHeader(fileLength, messageCount + 1, wasEmpty ? position : firstPosition, position);
+        messageCount++;
+        lastPosition = position;
+        lastLength = data.length;
+        if (wasEmpty) {
+            firstPosition = position;
+            firstLength = data.length;
+        }
+    }
+
+    private byte[] readFirst() throws IOException {
+        final byte[] data = new byte[firstLength];
+        ringRead(firstPosition + MESSAGE_HEADER_LENGTH, data, 0, firstLength);
+        return data;
+    }
+
+    private void removeFirst() throws IOException {
+        if (messageCount == 1) {
+            reset();
+            return;
+        }
+        final int position = wrapPosition(firstPosition + MESSAGE_HEADER_LENGTH + firstLength);
+        final int length = readLength(position);
+        writeHeader(fileLength, messageCount - 1, position, lastPosition);
+        messageCount--;
+        firstPosition = position;
+        firstLength = length;
+    }
+
+    private int usedBytes() {
+        if (messageCount == 0) {
+            return HEADER_LENGTH;
+        }
+        if (lastPosition >= firstPosition) {
+            return (lastPosition - firstPosition) + MESSAGE_HEADER_LENGTH + lastLength
+                    + HEADER_LENGTH;
+        }
+        return lastPosition + MESSAGE_HEADER_LENGTH + lastLength + fileLength - firstPosition;
+    }
+
+    /**
+     * Doubles the file until the given number of bytes fits. If the messages
+     * wrap around the end of the file, the wrapped part is moved after the old
+     * end so that the messages stay contiguous in the ring.
+     */
+    private void expandIfNecessary(int length) throws IOException {
+        int remaining = fileLength - usedBytes();
+        if (remaining >= length) {
+            return;
+        }
+        int newLength = fileLength;
+        do {
+            remaining += newLength;
+            newLength <<= 1;
+        } while (remaining < length);
+        raf.setLength(newLength);
+
+        final int endOfLast = wrapPosition(lastPosition + MESSAGE_HEADER_LENGTH + lastLength);
+        if (messageCount > 0 && endOfLast <= firstPosition) {
+            copy(HEADER_LENGTH, fileLength, endOfLast - HEADER_LENGTH);
+            if (delivering.size() < messageCount && deliveryPosition < firstPosition) {
+                deliveryPosition += fileLength - HEADER_LENGTH;
+            }
+        }
+        if (lastPosition < firstPosition) {
+            final int newLastPosition = fileLength + lastPosition - HEADER_LENGTH;
+            writeHeader(newLength, messageCount, firstPosition, newLastPosition);
+            lastPosition = newLastPosition;
+        } else {
+            writeHeader(newLength, messageCount, firstPosition, lastPosition);
+        }
+        fileLength = newLength;
+    }
+
+    private void copy(int from, int to, int count) throws IOException {
+        final byte[] chunk = new byte[Math.min(count, COPY_BUFFER_SIZE)];
+        int copied = 0;
+        while (copied < count) {
+            final int length = Math.min(chunk.length, count - copied);
+            raf.seek(from + copied);
+            raf.readFully(chunk, 0, length);
+            raf.seek(to + copied);
+            raf.write(chunk, 0, length);
+            copied += length;
+        }
+    }
+
+    private int wrapPosition(int position) {
+        return position < fileLength ? position : HEADER_LENGTH + position - fileLength;
+    }
+
+    private int readLength(int position) throws IOException {
+        final byte[] length = new byte[MESSAGE_HEADER_LENGTH];
+        ringRead(position, length, 0, MESSAGE_HEADER_LENGTH);
+        return readInt(length, 0);
+    }
+
+    private void ringWrite(int position, byte[] data, int offset, int count) throws IOException {
+        position = wrapPosition(position);
+        if (position + count <= fileLength) {
+            raf.seek(position);
+            raf.write(data, offset, count);
+        } else {
+            final int beforeEof = fileLength - position;
+            raf.seek(position);
+            raf.write(data, offset, beforeEof);
+            raf.seek(HEADER_LENGTH);
+            raf.write(data, offset + beforeEof, count - beforeEof);
+        }
+    }
+
+    private void ringRead(int position, byte[] data, int offset, int count) throws IOException {
+        position = wrapPosition(position);
+        if (position + count <= fileLength) {
+            raf.seek(position);
+            raf.readFully(data, offset, count);
+        } else {
+            final int beforeEof = fileLength - position;
+            raf.seek(position);
+            raf.readFully(data, offset, beforeEof);
+            raf.seek(HEADER_LENGTH);
+            raf.readFully(data, offset + beforeEof, count - beforeEof);
+        }
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xff) << 24)
+                + ((data[offset + 1] & 0xff) << 16)
+                + ((data[offset + 2] & 0xff) << 8)
+                + (data[offset + 3] & 0xff);
+    }
+
+    private static void writeInt(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >> 24);
+        data[offset + 1] = (byte) (value >> 16);
+        data[offset + 2] = (byte) (value >> 8);
+        data[offset + 3] = (byte) value;
+    }
+}
@@ -41,6 +41,8 @@ import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
 import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
 
+import java.io.File;
+import java.io.IOException;
 import java.security.KeyManagementException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
@@ -48,9 +50,10 @@ import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.security.UnrecoverableKeyException;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.Map;
 
 import javax.net.SocketFactory;
@@ -86,6 +89,11 @@ public class AWSIotMqttManager {
     public static final Integer DEFAULT_OFFLINE_PUBLISH_QUEUE_BOUND = 100;
     /** Constant for milliseconds between queue publishes. */
     private static final Long DEFAULT_MILLIS_BETWEEN_QUEUE_PUBLISHES = 250L;
+    /**
+     * Default value for the number of queued messages in flight while
+     * draining. 0 publishes one queued message per draining interval.
+     */
+    public static final Integer DEFAULT_DRAINING_WINDOW = 0;
     /** Default value for "connection established" hysteresis timer. */
     private static final Integer DEFAULT_CONNECTION_STABILITY_TIME_SECONDS = 10;
 
@@ -121,11 +129,26 @@ public class AWSIotMqttManager {
      * to proved per-topic message arrived callbacks.
      */
     private final Map<String, AWSIotMqttTopic> topicListeners;
+    /**
+     * Index of the MQTT subscriptions by topic filter. Used to find the
+     * subscriptions matching the topic of an arrived message.
+     */
+    private final AWSIotMqttTopicIndex topicIndex = new AWSIotMqttTopicIndex();
     /**
      * Queue for messages attempted to publish while MQTT client was offline.
      * Republished upon reconnect.
      */
-    private final ConcurrentLinkedQueue<AWSIotMqttQueueMessage> mqttMessageQueue;
+    private volatile AWSIotMqttOfflinePublishQueue mqttMessageQueue;
+    /** File persisting the offline publish queue, null if kept in memory. */
+    private File offlinePublishQueueFile;
+    /**
+     * Queued messages published and not yet delivered, by delivery token.
+     * Also guards the scheduling of the draining.
+     */
+    private final Map<IMqttDeliveryToken, AWSIotMqttQueueMessage> queuedPublishesInFlight =
+            new HashMap<IMqttDeliveryToken, AWSIotMqttQueueMessage>();
+    /** Is a draining of the offline queue scheduled? */
+    private boolean queueDrainingScheduled;
     /** KeepAlive interval specified by the user. */
     private int userKeepAlive;
     /** MQTT Will parameters. */
@@ -155,6 +178,10 @@ public class AWSIotMqttManager {
     private boolean fullQueueKeepsOldest;
     /** Milliseconds between publishes when publishing queued messages (draining interval). */
     private long drainingInterval;
+    /** Max number of queued messages in flight when draining (draining window). */
+    private int drainingWindow;
+    /** Max number of messages the MQTT client allows in flight on the connection. */
+    private int maxInflight = MqttConnectOptions.MAX_INFLIGHT_DEFAULT;
     /** Was this disconnect requested by the user? */
     private boolean userDisconnect;
     /** Do we need to resubscribe upon reconnecting? */
@@ -509,6 +536,73 @@ public class AWSIotMqttManager {
         drainingInterval = interval;
     }
 
+    /**
+     * Get the "draining window" (the max number of messages from the offline queue published
+     * and waiting for delivery at once when reconnected).
+     * @return the number of queued messages in flight, 0 if publishing one message per draining interval.
+     */
+    public Integer getDrainingWindow() {
+        return drainingWindow;
+    }
+
+    /**
+     * Set the "draining window" (the max number of messages from the offline queue published
+     * and waiting for delivery at once when reconnected). When set, queued messages are published
+     * in batches, and a message is published as soon as the delivery of an earlier one completes
+     * instead of waiting for the draining interval. The draining interval is then only the time
+     * between checks of pending deliveries. The default of 0 publishes one queued message per
+     * draining interval. The window is capped at the max number of messages in flight allowed by
+     * the MQTT connection (10 by default).
+     * @param window max number of queued messages in flight, or 0.
+     */
+    public void setDrainingWindow(Integer window) {
+        if (window < 0) {
+            throw new IllegalArgumentException("Draining window must be >= 0");
+        }
+        drainingWindow = window;
+    }
+
+    /**
+     * Get the file persisting the offline publish queue.
+     * @return the queue file, or null if the queue is kept in memory.
+     */
+    public File getOfflinePublishQueueFile() {
+        return offlinePublishQueueFile;
+    }
+
+    /**
+     * Persist the offline publish queue in a file, so that messages queued while offline
+     * survive a restart of the application and are published on the next connect. Must be
+     * called before connecting. Messages already queued are moved to the file. Delivery
+     * callbacks are not persisted; messages restored from the file are published without one.
+     * @param file the file holding the queue, for example in the application's files directory,
+     *             or null to keep the queue in memory.
+     */
+    public void setOfflinePublishQueueFile(File file) {
+        if (file == null ? offlinePublishQueueFile == null : file.equals(offlinePublishQueueFile)) {
+            // the queue already uses the file, reopening it would move its messages into itself
+            return;
+        }
+        final AWSIotMqttOfflinePublishQueue queue;
+        if (file == null) {
+            queue = new AWSIotMqttMemoryOfflinePublishQueue();
+        } else {
+            try {
+                queue = new AWSIotMqttFileOfflinePublishQueue(file);
+            } catch (final IOException e) {
+                throw new AmazonClientException("Unable to open offline publish queue file.", e);
+            }
+        }
+        final AWSIotMqttOfflinePublishQueue previous = mqttMessageQueue;
+        AWSIotMqttQueueMessage message;
+        while ((message = previous.poll()) != null) {
+            queue.offer(message);
+        }
+        previous.close();
+        mqttMessageQueue = queue;
+        offlinePublishQueueFile = file;
+    }
+
     /**
      * Keep the oldest messages when publish queue is full?
      * @return boolean true if set to keep oldest messages, false if set to keep newest.
@@ -595,7 +689,7 @@ public class AWSIotMqttManager {
      *
      * @return offline message queue.
      */
-    ConcurrentLinkedQueue<AWSIotMqttQueueMessage> getMqttMessageQueue() {
+    AWSIotMqttOfflinePublishQueue getMqttMessageQueue() {
         return mqttMessageQueue;
     }
 
@@ -677,7 +771,7 @@ public class AWSIotMqttManager {
         }
 
         this.topicListeners = new ConcurrentHashMap<String, AWSIotMqttTopic>();
-        this.mqttMessageQueue = new ConcurrentLinkedQueue<AWSIotMqttQueueMessage>();
+        this.mqttMessageQueue = new AWSIotMqttMemoryOfflinePublishQueue();
         this.mqttClientId = mqttClientId;
         this.endpoint = endpoint;
         this.accountEndpointPrefix = null;
@@ -712,7 +806,7 @@ public class AWSIotMqttManager {
         }
 
         this.topicListeners = new ConcurrentHashMap<String, AWSIotMqttTopic>();
-        this.mqttMessageQueue = new ConcurrentLinkedQueue<AWSIotMqttQueueMessage>();
+        this.mqttMessageQueue = new AWSIotMqttMemoryOfflinePublishQueue();
 
         this.accountEndpointPrefix = accountEndpointPrefix;
         this.mqttClientId = mqttClientId;
@@ -750,7 +844,7 @@ public class AWSIotMqttManager {
         }
 
         this.topicListeners = new ConcurrentHashMap<String, AWSIotMqttTopic>();
-        this.mqttMessageQueue = new ConcurrentLinkedQueue<AWSIotMqttQueueMessage>();
+        this.mqttMessageQueue = new AWSIotMqttMemoryOfflinePublishQueue();
         this.endpoint = endpoint;
         this.mqttClientId = mqttClientId;
         this.region = region;
@@ -790,6 +884,7 @@ public class AWSIotMqttManager {
         offlinePublishQueueEnabled = DEFAULT_OFFLINE_PUBLISH_QUEUE_ENABLED;
         offlinePublishQueueBound = DEFAULT_OFFLINE_PUBLISH_QUEUE_BOUND;
         drainingInterval = DEFAULT_MILLIS_BETWEEN_QUEUE_PUBLISHES;
+        drainingWindow = DEFAULT_DRAINING_WINDOW;
         setFullQueueToKeepNewestMessages();
         connectionStabilityTime = DEFAULT_CONNECTION_STABILITY_TIME_SECONDS;
         unitTestMillisOverride = null;
@@ -1141,7 +1236,12 @@ public class AWSIotMqttManager {
             ", username: " + options.getUserName());
 
         topicListeners.clear();
-        mqttMessageQueue.clear();
+        topicIndex.clear();
+        maxInflight = options.getMaxInflight();
+        // a persisted queue holds messages to publish on this connection
+        if (offlinePublishQueueFile == null) {
+            mqttMessageQueue.clear();
+        }
 
         resetReconnect();
         userDisconnect = false;
@@ -1158,6 +1258,7 @@ public class AWSIotMqttManager {
                     LOGGER.info("onSuccess: mqtt connection is successful.");
                     connectionState = MqttManagerConnectionState.Connected;
                     lastConnackTime = getSystemTimeMs();
+                    restoreQueuedPublishes();
                     if (mqttMessageQueue.size() > 0) {
                         publishMessagesFromQueue();
                     }
@@ -1229,6 +1330,7 @@ public class AWSIotMqttManager {
         userDisconnect = true;
         reset();
         topicListeners.clear();
+        topicIndex.clear();
         connectionState = MqttManagerConnectionState.Disconnected;
         userConnectionCallback();
         return true;
@@ -1289,6 +1391,7 @@ public class AWSIotMqttManager {
             }
 
             setupCallbackForMqttClient();
+            maxInflight = options.getMaxInflight();
             try {
                 ++autoReconnectsAttempted;
                 LOGGER.debug("mqtt reconnecting attempt " + autoReconnectsAttempted);
@@ -1303,6 +1406,7 @@ public class AWSIotMqttManager {
                         if (needResubscribe) {
                             resubscribeToTopics();
                         }
+                        restoreQueuedPublishes();
                         if (mqttMessageQueue.size() > 0) {
                             publishMessagesFromQueue();
                         }
@@ -1466,6 +1570,7 @@ public class AWSIotMqttManager {
             }
             final AWSIotMqttTopic topicModel = new AWSIotMqttTopic(topic, qos, callback);
             topicListeners.put(topic, topicModel);
+            topicIndex.put(topicModel);
         }
     }
 
@@ -1487,6 +1592,7 @@ public class AWSIotMqttManager {
                 throw new AmazonClientException("Client error while unsubscribing.", e);
             }
             topicListeners.remove(topic);
+            topicIndex.remove(topic);
         }
     }
 
@@ -1641,66 +1747,150 @@ public class AWSIotMqttManager {
                                     PublishMessageUserData publishMessageUserData) {
         final AWSIotMqttQueueMessage message = new AWSIotMqttQueueMessage(topic, data, qos, publishMessageUserData);
 
-        if (mqttMessageQueue.size() >= offlinePublishQueueBound) {
-            if (fullQueueKeepsOldest) {
+        final List<AWSIotMqttQueueMessage> dropped = mqttMessageQueue.add(message, offlinePublishQueueBound,
+                fullQueueKeepsOldest);
+        for (final AWSIotMqttQueueMessage d : dropped) {
+            if (d == message) {
                 notifyPublishResult(publishMessageUserData.getUserCallback(), AWSIotMqttMessageDeliveryCallback.MessageDeliveryStatus.Fail,
                         publishMessageUserData.getUserData(),
                         new AmazonClientException("Failed to publish the message. Queue is full and set to hold onto the oldest messages."));
-                return;
-            } else {
-                mqttMessageQueue.remove(0);
+            } else if (d.getUserData().getUserCallback() != null) {
+                notifyPublishResult(d.getUserData().getUserCallback(),
+                        AWSIotMqttMessageDeliveryCallback.MessageDeliveryStatus.Fail,
+                        d.getUserData().getUserData(), null);
             }
         }
-
-        mqttMessageQueue.add(message);
     }
 
     /**
      * Publish messages from the message queue.
      * Called to handle publishing messages accumulated in the message queue when the client was unable to publish.
+     * Without a draining window one message is published per draining interval.  With a draining window,
+     * messages are published until the window is full of undelivered messages, and more are published as the
+     * deliveries complete.  Queued messages are removed from the queue once their delivery completes.
      */
     void publishMessagesFromQueue() {
         if (connectionState == MqttManagerConnectionState.Connected &&
             mqttMessageQueue != null &&
             !mqttMessageQueue.isEmpty()) {
-            final AWSIotMqttQueueMessage message = mqttMessageQueue.poll();
-            if (message != null) {
-                try {
-                    if (message.getUserData() != null && message.getUserData().getUserCallback() != null) {
-                        // this queued message has a callback, publish passing the user data
-                        mqttClient
-                                .publish(message.getTopic(), message.getMessage(), message.getQos()
-                                        .asInt(), false, message.getUserData(), null);
-                    } else {
-                        // this queued message does not have a callback
-                        mqttClient
-                                .publish(message.getTopic(), message.getMessage(), message.getQos()
-                                        .asInt(), false);
+            synchronized (queuedPublishesInFlight) {
+                final Iterator<Map.Entry<IMqttDeliveryToken, AWSIotMqttQueueMessage>> publishes =
+                        queuedPublishesInFlight.entrySet().iterator();
+                while (publishes.hasNext()) {
+                    final Map.Entry<IMqttDeliveryToken, AWSIotMqttQueueMessage> publish = publishes.next();
+                    if (publish.getKey().isComplete()) {
+                        publishes.remove();
+                        mqttMessageQueue.confirmDelivery(publish.getValue());
+                    }
+                }
+                // more messages in flight than the client allows fail to publish
+                if (drainingWindow > 0) {
+                    final int window = Math.min(drainingWindow, maxInflight);
+                    while (queuedPublishesInFlight.size() < window
+                            && connectionState == MqttManagerConnectionState.Connected) {
+                        final AWSIotMqttQueueMessage message = mqttMessageQueue.pollForDelivery();
+                        if (message == null) {
+                            break;
+                        }
+                        publishQueuedMessage(message);
+                    }
+                } else if (queuedPublishesInFlight.size() < maxInflight) {
+                    final AWSIotMqttQueueMessage message = mqttMessageQueue.pollForDelivery();
+                    if (message != null) {
+                        publishQueuedMessage(message);
                     }
-                } catch (final MqttException e) {
-                    // Call this message a failure.  It is possible that this is due to a
-                    // connection issue (we are in this path because the connection dropped),
-                    // however there are also exceptions inherent to the message (valid topic),
-                    // such that publishing this message would never succeed.  It is safer to
-                    // remove the message from the queue and notify failure than to block
-                    // the queue indefinitely.
-                    notifyPublishResult(message.getUserData().getUserCallback(),
-                            AWSIotMqttMessageDeliveryCallback.MessageDeliveryStatus.Fail,
-                            message.getUserData().getUserData(),
-                            new AmazonClientException("Client error while publishing.", e));
                 }
             }
 
-            (new Handler(Looper.getMainLooper())).postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    if (!mqttMessageQueue.isEmpty()) {
-                        if (connectionState == MqttManagerConnectionState.Connected) {
-                            publishMessagesFromQueue();
-                        }
+            scheduleQueueDraining();
+        }
+    }
+
+    /**
+     * Forget the queued messages in flight on a previous connection, and make
+     * the ones not delivered available to publish again.
+     */
+    private void restoreQueuedPublishes() {
+        synchronized (queuedPublishesInFlight) {
+            queuedPublishesInFlight.clear();
+            mqttMessageQueue.restoreUndelivered();
+        }
+    }
+
+    /**
+     * Schedule the next publish of queued messages after the draining interval,
+     * unless one is already scheduled.
+     */
+    private void scheduleQueueDraining() {
+        synchronized (queuedPublishesInFlight) {
+            if (queueDrainingScheduled) {
+                return;
+            }
+            queueDrainingScheduled = true;
+        }
+        (new Handler(Looper.getMainLooper())).postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (queuedPublishesInFlight) {
+                    queueDrainingScheduled = false;
+                }
+                if (!mqttMessageQueue.isEmpty()) {
+                    if (connectionState == MqttManagerConnectionState.Connected) {
+                        publishMessagesFromQueue();
                     }
                 }
-            }, drainingInterval);
+            }
+        }, drainingInterval);
+    }
+
+    /**
+     * Publish a message taken from the message queue. The message stays in
+     * flight until its delivery completes.  Called with queuedPublishesInFlight held.
+     *
+     * @param message the queued message.
+     */
+    private void publishQueuedMessage(AWSIotMqttQueueMessage message) {
+        final IMqttDeliveryToken token;
+        try {
+            if (message.getUserData() != null && message.getUserData().getUserCallback() != null) {
+                // this queued message has a callback, publish passing the user data
+                token = mqttClient
+                        .publish(message.getTopic(), message.getMessage(), message.getQos()
+                                .asInt(), false, message.getUserData(), null);
+            } else {
+                // this queued message does not have a callback
+                token = mqttClient
+                        .publish(message.getTopic(), message.getMessage(), message.getQos()
+                                .asInt(), false);
+            }
+        } catch (final MqttException e) {
+            if (!mqttClient.isConnected()) {
+                // the connection dropped, the message is published again on reconnect
+                LOGGER.warn("Connection lost while publishing a queued message.", e);
+                return;
+            }
+            // Call this message a failure.  There are exceptions inherent to the
+            // message (valid topic), such that publishing this message would never
+            // succeed.  It is safer to remove the message from the queue and notify
+            // failure than to block the queue indefinitely.
+            mqttMessageQueue.confirmDelivery(message);
+            final AWSIotMqttMessageDeliveryCallback callback = message.getUserData() == null ? null
+                    : message.getUserData().getUserCallback();
+            if (callback != null) {
+                notifyPublishResult(callback,
+                        AWSIotMqttMessageDeliveryCallback.MessageDeliveryStatus.Fail,
+                        message.getUserData().getUserData(),
+                        new AmazonClientException("Client error while publishing.", e));
+            } else {
+                // restored from a queue file, nobody to notify
+                LOGGER.warn("Dropping queued message on topic " + message.getTopic() + ".", e);
+            }
+            return;
+        }
+        if (token != null && token.isComplete()) {
+            mqttMessageQueue.confirmDelivery(message);
+        } else if (token != null) {
+            queuedPublishesInFlight.put(token, message);
         }
     }
 
@@ -1734,16 +1924,7 @@ public class AWSIotMqttManager {
                 LOGGER.info("message arrived on topic: " + topic);
                 final byte[] data = mqttMessage.getPayload();
 
-                for (final String topicKey : topicListeners.keySet()) {
-                    if (isTopicMatch(topicKey, topic)) {
-                        final AWSIotMqttTopic topicModel = topicListeners.get(topicKey);
-                        if (topicModel != null) {
-                            if (topicModel.getCallback() != null) {
-                                topicModel.getCallback().onMessageArrived(topic, data);
-                            }
-                        }
-                    }
-                }
+                topicIndex.dispatch(topic, data);
             }
 
             @Override
@@ -1758,6 +1939,19 @@ public class AWSIotMqttManager {
                                 pmud.getUserData(), null);
                     }
                 }
+                if (token != null) {
+                    final AWSIotMqttQueueMessage queuedPublish;
+                    synchronized (queuedPublishesInFlight) {
+                        queuedPublish = queuedPublishesInFlight.remove(token);
+                        if (queuedPublish != null) {
+                            mqttMessageQueue.confirmDelivery(queuedPublish);
+                        }
+                    }
+                    // a slot of the draining window is free, publish the next queued message
+                    if (queuedPublish != null && drainingWindow > 0) {
+                        publishMessagesFromQueue();
+                    }
+                }
             }
         });
     }
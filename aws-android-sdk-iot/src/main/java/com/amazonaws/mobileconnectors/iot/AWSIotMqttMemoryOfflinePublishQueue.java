@@ -0,0 +1,117 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.iot;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Offline publish queue held in memory. Queued messages are lost when the
+ * process ends.
+ */
+class AWSIotMqttMemoryOfflinePublishQueue extends AbstractQueue<AWSIotMqttQueueMessage>
+        implements AWSIotMqttOfflinePublishQueue {
+
+    private final ArrayDeque<AWSIotMqttQueueMessage> messages =
+            new ArrayDeque<AWSIotMqttQueueMessage>();
+
+    @Override
+    public synchronized List<AWSIotMqttQueueMessage> add(AWSIotMqttQueueMessage message,
+            int bound, boolean keepOldest) {
+        if (messages.size() < bound) {
+            messages.addLast(message);
+            return Collections.emptyList();
+        }
+        final List<AWSIotMqttQueueMessage> dropped = new ArrayList<AWSIotMqttQueueMessage>();
+        if (keepOldest) {
+            dropped.add(message);
+            return dropped;
+        }
+        while (messages.size() >= bound) {
+            dropped.add(messages.pollFirst());
+        }
+        messages.addLast(message);
+        return dropped;
+    }
+
+    @Override
+    public synchronized boolean offer(AWSIotMqttQueueMessage message) {
+        return messages.offerLast(message);
+    }
+
+    @Override
+    public synchronized AWSIotMqttQueueMessage poll() {
+        return messages.pollFirst();
+    }
+
+    /**
+     * Removes the next message, messages in memory are not kept until they
+     * are delivered.
+     */
+    @Override
+    public AWSIotMqttQueueMessage pollForDelivery() {
+        return poll();
+    }
+
+    @Override
+    public void confirmDelivery(AWSIotMqttQueueMessage message) {
+        // removed when taken
+    }
+
+    @Override
+    public void restoreUndelivered() {
+        // removed when taken
+    }
+
+    @Override
+    public synchronized AWSIotMqttQueueMessage peek() {
+        return messages.peekFirst();
+    }
+
+    @Override
+    public synchronized int size() {
+        return messages.size();
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return messages.isEmpty();
+    }
+
+    @Override
+    public synchronized void clear() {
+        messages.clear();
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the queued messages.
+     *
+     * @return iterator over the queued messages, oldest first.
+     */
+    @Override
+    public synchronized Iterator<AWSIotMqttQueueMessage> iterator() {
+        return new ArrayList<AWSIotMqttQueueMessage>(messages).iterator();
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+}
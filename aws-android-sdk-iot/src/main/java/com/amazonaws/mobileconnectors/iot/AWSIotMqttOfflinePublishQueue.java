@@ -0,0 +1,69 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.iot;
+
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Queue of the messages published while the MQTT client was offline. The
+ * messages are published in order once the client is connected again.
+ */
+interface AWSIotMqttOfflinePublishQueue extends Queue<AWSIotMqttQueueMessage> {
+
+    /**
+     * Adds a message to a bounded queue. When the queue already holds bound
+     * messages either the oldest message is dropped to make room, or the new
+     * message is rejected.
+     *
+     * @param message message to add.
+     * @param bound maximum number of messages in the queue.
+     * @param keepOldest true to reject the new message on a full queue, false
+     *            to drop the oldest message instead.
+     * @return the messages that were dropped or rejected, oldest first. Empty
+     *         if the queue was not full.
+     */
+    List<AWSIotMqttQueueMessage> add(AWSIotMqttQueueMessage message, int bound, boolean keepOldest);
+
+    /**
+     * Takes the next message to publish. A persistent queue keeps the message
+     * until its delivery is confirmed, so that it's published again after a
+     * restart if the delivery didn't complete. Other queues remove it.
+     *
+     * @return the oldest message not yet taken, or null if there is none.
+     */
+    AWSIotMqttQueueMessage pollForDelivery();
+
+    /**
+     * Removes a message taken by {@link #pollForDelivery()} once its delivery
+     * completed, or failed for good.
+     *
+     * @param message the message taken for delivery.
+     */
+    void confirmDelivery(AWSIotMqttQueueMessage message);
+
+    /**
+     * Makes the messages taken for delivery but not confirmed available
+     * again, after the connection they were published on was lost.
+     */
+    void restoreUndelivered();
+
+    /**
+     * Releases the resources held by the queue. The queued messages are kept
+     * if the queue is persistent.
+     */
+    void close();
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.iot;
+
+import java.util.Arrays;
+
+/**
+ * Index of the subscriptions of the MQTT manager, keyed by topic filter. The
+ * filters are stored as a trie of topic levels so that the subscriptions
+ * matching an incoming topic are found by walking the levels of the topic
+ * once, instead of matching the topic against every filter.
+ * <p>
+ * The trie is immutable and replaced as a whole on every change, so messages
+ * are dispatched without locking and without allocating while subscriptions
+ * are added or removed from other threads.
+ */
+class AWSIotMqttTopicIndex {
+    /** Single level wildcard. */
+    private static final String SINGLE_LEVEL_WILDCARD = "+";
+    /** Multi level wildcard. */
+    private static final String MULTI_LEVEL_WILDCARD = "#";
+    /** Separator of topic levels. */
+    private static final char LEVEL_SEPARATOR = '/';
+    /** Marks that all the levels of a topic have been consumed. */
+    private static final int END_OF_TOPIC = -1;
+
+    private static final Node EMPTY = new Node(new int[0], new String[0], new Node[0], null, null,
+            null);
+
+    /** Root of the current trie. */
+    private volatile Node root = EMPTY;
+
+    /**
+     * Adds a subscription to the index, replacing any subscription to the
+     * same topic filter.
+     *
+     * @param subscription subscription to add.
+     */
+    synchronized void put(AWSIotMqttTopic subscription) {
+        root = put(root, subscription.getTopic(), 0, subscription);
+    }
+
+    /**
+     * Removes the subscription to a topic filter from the index.
+     *
+     * @param topicFilter topic filter of the subscription.
+     */
+    synchronized void remove(String topicFilter) {
+        final Node node = remove(root, topicFilter, 0);
+        root = node == null ? EMPTY : node;
+    }
+
+    /**
+     * Removes all subscriptions from the index.
+     */
+    synchronized void clear() {
+        root = EMPTY;
+    }
+
+    /**
+     * Passes a message to the callback of every subscription whose topic
+     * filter matches the topic of the message.
+     *
+     * @param topic the topic on which the message was published.
+     * @param data the message payload.
+     * @return the number of subscriptions matching the topic.
+     */
+    int dispatch(String topic, byte[] data) {
+        return dispatch(root, topic, 0, data);
+    }
+
+    private static int dispatch(Node node, String topic, int start, byte[] data) {
+        if (start == END_OF_TOPIC) {
+            return deliver(node.subscription, topic, data);
+        }
+
+        // the multi level wildcard matches as long as a level remains
+        int matches = deliver(node.multiLevelSubscription, topic, data);
+
+        final int separator = topic.indexOf(LEVEL_SEPARATOR, start);
+        final int end = separator == -1 ? topic.length() : separator;
+        final int next = separator == -1 ? END_OF_TOPIC : separator + 1;
+
+        if (node.singleLevel != null) {
+            matches += dispatch(node.singleLevel, topic, next, data);
+        }
+        final Node child = node.child(topic, start, end);
+        if (child != null) {
+            matches += dispatch(child, topic, next, data);
+        }
+        return matches;
+    }
+
+    private static int deliver(AWSIotMqttTopic subscription, String topic, byte[] data) {
+        if (subscription == null) {
+            return 0;
+        }
+        final AWSIotMqttNewMessageCallback callback = subscription.getCallback();
+        if (callback != null) {
+            callback.onMessageArrived(topic, data);
+        }
+        return 1;
+    }
+
+    private static Node put(Node node, String topicFilter, int start,
+            AWSIotMqttTopic subscription) {
+        if (node == null) {
+            node = EMPTY;
+        }
+        if (start == END_OF_TOPIC) {
+            return node.withSubscriptions(subscription, node.multiLevelSubscription);
+        }
+
+        final int separator = topicFilter.indexOf(LEVEL_SEPARATOR, start);
+        final String level = separator == -1 ? topicFilter.substring(start)
+                : topicFilter.substring(start, separator);
+        final int next = separator == -1 ? END_OF_TOPIC : separator + 1;
+
+        if (next == END_OF_TOPIC && MULTI_LEVEL_WILDCARD.equals(level)) {
+            return node.withSubscriptions(node.subscription, subscription);
+        }
+        if (SINGLE_LEVEL_WILDCARD.equals(level)) {
+            return node.withSingleLevel(put(node.singleLevel, topicFilter, next, subscription));
+        }
+        return node.withChild(level,
+                put(node.child(level, 0, level.length()), topicFilter, next, subscription));
+    }
+
+    private static Node remove(Node node, String topicFilter, int start) {
+        if (node == null) {
+            return null;
+        }
+        if (start == END_OF_TOPIC) {
+            return node.withSubscriptions(null, node.multiLevelSubscription).orNullIfEmpty();
+        }
+
+        final int separator = topicFilter.indexOf(LEVEL_SEPARATOR, start);
+        final String level = separator == -1 ? topicFilter.substring(start)
+                : topicFilter.substring(start, separator);
+        final int next = separator == -1 ? END_OF_TOPIC : separator + 1;
+
+        if (next == END_OF_TOPIC && MULTI_LEVEL_WILDCARD.equals(level)) {
+            return node.withSubscriptions(node.subscription, null).orNullIfEmpty();
+        }
+        if (SINGLE_LEVEL_WILDCARD.equals(level)) {
+            return node.withSingleLevel(remove(node.singleLevel, topicFilter, next))
+                    .orNullIfEmpty();
+        }
+        return node.withChild(level,
+                remove(node.child(level, 0, level.length()), topicFilter, next)).orNullIfEmpty();
+    }
+
+    /**
+     * Level of the trie. Children are kept sorted by the hash code of their
+     * level so that a level of a topic can be looked up by its hash without
+     * extracting it from the topic.
+     */
+    private static final class Node {
+        private final int[] hashes;
+        private final String[] levels;
+        private final Node[] children;
+        /** Child for the single level wildcard. */
+        private final Node singleLevel;
+        /** Subscription whose filter ends at this level. */
+        private final AWSIotMqttTopic subscription;
+        /** Subscription whose filter ends with a multi level wildcard here. */
+        private final AWSIotMqttTopic multiLevelSubscription;
+
+        Node(int[] hashes, String[] levels, Node[] children, Node singleLevel,
+                AWSIotMqttTopic subscription, AWSIotMqttTopic multiLevelSubscription) {
+            this.hashes = hashes;
+            this.levels = levels;
+            this.children = children;
+            this.singleLevel = singleLevel;
+            this.subscription = subscription;
+            this.multiLevelSubscription = multiLevelSubscription;
+        }
+
+        /**
+         * Finds the child for the level of the topic between start
+         * (inclusive) and end (exclusive).
+         */
+        Node child(String topic, int start, int end) {
+            final int index = indexOf(topic, start, end, hash(topic, start, end));
+            return index < 0 ? null : children[index];
+        }
+
+        Node withChild(String level, Node child) {
+            final int hash = level.hashCode();
+            final int index = indexOf(level, 0, level.length(), hash);
+            if (index >= 0) {
+                if (child == null) {
+                    return new Node(removeAt(hashes, index), removeAt(levels, index),
+                            removeAt(children, index), singleLevel, subscription,
+                            multiLevelSubscription);
+                }
+                final Node[] newChildren = children.clone();
+                newChildren[index] = child;
+                return new Node(hashes, levels, newChildren, singleLevel, subscription,
+                        multiLevelSubscription);
+            }
+            if (child == null) {
+                return this;
+            }
+
+            int insertAt = -(Arrays.binarySearch(hashes, hash) + 1);
+            if (insertAt < 0) {
+                // the hash collides with another level, insert next to it
+                insertAt = -insertAt - 1;
+            }
+            final int[] newHashes = new int[hashes.length + 1];
+            final String[] newLevels = new String[levels.length + 1];
+            final Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(hashes, 0, newHashes, 0, insertAt);
+            System.arraycopy(levels, 0, newLevels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newHashes[insertAt] = hash;
+            newLevels[insertAt] = level;
+            newChildren[insertAt] = child;
+            System.arraycopy(hashes, insertAt, newHashes, insertAt + 1, hashes.length - insertAt);
+            System.arraycopy(levels, insertAt, newLevels, insertAt + 1, levels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1,
+                    children.length - insertAt);
+            return new Node(newHashes, newLevels, newChildren, singleLevel, subscription,
+                    multiLevelSubscription);
+        }
+
+        Node withSingleLevel(Node child) {
+            return new Node(hashes, levels, children, child, subscription,
+                    multiLevelSubscription);
+        }
+
+        Node withSubscriptions(AWSIotMqttTopic exact, AWSIotMqttTopic multiLevel) {
+            return new Node(hashes, levels, children, singleLevel, exact, multiLevel);
+        }
+
+        Node orNullIfEmpty() {
+            if (children.length == 0 && singleLevel == null && subscription == null
+                    && multiLevelSubscription == null) {
+                return null;
+            }
+            return this;
+        }
+
+        private int indexOf(String topic, int start, int end, int hash) {
+            int index = Arrays.binarySearch(hashes, hash);
+            if (index < 0) {
+                return -1;
+            }
+            while (index > 0 && hashes[index - 1] == hash) {
+                index--;
+            }
+            final int length = end - start;
+            for (; index < hashes.length && hashes[index] == hash; index++) {
+                final String level = levels[index];
+                if (level.length() == length && topic.regionMatches(start, level, 0, length)) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        /** Same value as the hash code of the substring between start and end. */
+        private static int hash(String topic, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + topic.charAt(i);
+            }
+            return hash;
+        }
+
+        private static int[] removeAt(int[] array, int index) {
+            final int[] result = new int[array.length - 1];
+            System.arraycopy(array, 0, result, 0, index);
+            System.arraycopy(array, index + 1, result, index, result.length - index);
+            return result;
+        }
+
+        private static String[] removeAt(String[] array, int index) {
+            final String[] result = new String[array.length - 1];
+            System.arraycopy(array, 0, result, 0, index);
+            System.arraycopy(array, index + 1, result, index, result.length - index);
+            return result;
+        }
+
+        private static Node[] removeAt(Node[] array, int index) {
+            final Node[] result = new Node[array.length - 1];
+            System.arraycopy(array, 0, result, 0, index);
+            System.arraycopy(array, index + 1, result, index, result.length - index);
+            return result;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.amazonaws.mobileconnectors.iot;
 
 import com.amazonaws.AmazonClientException;
+import com.amazonaws.auth.AWS4SigningKeyCache;
 import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.auth.AWSSessionCredentials;
 import com.amazonaws.auth.AnonymousAWSCredentials;
@@ -137,6 +138,7 @@ class AWSIotWebSocketUrlSigner {
 
     /**
      * The SigV4 signing key is made up by consecutively hashing a number of unique pieces of data.
+     * Derived keys are shared with the AWS4 signers through the {@link AWS4SigningKeyCache}.
      * @param dateStamp the current date in short date format.
      * @param regionName AWS region name.
      * @param serviceName service name for IoT service.
@@ -145,12 +147,22 @@ class AWSIotWebSocketUrlSigner {
      */
     private byte[] getSigningKey(String dateStamp, String regionName, String serviceName, AWSCredentials credentials)
     {
+        String secretKey = credentials.getAWSSecretKey();
+        AWS4SigningKeyCache cache = AWS4SigningKeyCache.getDefault();
+        byte[] signingKey = cache.get(secretKey, dateStamp, regionName, serviceName);
+        if (signingKey != null) {
+            return signingKey;
+        }
+
         // AWS4 uses a series of derived keys, formed by hashing different pieces of data
-        byte[] signingSecret = (KEY_PREFIX + credentials.getAWSSecretKey()).getBytes();
+        byte[] signingSecret = (KEY_PREFIX + secretKey).getBytes(UTF8);
         byte[] signingDate = sign(dateStamp, signingSecret, SigningAlgorithm.HmacSHA256);
         byte[] signingRegion = sign(regionName, signingDate, SigningAlgorithm.HmacSHA256);
         byte[] signingService = sign(serviceName, signingRegion, SigningAlgorithm.HmacSHA256);
-        return sign(TERMINATOR, signingService, SigningAlgorithm.HmacSHA256);
+        signingKey = sign(TERMINATOR, signingService, SigningAlgorithm.HmacSHA256);
+
+        cache.put(secretKey, dateStamp, regionName, serviceName, signingKey);
+        return signingKey;
     }
 
     /**
@@ -257,7 +269,7 @@ class AWSIotWebSocketUrlSigner {
      */
     byte[] sign(byte[] data, byte[] key, SigningAlgorithm algorithm) {
         try {
-            Mac mac = Mac.getInstance(algorithm.toString());
+            Mac mac = algorithm.getMac();
             mac.init(new SecretKeySpec(key, algorithm.toString()));
             return mac.doFinal(data);
         } catch (Exception e) {
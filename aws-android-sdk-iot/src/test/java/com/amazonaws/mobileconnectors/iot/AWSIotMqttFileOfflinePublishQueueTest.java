@@ -0,0 +1,310 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.iot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+public class AWSIotMqttFileOfflinePublishQueueTest {
+
+    private File queueFile;
+    private AWSIotMqttFileOfflinePublishQueue queue;
+
+    @Before
+    public void setUp() throws Exception {
+        queueFile = File.createTempFile("offline-publish-queue", ".bin");
+        queueFile.delete();
+        queue = new AWSIotMqttFileOfflinePublishQueue(queueFile);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        queue.close();
+        queueFile.delete();
+    }
+
+    private static AWSIotMqttQueueMessage message(int i) {
+        return new AWSIotMqttQueueMessage("test/topic/" + i, ("test payload " + i).getBytes(),
+                i % 2 == 0 ? AWSIotMqttQos.QOS0 : AWSIotMqttQos.QOS1,
+                new PublishMessageUserData(null, "TEST_TOKEN_" + i));
+    }
+
+    private static void assertMessage(int i, AWSIotMqttQueueMessage message) {
+        assertEquals("test/topic/" + i, message.getTopic());
+        assertEquals("test payload " + i, new String(message.getMessage()));
+        assertEquals(i % 2 == 0 ? AWSIotMqttQos.QOS0 : AWSIotMqttQos.QOS1, message.getQos());
+    }
+
+    @Test
+    public void testQueueIsFifo() throws Exception {
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+
+        for (int i = 0; i < 10; i++) {
+            queue.offer(message(i));
+        }
+        assertEquals(10, queue.size());
+        assertMessage(0, queue.peek());
+
+        for (int i = 0; i < 10; i++) {
+            final AWSIotMqttQueueMessage message = queue.poll();
+            assertMessage(i, message);
+            assertEquals("TEST_TOKEN_" + i, message.getUserData().getUserData());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testMessagesSurviveReopen() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            queue.offer(message(i));
+        }
+        queue.poll();
+        queue.close();
+
+        queue = new AWSIotMqttFileOfflinePublishQueue(queueFile);
+        assertEquals(4, queue.size());
+        int i = 1;
+        for (final AWSIotMqttQueueMessage message : queue) {
+            assertMessage(i++, message);
+        }
+        final AWSIotMqttQueueMessage message = queue.poll();
+        assertMessage(1, message);
+        // callbacks are not persisted
+        assertNull(message.getUserData().getUserCallback());
+        assertNull(message.getUserData().getUserData());
+    }
+
+    @Test
+    public void testBoundDropsOldest() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(queue.add(message(i), 3, false).isEmpty());
+        }
+        final List<AWSIotMqttQueueMessage> dropped = queue.add(message(3), 3, false);
+        assertEquals(1, dropped.size());
+        assertMessage(0, dropped.get(0));
+        assertEquals("TEST_TOKEN_0", dropped.get(0).getUserData().getUserData());
+
+        assertEquals(3, queue.size());
+        final Iterator<AWSIotMqttQueueMessage> messages = queue.iterator();
+        for (int i = 1; i <= 3; i++) {
+            assertMessage(i, messages.next());
+        }
+    }
+
+    @Test
+    public void testBoundRejectsNewest() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(queue.add(message(i), 3, true).isEmpty());
+        }
+        final AWSIotMqttQueueMessage rejected = message(3);
+        final List<AWSIotMqttQueueMessage> dropped = queue.add(rejected, 3, true);
+        assertEquals(1, dropped.size());
+        assertSame(rejected, dropped.get(0));
+
+        assertEquals(3, queue.size());
+        assertMessage(0, queue.peek());
+    }
+
+    @Test
+    public void testLowerBoundDropsAllExcessMessages() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            queue.offer(message(i));
+        }
+        final List<AWSIotMqttQueueMessage> dropped = queue.add(message(5), 3, false);
+        assertEquals(3, dropped.size());
+        for (int i = 0; i < 3; i++) {
+            assertMessage(i, dropped.get(i));
+        }
+        assertEquals(3, queue.size());
+        assertMessage(3, queue.peek());
+    }
+
+    @Test
+    public void testMessagesStayQueuedUntilDelivered() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            queue.offer(message(i));
+        }
+        final AWSIotMqttQueueMessage first = queue.pollForDelivery();
+        final AWSIotMqttQueueMessage second = queue.pollForDelivery();
+        assertMessage(0, first);
+        assertMessage(1, second);
+        assertEquals("TEST_TOKEN_1", second.getUserData().getUserData());
+        assertEquals(3, queue.size());
+
+        // the second message is removed with the first one once both are delivered
+        queue.confirmDelivery(second);
+        assertEquals(3, queue.size());
+        queue.confirmDelivery(first);
+        assertEquals(1, queue.size());
+
+        assertMessage(2, queue.pollForDelivery());
+        assertNull(queue.pollForDelivery());
+        queue.offer(message(3));
+        assertMessage(3, queue.pollForDelivery());
+    }
+
+    @Test
+    public void testUndeliveredMessagesSurviveReopen() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            queue.offer(message(i));
+        }
+        queue.confirmDelivery(queue.pollForDelivery());
+        queue.pollForDelivery();
+        queue.close();
+
+        queue = new AWSIotMqttFileOfflinePublishQueue(queueFile);
+        assertEquals(2, queue.size());
+        assertMessage(1, queue.pollForDelivery());
+    }
+
+    @Test
+    public void testRestoreUndeliveredPublishesAgain() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            queue.offer(message(i));
+        }
+        queue.pollForDelivery();
+        queue.pollForDelivery();
+
+        queue.restoreUndelivered();
+        assertEquals(3, queue.size());
+        for (int i = 0; i < 3; i++) {
+            assertMessage(i, queue.pollForDelivery());
+        }
+        assertNull(queue.pollForDelivery());
+    }
+
+    @Test
+    public void testDeliveryAcrossWrapAndGrow() throws Exception {
+        final int initialLength = queue.getFileLength();
+        // random operations, checked against the expected queue
+        final Random random = new Random(42);
+        final List<Integer> queued = new ArrayList<Integer>();
+        final List<AWSIotMqttQueueMessage> inFlight = new ArrayList<AWSIotMqttQueueMessage>();
+        int next = 0;
+        for (int step = 0; step < 20000; step++) {
+            final int operation = random.nextInt(100);
+            if (operation < 40) {
+                queue.offer(message(next));
+                queued.add(next++);
+            } else if (operation < 75) {
+                final AWSIotMqttQueueMessage message = queue.pollForDelivery();
+                if (inFlight.size() < queued.size()) {
+                    assertMessage(queued.get(inFlight.size()), message);
+                    inFlight.add(message);
+                } else {
+                    assertNull(message);
+                }
+            } else if (operation < 99) {
+                if (!inFlight.isEmpty()) {
+                    queue.confirmDelivery(inFlight.remove(0));
+                    queued.remove(0);
+                }
+            } else {
+                queue.restoreUndelivered();
+                inFlight.clear();
+            }
+            assertEquals(queued.size(), queue.size());
+        }
+        assertTrue(queue.getFileLength() > initialLength);
+
+        queue.close();
+        queue = new AWSIotMqttFileOfflinePublishQueue(queueFile);
+        for (final int i : queued) {
+            assertMessage(i, queue.pollForDelivery());
+        }
+        assertNull(queue.pollForDelivery());
+    }
+
+    @Test
+    public void testGrowWhileDeliveringWrappedMessages() throws Exception {
+        final int initialLength = queue.getFileLength();
+        for (int i = 0; i < 60; i++) {
+            queue.offer(message(i));
+        }
+        for (int i = 0; i < 50; i++) {
+            queue.confirmDelivery(queue.pollForDelivery());
+        }
+        // the messages wrap around the end of the file, take most of them
+        for (int i = 60; i < 120; i++) {
+            queue.offer(message(i));
+        }
+        for (int i = 50; i < 115; i++) {
+            assertMessage(i, queue.pollForDelivery());
+        }
+        assertEquals(initialLength, queue.getFileLength());
+
+        for (int i = 120; i < 220; i++) {
+            queue.offer(message(i));
+        }
+        assertTrue(queue.getFileLength() > initialLength);
+        for (int i = 115; i < 220; i++) {
+            assertMessage(i, queue.pollForDelivery());
+        }
+        assertNull(queue.pollForDelivery());
+    }
+
+    @Test
+    public void testRingWrapsAndGrows() throws Exception {
+        final int initialLength = queue.getFileLength();
+        // fill and drain repeatedly so that messages wrap around the end of the file
+        int next = 0;
+        int head = 0;
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 7; i++) {
+                queue.offer(message(next++));
+            }
+            for (int i = 0; i < 5; i++) {
+                assertMessage(head++, queue.poll());
+            }
+        }
+        assertEquals(next - head, queue.size());
+        assertTrue(queue.getFileLength() > initialLength);
+
+        queue.close();
+        queue = new AWSIotMqttFileOfflinePublishQueue(queueFile);
+        assertEquals(next - head, queue.size());
+        while (!queue.isEmpty()) {
+            assertMessage(head++, queue.poll());
+        }
+        assertEquals(next, head);
+        assertEquals(initialLength, queue.getFileLength());
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            queue.offer(message(i));
+        }
+        queue.clear();
+        assertEquals(0, queue.size());
+
+        queue.offer(message(7));
+        assertMessage(7, queue.poll());
+    }
+}
@@ -3,6 +3,7 @@ package com.amazonaws.mobileconnectors.iot;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import com.amazonaws.AmazonClientException;
@@ -15,6 +16,7 @@ import com.amazonaws.regions.Regions;
 import com.amazonaws.util.StringUtils;
 import com.amazonaws.util.VersionInfoUtils;
 
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
 import org.junit.After;
@@ -2301,6 +2303,167 @@ public class AWSIotMqttManagerTest {
         assertEquals("TEST_TOKEN_3", mdcb3.userDatas.get(0));
     }
 
+    @Test
+    public void testOfflinePublishQueueDrainingWindow() throws Exception {
+        MockMqttClient mockClient = new MockMqttClient();
+
+        AWSIotMqttManager testClient = new AWSIotMqttManager("test-client",
+                Region.getRegion(Regions.US_EAST_1), TEST_ENDPOINT_PREFIX);
+        testClient.setMqttClient(mockClient);
+        testClient.setDrainingWindow(2);
+
+        TestClientStatusCallback csb = new TestClientStatusCallback();
+
+        KeyStore testKeystore = AWSIotKeystoreHelper
+                .getIotKeystore(CERT_ID, KEYSTORE_PATH, KEYSTORE_NAME, KEYSTORE_PASSWORD);
+        testClient.connect(testKeystore, csb);
+        mockClient.mockConnectSuccess();
+        mockClient.mockDisconnect();
+        assertEquals(MqttManagerConnectionState.Reconnecting, testClient.getConnectionState());
+
+        for (int i = 0; i < 4; i++) {
+            testClient.publishString("test payload " + i, "test/topic", AWSIotMqttQos.QOS1);
+        }
+        assertEquals(4, testClient.getMqttMessageQueue().size());
+
+        // cause reconnect attempt, a full window is published at once
+        Robolectric.getForegroundThreadScheduler().advanceBy(4100, TimeUnit.MILLISECONDS);
+        mockClient.mockConnectSuccess();
+        assertEquals(2, mockClient.publishCalls);
+        assertEquals(2, testClient.getMqttMessageQueue().size());
+
+        // nothing more is published while both messages are in flight
+        Robolectric.getForegroundThreadScheduler().advanceBy(1000, TimeUnit.MILLISECONDS);
+        assertEquals(2, mockClient.publishCalls);
+
+        // a completed delivery frees the window for the next message
+        mockClient.mockCallback.deliveryComplete(mockClient.testDeliveryToken);
+        assertEquals(3, mockClient.publishCalls);
+        assertEquals("test payload 2", new String(mockClient.mostRecentPublishPayload));
+
+        mockClient.mockCallback.deliveryComplete(mockClient.testDeliveryToken);
+        assertEquals(4, mockClient.publishCalls);
+        assertEquals("test payload 3", new String(mockClient.mostRecentPublishPayload));
+        assertEquals(0, testClient.getMqttMessageQueue().size());
+    }
+
+    @Test
+    public void testOfflinePublishQueueFileSurvivesRestart() throws Exception {
+        File queueFile = File.createTempFile("offline-publish-queue", ".bin");
+        queueFile.delete();
+
+        MockMqttClient mockClient = new MockMqttClient();
+
+        AWSIotMqttManager testClient = new AWSIotMqttManager("test-client",
+                Region.getRegion(Regions.US_EAST_1), TEST_ENDPOINT_PREFIX);
+        testClient.setMqttClient(mockClient);
+        testClient.setOfflinePublishQueueFile(queueFile);
+
+        TestClientStatusCallback csb = new TestClientStatusCallback();
+
+        KeyStore testKeystore = AWSIotKeystoreHelper
+                .getIotKeystore(CERT_ID, KEYSTORE_PATH, KEYSTORE_NAME, KEYSTORE_PASSWORD);
+        testClient.connect(testKeystore, csb);
+        mockClient.mockConnectSuccess();
+        mockClient.mockDisconnect();
+        assertEquals(MqttManagerConnectionState.Reconnecting, testClient.getConnectionState());
+
+        for (int i = 0; i < 3; i++) {
+            testClient.publishString("test payload " + i, "test/topic", AWSIotMqttQos.QOS0);
+        }
+        assertEquals(3, testClient.getMqttMessageQueue().size());
+        testClient.getMqttMessageQueue().close();
+
+        // a new manager on the same file, as after a restart of the application
+        MockMqttClient restartedMockClient = new MockMqttClient();
+        AWSIotMqttManager restartedClient = new AWSIotMqttManager("test-client",
+                Region.getRegion(Regions.US_EAST_1), TEST_ENDPOINT_PREFIX);
+        restartedClient.setMqttClient(restartedMockClient);
+        restartedClient.setOfflinePublishQueueFile(queueFile);
+        assertEquals(3, restartedClient.getMqttMessageQueue().size());
+        checkOfflinePublishingQueue(restartedClient);
+
+        // the restored messages are published once connected
+        restartedClient.connect(testKeystore, csb);
+        restartedMockClient.mockConnectSuccess();
+        assertEquals(1, restartedMockClient.publishCalls);
+        assertEquals("test payload 0", new String(restartedMockClient.mostRecentPublishPayload));
+
+        // a message is removed from the file once delivered
+        restartedMockClient.mockCallback.deliveryComplete(restartedMockClient.testDeliveryToken);
+        assertEquals(2, restartedClient.getMqttMessageQueue().size());
+
+        Robolectric.getForegroundThreadScheduler().advanceBy(1000, TimeUnit.MILLISECONDS);
+        assertEquals(3, restartedMockClient.publishCalls);
+        assertEquals(2, restartedClient.getMqttMessageQueue().size());
+        restartedClient.getMqttMessageQueue().close();
+
+        // messages in flight when the application stops are published again
+        AWSIotMqttManager secondRestartClient = new AWSIotMqttManager("test-client",
+                Region.getRegion(Regions.US_EAST_1), TEST_ENDPOINT_PREFIX);
+        secondRestartClient.setMqttClient(new MockMqttClient());
+        secondRestartClient.setOfflinePublishQueueFile(queueFile);
+        assertEquals(2, secondRestartClient.getMqttMessageQueue().size());
+        assertEquals("test payload 1",
+                new String(secondRestartClient.getMqttMessageQueue().peek().getMessage()));
+
+        secondRestartClient.getMqttMessageQueue().close();
+        queueFile.delete();
+    }
+
+    @Test
+    public void testDrainingWindowIsCappedAtMaxInflight() throws Exception {
+        MockMqttClient mockClient = new MockMqttClient();
+
+        AWSIotMqttManager testClient = new AWSIotMqttManager("test-client",
+                Region.getRegion(Regions.US_EAST_1), TEST_ENDPOINT_PREFIX);
+        testClient.setMqttClient(mockClient);
+        testClient.setDrainingWindow(50);
+
+        TestClientStatusCallback csb = new TestClientStatusCallback();
+
+        KeyStore testKeystore = AWSIotKeystoreHelper
+                .getIotKeystore(CERT_ID, KEYSTORE_PATH, KEYSTORE_NAME, KEYSTORE_PASSWORD);
+        testClient.connect(testKeystore, csb);
+        mockClient.mockConnectSuccess();
+        mockClient.mockDisconnect();
+
+        for (int i = 0; i < 20; i++) {
+            testClient.publishString("test payload " + i, "test/topic", AWSIotMqttQos.QOS1);
+        }
+
+        // no more messages than the client allows in flight are published
+        Robolectric.getForegroundThreadScheduler().advanceBy(4100, TimeUnit.MILLISECONDS);
+        mockClient.mockConnectSuccess();
+        assertEquals(MqttConnectOptions.MAX_INFLIGHT_DEFAULT, mockClient.publishCalls);
+
+        mockClient.mockCallback.deliveryComplete(mockClient.testDeliveryToken);
+        assertEquals(MqttConnectOptions.MAX_INFLIGHT_DEFAULT + 1, mockClient.publishCalls);
+    }
+
+    @Test
+    public void testSettingSameOfflinePublishQueueFileKeepsQueue() throws Exception {
+        File queueFile = File.createTempFile("offline-publish-queue", ".bin");
+        queueFile.delete();
+
+        AWSIotMqttManager testClient = new AWSIotMqttManager("test-client",
+                Region.getRegion(Regions.US_EAST_1), TEST_ENDPOINT_PREFIX);
+        testClient.setMqttClient(new MockMqttClient());
+        testClient.setOfflinePublishQueueFile(queueFile);
+        for (int i = 0; i < 3; i++) {
+            testClient.getMqttMessageQueue().offer(new AWSIotMqttQueueMessage("test/topic",
+                    ("test payload " + i).getBytes(), AWSIotMqttQos.QOS0, null));
+        }
+        AWSIotMqttOfflinePublishQueue queue = testClient.getMqttMessageQueue();
+
+        testClient.setOfflinePublishQueueFile(new File(queueFile.getPath()));
+        assertSame(queue, testClient.getMqttMessageQueue());
+        assertEquals(3, testClient.getMqttMessageQueue().size());
+
+        testClient.getMqttMessageQueue().close();
+        queueFile.delete();
+    }
+
     @Test
     public void testOfflinePublishQueueLimitNewest() throws Exception {
         MockMqttClient mockClient = new MockMqttClient();
@@ -2335,13 +2498,13 @@ public class AWSIotMqttManagerTest {
         
         // queue is now full - publish one more message to ensure queue keeps newest messages
         testClient.publishString("test payload 10", "test/topic", AWSIotMqttQos.QOS0);
-        assertEquals(11, testClient.getMqttMessageQueue().size());
+        assertEquals(10, testClient.getMqttMessageQueue().size());
 
-        // verify the payload
-        checkOfflinePublishingQueue(testClient);
+        // verify the payload, the oldest message was dropped
+        checkOfflinePublishingQueue(testClient, 1);
 
         testClient.getMqttMessageQueue().poll().getMessage();
-        assertEquals(10, testClient.getMqttMessageQueue().size());
+        assertEquals(9, testClient.getMqttMessageQueue().size());
     }
 
     @Test
@@ -3109,9 +3272,13 @@ public class AWSIotMqttManagerTest {
      * payload data. The queue is cloned in order to be polled for verification.
      */
     private void checkOfflinePublishingQueue(AWSIotMqttManager testClient) {
+        checkOfflinePublishingQueue(testClient, 0);
+    }
+
+    private void checkOfflinePublishingQueue(AWSIotMqttManager testClient, int firstPayload) {
         ConcurrentLinkedQueue<AWSIotMqttQueueMessage> queue = 
             new ConcurrentLinkedQueue<AWSIotMqttQueueMessage>(testClient.getMqttMessageQueue());
-        int i = 0;
+        int i = firstPayload;
         while (!queue.isEmpty()) {
             AWSIotMqttQueueMessage message = queue.poll();
             System.out.println("Message = " + new String(message.getMessage()));
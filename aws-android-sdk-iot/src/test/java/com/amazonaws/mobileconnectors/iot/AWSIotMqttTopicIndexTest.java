@@ -0,0 +1,168 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.iot;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AWSIotMqttTopicIndexTest {
+
+    private static final String[] TOPIC_FILTERS = {
+            "test", "test/1", "test/1/2", "#", "test/+", "test/+/1", "test/+/+/+/+", "+", "+/1",
+            "+/1/+", "test/#", "Aa", "BB"
+    };
+
+    private static final String[] TOPICS = {
+            "test", "test/1", "test/1/2", "test/1/1", "test/1/2/3", "test/1/2/3/4",
+            "test/1/2/3/4/5", "nottest/1", "test/12", "A/1/B", "test/test/test", "not/1", "Aa",
+            "BB", "Ab"
+    };
+
+    private AWSIotMqttTopicIndex index;
+    private List<String> received;
+
+    @Before
+    public void setUp() throws Exception {
+        index = new AWSIotMqttTopicIndex();
+        received = new ArrayList<String>();
+    }
+
+    private AWSIotMqttTopic subscription(final String topicFilter) {
+        return new AWSIotMqttTopic(topicFilter, AWSIotMqttQos.QOS0,
+                new AWSIotMqttNewMessageCallback() {
+                    @Override
+                    public void onMessageArrived(String topic, byte[] data) {
+                        received.add(topicFilter);
+                    }
+                });
+    }
+
+    private int expectedMatches(String topic) {
+        int matches = 0;
+        for (final String topicFilter : TOPIC_FILTERS) {
+            if (AWSIotMqttManager.isTopicMatch(topicFilter, topic)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Test
+    public void testDispatchMatchesIsTopicMatch() throws Exception {
+        for (final String topicFilter : TOPIC_FILTERS) {
+            index.put(subscription(topicFilter));
+        }
+
+        for (final String topic : TOPICS) {
+            received.clear();
+            final int expected = expectedMatches(topic);
+            assertEquals(topic, expected, index.dispatch(topic, new byte[0]));
+            assertEquals(topic, expected, received.size());
+            for (final String topicFilter : received) {
+                assertEquals(true, AWSIotMqttManager.isTopicMatch(topicFilter, topic));
+            }
+        }
+    }
+
+    @Test
+    public void testDispatchPassesTopicAndPayload() throws Exception {
+        final byte[] payload = "hello".getBytes("UTF-8");
+        final List<Object> arrived = new ArrayList<Object>();
+        index.put(new AWSIotMqttTopic("sensors/+/temperature", AWSIotMqttQos.QOS1,
+                new AWSIotMqttNewMessageCallback() {
+                    @Override
+                    public void onMessageArrived(String topic, byte[] data) {
+                        arrived.add(topic);
+                        arrived.add(data);
+                    }
+                }));
+
+        assertEquals(1, index.dispatch("sensors/kitchen/temperature", payload));
+        assertEquals("sensors/kitchen/temperature", arrived.get(0));
+        assertArrayEquals(payload, (byte[]) arrived.get(1));
+    }
+
+    @Test
+    public void testSubscriptionWithoutCallbackIsCounted() throws Exception {
+        index.put(new AWSIotMqttTopic("test/+", AWSIotMqttQos.QOS0, null));
+        assertEquals(1, index.dispatch("test/1", new byte[0]));
+    }
+
+    @Test
+    public void testPutReplacesSubscriptionToSameFilter() throws Exception {
+        index.put(subscription("test/#"));
+        index.put(subscription("test/#"));
+
+        assertEquals(1, index.dispatch("test/1", new byte[0]));
+        assertEquals(1, received.size());
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        for (final String topicFilter : TOPIC_FILTERS) {
+            index.put(subscription(topicFilter));
+        }
+
+        index.remove("test/+");
+        index.remove("#");
+        index.remove("not/subscribed");
+        // test/1, +/1 and test/#
+        assertEquals(3, index.dispatch("test/1", new byte[0]));
+        assertEquals(0, index.dispatch("other/topic", new byte[0]));
+
+        for (final String topicFilter : TOPIC_FILTERS) {
+            index.remove(topicFilter);
+        }
+        for (final String topic : TOPICS) {
+            assertEquals(0, index.dispatch(topic, new byte[0]));
+        }
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        index.put(subscription("test/1"));
+        index.put(subscription("#"));
+        index.clear();
+
+        assertEquals(0, index.dispatch("test/1", new byte[0]));
+        assertEquals(0, received.size());
+    }
+
+    @Test
+    public void testManySiblingLevels() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            index.put(subscription("devices/device-" + i + "/shadow"));
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(1, index.dispatch("devices/device-" + i + "/shadow", new byte[0]));
+        }
+        assertEquals(0, index.dispatch("devices/device-1000/shadow", new byte[0]));
+
+        for (int i = 0; i < 1000; i += 2) {
+            index.remove("devices/device-" + i + "/shadow");
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 2, index.dispatch("devices/device-" + i + "/shadow", new byte[0]));
+        }
+    }
+}
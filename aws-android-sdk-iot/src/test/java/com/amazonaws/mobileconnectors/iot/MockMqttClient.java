@@ -75,6 +75,7 @@ public class MockMqttClient extends MqttAsyncClient {
         mostRecentPublishPayload = payload;
         mostRecentPublishQoS = qos;
         mostRecentPublishRetained = retained;
+        testDeliveryToken = new MqttDeliveryToken();
         return testDeliveryToken;
     }
 
@@ -91,6 +92,7 @@ public class MockMqttClient extends MqttAsyncClient {
         mostRecentPublishRetained = retained;
         mostRecentPublishUserContext = userContext;
         mostRecentPublishCallback = callback;
+        testDeliveryToken = new MqttDeliveryToken();
         return testDeliveryToken;
     }
 
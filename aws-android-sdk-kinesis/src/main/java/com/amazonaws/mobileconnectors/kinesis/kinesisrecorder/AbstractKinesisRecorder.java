@@ -18,6 +18,7 @@ package com.amazonaws.mobileconnectors.kinesis.kinesisrecorder;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.mobileconnectors.kinesis.kinesisrecorder.FileRecordStore.RecordIterator;
+import com.amazonaws.mobileconnectors.kinesis.kinesisrecorder.FileRecordStore.RecordPosition;
 import com.amazonaws.util.StringUtils;
 
 import com.amazonaws.logging.Log;
@@ -25,7 +26,20 @@ import com.amazonaws.logging.LogFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * An abstract class for Amazon Kinesis recorders. It manages local file store
@@ -45,6 +59,10 @@ public abstract class AbstractKinesisRecorder {
      * Maximum size in bytes of records in PutRecordBatch.
      */
     private static final int MAX_BATCH_RECORDS_SIZE_BYTES = 512 * 1024;
+    /**
+     * Time in seconds idle submit threads are kept.
+     */
+    private static final long SUBMIT_THREAD_KEEP_ALIVE_SECONDS = 30;
 
     /**
      * The configurable options for Kinesis Recorder, includes the
@@ -53,6 +71,9 @@ public abstract class AbstractKinesisRecorder {
     protected KinesisRecorderConfig config;
     protected FileRecordStore recordStore;
 
+    /** Sends batches concurrently, created on first use. */
+    private ThreadPoolExecutor submitExecutor;
+
     /**
      * Gets the sender to send saved records.
      *
@@ -111,6 +132,12 @@ public abstract class AbstractKinesisRecorder {
      * invalid) will be deleted. Note: Since KinesisRecorder uses synchronous
      * methods to make calls to Amazon Kinesis, do not call submitAll() on the
      * main thread of your application.
+     * <p>
+     * Up to {@link KinesisRecorderConfig#getMaxInFlightBatches()} batches of
+     * different streams are sent concurrently, while the batches of a stream
+     * are sent one after another. Records are only deleted once all the
+     * batches read before them are done, so records of a batch which is
+     * still in flight or has failed are never lost.
      *
      * @throws AmazonClientException Thrown if there was an unrecoverable error
      *             during submission. Note: If the request appears to be
@@ -120,100 +147,229 @@ public abstract class AbstractKinesisRecorder {
     public synchronized void submitAllRecords() {
         final RecordSender sender = getRecordSender();
         final RecordIterator iterator = recordStore.iterator();
-        final List<byte[]> data = new ArrayList<byte[]>(MAX_RECORDS_PER_BATCH);
-        int retry = 0;
-        int count = 0;
-        boolean unknownErrorRetried = false;
+        final int maxInFlightBatches = Math.max(1, config.getMaxInFlightBatches());
+        final CompletionService<Batch> completionService = new ExecutorCompletionService<Batch>(
+                getSubmitExecutor(maxInFlightBatches));
+        // batches in the order they were read, until their records are deleted
+        final LinkedList<Batch> batches = new LinkedList<Batch>();
+        final Set<String> streamsInFlight = new HashSet<String>();
+        final SubmitState state = new SubmitState();
+        int inFlight = 0;
         try {
-            while (iterator.hasNext() && retry < MAX_RETRY_COUNT) {
+            while (state.error == null && iterator.hasNext() && state.retry < MAX_RETRY_COUNT) {
+                final List<byte[]> data = new ArrayList<byte[]>(MAX_RECORDS_PER_BATCH);
                 final String streamName = nextBatch(iterator, data, MAX_RECORDS_PER_BATCH,
                         MAX_BATCH_RECORDS_SIZE_BYTES);
                 if (streamName == null || data.isEmpty()) {
                     break;
                 }
+                final Batch batch = new Batch(sender, streamName, data,
+                        iterator.getReadPosition(), state);
 
-                try {
-
-                    List<byte[]> failures = null;
-                    try {
-                        failures = sender.sendBatch(streamName, data);
-                    } catch (AmazonClientException ace) {
-                        if (!unknownErrorRetried
-                                && ace.getMessage() != null
-                                && ace.getMessage().contains("Unable to unmarshall error response")) {
-                            // Retry once for unforeseen error, possible kinesis error without shape
-                            unknownErrorRetried = true;
-                            failures = data;
-                        } else {
-                            throw ace;
-                        }
-                    }
-
-                    final int successCount = data.size() - failures.size();
-                    count += successCount;
-
-                    /**
-                     * We hold off on removing records until we are sure that we
-                     * have successfully made the request. We would prefer to
-                     * send duplicates than to lose records. This is still not a
-                     * perfect solution as there is a chance for loss between
-                     * removing the read records and re-saving the failed
-                     * records.
-                     * https://github.com/aws/aws-sdk-android/issues/225 If this
-                     * errors it will throw an IOException. We don't wrap it so
-                     * it's handled separately from network errors which will be
-                     * wrapped by an AmazonClientException.
-                     */
-                    iterator.removeReadRecords();
-
-                    if (successCount == 0) {
-                        // no record went through, increase retry count.
-                        retry++;
-                    }
-                    if (!failures.isEmpty()) {
-                        for (final byte[] bytes : failures) {
-                            saveRecord(bytes, streamName);
-                        }
-                    }
-
-                } catch (final AmazonClientException ace) {
-                    if (sender.isRecoverable(ace)) {
-                        LOGGER.error(
-                                "ServiceException in submit all, the values of the data inside the requests appears valid.  The request will be kept",
-                                ace);
-                    } else {
-
-                        // Data is dead and should be added to dead letter queue
-                        try {
-                            this.config.getDeadLetterListener().onRecordsDropped(streamName, data);
-                        } catch (Exception e) {
-                            LOGGER.error("DeadLetterListener onRecordsDropped has thrown an exception (user code)", e);
-                        }
-
-                        try {
-                            iterator.removeReadRecords();
-                        } catch (final IOException e) {
-                            throw new AmazonClientException("Failed to drop bad records.", e);
-                        }
-                        // We have reason to believe the values in the request
-                        // is invalid and cannot be sent or recovered.
-                        LOGGER.error(
-                                "ServiceException in submit all, the last request is presumed to be the cause and will be dropped",
-                                ace);
-                    }
-                    throw ace;
-                } catch (final IOException e) {
-                    throw new AmazonClientException("Failed to remove read records", e);
+                // wait for a free slot, and for the previous batch of the
+                // same stream to keep the order of the stream
+                while (state.error == null
+                        && (inFlight >= maxInFlightBatches
+                        || streamsInFlight.contains(streamName))) {
+                    final Batch done = takeCompleted(completionService);
+                    inFlight--;
+                    streamsInFlight.remove(done.streamName);
+                    handleCompletedBatch(sender, iterator, batches, done, state);
+                }
+                if (state.error != null) {
+                    break;
                 }
+
+                batches.add(batch);
+                streamsInFlight.add(streamName);
+                inFlight++;
+                completionService.submit(batch);
+            }
+
+            // wait for the batches in flight
+            while (inFlight > 0) {
+                final Batch done = takeCompleted(completionService);
+                inFlight--;
+                handleCompletedBatch(sender, iterator, batches, done, state);
             }
         } finally {
-            LOGGER.debug(String.format("submitAllRecords sent %d records", count));
+            LOGGER.debug(String.format("submitAllRecords sent %d records", state.count));
             try {
                 iterator.close();
             } catch (final IOException e) {
                 throw new AmazonClientException("Failed to close record file", e);
             }
         }
+
+        if (state.error != null) {
+            throw state.error;
+        }
+    }
+
+    private Batch takeCompleted(CompletionService<Batch> completionService) {
+        try {
+            return completionService.take().get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while submitting records", e);
+        } catch (final ExecutionException e) {
+            // Batch catches all runtime exceptions, so this is an Error
+            throw new AmazonClientException("Failed to submit records", e.getCause());
+        }
+    }
+
+    /**
+     * Handles the result of a batch: re-saves the records which failed,
+     * passes dropped records to the dead letter listener, and deletes the
+     * records of all the leading batches which are done.
+     */
+    private void handleCompletedBatch(RecordSender sender, RecordIterator iterator,
+            LinkedList<Batch> batches, Batch batch, SubmitState state) {
+        final RuntimeException failure = batch.failure;
+        if (failure == null) {
+            final int successCount = batch.data.size() - batch.failures.size();
+            state.count += successCount;
+            if (successCount == 0) {
+                // no record went through, increase retry count.
+                state.retry++;
+            }
+            batch.acknowledged = true;
+            // the records are saved again before the batch is deleted. We
+            // would prefer to send duplicates than to lose records.
+            for (final byte[] bytes : batch.failures) {
+                saveRecord(bytes, batch.streamName);
+            }
+        } else if (!(failure instanceof AmazonClientException)) {
+            state.error = failure;
+        } else if (sender.isRecoverable((AmazonClientException) failure)) {
+            LOGGER.error(
+                    "ServiceException in submit all, the values of the data inside the requests appears valid.  The request will be kept",
+                    failure);
+            state.error = failure;
+        } else {
+            // Data is dead and should be added to dead letter queue
+            try {
+                this.config.getDeadLetterListener().onRecordsDropped(batch.streamName, batch.data);
+            } catch (Exception e) {
+                LOGGER.error("DeadLetterListener onRecordsDropped has thrown an exception (user code)", e);
+            }
+            // We have reason to believe the values in the request
+            // is invalid and cannot be sent or recovered.
+            LOGGER.error(
+                    "ServiceException in submit all, the last request is presumed to be the cause and will be dropped",
+                    failure);
+            batch.acknowledged = true;
+            state.error = failure;
+        }
+        // only the read position is needed from now on
+        batch.data = null;
+        batch.failures = null;
+
+        /**
+         * We hold off on removing records until we are sure that all the
+         * batches before them have been sent, so the oldest batch which is
+         * still in flight or has failed with a recoverable error keeps its
+         * records. If this errors it will throw an IOException. We don't wrap
+         * it so it's handled separately from network errors.
+         */
+        Batch lastAcknowledged = null;
+        while (!batches.isEmpty() && batches.getFirst().acknowledged) {
+            lastAcknowledged = batches.removeFirst();
+        }
+        if (lastAcknowledged != null) {
+            try {
+                iterator.removeRecordsBefore(lastAcknowledged.readPosition);
+            } catch (final IOException e) {
+                throw new AmazonClientException("Failed to remove read records", e);
+            }
+        }
+    }
+
+    /**
+     * Gets the executor batches are sent with. If only one batch may be in
+     * flight, batches are sent on the calling thread.
+     */
+    private synchronized Executor getSubmitExecutor(int maxInFlightBatches) {
+        if (maxInFlightBatches == 1) {
+            return new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    command.run();
+                }
+            };
+        }
+        if (submitExecutor == null || submitExecutor.getMaximumPoolSize() != maxInFlightBatches) {
+            if (submitExecutor != null) {
+                submitExecutor.shutdown();
+            }
+            submitExecutor = new ThreadPoolExecutor(maxInFlightBatches, maxInFlightBatches,
+                    SUBMIT_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            final Thread thread = new Thread(runnable, "KinesisRecorder-submit");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            submitExecutor.allowCoreThreadTimeOut(true);
+        }
+        return submitExecutor;
+    }
+
+    /**
+     * Counters shared by the batches of one submitAllRecords() call. Only
+     * accessed by the submitting thread, except unknownErrorRetried.
+     */
+    private static final class SubmitState {
+        private int retry;
+        private int count;
+        private RuntimeException error;
+        private final AtomicBoolean unknownErrorRetried = new AtomicBoolean(false);
+    }
+
+    /**
+     * A batch of records of one stream and its result.
+     */
+    private static final class Batch implements Callable<Batch> {
+        private final RecordSender sender;
+        private final String streamName;
+        private List<byte[]> data;
+        /** Position in the record store after the last record of the batch. */
+        private final RecordPosition readPosition;
+        private final SubmitState state;
+        private List<byte[]> failures;
+        private RuntimeException failure;
+        /** Whether the records of the batch can be deleted. */
+        private boolean acknowledged;
+
+        Batch(RecordSender sender, String streamName, List<byte[]> data,
+                RecordPosition readPosition, SubmitState state) {
+            this.sender = sender;
+            this.streamName = streamName;
+            this.data = data;
+            this.readPosition = readPosition;
+            this.state = state;
+        }
+
+        @Override
+        public Batch call() {
+            try {
+                failures = sender.sendBatch(streamName, data);
+            } catch (final AmazonClientException ace) {
+                if (ace.getMessage() != null
+                        && ace.getMessage().contains("Unable to unmarshall error response")
+                        && state.unknownErrorRetried.compareAndSet(false, true)) {
+                    // Retry once for unforeseen error, possible kinesis error without shape
+                    failures = data;
+                } else {
+                    failure = ace;
+                }
+            } catch (final RuntimeException e) {
+                failure = e;
+            }
+            return this;
+        }
     }
 
     /**
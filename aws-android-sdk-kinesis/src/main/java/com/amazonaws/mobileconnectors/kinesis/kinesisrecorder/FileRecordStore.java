@@ -22,177 +22,396 @@ import com.amazonaws.util.StringUtils;
 import com.amazonaws.logging.Log;
 import com.amazonaws.logging.LogFactory;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Locale;
+import java.util.TreeSet;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * The FileRecordStore is responsible for recording Kinesis PutRecordRequests to
- * the Android disk. Currently it stores each request as a JSON object
- * representing it's properties. One request per line.
+ * The FileRecordStore is responsible for recording Kinesis records to the
+ * Android disk. Records are appended to a segmented log: each record is stored
+ * as a 4-byte length followed by its UTF-8 bytes in a segment file, and a new
+ * segment is started once the current one reaches the segment size. The
+ * position of the first unread record is persisted in an offset file, so
+ * removing read records only updates the offset and deletes the segments that
+ * were read completely, instead of rewriting the remaining records.
+ * <p>
+ * A record file written by an earlier version (one record per line) is
+ * migrated into the log when the store is created.
  */
 class FileRecordStore {
     private static final Log LOGGER = LogFactory.getLog(FileRecordStore.class);
-    private final ReentrantLock accessLock = new ReentrantLock(true);
 
-    /** The file the requests are stored in. **/
-    private File recordFile;
+    /** Default size in bytes after which a new segment is started. **/
+    static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024;
+
+    private static final String SEGMENTS_DIRECTORY_SUFFIX = ".segments";
+    private static final String SEGMENT_FILE_EXTENSION = ".seg";
+    private static final String OFFSET_FILE_NAME = "read.offset";
+    private static final String MIGRATION_FILE_NAME = "legacy.migrating";
+    private static final int RECORD_HEADER_SIZE = 4;
+    private static final int OFFSET_FILE_SIZE = 16;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final ReentrantLock accessLock = new ReentrantLock(true);
 
     /** The FileManager used for interacting with the FS. **/
     private final FileManager fileManager;
 
     private final String recordFileName;
     private final long maxStorageSize;
+    private final long segmentSize;
+
+    /** The directory the segments and the read offset are stored in. **/
+    private File segmentsDirectory;
+
+    /** Ids of the segments on disk, in the order they were written. **/
+    private final TreeSet<Long> segments = new TreeSet<Long>();
+
+    /** Id to use for the next segment. **/
+    private long nextSegmentId;
+
+    /** Segment and position of the first unread record. **/
+    private long readSegment;
+    private long readPosition;
+
+    /** Bytes of the unread records on disk. **/
+    private volatile long storedBytes;
+
+    /** The segment records are currently appended to. **/
+    private FileChannel writeChannel;
+    private long writeSegment = -1;
+    private long writePosition;
 
     /**
      * Creates the FileRecordStore.
      *
-     * @param recorderDirectory The directory (which the FileRecordStore is only
+     * @param workDirectory The directory (which the FileRecordStore is only
      *            used for the KinesisRecorder) to use to store requests in
      * @param recordFileName Name of the record file
      * @param maxStorageSize Maximum storage size in bytes
      */
     public FileRecordStore(File workDirectory, String recordFileName, long maxStorageSize) {
+        this(workDirectory, recordFileName, maxStorageSize, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates the FileRecordStore with the given segment size.
+     *
+     * @param workDirectory The directory to use to store requests in
+     * @param recordFileName Name of the record file
+     * @param maxStorageSize Maximum storage size in bytes
+     * @param segmentSize Size in bytes after which a new segment is started
+     */
+    FileRecordStore(File workDirectory, String recordFileName, long maxStorageSize,
+            long segmentSize) {
         this.fileManager = new FileManager(workDirectory);
         this.recordFileName = recordFileName;
         this.maxStorageSize = maxStorageSize;
+        this.segmentSize = segmentSize;
         try {
-            tryCreateRecordsFile();
+            tryOpenSegments();
+            migrateLegacyRecordsFile();
         } catch (final IOException ioe) {
             throw new AmazonClientException("Failed to create file store", ioe);
         }
     }
 
+    /**
+     * Checks whether there are records stored under the given name, either in
+     * the segmented log or in a record file of an earlier version.
+     *
+     * @param workDirectory The directory the records are stored in
+     * @param recordFileName Name of the record file
+     * @return true if there are records stored under the name
+     */
+    static boolean hasRecords(File workDirectory, String recordFileName) {
+        final File recordsDir = new File(workDirectory, Constants.RECORDS_DIRECTORY);
+        if (new File(recordsDir, recordFileName).isFile()) {
+            return true;
+        }
+        final File[] files = new File(recordsDir, recordFileName + SEGMENTS_DIRECTORY_SUFFIX)
+                .listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                if (file.getName().endsWith(SEGMENT_FILE_EXTENSION)
+                        || file.getName().equals(MIGRATION_FILE_NAME)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     public boolean put(final String record) throws IOException {
-        boolean success = false;
-        BufferedWriter writer = null;
+        final byte[] bytes = record.getBytes(StringUtils.UTF8);
         accessLock.lock();
         try {
-            writer = tryInitializeWriter();
-            if (recordFile.length() + record.getBytes(StringUtils.UTF8).length <= maxStorageSize) {
-                writer.write(record);
-                writer.newLine();
-                writer.flush();
-                success = true;
+            tryOpenSegments();
+            if (storedBytes + RECORD_HEADER_SIZE + bytes.length > maxStorageSize) {
+                return false;
             }
+            append(bytes);
+            return true;
         } finally {
-            if (writer != null) {
-                writer.close();
-            }
             accessLock.unlock();
         }
-
-        return success;
     }
 
     public long getFileSize() {
-        return recordFile == null ? 0 : recordFile.length();
+        return storedBytes;
     }
 
-    private void tryCreateRecordsFile() throws IOException {
-        if (recordFile != null && recordFile.exists()) {
+    /**
+     * Closes the segment records are appended to. A new segment is started on
+     * the next put.
+     *
+     * @throws IOException if the segment could not be closed
+     */
+    public void close() throws IOException {
+        accessLock.lock();
+        try {
+            closeWriteChannel();
+        } finally {
+            accessLock.unlock();
+        }
+    }
+
+    private void tryOpenSegments() throws IOException {
+        if (segmentsDirectory != null && segmentsDirectory.isDirectory()) {
             return;
         }
 
-        synchronized (this) {
-            if (recordFile != null && recordFile.exists()) {
-                return;
-            }
+        final File recordsDir = fileManager.createDirectory(Constants.RECORDS_DIRECTORY);
+        final File segmentsDir = new File(recordsDir, recordFileName + SEGMENTS_DIRECTORY_SUFFIX);
+        if (!segmentsDir.isDirectory() && !segmentsDir.mkdirs()) {
+            throw new IOException("Failed to create directory " + segmentsDir);
+        }
 
-            final File recordDir = fileManager.createDirectory(
-                    Constants.RECORDS_DIRECTORY);
-            recordFile = fileManager.createFile(new File(
-                    recordDir, recordFileName));
+        closeWriteChannel();
+        segments.clear();
+        final File[] files = segmentsDir.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                final String name = file.getName();
+                if (!name.endsWith(SEGMENT_FILE_EXTENSION)) {
+                    continue;
+                }
+                try {
+                    segments.add(Long.parseLong(name.substring(0,
+                            name.length() - SEGMENT_FILE_EXTENSION.length())));
+                } catch (final NumberFormatException e) {
+                    LOGGER.warn("Unexpected file in records directory: " + name);
+                }
+            }
         }
+        segmentsDirectory = segmentsDir;
+        nextSegmentId = segments.isEmpty() ? 0 : segments.last() + 1;
+        loadReadOffset();
     }
 
-    private BufferedWriter tryInitializeWriter() throws IOException {
-        BufferedWriter writer = null;
-        tryCreateRecordsFile();
-        final OutputStream stream = fileManager.newOutputStream(recordFile, true);
-        writer = new BufferedWriter(new OutputStreamWriter(stream, StringUtils.UTF8));
+    private void loadReadOffset() throws IOException {
+        readSegment = segments.isEmpty() ? nextSegmentId : segments.first();
+        readPosition = 0;
 
-        return writer;
-    }
+        final File offsetFile = new File(segmentsDirectory, OFFSET_FILE_NAME);
+        if (offsetFile.length() == OFFSET_FILE_SIZE) {
+            final RandomAccessFile raf = new RandomAccessFile(offsetFile, "r");
+            try {
+                final long segment = raf.readLong();
+                final long position = raf.readLong();
+                if (segments.contains(segment) && position >= 0
+                        && position <= segmentFile(segment).length()) {
+                    readSegment = segment;
+                    readPosition = position;
+                }
+            } finally {
+                raf.close();
+            }
+        }
 
-    private File deleteAllRecords() throws IOException {
-        final File recordsDir = fileManager.createDirectory(
-                Constants.RECORDS_DIRECTORY);
+        // drop segments which were read completely before the offset was
+        // persisted
+        while (!segments.isEmpty() && segments.first() < readSegment) {
+            deleteSegment(segments.first());
+        }
+        updateStoredBytes();
+    }
 
-        recordFile.delete();
+    /**
+     * Moves the records of a record file of an earlier version into a new
+     * segment. The records are written to a migration file which only becomes
+     * a segment once the record file is deleted, so a migration interrupted at
+     * any point neither loses nor duplicates records: it is started over
+     * while the record file exists, and completed otherwise.
+     */
+    private void migrateLegacyRecordsFile() throws IOException {
+        final File recordsDir = fileManager.getDirectory(Constants.RECORDS_DIRECTORY);
+        final File legacyFile = new File(recordsDir, recordFileName);
+        final File migrationFile = new File(segmentsDirectory, MIGRATION_FILE_NAME);
+        if (!legacyFile.isFile() && !migrationFile.isFile()) {
+            return;
+        }
 
-        recordFile = fileManager.createFile(new File(
-                recordsDir, recordFileName));
-        return recordFile;
-    }
+        accessLock.lock();
+        try {
+            if (legacyFile.isFile()) {
+                writeMigrationFile(legacyFile, migrationFile);
+                if (!legacyFile.delete()) {
+                    throw new IOException("Failed to delete migrated records file");
+                }
+                fileManager.deleteFile(new File(recordsDir, recordFileName + ".tmp"));
+            }
 
-    private File deleteReadRecords(final int lineNumber) throws IOException {
-        // Write all records after line number to a temporary file
-        final File recordsDir = fileManager.createDirectory(
-                Constants.RECORDS_DIRECTORY);
-
-        File tempRecordsFile = null;
-        final File tempFile = new File(
-                recordsDir, recordFileName + ".tmp");
-        if (tempFile.exists()) {
-            if (!tempFile.delete()) {
-                throw new IOException("Failed to delete previous temp file");
+            closeWriteChannel();
+            final long segment = nextSegmentId++;
+            if (!migrationFile.renameTo(segmentFile(segment))) {
+                throw new IOException("Failed to add migrated records");
             }
+            segments.add(segment);
+            updateStoredBytes();
+        } finally {
+            accessLock.unlock();
         }
-        tempRecordsFile = fileManager.createFile(tempFile);
+    }
 
-        if (tempRecordsFile != null && recordFile.exists() && tempRecordsFile.exists()) {
-            BufferedReader reader = null;
-            PrintWriter writer = null;
+    private void writeMigrationFile(final File legacyFile, final File migrationFile)
+            throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                fileManager.newInputStream(legacyFile), StringUtils.UTF8));
+        try {
+            // overwrites the file of an interrupted migration
+            final FileOutputStream fileOut = new FileOutputStream(migrationFile, false);
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
             try {
-                reader = new BufferedReader(new InputStreamReader(new FileInputStream(recordFile),
-                        StringUtils.UTF8));
-                writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(
-                        tempRecordsFile, true), StringUtils.UTF8));
-
-                String line = null;
-                int currentLineNumber = 0;
+                String line;
                 while ((line = reader.readLine()) != null) {
-                    currentLineNumber++;
-                    if (currentLineNumber > lineNumber) {
-                        writer.println(line);
-                        writer.flush();
+                    if (!line.isEmpty()) {
+                        final byte[] bytes = line.getBytes(StringUtils.UTF8);
+                        out.writeInt(bytes.length);
+                        out.write(bytes);
                     }
                 }
+                out.flush();
+                // the records must be on disk before the record file is deleted
+                fileOut.getFD().sync();
             } finally {
-                if (writer != null) {
-                    writer.close();
-                }
-                if (reader != null) {
-                    try {
-                        reader.close();
-                    } catch (final IOException e) {
-                        LOGGER.error("failed to close reader", e);
-                    }
-                }
-
-                if (!recordFile.delete() || !tempRecordsFile.renameTo(recordFile)) {
-                    throw new IOException(
-                            "Failed to delete read records and persist unread records");
-                }
+                out.close();
             }
+        } finally {
+            reader.close();
+        }
+    }
 
-            if (tempFile.exists()) {
-                if (!tempFile.delete()) {
-                    LOGGER.error("Failed to delete temp file");
-                }
-            }
+    private void append(final byte[] bytes) throws IOException {
+        if (writeChannel == null || writePosition >= segmentSize) {
+            startSegment();
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + bytes.length);
+        buffer.putInt(bytes.length).put(bytes);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            writePosition += writeChannel.write(buffer, writePosition);
+        }
+        storedBytes += RECORD_HEADER_SIZE + bytes.length;
+    }
+
+    private void startSegment() throws IOException {
+        closeWriteChannel();
+        final long segment = nextSegmentId++;
+        writeChannel = new RandomAccessFile(segmentFile(segment), "rw").getChannel();
+        writeChannel.truncate(0);
+        writeSegment = segment;
+        writePosition = 0;
+        segments.add(segment);
+    }
+
+    private void closeWriteChannel() throws IOException {
+        if (writeChannel != null) {
+            writeChannel.close();
+            writeChannel = null;
+            writeSegment = -1;
+        }
+    }
+
+    private File segmentFile(long segment) {
+        return new File(segmentsDirectory, String.format(Locale.US, "%019d", segment)
+                + SEGMENT_FILE_EXTENSION);
+    }
+
+    private void deleteSegment(long segment) {
+        if (!segmentFile(segment).delete()) {
+            LOGGER.warn("Failed to delete records segment " + segment);
+        }
+        segments.remove(segment);
+    }
+
+    private long segmentLength(long segment) {
+        return segment == writeSegment ? writePosition : segmentFile(segment).length();
+    }
+
+    private void updateStoredBytes() {
+        long bytes = 0;
+        for (final long segment : segments) {
+            bytes += segmentLength(segment);
+        }
+        storedBytes = Math.max(0, bytes - (segments.contains(readSegment) ? readPosition : 0));
+    }
+
+    /**
+     * Marks all records before the given position as read. The segments before
+     * the position are deleted and the position is persisted.
+     */
+    private void removeRecordsBefore(long segment, long position) throws IOException {
+        if (segment < readSegment || (segment == readSegment && position < readPosition)) {
+            // already removed
+            return;
+        }
+        if (segments.higher(segment) == null && position >= segmentLength(segment)) {
+            // everything was read, start over with an empty log
+            deleteAllRecords();
+            return;
+        }
+        while (!segments.isEmpty() && segments.first() < segment) {
+            deleteSegment(segments.first());
+        }
+        readSegment = segment;
+        readPosition = position;
+        writeReadOffset();
+        updateStoredBytes();
+    }
+
+    private void deleteAllRecords() throws IOException {
+        closeWriteChannel();
+        while (!segments.isEmpty()) {
+            deleteSegment(segments.first());
+        }
+        fileManager.deleteFile(new File(segmentsDirectory, OFFSET_FILE_NAME));
+        readSegment = nextSegmentId;
+        readPosition = 0;
+        storedBytes = 0;
+    }
+
+    private void writeReadOffset() throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(
+                new File(segmentsDirectory, OFFSET_FILE_NAME), "rw");
+        try {
+            raf.writeLong(readSegment);
+            raf.writeLong(readPosition);
+            raf.setLength(OFFSET_FILE_SIZE);
+        } finally {
+            raf.close();
         }
-        return recordFile;
     }
 
     public RecordIterator iterator() {
@@ -201,73 +420,130 @@ class FileRecordStore {
     }
 
     public class RecordIterator implements java.util.Iterator<String> {
-        int linesRead = 0;
+        /** Segment and position of the next record to read. **/
+        long segment;
+        long position;
+        /** Segment and position after the last record returned by next(). **/
+        long consumedSegment;
+        long consumedPosition;
         String nextBuffer = null;
-        BufferedReader reader = null;
-        boolean isEndOfFile = false;
 
-        private boolean tryOpenReader() throws FileNotFoundException {
-            if (reader != null) {
-                return true;
+        FileChannel channel = null;
+        long channelSegment = -1;
+        ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        /** Position in the segment of the first byte in the read buffer. **/
+        long readBufferStart = -1;
+
+        RecordIterator() {
+            accessLock.lock();
+            try {
+                resetPosition();
+            } finally {
+                accessLock.unlock();
             }
+        }
 
-            if (!isEndOfFile) {
-                InputStreamReader streamReader = null;
-                streamReader = new InputStreamReader(fileManager.newInputStream(recordFile),
-                        StringUtils.UTF8);
+        /**
+         * Reads the record at the current position and moves past it.
+         *
+         * @return the record, or null if there are no more records
+         */
+        private String readRecord() throws IOException {
+            while (true) {
+                final Long current = segments.ceiling(segment);
+                if (current == null) {
+                    return null;
+                }
+                if (current != segment) {
+                    segment = current;
+                    position = 0;
+                }
+                if (fill(RECORD_HEADER_SIZE)) {
+                    final int length = readBuffer.getInt((int) (position - readBufferStart));
+                    if (isValidRecordLength(length) && fill(RECORD_HEADER_SIZE + length)) {
+                        final int offset = (int) (position - readBufferStart) + RECORD_HEADER_SIZE;
+                        position += RECORD_HEADER_SIZE + length;
+                        return new String(readBuffer.array(), offset, length, StringUtils.UTF8);
+                    }
+                }
+                if (segment == writeSegment) {
+                    // reached the end of the segment being written
+                    return null;
+                }
+                // reached the end of a complete segment, or a record which
+                // was cut off when the app was killed. Continue with the next
+                // segment.
+                segment++;
+                position = 0;
+            }
+        }
 
-                if (streamReader != null) {
-                    reader = new BufferedReader(streamReader);
-                    return true;
+        /**
+         * Checks the length read from a record header, so that a torn or
+         * corrupt header isn't used to allocate the read buffer. A record is
+         * never larger than the store, nor than what's left of its segment.
+         */
+        private boolean isValidRecordLength(int length) throws IOException {
+            if (length < 0 || length > maxStorageSize
+                    || position + RECORD_HEADER_SIZE + length > channel.size()) {
+                if (segment != writeSegment) {
+                    LOGGER.warn("Skipping the rest of records segment " + segment
+                            + " after an invalid record length");
+                }
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Makes sure the read buffer holds the given number of bytes starting
+         * at the current position.
+         *
+         * @return false if the segment has fewer bytes
+         */
+        private boolean fill(int length) throws IOException {
+            if (channelSegment != segment) {
+                tryCloseReader();
+                channel = new RandomAccessFile(segmentFile(segment), "r").getChannel();
+                channelSegment = segment;
+            }
+            if (readBufferStart >= 0 && position >= readBufferStart
+                    && position + length <= readBufferStart + readBuffer.limit()) {
+                return true;
+            }
+            if (readBuffer.capacity() < length) {
+                readBuffer = ByteBuffer.allocate(length);
+            }
+            readBuffer.clear();
+            readBufferStart = position;
+            while (readBuffer.hasRemaining()) {
+                if (channel.read(readBuffer, readBufferStart + readBuffer.position()) <= 0) {
+                    break;
                 }
             }
-            return false;
+            readBuffer.flip();
+            return readBuffer.limit() >= length;
         }
 
         private void tryCloseReader() throws IOException {
-            if (reader != null) {
-                reader.close();
-                reader = null;
+            if (channel != null) {
+                channel.close();
+                channel = null;
             }
+            channelSegment = -1;
+            readBufferStart = -1;
         }
 
         @Override
         public boolean hasNext() {
-            boolean hasNext = false;
             accessLock.lock();
             try {
                 // If there is something already buffered then there is a
                 // next
-                if (nextBuffer != null) {
-                    hasNext = true;
-                } else {
-                    if (!tryOpenReader()) {
-                        return hasNext;
-                    }
-                    // Nothing was previously buffered so try to read one
-                    // more line
-                    boolean found = false;
-                    while (!found) {
-                        try {
-                            nextBuffer = reader.readLine();
-                            found = true;
-                        } catch (final IOException e) {
-                            nextBuffer = null;
-                            found = true;
-                        }
-                    }
-                    if (nextBuffer != null) {
-                        // There was at least one more line so there is a
-                        // next
-                        hasNext = true;
-                    } else {
-                        // The next line was null so it should be the end of
-                        // the file. Try to close the reader
-                        isEndOfFile = true;
-                        tryCloseReader();
-                    }
+                if (nextBuffer == null) {
+                    nextBuffer = readRecord();
                 }
-                return hasNext;
+                return nextBuffer != null;
             } catch (final FileNotFoundException fnfe) {
                 throw new AmazonClientException("Cannot find records file", fnfe);
             } catch (final IOException ioe) {
@@ -279,33 +555,16 @@ class FileRecordStore {
 
         @Override
         public String next() {
-            String next = null;
             accessLock.lock();
             try {
-                if (nextBuffer != null) {
-                    next = nextBuffer;
-                    linesRead++;
-                    nextBuffer = null;
-                } else {
-                    if (!tryOpenReader()) {
-                        return next;
-                    }
-                    boolean found = false;
-                    while (!found) {
-                        try {
-                            next = reader.readLine();
-                            found = true;
-                        } catch (final IOException e) {
-                            next = null;
-                            found = true;
-                        }
-                    }
-                    if (next != null) {
-                        linesRead++;
-                    } else {
-                        isEndOfFile = true;
-                        tryCloseReader();
-                    }
+                String next = nextBuffer;
+                nextBuffer = null;
+                if (next == null) {
+                    next = readRecord();
+                }
+                if (next != null) {
+                    consumedSegment = segment;
+                    consumedPosition = position;
                 }
                 return next;
             } catch (final FileNotFoundException e) {
@@ -333,10 +592,42 @@ class FileRecordStore {
                     "The remove() operation is not supported for this iterator");
         }
 
+        /**
+         * @return the position after the last record returned by next().
+         */
+        RecordPosition getReadPosition() {
+            accessLock.lock();
+            try {
+                return new RecordPosition(consumedSegment, consumedPosition);
+            } finally {
+                accessLock.unlock();
+            }
+        }
+
+        /**
+         * Removes all records before the given position from the store.
+         * Unlike {@link #removeReadRecords()} the iterator keeps its
+         * position, so records read after the given position can still be
+         * removed later.
+         *
+         * @param readPosition a position returned by
+         *            {@link #getReadPosition()}
+         * @throws IOException if the records could not be removed
+         */
+        void removeRecordsBefore(RecordPosition readPosition) throws IOException {
+            accessLock.lock();
+            try {
+                FileRecordStore.this.removeRecordsBefore(readPosition.segment,
+                        readPosition.position);
+            } finally {
+                accessLock.unlock();
+            }
+        }
+
         public void removeReadRecords() throws IOException {
             accessLock.lock();
             try {
-                deleteReadRecords(linesRead);
+                FileRecordStore.this.removeRecordsBefore(consumedSegment, consumedPosition);
                 resetReader();
             } finally {
                 accessLock.unlock();
@@ -355,13 +646,37 @@ class FileRecordStore {
 
         private void resetReader() throws IOException {
             tryCloseReader();
-            linesRead = 0;
+            resetPosition();
+        }
+
+        private void resetPosition() {
+            segment = readSegment;
+            position = readPosition;
+            consumedSegment = readSegment;
+            consumedPosition = readPosition;
             nextBuffer = null;
-            isEndOfFile = false;
         }
 
         public void close() throws IOException {
-            tryCloseReader();
+            accessLock.lock();
+            try {
+                tryCloseReader();
+            } finally {
+                accessLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * A position in the store, between two records.
+     */
+    static final class RecordPosition {
+        private final long segment;
+        private final long position;
+
+        RecordPosition(long segment, long position) {
+            this.segment = segment;
+            this.position = position;
         }
     }
 }
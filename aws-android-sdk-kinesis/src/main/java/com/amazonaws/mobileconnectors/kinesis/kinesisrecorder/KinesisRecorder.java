@@ -174,10 +174,8 @@ public class KinesisRecorder extends AbstractKinesisRecorder {
     }
 
     private void checkUpgrade(final File directory) {
-        final File recordsDir = new File(directory, Constants.RECORDS_DIRECTORY);
-        final File oldRecordsFile = new File(recordsDir, Constants.RECORDS_FILE_NAME);
-        // if the records file exists, run upgrade in a background thread
-        if (oldRecordsFile.isFile()) {
+        // if the old records exist, run upgrade in a background thread
+        if (FileRecordStore.hasRecords(directory, Constants.RECORDS_FILE_NAME)) {
             new Thread(new Runnable() {
                 @Override
                 public void run() {
@@ -195,9 +193,7 @@ public class KinesisRecorder extends AbstractKinesisRecorder {
      */
     void upgrade(File directory) {
         synchronized (KinesisRecorder.this) {
-            final File recordsDir = new File(directory, Constants.RECORDS_DIRECTORY);
-            final File oldRecordsFile = new File(recordsDir, Constants.RECORDS_FILE_NAME);
-            if (!oldRecordsFile.isFile()) {
+            if (!FileRecordStore.hasRecords(directory, Constants.RECORDS_FILE_NAME)) {
                 return;
             }
 
@@ -216,11 +212,12 @@ public class KinesisRecorder extends AbstractKinesisRecorder {
                 }
             }
             try {
+                iterator.removeAllRecords();
                 iterator.close();
+                frs.close();
             } catch (final IOException e) {
                 LOGGER.debug("caught exception", e);
             }
-            oldRecordsFile.delete();
         }
     }
 
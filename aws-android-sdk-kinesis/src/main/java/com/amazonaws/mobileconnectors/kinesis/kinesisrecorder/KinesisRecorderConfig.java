@@ -24,7 +24,9 @@ import com.amazonaws.ClientConfiguration;
 public class KinesisRecorderConfig {
 
     private static final long DEFAUT_MAX_STORAGE_SIZE = 1024 * 1024 * 5L;
+    private static final int DEFAULT_MAX_IN_FLIGHT_BATCHES = 1;
     private long maxStorageSize = DEFAUT_MAX_STORAGE_SIZE;
+    private int maxInFlightBatches = DEFAULT_MAX_IN_FLIGHT_BATCHES;
     private final ClientConfiguration clientConfiguration;
     private String partitionKey;
     private DeadLetterListener mDeadLetterListener;
@@ -61,6 +63,7 @@ public class KinesisRecorderConfig {
         this.maxStorageSize = other.getMaxStorageSize();
         this.clientConfiguration = new ClientConfiguration(other.getClientConfiguration());
         this.partitionKey = other.partitionKey;
+        this.maxInFlightBatches = other.getMaxInFlightBatches();
     }
 
     /**
@@ -94,6 +97,34 @@ public class KinesisRecorderConfig {
         return this.maxStorageSize;
     }
 
+    /**
+     * Sets the maximum number of batches submitAllRecords() sends
+     * concurrently. Batches of the same stream are always sent one after
+     * another, so only batches of different streams are sent in parallel.
+     * The default is 1, which sends one batch at a time. With more than one,
+     * the batches read after a batch which failed are sent again on the next
+     * submission even if they succeeded, so records may be duplicated.
+     *
+     * @param maxInFlightBatches the maximum number of batches in flight, at
+     *            least 1.
+     * @return This class for chaining
+     */
+    public KinesisRecorderConfig withMaxInFlightBatches(int maxInFlightBatches) {
+        if (maxInFlightBatches < 1) {
+            throw new IllegalArgumentException("maxInFlightBatches must be at least 1");
+        }
+        this.maxInFlightBatches = maxInFlightBatches;
+        return this;
+    }
+
+    /**
+     * @return The maximum number of batches submitAllRecords() sends
+     *         concurrently.
+     */
+    public int getMaxInFlightBatches() {
+        return this.maxInFlightBatches;
+    }
+
     /**
      * Returns the {@link DeadLetterListener} that will respond to records being dropped.
      * @return the {@link DeadLetterListener} that will respond to records being dropped.
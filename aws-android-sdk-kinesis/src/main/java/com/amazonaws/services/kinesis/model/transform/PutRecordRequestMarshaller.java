@@ -16,8 +16,6 @@ package com.amazonaws.services.kinesis.model.transform;
 
 import static com.amazonaws.util.StringUtils.UTF8;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.OutputStreamWriter;
 import java.io.StringWriter;
 import java.io.Writer;
@@ -32,6 +30,8 @@ import com.amazonaws.http.HttpMethodName;
 import com.amazonaws.services.kinesis.model.*;
 import com.amazonaws.transform.Marshaller;
 import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.ByteArrayContentInputStream;
+import com.amazonaws.util.ByteArrayContentOutputStream;
 import com.amazonaws.util.StringUtils;
 import com.amazonaws.util.StringInputStream;
 import com.amazonaws.util.json.AwsJsonWriter;
@@ -55,7 +55,7 @@ public class PutRecordRequestMarshaller implements Marshaller<Request<PutRecordR
         request.setResourcePath("");
         
         try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ByteArrayContentOutputStream baos = new ByteArrayContentOutputStream();
             GZIPOutputStream gos = new GZIPOutputStream(baos, 8192);
             Writer writer = new OutputStreamWriter(gos, StringUtils.UTF8);
             AwsJsonWriter jsonWriter = JsonUtils.getJsonWriter(writer);
@@ -83,9 +83,9 @@ public class PutRecordRequestMarshaller implements Marshaller<Request<PutRecordR
             gos.finish();
             writer.close();
 
-            byte[] content = baos.toByteArray();
-            request.setContent(new ByteArrayInputStream(content));
-            request.addHeader("Content-Length", Integer.toString(content.length));
+            ByteArrayContentInputStream content = baos.toInputStream();
+            request.setContent(content);
+            request.addHeader("Content-Length", Integer.toString(content.getLength()));
             request.addHeader("Content-Type", "application/x-amz-json-1.1");
             request.addHeader("Content-Encoding", "gzip");
         } catch(Throwable t) {
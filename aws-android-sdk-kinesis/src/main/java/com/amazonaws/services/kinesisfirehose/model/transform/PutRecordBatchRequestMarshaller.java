@@ -16,8 +16,6 @@
 package com.amazonaws.services.kinesisfirehose.model.transform;
 
 import static com.amazonaws.util.StringUtils.UTF8;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.OutputStreamWriter;
 import java.io.StringWriter;
 import java.io.Writer;
@@ -30,6 +28,8 @@ import com.amazonaws.http.HttpMethodName;
 import com.amazonaws.services.kinesisfirehose.model.*;
 import com.amazonaws.transform.Marshaller;
 import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.ByteArrayContentInputStream;
+import com.amazonaws.util.ByteArrayContentOutputStream;
 import com.amazonaws.util.StringUtils;
 import com.amazonaws.util.StringInputStream;
 import com.amazonaws.util.json.AwsJsonWriter;
@@ -56,7 +56,7 @@ public class PutRecordBatchRequestMarshaller implements
         String uriResourcePath = "/";
         request.setResourcePath(uriResourcePath);
         try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ByteArrayContentOutputStream baos = new ByteArrayContentOutputStream();
             GZIPOutputStream gos = new GZIPOutputStream(baos, 8192);
             Writer writer = new OutputStreamWriter(gos, StringUtils.UTF8);
             AwsJsonWriter jsonWriter = JsonUtils.getJsonWriter(writer);
@@ -84,9 +84,9 @@ public class PutRecordBatchRequestMarshaller implements
             gos.finish();
             writer.close();
 
-            byte[] content = baos.toByteArray();
-            request.setContent(new ByteArrayInputStream(content));
-            request.addHeader("Content-Length", Integer.toString(content.length));
+            ByteArrayContentInputStream content = baos.toInputStream();
+            request.setContent(content);
+            request.addHeader("Content-Length", Integer.toString(content.getLength()));
             request.addHeader("Content-Encoding", "gzip");
         } catch (Throwable t) {
             throw new AmazonClientException(
@@ -317,6 +317,45 @@ public class AbstractKinesisRecorderTest {
         assertTrue("records not removed", recorder.getDiskBytesUsed() > 0);
     }
 
+    @Test
+    public void testSubmitAllRecordsConcurrentlyAcrossStreams() {
+        String anotherStream = "another_stream";
+        for (int i = 0; i < 5; i++) {
+            recorder.saveRecord(randomBytes(1024), STREAM_NAME);
+            recorder.saveRecord(randomBytes(1024), anotherStream);
+        }
+        recorder.getKinesisRecorderConfig().withMaxInFlightBatches(2);
+        Mockito.when(sender.sendBatch(Mockito.anyString(), Mockito.anyListOf(byte[].class)))
+                .thenReturn(new ArrayList<byte[]>());
+        recorder.submitAllRecords();
+        Mockito.verify(sender, Mockito.times(10))
+                .sendBatch(Mockito.anyString(), Mockito.anyListOf(byte[].class));
+        assertEquals("no records after submitAllRecords", 0, recorder.getDiskBytesUsed());
+    }
+
+    @Test
+    public void testSubmitAllRecordsKeepsRecordsAfterFailedBatch() {
+        String anotherStream = "another_stream";
+        recorder.saveRecord(randomBytes(1024), STREAM_NAME);
+        recorder.saveRecord(randomBytes(1024), anotherStream);
+        long size = recorder.getDiskBytesUsed();
+        recorder.getKinesisRecorderConfig().withMaxInFlightBatches(2);
+        AmazonServiceException ase = new AmazonServiceException("some failures");
+        Mockito.when(sender.sendBatch(Mockito.eq(STREAM_NAME), Mockito.anyListOf(byte[].class)))
+                .thenThrow(ase);
+        Mockito.when(sender.sendBatch(Mockito.eq(anotherStream), Mockito.anyListOf(byte[].class)))
+                .thenReturn(new ArrayList<byte[]>());
+        Mockito.when(sender.isRecoverable(ase)).thenReturn(true);
+        try {
+            recorder.submitAllRecords();
+            fail("Should throw exception");
+        } catch (AmazonClientException ace) {
+            assertSame("same exception", ase, ace);
+        }
+        // the records after the failed batch are only removed with it
+        assertEquals("no records removed", size, recorder.getDiskBytesUsed());
+    }
+
     private byte[] randomBytes(int length) {
         byte[] data = new byte[length];
         new Random().nextBytes(data);
@@ -29,11 +29,12 @@ import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 
-import java.io.BufferedReader;
+import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.Collections;
@@ -71,7 +72,6 @@ public class FileRecordStoreTest {
     @Test
     public void testFileRecordStore_putIterateAndRemove() throws IOException {
 
-        FileManager fileManager = new FileManager(TEST_DIRECTORY);
         FileRecordStore recordStore = new FileRecordStore(TEST_DIRECTORY,
                 RECORDER_FILE_NAME, MAX_STORAGE_SIZE);
 
@@ -98,7 +98,7 @@ public class FileRecordStoreTest {
             // If we read 5 events remove the 5 last read events
             if (counter % 5 == 0) {
                 iter.removeReadRecords();
-                assertSame(getNumberOfLinesInFile(fileManager), (10 - counter));
+                assertSame(getNumberOfRecords(recordStore), (10 - counter));
             }
         }
 
@@ -121,7 +121,8 @@ public class FileRecordStoreTest {
             assertSame(Integer.valueOf(nextRecord), counter);
         }
         iter.removeReadRecords();
-        assertSame(getNumberOfLinesInFile(fileManager), 0);
+        assertSame(getNumberOfRecords(recordStore), 0);
+        assertEquals(0, recordStore.getFileSize());
 
         // Try getting a new iterator while the store is empty and verify
         // that hasNext is false
@@ -185,23 +186,17 @@ public class FileRecordStoreTest {
 
     @Test
     public void testWhenWritingExceedsMaxStorageSize_noMoreRecordsWritten() throws IOException {
-        File recordsDirectory = null;
-        File recordsFile = null;
-
-        FileManager fileManager = new FileManager(TEST_DIRECTORY);
+        // each record takes a 4 bytes length prefix plus 9 bytes of data
         FileRecordStore recordStore = new FileRecordStore(TEST_DIRECTORY,
-                RECORDER_FILE_NAME, 100L);
-
-        recordsDirectory = fileManager.getDirectory(Constants.RECORDS_DIRECTORY);
-        recordsFile = new File(recordsDirectory, Constants.RECORDS_FILE_NAME);
+                RECORDER_FILE_NAME, 130L);
 
         for (int i = 0; i < 10; i++) {
-            recordStore.put("ten bytes");
+            assertTrue(recordStore.put("ten bytes"));
         }
-        assertSame(recordsFile.length(), 100L);
+        assertEquals(130L, recordStore.getFileSize());
 
-        recordStore.put("0123456789");
-        assertSame(recordsFile.length(), 100L);
+        assertFalse(recordStore.put("0123456789"));
+        assertEquals(130L, recordStore.getFileSize());
 
     }
 
@@ -210,15 +205,9 @@ public class FileRecordStoreTest {
     @Test
     public void testWhenWritingTooManyConcurrentRecords() throws
             InterruptedException, IOException {
-        File recordsDirectory = null;
-        File recordsFile = null;
-        FileManager fileManager = new FileManager(TEST_DIRECTORY);
         final FileRecordStore recordStore = new FileRecordStore(TEST_DIRECTORY,
                 RECORDER_FILE_NAME, MAX_STORAGE_SIZE);
 
-        recordsDirectory = fileManager.getDirectory(Constants.RECORDS_DIRECTORY);
-        recordsFile = new File(recordsDirectory, Constants.RECORDS_FILE_NAME);
-
         SecureRandom random = new SecureRandom();
 
         // first fill the disk
@@ -233,8 +222,8 @@ public class FileRecordStoreTest {
             recordStore.put(recordStr);
         }
 
-        long initialSize = recordsFile.length();
-        assertTrue(recordsFile.length() <= MAX_STORAGE_SIZE);
+        long initialSize = recordStore.getFileSize();
+        assertTrue(recordStore.getFileSize() <= MAX_STORAGE_SIZE);
 
         final CountDownLatch latch = new CountDownLatch(1);
         ExecutorService threadPool = Executors.newFixedThreadPool(1);
@@ -263,17 +252,17 @@ public class FileRecordStoreTest {
 
         for (int i = 0; i < 10000; i++) {
             recordStore.put(recordStr);
-            assertTrue(recordsFile.length() <= initialSize);
+            assertTrue(recordStore.getFileSize() <= initialSize);
             recordStore.put(recordStr);
-            assertTrue(recordsFile.length() <= initialSize);
+            assertTrue(recordStore.getFileSize() <= initialSize);
             recordStore.put(recordStr);
-            assertTrue(recordsFile.length() <= initialSize);
+            assertTrue(recordStore.getFileSize() <= initialSize);
             Thread.sleep(1);
         }
 
         latch.await();
-        assertEquals(recordsFile.length(), initialSize);
-        assertTrue(recordsFile.length() < MAX_STORAGE_SIZE);
+        assertEquals(recordStore.getFileSize(), initialSize);
+        assertTrue(recordStore.getFileSize() < MAX_STORAGE_SIZE);
 
     }
 
@@ -324,28 +313,190 @@ public class FileRecordStoreTest {
         }
     }
 
-    private int getNumberOfLinesInFile(final FileManager fileManager) throws NumberFormatException,
-            IOException {
-        BufferedReader reader = getRecordsFileReader(fileManager);
+    @Test
+    public void testReadOffsetIsPersisted() throws IOException {
+        FileRecordStore recordStore = new FileRecordStore(TEST_DIRECTORY,
+                RECORDER_FILE_NAME, MAX_STORAGE_SIZE);
+        for (int i = 1; i <= 10; i++) {
+            recordStore.put(String.valueOf(i));
+        }
+
+        RecordIterator iter = recordStore.iterator();
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(String.valueOf(i), iter.next());
+        }
+        iter.removeReadRecords();
+        iter.close();
+        recordStore.close();
+
+        // a new store continues after the removed records
+        recordStore = new FileRecordStore(TEST_DIRECTORY, RECORDER_FILE_NAME, MAX_STORAGE_SIZE);
+        iter = recordStore.iterator();
+        assertEquals("5", iter.peek());
+        assertSame(getNumberOfRecords(recordStore), 6);
+        recordStore.put("11");
+        assertSame(getNumberOfRecords(recordStore), 7);
+        iter.close();
+    }
+
+    @Test
+    public void testReadSegmentsAreDeleted() throws IOException {
+        // a new segment is started every two records
+        FileRecordStore recordStore = new FileRecordStore(TEST_DIRECTORY,
+                RECORDER_FILE_NAME, MAX_STORAGE_SIZE, 20);
+        for (int i = 0; i < 10; i++) {
+            recordStore.put("record" + i);
+        }
+        File segmentsDirectory = new File(new File(TEST_DIRECTORY, Constants.RECORDS_DIRECTORY),
+                RECORDER_FILE_NAME + ".segments");
+        assertEquals(5, countSegments(segmentsDirectory));
+
+        RecordIterator iter = recordStore.iterator();
+        for (int i = 0; i < 5; i++) {
+            assertEquals("record" + i, iter.next());
+        }
+        iter.removeReadRecords();
+        // the segment holding record4 and record5 is kept
+        assertEquals(3, countSegments(segmentsDirectory));
+        assertEquals("record5", iter.next());
+
+        while (iter.next() != null) {
+            continue;
+        }
+        iter.removeReadRecords();
+        assertEquals(0, countSegments(segmentsDirectory));
+        assertEquals(0, recordStore.getFileSize());
+        assertFalse(FileRecordStore.hasRecords(TEST_DIRECTORY, RECORDER_FILE_NAME));
+    }
+
+    @Test
+    public void testLegacyRecordsFileIsMigrated() throws IOException {
+        FileManager fileManager = new FileManager(TEST_DIRECTORY);
+        File recordsDirectory = fileManager.createDirectory(Constants.RECORDS_DIRECTORY);
+        File legacyFile = new File(recordsDirectory, RECORDER_FILE_NAME);
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(
+                fileManager.newOutputStream(legacyFile, false), StringUtils.UTF8));
+        for (int i = 1; i <= 3; i++) {
+            writer.println(i);
+        }
+        writer.close();
+        assertTrue(FileRecordStore.hasRecords(TEST_DIRECTORY, RECORDER_FILE_NAME));
+
+        FileRecordStore recordStore = new FileRecordStore(TEST_DIRECTORY,
+                RECORDER_FILE_NAME, MAX_STORAGE_SIZE);
+        assertFalse(legacyFile.exists());
+
+        RecordIterator iter = recordStore.iterator();
+        for (int i = 1; i <= 3; i++) {
+            assertEquals(String.valueOf(i), iter.next());
+        }
+        assertFalse(iter.hasNext());
+        iter.close();
+    }
+
+    @Test
+    public void testCorruptRecordLength_restOfSegmentIsSkipped() throws IOException {
+        FileRecordStore recordStore = new FileRecordStore(TEST_DIRECTORY,
+                RECORDER_FILE_NAME, MAX_STORAGE_SIZE);
+        recordStore.put("1");
+        recordStore.put("2");
+        recordStore.close();
+
+        // a torn header claiming a huge record
+        File segmentsDirectory = getMigrationFile().getParentFile();
+        File segment = segmentsDirectory.listFiles()[0];
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(segment, true));
+        out.writeInt(Integer.MAX_VALUE - 16);
+        out.write(new byte[] { 1, 2, 3 });
+        out.close();
+
+        recordStore = new FileRecordStore(TEST_DIRECTORY, RECORDER_FILE_NAME, MAX_STORAGE_SIZE);
+        recordStore.put("3");
+        assertRecords(recordStore, 3);
+    }
+
+    @Test
+    public void testMigrationInterruptedBeforeRecordsFileIsDeleted_isStartedOver()
+            throws IOException {
+        File legacyFile = writeLegacyRecordsFile(3);
+        // part of the records were written by the interrupted migration
+        writeMigrationFile(2);
+
+        FileRecordStore recordStore = new FileRecordStore(TEST_DIRECTORY,
+                RECORDER_FILE_NAME, MAX_STORAGE_SIZE);
+        assertFalse(legacyFile.exists());
+        assertFalse(getMigrationFile().exists());
+        assertRecords(recordStore, 3);
+    }
+
+    @Test
+    public void testMigrationInterruptedAfterRecordsFileIsDeleted_isCompleted()
+            throws IOException {
+        writeMigrationFile(3);
+        assertTrue(FileRecordStore.hasRecords(TEST_DIRECTORY, RECORDER_FILE_NAME));
+
+        FileRecordStore recordStore = new FileRecordStore(TEST_DIRECTORY,
+                RECORDER_FILE_NAME, MAX_STORAGE_SIZE);
+        assertFalse(getMigrationFile().exists());
+        assertRecords(recordStore, 3);
+    }
+
+    private File writeLegacyRecordsFile(int count) throws IOException {
+        FileManager fileManager = new FileManager(TEST_DIRECTORY);
+        File recordsDirectory = fileManager.createDirectory(Constants.RECORDS_DIRECTORY);
+        File legacyFile = new File(recordsDirectory, RECORDER_FILE_NAME);
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(
+                fileManager.newOutputStream(legacyFile, false), StringUtils.UTF8));
+        for (int i = 1; i <= count; i++) {
+            writer.println(i);
+        }
+        writer.close();
+        return legacyFile;
+    }
+
+    private File getMigrationFile() {
+        return new File(new File(new File(TEST_DIRECTORY, Constants.RECORDS_DIRECTORY),
+                RECORDER_FILE_NAME + ".segments"), "legacy.migrating");
+    }
+
+    private void writeMigrationFile(int count) throws IOException {
+        File migrationFile = getMigrationFile();
+        migrationFile.getParentFile().mkdirs();
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(migrationFile));
+        for (int i = 1; i <= count; i++) {
+            byte[] bytes = String.valueOf(i).getBytes(StringUtils.UTF8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        out.close();
+    }
+
+    private void assertRecords(final FileRecordStore recordStore, int count) throws IOException {
+        RecordIterator iter = recordStore.iterator();
+        for (int i = 1; i <= count; i++) {
+            assertEquals(String.valueOf(i), iter.next());
+        }
+        assertFalse(iter.hasNext());
+        iter.close();
+    }
+
+    private int getNumberOfRecords(final FileRecordStore recordStore) throws IOException {
+        RecordIterator iter = recordStore.iterator();
         int counter = 0;
-        while (reader.readLine() != null) {
+        while (iter.next() != null) {
             counter++;
         }
+        iter.close();
         return counter;
     }
 
-    private BufferedReader getRecordsFileReader(final FileManager fileManager) {
-        InputStreamReader streamReader = null;
-        try {
-            streamReader = new InputStreamReader(
-                    fileManager.newInputStream(Constants.RECORDS_DIRECTORY + File.separator
-                            + Constants.RECORDS_FILE_NAME), StringUtils.UTF8);
-        } catch (FileNotFoundException e) {
-        }
-
-        if (streamReader != null) {
-            return new BufferedReader(streamReader);
+    private int countSegments(final File segmentsDirectory) {
+        int counter = 0;
+        for (File file : segmentsDirectory.listFiles()) {
+            if (file.getName().endsWith(".seg")) {
+                counter++;
+            }
         }
-        return null;
+        return counter;
     }
 }
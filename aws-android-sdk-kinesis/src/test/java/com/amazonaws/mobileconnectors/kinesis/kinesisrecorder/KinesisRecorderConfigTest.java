@@ -52,17 +52,20 @@ public class KinesisRecorderConfigTest {
                 cConfig.getMaxErrorRetry());
         assertEquals(kConfig.getClientConfiguration().getSocketTimeout(),
                 cConfig.getSocketTimeout());
+        assertEquals(1, kConfig.getMaxInFlightBatches());
     }
 
     @Test
     public void copyConstructor() {
         KinesisRecorderConfig kConfig = new KinesisRecorderConfig();
         kConfig.withMaxStorageSize(5);
+        kConfig.withMaxInFlightBatches(2);
 
         KinesisRecorderConfig copiedConfig = new KinesisRecorderConfig(kConfig);
 
         assertEquals(kConfig.getMaxStorageSize(),
                 copiedConfig.getMaxStorageSize());
+        assertEquals(2, copiedConfig.getMaxInFlightBatches());
 
     }
 
@@ -72,6 +75,13 @@ public class KinesisRecorderConfigTest {
         KinesisRecorderConfig kConfig = new KinesisRecorderConfig();
         kConfig.withMaxStorageSize(100);
         assertEquals(kConfig.getMaxStorageSize(), 100);
+        kConfig.withMaxInFlightBatches(8);
+        assertEquals(kConfig.getMaxInFlightBatches(), 8);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxInFlightBatches() {
+        new KinesisRecorderConfig().withMaxInFlightBatches(0);
     }
 
 }
@@ -77,16 +77,14 @@ public final class KinesisVideoAndroidServiceClient implements KinesisVideoServi
     private final Log log;
     private KinesisVideoClientConfiguration configuration;
 
-    private static AWSKinesisVideoClient createAwsKinesisVideoClient(final KinesisVideoCredentialsProvider credentialsProvider,
-            final Region region,
-            final String endpoint,
-            final int timeoutInMillis)
-            throws KinesisVideoException
-    {
-
-        final AWSCredentials credentials = createAwsCredentials(credentialsProvider);
-        return createAwsKinesisVideoClient(credentials, region, endpoint, timeoutInMillis);
-    }
+    /*
+     * The service client of the last call, reused by later calls with the same
+     * credentials provider and timeout rather than constructing a client for
+     * every call. Guarded by this.
+     */
+    private AWSKinesisVideoClient cachedServiceClient;
+    private KinesisVideoCredentialsProvider cachedCredentialsProvider;
+    private long cachedTimeoutInMillis;
 
     private static AWSKinesisVideoClient createAwsKinesisVideoClient(final AWSCredentialsProvider awsCredentialsProvider,
             final Region region,
@@ -109,6 +107,13 @@ public final class KinesisVideoAndroidServiceClient implements KinesisVideoServi
         final ClientConfiguration clientConfiguration = createClientConfiguration(timeoutInMillis);
         final AWSKinesisVideoClient awsKinesisVideoClient = new AWSKinesisVideoClient(credentials, clientConfiguration);
 
+        return configureAwsKinesisVideoClient(awsKinesisVideoClient, region, endpoint);
+    }
+
+    private static AWSKinesisVideoClient configureAwsKinesisVideoClient(final AWSKinesisVideoClient awsKinesisVideoClient,
+            final Region region,
+            final String endpoint)
+    {
         awsKinesisVideoClient.setRegion(region);
         awsKinesisVideoClient.setSignerRegionOverride(region.getName());
         awsKinesisVideoClient.setServiceNameIntern("kinesisvideo");
@@ -117,6 +122,30 @@ public final class KinesisVideoAndroidServiceClient implements KinesisVideoServi
         return awsKinesisVideoClient;
     }
 
+    /**
+     * Adapts a credentials provider so that a service client built once gets
+     * the current credentials for each request.
+     */
+    private static AWSCredentialsProvider createAwsCredentialsProvider(
+            final @NonNull KinesisVideoCredentialsProvider credentialsProvider)
+    {
+        Preconditions.checkNotNull(credentialsProvider);
+        return new AWSCredentialsProvider() {
+            @Override
+            public AWSCredentials getCredentials() {
+                try {
+                    return createAwsCredentials(credentialsProvider);
+                } catch (final KinesisVideoException e) {
+                    throw new AmazonClientException(e.getMessage(), e);
+                }
+            }
+
+            @Override
+            public void refresh() {
+            }
+        };
+    }
+
     private static AWSCredentials createAwsCredentials(final @NonNull KinesisVideoCredentialsProvider credentialsProvider)
             throws KinesisVideoException
     {
@@ -169,7 +198,32 @@ public final class KinesisVideoAndroidServiceClient implements KinesisVideoServi
     @Override
     public void initialize(@NonNull KinesisVideoClientConfiguration kinesisVideoClientConfiguration) throws KinesisVideoException {
         // We already got the configuration
-        this.configuration = Preconditions.checkNotNull(kinesisVideoClientConfiguration);
+        synchronized (this) {
+            this.configuration = Preconditions.checkNotNull(kinesisVideoClientConfiguration);
+            cachedServiceClient = null;
+        }
+    }
+
+    /**
+     * Returns the service client for a call, which is only constructed when
+     * the credentials provider or the timeout differ from the previous call.
+     */
+    private synchronized AWSKinesisVideoClient getServiceClient(
+            final KinesisVideoCredentialsProvider credentialsProvider,
+            final long timeoutInMillis)
+    {
+        if (cachedServiceClient == null
+                || cachedCredentialsProvider != credentialsProvider
+                || cachedTimeoutInMillis != timeoutInMillis) {
+            final ClientConfiguration clientConfiguration = createClientConfiguration((int) timeoutInMillis);
+            cachedServiceClient = configureAwsKinesisVideoClient(
+                    new AWSKinesisVideoClient(createAwsCredentialsProvider(credentialsProvider), clientConfiguration),
+                    Region.getRegion(Regions.fromName(configuration.getRegion())),
+                    configuration.getEndpoint());
+            cachedCredentialsProvider = credentialsProvider;
+            cachedTimeoutInMillis = timeoutInMillis;
+        }
+        return cachedServiceClient;
     }
 
     @Override
@@ -182,10 +236,7 @@ public final class KinesisVideoAndroidServiceClient implements KinesisVideoServi
             @Nullable final KinesisVideoCredentialsProvider credentialsProvider)
             throws KinesisVideoException
     {
-        final AWSKinesisVideoClient serviceClient = createAwsKinesisVideoClient(credentialsProvider,
-                Region.getRegion(Regions.fromName(configuration.getRegion())),
-                configuration.getEndpoint(),
-                (int) timeoutInMillis);
+        final AWSKinesisVideoClient serviceClient = getServiceClient(credentialsProvider, timeoutInMillis);
 
         final CreateStreamRequest createStreamRequest = new CreateStreamRequest()
                 .withStreamName(streamName)
@@ -217,10 +268,7 @@ public final class KinesisVideoAndroidServiceClient implements KinesisVideoServi
             long timeoutInMillis,
             @Nullable final KinesisVideoCredentialsProvider credentialsProvider) throws KinesisVideoException
     {
-        final AWSKinesisVideoClient serviceClient = createAwsKinesisVideoClient(credentialsProvider,
-                Region.getRegion(Regions.fromName(configuration.getRegion())),
-                configuration.getEndpoint(),
-                (int) timeoutInMillis);
+        final AWSKinesisVideoClient serviceClient = getServiceClient(credentialsProvider, timeoutInMillis);
 
         final DescribeStreamRequest describeStreamRequest = new DescribeStreamRequest()
                 .withStreamName(streamName);
@@ -251,10 +299,7 @@ public final class KinesisVideoAndroidServiceClient implements KinesisVideoServi
             long timeoutInMillis,
             @Nullable final KinesisVideoCredentialsProvider credentialsProvider) throws KinesisVideoException
     {
-        final AWSKinesisVideoClient serviceClient = createAwsKinesisVideoClient(credentialsProvider,
-                Region.getRegion(Regions.fromName(configuration.getRegion())),
-                configuration.getEndpoint(),
-                (int) timeoutInMillis);
+        final AWSKinesisVideoClient serviceClient = getServiceClient(credentialsProvider, timeoutInMillis);
         
         final StreamDescription streamDescription = describeStream(streamName, timeoutInMillis, credentialsProvider);
 
@@ -281,10 +326,7 @@ public final class KinesisVideoAndroidServiceClient implements KinesisVideoServi
             long timeoutInMillis,
             @Nullable final KinesisVideoCredentialsProvider credentialsProvider) throws KinesisVideoException
     {
-        final AWSKinesisVideoClient serviceClient = createAwsKinesisVideoClient(credentialsProvider,
-                Region.getRegion(Regions.fromName(configuration.getRegion())),
-                configuration.getEndpoint(),
-                (int) timeoutInMillis);
+        final AWSKinesisVideoClient serviceClient = getServiceClient(credentialsProvider, timeoutInMillis);
 
         final TagStreamRequest tagStreamRequest = new TagStreamRequest()
                 .withStreamARN(streamArn)
@@ -309,10 +351,7 @@ public final class KinesisVideoAndroidServiceClient implements KinesisVideoServi
             long timeoutInMillis,
             @Nullable final KinesisVideoCredentialsProvider credentialsProvider) throws KinesisVideoException
     {
-        final AWSKinesisVideoClient serviceClient = createAwsKinesisVideoClient(credentialsProvider,
-                Region.getRegion(Regions.fromName(configuration.getRegion())),
-                configuration.getEndpoint(),
-                (int) timeoutInMillis);
+        final AWSKinesisVideoClient serviceClient = getServiceClient(credentialsProvider, timeoutInMillis);
 
         final GetDataEndpointRequest getDataEndpointRequest = new GetDataEndpointRequest()
                 .withStreamName(streamName)
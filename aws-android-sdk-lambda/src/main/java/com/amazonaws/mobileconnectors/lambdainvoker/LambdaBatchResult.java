@@ -0,0 +1,100 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.lambdainvoker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The results of a batch of invocations made with
+ * {@link LambdaInvokerFactory#invokeAll}, in the order of their arguments.
+ */
+public class LambdaBatchResult {
+
+    // -------------------------------------------------------------
+    // Variables - Private
+    // -------------------------------------------------------------
+    private final Object[] results;
+    private final Exception[] failures;
+
+    // -------------------------------------------------------------
+    // Constructors
+    // -------------------------------------------------------------
+    LambdaBatchResult(int count) {
+        results = new Object[count];
+        failures = new Exception[count];
+    }
+
+    void setResult(int index, Object result) {
+        results[index] = result;
+    }
+
+    void setFailure(int index, Exception failure) {
+        failures[index] = failure;
+    }
+
+    // -------------------------------------------------------------
+    // Methods - Getter
+    // -------------------------------------------------------------
+
+    /**
+     * @return the number of invocations
+     */
+    public int getInvocationCount() {
+        return results.length;
+    }
+
+    /**
+     * @return true if every invocation succeeded
+     */
+    public boolean isAllSuccessful() {
+        return getFailedIndexes().isEmpty();
+    }
+
+    /**
+     * @return the indexes of the invocations which failed
+     */
+    public List<Integer> getFailedIndexes() {
+        final List<Integer> failed = new ArrayList<Integer>();
+        for (int i = 0; i < failures.length; i++) {
+            if (failures[i] != null) {
+                failed.add(i);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Gets the result of an invocation, which is null for a function invoked
+     * asynchronously.
+     *
+     * @param index index of the invocation
+     * @return the deserialized result, or null if none or if it failed
+     */
+    public Object getResult(int index) {
+        return results[index];
+    }
+
+    /**
+     * Gets why an invocation failed, e.g. a {@link LambdaFunctionException}.
+     *
+     * @param index index of the invocation
+     * @return the exception, or null if it succeeded
+     */
+    public Exception getFailure(int index) {
+        return failures[index];
+    }
+}
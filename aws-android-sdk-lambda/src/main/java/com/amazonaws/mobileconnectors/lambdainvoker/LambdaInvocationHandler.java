@@ -18,6 +18,15 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.net.HttpURLConnection;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Invocation handler for Lambda.
@@ -32,6 +41,9 @@ class LambdaInvocationHandler implements InvocationHandler {
     private final AWSLambda lambda;
     private final LambdaDataBinder binder;
     private final ClientContext clientContext;
+    // what is known of a method before it's invoked, computed on first use
+    private final Map<Method, FunctionDescriptor> descriptors =
+            new ConcurrentHashMap<Method, FunctionDescriptor>();
 
     // -------------------------------------------------------------
     // Constructors
@@ -65,11 +77,87 @@ class LambdaInvocationHandler implements InvocationHandler {
         return processInvokeResult(method, invokeResult);
     }
 
+    // -------------------------------------------------------------
+    // Methods - Package
+    // -------------------------------------------------------------
+    /**
+     * Invokes the given method once for each of the given arguments, a few at
+     * a time. The method must be invoked asynchronously, i.e. with the 'Event'
+     * invocation type and no log.
+     *
+     * @param method method annotated with {@link LambdaFunction}
+     * @param args an argument of the method for each invocation
+     * @param maxConcurrency max number of invocations at the same time
+     * @return a future of the results of all invocations
+     */
+    Future<LambdaBatchResult> invokeAll(final Method method, List<?> args, int maxConcurrency) {
+        final FunctionDescriptor descriptor = getDescriptor(method);
+        validateInterfaceMethod(method, new Object[method.getParameterTypes().length]);
+        if (!InvocationType.Event.toString().equals(descriptor.invocationType)) {
+            throw new UnsupportedOperationException("Only Event invocations can be batched, "
+                    + method.getName() + " is invoked with " + descriptor.invocationType);
+        }
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+
+        final int count = args.size();
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(maxConcurrency, count)));
+        try {
+            final List<Future<Object>> futures = new ArrayList<Future<Object>>(count);
+            for (final Object arg : args) {
+                futures.add(executor.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        final InvokeResult invokeResult = lambda.invoke(
+                                buildInvokeRequest(method, arg));
+                        return processInvokeResult(method, invokeResult);
+                    }
+                }));
+            }
+            // queued after all the invocations, so it doesn't hold a thread
+            // they need
+            return executor.submit(new Callable<LambdaBatchResult>() {
+                @Override
+                public LambdaBatchResult call() throws InterruptedException {
+                    final LambdaBatchResult result = new LambdaBatchResult(count);
+                    for (int i = 0; i < count; i++) {
+                        try {
+                            result.setResult(i, futures.get(i).get());
+                        } catch (final ExecutionException e) {
+                            final Throwable cause = e.getCause();
+                            result.setFailure(i, cause instanceof Exception
+                                    ? (Exception) cause
+                                    : e);
+                        }
+                    }
+                    return result;
+                }
+            });
+        } finally {
+            // lets the queued tasks finish, then releases the threads
+            executor.shutdown();
+        }
+    }
+
     // -------------------------------------------------------------
     // Methods - Private
     // -------------------------------------------------------------
+    /**
+     * Gets the descriptor of the given method, which is computed on first use.
+     */
+    FunctionDescriptor getDescriptor(Method method) {
+        FunctionDescriptor descriptor = descriptors.get(method);
+        if (descriptor == null) {
+            descriptor = new FunctionDescriptor(method);
+            descriptors.put(method, descriptor);
+        }
+        return descriptor;
+    }
+
     void validateInterfaceMethod(Method method, Object[] args) {
-        if (method.getAnnotation(LambdaFunction.class) == null) {
+        if (getDescriptor(method).lambdaFunction == null) {
             throw new UnsupportedOperationException("No LambdaFunction annotation for method "
                     + method.getName());
         }
@@ -81,28 +169,13 @@ class LambdaInvocationHandler implements InvocationHandler {
     }
 
     InvokeRequest buildInvokeRequest(Method method, Object object) throws IOException {
-        final LambdaFunction lambdaFunction = method.getAnnotation(LambdaFunction.class);
+        final FunctionDescriptor descriptor = getDescriptor(method);
 
         final InvokeRequest invokeRequest = new InvokeRequest();
-
-        if (lambdaFunction.functionName().isEmpty()) {
-            invokeRequest.setFunctionName(method.getName());
-        } else {
-            invokeRequest.setFunctionName(lambdaFunction.functionName());
-        }
-
-        invokeRequest.setLogType(lambdaFunction.logType());
-
-        // If the log type is other than 'None', force to be RequestResponse.
-        if (!LogType.None.toString().equals(lambdaFunction.logType())) {
-            invokeRequest.setInvocationType(InvocationType.RequestResponse);
-        } else {
-            invokeRequest.setInvocationType(lambdaFunction.invocationType());
-        }
-
-        if (!lambdaFunction.qualifier().isEmpty()) {
-            invokeRequest.setQualifier(lambdaFunction.qualifier());
-        }
+        invokeRequest.setFunctionName(descriptor.functionName);
+        invokeRequest.setLogType(descriptor.logType);
+        invokeRequest.setInvocationType(descriptor.invocationType);
+        invokeRequest.setQualifier(descriptor.qualifier);
 
         // set base64 encoded client context string
         if (clientContext != null) {
@@ -116,23 +189,77 @@ class LambdaInvocationHandler implements InvocationHandler {
 
     Object processInvokeResult(Method method, InvokeResult invokeResult)
             throws IOException {
-        if (invokeResult.getLogResult() != null) {
+        if (invokeResult.getLogResult() != null && LOGGER.isDebugEnabled()) {
             LOGGER.debug(method.getName() + " log: "
                     + new String(Base64.decode(invokeResult.getLogResult()), StringUtils.UTF8));
         }
 
+        final ByteBuffer payload = invokeResult.getPayload();
         if (invokeResult.getFunctionError() != null) {
             throw new LambdaFunctionException(invokeResult.getFunctionError(),
-                    new String(invokeResult.getPayload().array(), StringUtils.UTF8));
+                    toString(payload));
         }
 
         // deserialize payload
+        final Class<?> returnType = getDescriptor(method).returnType;
         if (invokeResult.getStatusCode() == HttpURLConnection.HTTP_NO_CONTENT
-                || void.class.equals(method.getReturnType())) {
+                || void.class.equals(returnType)) {
             return null;
         }
 
-        return binder.deserialize(invokeResult.getPayload().array(),
-                method.getReturnType());
+        if (binder instanceof LambdaStreamingDataBinder) {
+            return ((LambdaStreamingDataBinder) binder).deserialize(payload, returnType);
+        }
+        return binder.deserialize(payload.array(), returnType);
+    }
+
+    private static String toString(ByteBuffer payload) {
+        if (payload == null) {
+            return null;
+        }
+        if (payload.hasArray()) {
+            return new String(payload.array(), payload.arrayOffset() + payload.position(),
+                    payload.remaining(), StringUtils.UTF8);
+        }
+        final byte[] bytes = new byte[payload.remaining()];
+        payload.duplicate().get(bytes);
+        return new String(bytes, StringUtils.UTF8);
+    }
+
+    /**
+     * What is known of a method before it's invoked: its annotation, and the
+     * invocation settings it implies.
+     */
+    static final class FunctionDescriptor {
+        // null if the method isn't annotated
+        final LambdaFunction lambdaFunction;
+        final String functionName;
+        final String invocationType;
+        final String logType;
+        // null if none
+        final String qualifier;
+        final Class<?> returnType;
+
+        FunctionDescriptor(Method method) {
+            lambdaFunction = method.getAnnotation(LambdaFunction.class);
+            returnType = method.getReturnType();
+            if (lambdaFunction == null) {
+                functionName = null;
+                invocationType = null;
+                logType = null;
+                qualifier = null;
+                return;
+            }
+
+            functionName = lambdaFunction.functionName().isEmpty()
+                    ? method.getName()
+                    : lambdaFunction.functionName();
+            logType = lambdaFunction.logType();
+            // If the log type is other than 'None', force to be RequestResponse.
+            invocationType = LogType.None.toString().equals(logType)
+                    ? lambdaFunction.invocationType()
+                    : InvocationType.RequestResponse.toString();
+            qualifier = lambdaFunction.qualifier().isEmpty() ? null : lambdaFunction.qualifier();
+        }
     }
 }
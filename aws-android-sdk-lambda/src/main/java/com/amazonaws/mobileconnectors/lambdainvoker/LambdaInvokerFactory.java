@@ -28,7 +28,11 @@ import com.amazonaws.services.lambda.AWSLambdaClient;
 
 import org.json.JSONObject;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.Future;
 
 /**
  * A factory class that creates a dynamic proxy object backed by Lambda service.
@@ -42,6 +46,12 @@ public class LambdaInvokerFactory {
 
     private final AWSLambda lambda;
     private final ClientContext clientContext;
+
+    /**
+     * Default max number of invocations at the same time in
+     * {@link #invokeAll(Object, Method, List)}.
+     */
+    private static final int DEFAULT_MAX_CONCURRENCY = 4;
     
     /**
      * Builder class for LambdaInvokerFactory
@@ -333,6 +343,51 @@ public class LambdaInvokerFactory {
         return interfaceClass.cast(proxy);
     }
 
+    /**
+     * Invokes a Lambda function of a proxy object once for each of the given
+     * arguments, in the background, with at most
+     * 4 invocations at the same time.
+     *
+     * @param invoker a proxy object built by a LambdaInvokerFactory
+     * @param method the method of the proxied interface to invoke
+     * @param arguments the argument of each invocation
+     * @return a future of the results of all invocations
+     * @see #invokeAll(Object, Method, List, int)
+     */
+    public Future<LambdaBatchResult> invokeAll(Object invoker, Method method, List<?> arguments) {
+        return invokeAll(invoker, method, arguments, DEFAULT_MAX_CONCURRENCY);
+    }
+
+    /**
+     * Invokes a Lambda function of a proxy object once for each of the given
+     * arguments, in the background, e.g. to send many events at once. Only
+     * functions invoked asynchronously can be batched, i.e. annotated with
+     * the 'Event' invocation type and no log. One invocation failing doesn't
+     * stop the others; the failure is reported in the
+     * {@link LambdaBatchResult}.
+     *
+     * <pre>
+     * Method logEvent = MyInterface.class.getMethod(&quot;logEvent&quot;, LogEvent.class);
+     * LambdaBatchResult result = factory.invokeAll(myInterface, logEvent, events, 4).get();
+     * </pre>
+     *
+     * @param invoker a proxy object built by a LambdaInvokerFactory
+     * @param method the method of the proxied interface to invoke
+     * @param arguments the argument of each invocation
+     * @param maxConcurrency max number of invocations at the same time
+     * @return a future of the results of all invocations
+     */
+    public Future<LambdaBatchResult> invokeAll(Object invoker, Method method, List<?> arguments,
+            int maxConcurrency) {
+        final InvocationHandler handler = Proxy.isProxyClass(invoker.getClass())
+                ? Proxy.getInvocationHandler(invoker)
+                : null;
+        if (!(handler instanceof LambdaInvocationHandler)) {
+            throw new IllegalArgumentException("invoker isn't built by a LambdaInvokerFactory");
+        }
+        return ((LambdaInvocationHandler) handler).invokeAll(method, arguments, maxConcurrency);
+    }
+
     /**
      * Gets the client context associated with this factory. Changes to the
      * client context will affect all proxy objects created by this factory,
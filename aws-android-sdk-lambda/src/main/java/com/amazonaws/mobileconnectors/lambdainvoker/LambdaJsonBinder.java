@@ -15,18 +15,22 @@
 
 package com.amazonaws.mobileconnectors.lambdainvoker;
 
+import com.amazonaws.util.BinaryUtils;
 import com.amazonaws.util.StringUtils;
+import com.amazonaws.util.Utf8ByteArrayWriter;
 import com.google.gson.Gson;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.ByteBuffer;
 
 /**
  * A Json data binder backed by Gson.
  */
-public class LambdaJsonBinder implements LambdaDataBinder {
+public class LambdaJsonBinder implements LambdaStreamingDataBinder {
 
     private final Gson gson;
 
@@ -42,13 +46,31 @@ public class LambdaJsonBinder implements LambdaDataBinder {
         if (content == null) {
             return null;
         }
-        Reader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(content),
-                StringUtils.UTF8));
+        return fromJson(new ByteArrayInputStream(content), clazz);
+    }
+
+    @Override
+    public <T> T deserialize(ByteBuffer content, Class<T> clazz) {
+        if (content == null) {
+            return null;
+        }
+        final InputStream in = content.hasArray()
+                ? new ByteArrayInputStream(content.array(),
+                        content.arrayOffset() + content.position(), content.remaining())
+                : BinaryUtils.toStream(content.duplicate());
+        return fromJson(in, clazz);
+    }
+
+    private <T> T fromJson(InputStream in, Class<T> clazz) {
+        Reader reader = new BufferedReader(new InputStreamReader(in, StringUtils.UTF8));
         return gson.fromJson(reader, clazz);
     }
 
     @Override
     public byte[] serialize(Object object) {
-        return gson.toJson(object).getBytes(StringUtils.UTF8);
+        // encodes to UTF-8 as it goes, rather than building a String first
+        final Utf8ByteArrayWriter writer = new Utf8ByteArrayWriter();
+        gson.toJson(object, writer);
+        return writer.toByteArray();
     }
 }
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.lambdainvoker;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link LambdaDataBinder} which reads a POJO straight from the payload of
+ * an invocation result, rather than from a copy of it.
+ */
+public interface LambdaStreamingDataBinder extends LambdaDataBinder {
+
+    /**
+     * Converts the remaining content of a buffer into a POJO. The position of
+     * the buffer is left unchanged.
+     *
+     * @param content an encoded content
+     * @param clazz class to be deserialized into
+     * @param <T> the type of the class
+     * @return a POJO
+     */
+    <T> T deserialize(ByteBuffer content, Class<T> clazz);
+}
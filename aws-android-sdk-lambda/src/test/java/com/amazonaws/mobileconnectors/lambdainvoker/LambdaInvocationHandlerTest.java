@@ -18,6 +18,8 @@ package com.amazonaws.mobileconnectors.lambdainvoker;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.services.lambda.AWSLambda;
@@ -39,6 +41,7 @@ import org.mockito.Mockito;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 public class LambdaInvocationHandlerTest {
 
@@ -81,6 +84,9 @@ public class LambdaInvocationHandlerTest {
 
         @LambdaFunction
         String echoNoArgument();
+
+        @LambdaFunction(invocationType = "Event")
+        void logEvent(String a);
     }
     
     @Test(expected=java.lang.IllegalArgumentException.class)
@@ -294,6 +300,41 @@ public class LambdaInvocationHandlerTest {
         }
     }
 
+    @Test
+    public void testDescriptorIsCached() throws Exception {
+        Method echoAlias = getMethod("echoAliasLogTail", String.class);
+        assertSame("cached", handler.getDescriptor(echoAlias), handler.getDescriptor(echoAlias));
+        InvokeRequest first = handler.buildInvokeRequest(echoAlias, "a");
+        InvokeRequest second = handler.buildInvokeRequest(echoAlias, "b");
+        assertEquals("invocation type", "RequestResponse", second.getInvocationType());
+        assertEquals("log type", "Tail", second.getLogType());
+        assertEquals("payload", "\"a\"", new String(first.getPayload().array(), StringUtils.UTF8));
+    }
+
+    @Test
+    public void testInvokeAll() throws Exception {
+        InvokeResult accepted = createInvokeResult(202, null, "");
+        Mockito.when(lambda.invoke(Matchers.any(InvokeRequest.class)))
+                .thenReturn(accepted)
+                .thenThrow(new IllegalStateException("throttled"))
+                .thenReturn(accepted);
+        Method logEvent = getMethod("logEvent", String.class);
+        // one at a time, so that the invocations are made in order
+        LambdaBatchResult result = factory.invokeAll(invoker, logEvent,
+                Arrays.asList("a", "b", "c"), 1).get();
+        assertEquals("count", 3, result.getInvocationCount());
+        assertEquals("failed", Arrays.asList(1), result.getFailedIndexes());
+        assertTrue("failure", result.getFailure(1) instanceof IllegalStateException);
+        assertNull("no failure", result.getFailure(2));
+        assertNull("no result", result.getResult(0));
+        Mockito.verify(lambda, Mockito.times(3)).invoke(Matchers.any(InvokeRequest.class));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testInvokeAllRequiresEvent() throws Exception {
+        factory.invokeAll(invoker, getMethod("echo", String.class), Arrays.asList("a"));
+    }
+
     private Method getMethod(String name, Class<?>... classes)
             throws NoSuchMethodException, SecurityException {
         return MockInterface.class.getMethod(name, classes);
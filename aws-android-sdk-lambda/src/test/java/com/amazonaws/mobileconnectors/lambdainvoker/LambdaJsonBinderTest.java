@@ -17,8 +17,12 @@ package com.amazonaws.mobileconnectors.lambdainvoker;
 
 import static org.junit.Assert.assertEquals;
 
+import com.amazonaws.util.StringUtils;
+
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+
 public class LambdaJsonBinderTest {
 
     @Test
@@ -30,4 +34,27 @@ public class LambdaJsonBinderTest {
         assertEquals("first name", target.getFirstName(), nameInfo.getFirstName());
         assertEquals("last name", target.getLastName(), nameInfo.getLastName());
     }
+
+    @Test
+    public void testDeserializeByteBuffer() {
+        LambdaJsonBinder jsonBinder = new LambdaJsonBinder();
+        NameInfo target = new NameInfo("first_name", "l\u00e4st_name");
+        byte[] data = jsonBinder.serialize(target);
+        assertEquals("utf-8", "{\"firstName\":\"first_name\",\"lastName\":\"l\u00e4st_name\"}",
+                new String(data, StringUtils.UTF8));
+
+        // content in the middle of a larger array
+        byte[] padded = new byte[data.length + 8];
+        System.arraycopy(data, 0, padded, 4, data.length);
+        ByteBuffer buffer = ByteBuffer.wrap(padded, 4, data.length).slice();
+        NameInfo nameInfo = jsonBinder.deserialize(buffer, NameInfo.class);
+        assertEquals("last name", target.getLastName(), nameInfo.getLastName());
+        assertEquals("position", 0, buffer.position());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+        direct.put(data).flip();
+        nameInfo = jsonBinder.deserialize(direct, NameInfo.class);
+        assertEquals("first name", target.getFirstName(), nameInfo.getFirstName());
+        assertEquals("position", 0, direct.position());
+    }
 }
@@ -57,6 +57,7 @@ import com.amazonaws.services.pinpoint.model.PutEventsResult;
 import com.amazonaws.services.pinpoint.model.Session;
 
 import com.amazonaws.util.DateUtils;
+import com.amazonaws.util.StringUtils;
 import com.amazonaws.util.VersionInfoUtils;
 
 import org.json.JSONArray;
@@ -185,6 +186,26 @@ public class EventRecorder {
     private static final int SIZE_COLUMN_INDEX = EventTable.COLUMN_INDEX.SIZE.getValue();
 
     JSONObject readEventFromCursor(final Cursor cursor, final HashMap<Integer, Integer> idsAndSizeToDelete) {
+        final StoredEvent event = readStoredEventFromCursor(cursor, idsAndSizeToDelete);
+        return event == null ? null : event.json;
+    }
+
+    /**
+     * An event read from the database, along with the size of its stored
+     * JSON in bytes.
+     */
+    private static final class StoredEvent {
+        private final JSONObject json;
+        private final int size;
+
+        StoredEvent(final JSONObject json, final int size) {
+            this.json = json;
+            this.size = size;
+        }
+    }
+
+    private StoredEvent readStoredEventFromCursor(final Cursor cursor,
+                                                  final HashMap<Integer, Integer> idsAndSizeToDelete) {
         Integer rowId = null;
         Integer size = null;
         try {
@@ -201,22 +222,28 @@ public class EventRecorder {
                 size = cursor.getInt(SIZE_COLUMN_INDEX);
             }
 
-            JSONObject jsonObject = null;
+            StoredEvent event = null;
             if (cursor.isNull(JSON_COLUMN_INDEX)) {
                 log.error(String.format(Locale.US,
                         "Event from DB with ID=%d and SiZE=%d contained a NULL message.", rowId, size));
             } else {
                 final String message = cursor.getString(JSON_COLUMN_INDEX);
                 try {
-                    jsonObject = new JSONObject(message);
+                    final JSONObject jsonObject = new JSONObject(message);
                     //link event with databaseId
                     jsonObject.put(DATABASE_ID_KEY,rowId);
+                    // the stored size is the UTF-8 length of the JSON, the
+                    // JSON is only encoded if the size column is NULL.
+                    event = new StoredEvent(jsonObject, size != null ? size
+                            : message.getBytes(StringUtils.UTF8).length);
                 } catch (final JSONException e) {
                     log.error(String.format(Locale.US,
                             "Unable to deserialize event JSON for event with ID=%d.", rowId));
                 }
 
-                if (size != null && message.length() != size) {
+                // events stored by earlier versions have the length in chars
+                if (size != null && message.length() != size
+                        && message.getBytes(StringUtils.UTF8).length != size) {
                     log.warn(String.format(Locale.US,
                             "Message with ID=%d has a size mismatch. DBMsgSize=%d DBSizeCol=%d",
                             rowId, message.length(), size));
@@ -227,7 +254,7 @@ public class EventRecorder {
                 }
             }
 
-            return jsonObject;
+            return event;
         } catch (final Exception ex) {
             log.error("Failed accessing cursor to get next event.", ex);
         } finally {
@@ -261,17 +288,17 @@ public class EventRecorder {
                                        final HashMap<Integer, Integer> idsAndSizeToDelete) {
         final JSONArray eventArray = new JSONArray();
         long currentRequestSize = 0;
-        long eventLength;
         final long maxRequestSize = pinpointContext
                 .getConfiguration()
                 .optLong(KEY_MAX_SUBMISSION_SIZE, DEFAULT_MAX_SUBMISSION_SIZE);
 
         do {
-            JSONObject json = readEventFromCursor(cursor, idsAndSizeToDelete);
-            if (json != null) {
-                eventLength = json.length();
-                currentRequestSize += eventLength;
-                eventArray.put(json);
+            final StoredEvent event = readStoredEventFromCursor(cursor, idsAndSizeToDelete);
+            if (event != null) {
+                // the batch is sized by the length of the stored JSON, so the
+                // event isn't serialized again.
+                currentRequestSize += event.size;
+                eventArray.put(event.json);
             }
             if (currentRequestSize > maxRequestSize
                     || eventArray.length() >= SERVICE_DEFINED_MAX_EVENTS_PER_BATCH) {
@@ -375,8 +402,12 @@ public class EventRecorder {
             return;
         }
 
-        // package them into an putEvents request
-        PutEventsRequest request = this.createRecordEventsRequest(eventArray, endpoint);
+        // package them into an putEvents request. The database ids of the
+        // events are collected while translating them, so the response is
+        // processed without reading the events JSON again.
+        final Map<String, List<Integer>> databaseIdsByEventId = new HashMap<String, List<Integer>>();
+        PutEventsRequest request = this.createRecordEventsRequest(eventArray, endpoint,
+                databaseIdsByEventId);
         request.getRequestClientOptions().appendUserAgent(USER_AGENT);
 
         try {
@@ -387,7 +418,8 @@ public class EventRecorder {
             processEndpointResponse(endpoint, resultResponse);
 
             //request accepted, checking each event item in the response.
-            processEventsResponse(eventArray, endpoint, resultResponse, batchIdsAndSizeToDelete);
+            processEventsResponse(databaseIdsByEventId, endpoint, resultResponse,
+                    batchIdsAndSizeToDelete);
 
             log.info(String.format(Locale.getDefault(), "Successful submission of %d events.",
                     batchIdsAndSizeToDelete.size()));
@@ -449,40 +481,36 @@ public class EventRecorder {
         }
     }
 
-    private void processEventsResponse(final JSONArray eventArray,
+    private void processEventsResponse(final Map<String, List<Integer>> databaseIdsByEventId,
                                        EndpointProfile endpointProfile,
                                        final PutEventsResult resultResponse,
                                        final Map<Integer, Integer> batchIdsAndSizeToDelete) {
-        String eventId;
-        EventItemResponse responseMessage;
-
-        for(int i = 0; i < eventArray.length(); i++) {
-            try {
-                eventId = eventArray.getJSONObject(i).getString(EVENT_ID);
-                responseMessage = resultResponse
-                        .getEventsResponse()
-                        .getResults()
-                        .get(endpointProfile.getEndpointId())
-                        .getEventsItemResponse()
-                        .get(eventId);
-                // If the event is Accepted by Pinpoint OR if a retryable error occurred
-                // while submitting, remove the event from batchIdsAndSizeToDelete
-                // so the event does not get deleted from the local database.
-                if (responseMessage.getMessage().equalsIgnoreCase("Accepted")) {
-                    log.info(String.format("Successful submit event with event id %s", eventId));
-                } else if (isRetryable(responseMessage.getMessage())) {
-                    log.warn(String.format("Unable to successfully deliver event to server. " +
-                            "Event will be saved. Event id %s", eventId));
-                    batchIdsAndSizeToDelete.remove(eventArray.getJSONObject(i).getInt(DATABASE_ID_KEY));
-                } else {
-                    // Item level exception, not retryable, so the event will be removed
-                    // from the local database.
-                    log.error(
-                            String.format("Failed to submitEvents to EventService: statusCode: %s Status Message: %s",
-                                    responseMessage.getStatusCode(), responseMessage.getMessage()));
+        final Map<String, EventItemResponse> eventsItemResponse = resultResponse
+                .getEventsResponse()
+                .getResults()
+                .get(endpointProfile.getEndpointId())
+                .getEventsItemResponse();
+
+        for (final Map.Entry<String, List<Integer>> entry : databaseIdsByEventId.entrySet()) {
+            final String eventId = entry.getKey();
+            final EventItemResponse responseMessage = eventsItemResponse.get(eventId);
+            // If the event is Accepted by Pinpoint OR if a retryable error occurred
+            // while submitting, remove the event from batchIdsAndSizeToDelete
+            // so the event does not get deleted from the local database.
+            if (responseMessage.getMessage().equalsIgnoreCase("Accepted")) {
+                log.info(String.format("Successful submit event with event id %s", eventId));
+            } else if (isRetryable(responseMessage.getMessage())) {
+                log.warn(String.format("Unable to successfully deliver event to server. " +
+                        "Event will be saved. Event id %s", eventId));
+                for (final Integer databaseId : entry.getValue()) {
+                    batchIdsAndSizeToDelete.remove(databaseId);
                 }
-            } catch (JSONException e) {
-                log.error("Failed to get event id while processing event item response.", e);
+            } else {
+                // Item level exception, not retryable, so the event will be removed
+                // from the local database.
+                log.error(
+                        String.format("Failed to submitEvents to EventService: statusCode: %s Status Message: %s",
+                                responseMessage.getStatusCode(), responseMessage.getMessage()));
             }
         }
     }
@@ -505,11 +533,15 @@ public class EventRecorder {
     /**
      * @param events array of events
      * @param endpointProfile endpoint profile for the device endpoint
+     * @param databaseIdsByEventId map filled with the database ids of the
+     *            events in the request, keyed by the event id. Rows stored
+     *            with the same event id are sent once and share the response.
      *
      * @return the request to put event
      */
     private PutEventsRequest createRecordEventsRequest(final JSONArray events,
-                                                       final EndpointProfile endpointProfile) {
+                                                       final EndpointProfile endpointProfile,
+                                                       final Map<String, List<Integer>> databaseIdsByEventId) {
 
         final PutEventsRequest putRequest = new PutEventsRequest().withApplicationId(endpointProfile.getApplicationId());
         final String endpointId = endpointProfile.getEndpointId();
@@ -537,6 +569,12 @@ public class EventRecorder {
             final Event event = new Event();
             buildEventPayload(internalEvent, event);
             eventsMap.put(internalEvent.getEventId(), event);
+            List<Integer> databaseIds = databaseIdsByEventId.get(internalEvent.getEventId());
+            if (databaseIds == null) {
+                databaseIds = new ArrayList<Integer>(1);
+                databaseIdsByEventId.put(internalEvent.getEventId(), databaseIds);
+            }
+            databaseIds.add(eventJSON.optInt(DATABASE_ID_KEY));
         }
 
         // build request payload, could also build with only endpoint payload
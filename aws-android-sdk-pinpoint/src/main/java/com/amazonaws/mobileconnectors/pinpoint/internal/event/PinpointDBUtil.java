@@ -21,6 +21,8 @@ import android.content.Context;
 import android.database.Cursor;
 import android.net.Uri;
 
+import com.amazonaws.util.StringUtils;
+
 import static com.amazonaws.mobileconnectors.pinpoint.internal.event.EventTable.COLUMN_ID;
 import static com.amazonaws.mobileconnectors.pinpoint.internal.event.EventTable.COLUMN_SIZE;
 
@@ -68,7 +70,8 @@ public class PinpointDBUtil {
         ContentValues values = new ContentValues();
         String json = event.toJSONObject().toString();
         values.put(EventTable.COLUMN_JSON, json);
-        values.put(COLUMN_SIZE, json.length());
+        // the size is in bytes, as events are sized when they are submitted
+        values.put(COLUMN_SIZE, json.getBytes(StringUtils.UTF8).length);
         return values;
     }
 
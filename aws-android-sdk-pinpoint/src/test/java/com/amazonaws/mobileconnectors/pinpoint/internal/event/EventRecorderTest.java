@@ -255,6 +255,56 @@ public class EventRecorderTest {
         assertEquals(EventRecorder.SERVICE_DEFINED_MAX_EVENTS_PER_BATCH, readArray.length());
     }
 
+    @Test
+    public void testGetBatchOfEvents_sizedByStoredSize() {
+        PinpointDBUtil dbUtil = mock(PinpointDBUtil.class);
+        PinpointContext pinpointContext = mock(PinpointContext.class);
+        EventRecorder eventRecorder = new EventRecorder(pinpointContext, dbUtil, mock(ExecutorService.class));
+
+        AndroidPreferencesConfiguration config = mock(AndroidPreferencesConfiguration.class);
+        when(pinpointContext.getConfiguration()).thenReturn(config);
+        when(config.optLong(any(String.class), any(Long.class))).thenReturn(100 * 1024L);
+
+        Cursor cursor = mock(Cursor.class);
+        when(cursor.isNull(any(Integer.class))).thenReturn(false);
+        when(cursor.getInt(EventTable.COLUMN_INDEX.ID.getValue())).thenReturn(1, 2, 3, 4);
+        // the stored size is used even though the JSON is much shorter
+        when(cursor.getInt(EventTable.COLUMN_INDEX.SIZE.getValue())).thenReturn(60 * 1024);
+        when(cursor.getString(EventTable.COLUMN_INDEX.JSON.getValue())).thenReturn("{}");
+        when(cursor.moveToNext()).thenReturn(true);
+
+        HashMap<Integer, Integer> idsAndSizeToDelete = new HashMap<Integer, Integer>();
+        JSONArray readArray = eventRecorder.getBatchOfEvents(cursor, idsAndSizeToDelete);
+        // the event which brings the batch over the limit is still included
+        assertEquals(2, readArray.length());
+        assertEquals(2, idsAndSizeToDelete.size());
+    }
+
+    @Test
+    public void testGetBatchOfEvents_sizedByUtf8LengthWithoutStoredSize() {
+        PinpointDBUtil dbUtil = mock(PinpointDBUtil.class);
+        PinpointContext pinpointContext = mock(PinpointContext.class);
+        EventRecorder eventRecorder = new EventRecorder(pinpointContext, dbUtil, mock(ExecutorService.class));
+
+        AndroidPreferencesConfiguration config = mock(AndroidPreferencesConfiguration.class);
+        when(pinpointContext.getConfiguration()).thenReturn(config);
+        when(config.optLong(any(String.class), any(Long.class))).thenReturn(100 * 1024L);
+
+        // 30K chars taking 60K bytes in UTF-8
+        char[] value = new char[30 * 1024];
+        Arrays.fill(value, '\u00e9');
+        Cursor cursor = mock(Cursor.class);
+        when(cursor.isNull(any(Integer.class))).thenReturn(false);
+        when(cursor.isNull(EventTable.COLUMN_INDEX.SIZE.getValue())).thenReturn(true);
+        when(cursor.getInt(EventTable.COLUMN_INDEX.ID.getValue())).thenReturn(1, 2, 3, 4);
+        when(cursor.getString(EventTable.COLUMN_INDEX.JSON.getValue()))
+                .thenReturn("{\"key\":\"" + new String(value) + "\"}");
+        when(cursor.moveToNext()).thenReturn(true);
+
+        JSONArray readArray = eventRecorder.getBatchOfEvents(cursor, new HashMap<Integer, Integer>());
+        assertEquals(2, readArray.length());
+    }
+
     @Test
     public void testProcessEventWithOutEndpoint() {
         eventRecorder.recordEvent(analyticsEvent);
@@ -323,6 +373,28 @@ public class EventRecorderTest {
         assertTrue(dbUtil.queryAllEvents().getCount() == 1);
     }
 
+    @Test
+    public void testProcessEventWithItemRetryableError_keepsAllRowsOfEventId() {
+        eventItemResponse = new EventItemResponse().withStatusCode(500).withMessage("InternalServerErrorException");
+        itemResponse = new ItemResponse()
+                .withEndpointItemResponse(new EndpointItemResponse().withStatusCode(202).withMessage("Accepted"));
+        itemResponse.addEventsItemResponseEntry(analyticsEvent.getEventId(), eventItemResponse);
+        putEventsResult = new PutEventsResult();
+        putEventsResult.withEventsResponse(
+            new EventsResponse()
+                .addResultsEntry(endpointProfile.getEndpointId(), itemResponse));
+
+        // the same event stored twice
+        eventRecorder.recordEvent(analyticsEvent);
+        eventRecorder.recordEvent(analyticsEvent);
+        when(mockContext.getTargetingClient().currentEndpoint()).thenReturn(endpointProfile);
+        when(mockContext.getPinpointServiceClient().putEvents(any(PutEventsRequest.class))).thenReturn(putEventsResult);
+        assertTrue(dbUtil.queryAllEvents().getCount() == 2);
+        eventRecorder.processEvents();
+        //retryable, none of the rows removed from db.
+        assertTrue(dbUtil.queryAllEvents().getCount() == 2);
+    }
+
     @Test
     public void testProcessEventWithItemNotRetryableError() {
         //build API response
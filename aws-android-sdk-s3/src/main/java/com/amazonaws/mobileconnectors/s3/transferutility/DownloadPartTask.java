@@ -0,0 +1,190 @@
+/**
+ * Copyright 2015-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.s3.transferutility;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.event.ProgressEvent;
+import com.amazonaws.event.ProgressListener;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+
+import com.amazonaws.logging.Log;
+import com.amazonaws.logging.LogFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+
+/**
+ * Downloads one byte range of a multipart download and writes it in place
+ * into the target file with positional writes, so that the ranges of a
+ * download can be fetched concurrently.
+ */
+class DownloadPartTask implements Callable<Boolean> {
+    private static final Log LOGGER = LogFactory.getLog(DownloadPartTask.class);
+    private static final int SIXTEEN_KB = 1024 * 16;
+
+    private final DownloadTask.DownloadPartTaskMetadata downloadPartTaskMetadata;
+    private final DownloadTask.DownloadTaskProgressListener downloadTaskProgressListener;
+    private final GetObjectRequest getObjectRequest;
+    private final AmazonS3 s3;
+    private final TransferDBUtil dbUtil;
+    private final DownloadPartTaskProgressListener partProgressListener;
+
+    public DownloadPartTask(DownloadTask.DownloadPartTaskMetadata downloadPartTaskMetadata,
+                            DownloadTask.DownloadTaskProgressListener downloadTaskProgressListener,
+                            GetObjectRequest getObjectRequest,
+                            AmazonS3 s3,
+                            TransferDBUtil dbUtil) {
+        this.downloadPartTaskMetadata = downloadPartTaskMetadata;
+        this.downloadTaskProgressListener = downloadTaskProgressListener;
+        this.getObjectRequest = getObjectRequest;
+        this.s3 = s3;
+        this.dbUtil = dbUtil;
+        this.partProgressListener = new DownloadPartTaskProgressListener(downloadTaskProgressListener);
+    }
+
+    /*
+     * Runs part download task and returns whether successfully downloaded.
+     */
+    @Override
+    public Boolean call() throws Exception {
+        final TransferRecord part = downloadPartTaskMetadata.part;
+        try {
+            downloadPartTaskMetadata.state = TransferState.IN_PROGRESS;
+            getObjectRequest.setGeneralProgressListener(partProgressListener);
+            final S3Object object = s3.getObject(getObjectRequest);
+            if (object == null) {
+                // the ETag constraint wasn't met, the object has been replaced
+                throw new AmazonClientException("The object " + part.key
+                        + " was modified while it was being downloaded");
+            }
+            writeToFile(object.getObjectContent(), new File(part.file), part.rangeStart,
+                    part.bytesTotal);
+            downloadPartTaskMetadata.state = TransferState.PART_COMPLETED;
+            dbUtil.updateState(part.id, TransferState.PART_COMPLETED);
+            return true;
+        } catch (final Exception e) {
+            LOGGER.error("Download part interrupted: " + e);
+            ProgressEvent resetEvent = new ProgressEvent(0);
+            resetEvent.setEventCode(ProgressEvent.RESET_EVENT_CODE);
+            // discard the bytes of this range, they are downloaded again
+            partProgressListener.progressChanged(resetEvent);
+
+            // Check if network is not connected, set the state to WAITING_FOR_NETWORK.
+            try {
+                if (TransferNetworkLossHandler.getInstance() != null &&
+                    !TransferNetworkLossHandler.getInstance().isNetworkConnected()) {
+                    LOGGER.info("Thread: [" + Thread.currentThread().getId() + "]: Network wasn't available.");
+                    downloadPartTaskMetadata.state = TransferState.WAITING_FOR_NETWORK;
+                    dbUtil.updateState(part.id, TransferState.WAITING_FOR_NETWORK);
+                    LOGGER.info("Network Connection Interrupted: " +
+                            "Moving the TransferState to WAITING_FOR_NETWORK");
+                    return false;
+                }
+            } catch (TransferUtilityException transferUtilityException) {
+                LOGGER.error("TransferUtilityException: [" + transferUtilityException + "]");
+            }
+
+            // In other cases, set the transfer state to FAILED.
+            downloadPartTaskMetadata.state = TransferState.FAILED;
+            dbUtil.updateState(part.id, TransferState.FAILED);
+            LOGGER.error("Encountered error downloading part ", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the content of a range into the file, starting at the offset of
+     * the range.
+     *
+     * @param is     input stream of the range
+     * @param file   file to be written
+     * @param offset position of the first byte of the range in the file
+     * @param length expected length of the range
+     */
+    private void writeToFile(InputStream is, File file, long offset, long length) {
+        RandomAccessFile randomAccessFile = null;
+        try {
+            randomAccessFile = new RandomAccessFile(file, "rw");
+            final FileChannel channel = randomAccessFile.getChannel();
+            final byte[] buffer = new byte[SIXTEEN_KB];
+            final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+            long position = offset;
+            int bytesRead;
+            while ((bytesRead = is.read(buffer)) != -1) {
+                byteBuffer.clear();
+                byteBuffer.limit(bytesRead);
+                while (byteBuffer.hasRemaining()) {
+                    position += channel.write(byteBuffer, position);
+                }
+            }
+            if (position - offset != length) {
+                throw new AmazonClientException("Expected " + length + " bytes for range starting at "
+                        + offset + " but received " + (position - offset));
+            }
+        } catch (final IOException e) {
+            throw new AmazonClientException("Unable to store object contents to disk: " + e.getMessage(), e);
+        } finally {
+            try {
+                if (randomAccessFile != null) {
+                    randomAccessFile.close();
+                }
+            } catch (final IOException ioe) {
+                LOGGER.warn("got exception", ioe);
+            }
+            try {
+                if (is != null) {
+                    is.close();
+                }
+            } catch (final IOException ioe) {
+                LOGGER.warn("got exception", ioe);
+            }
+        }
+    }
+
+    /**
+     * Progress Listener for a part
+     */
+    private class DownloadPartTaskProgressListener implements ProgressListener {
+
+        private DownloadTask.DownloadTaskProgressListener downloadTaskProgressListener;
+
+        private long bytesTransferredSoFar;
+
+        public DownloadPartTaskProgressListener(DownloadTask.DownloadTaskProgressListener progressListener) {
+            this.downloadTaskProgressListener = progressListener;
+        }
+
+        @Override
+        public void progressChanged(ProgressEvent progressEvent) {
+            if (ProgressEvent.RESET_EVENT_CODE == progressEvent.getEventCode()) {
+                // Reset will discard what's been transferred
+                bytesTransferredSoFar = 0;
+            } else {
+                bytesTransferredSoFar += progressEvent.getBytesTransferred();
+            }
+            this.downloadTaskProgressListener
+                    .onProgressChanged(downloadPartTaskMetadata.part.partNumber,
+                        bytesTransferredSoFar);
+        }
+    }
+}
@@ -20,7 +20,9 @@ import com.amazonaws.event.ProgressEvent;
 import com.amazonaws.event.ProgressListener;
 import com.amazonaws.retry.RetryUtils;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
 import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.S3Object;
 
 import com.amazonaws.logging.Log;
@@ -32,12 +34,21 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.net.SocketTimeoutException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * Performs download operation and returns a Boolean value indicating whether
  * the file has been downloaded successfully.
+ *
+ * When a download part size is configured in {@link TransferUtilityOptions},
+ * objects larger than one part are split into byte ranges which are
+ * downloaded concurrently by {@link DownloadPartTask}s.
  */
 class DownloadTask implements Callable<Boolean> {
 
@@ -46,20 +57,27 @@ class DownloadTask implements Callable<Boolean> {
 
     private final AmazonS3 s3;
     private final TransferRecord download;
+    private final TransferDBUtil dbUtil;
     private final TransferStatusUpdater updater;
 
+    Map<Integer, DownloadPartTaskMetadata> downloadPartTasks;
+
     /**
      * Constructs a DownloadTask with the given download info and S3 client.
      *
      * @param download A TransferRecord object storing all the information of the
      *                 download
      * @param s3       Low-level S3 client
+     * @param dbUtil   database util
      * @param updater  status updater
      */
-    public DownloadTask(TransferRecord download, AmazonS3 s3, TransferStatusUpdater updater) {
+    public DownloadTask(TransferRecord download, AmazonS3 s3, TransferDBUtil dbUtil,
+            TransferStatusUpdater updater) {
         this.download = download;
         this.s3 = s3;
+        this.dbUtil = dbUtil;
         this.updater = updater;
+        this.downloadPartTasks = new HashMap<Integer, DownloadPartTaskMetadata>();
     }
 
     /**
@@ -79,7 +97,22 @@ class DownloadTask implements Callable<Boolean> {
         }
 
         updater.updateState(download.id, TransferState.IN_PROGRESS);
+        if (download.isMultipart == 1) {
+            /*
+             * The byte ranges of this download were already recorded, only
+             * the ranges which are not completed are downloaded again.
+             */
+            return downloadMultipartAndWaitForCompletion(0);
+        }
+        final long partSize = download.transferUtilityOptions == null
+                ? 0 : download.transferUtilityOptions.getDownloadPartSize();
+        if (partSize > 0) {
+            return downloadMultipartAndWaitForCompletion(partSize);
+        }
+        return downloadSinglePartAndWaitForCompletion();
+    }
 
+    private Boolean downloadSinglePartAndWaitForCompletion() {
         GetObjectRequest getObjectRequest;
         ProgressListener progressListener = updater.newProgressListener(download.id);
 
@@ -113,60 +146,229 @@ class DownloadTask implements Callable<Boolean> {
             updater.updateState(download.id, TransferState.COMPLETED);
             return true;
         } catch (final Exception e) {
-            // No need to update the progress listener.
-            if (TransferState.PENDING_CANCEL.equals(download.state)) {
-                updater.updateState(download.id, TransferState.CANCELED);
-                LOGGER.info("Transfer is " + TransferState.CANCELED);
-                return false;
+            return handleFailure(e, progressListener);
+        }
+    }
+
+    /**
+     * Splits the object into byte ranges of the given size and downloads them
+     * concurrently on the part executor of the {@link TransferThreadPool}.
+     * Falls back to a single GET when the object is not larger than one range.
+     *
+     * @param partSize size of the byte ranges, ignored when the ranges of the
+     *            download are already recorded.
+     * @return whether the object is downloaded successfully.
+     */
+    private Boolean downloadMultipartAndWaitForCompletion(long partSize) {
+        final ProgressListener progressListener = updater.newProgressListener(download.id);
+        long bytesAlreadyTransferred = 0;
+
+        if (download.isMultipart == 0) {
+            try {
+                final GetObjectMetadataRequest getObjectMetadataRequest =
+                        new GetObjectMetadataRequest(download.bucketName, download.key);
+                TransferUtility.appendMultipartTransferServiceUserAgentString(getObjectMetadataRequest);
+                final ObjectMetadata metadata = s3.getObjectMetadata(getObjectMetadataRequest);
+                final long bytesTotal = metadata.getContentLength();
+                if (bytesTotal <= partSize) {
+                    return downloadSinglePartAndWaitForCompletion();
+                }
+                allocateFile(new File(download.file), bytesTotal);
+                if (dbUtil.insertMultipartDownloadRecords(download, bytesTotal,
+                        metadata.getETag(), partSize) == 0) {
+                    throw new AmazonClientException("Unable to record the byte ranges of download "
+                            + download.id);
+                }
+                download.isMultipart = 1;
+                download.bytesTotal = bytesTotal;
+                download.eTag = metadata.getETag();
+            } catch (final Exception e) {
+                return handleFailure(e, progressListener);
             }
+        } else {
+            final File file = new File(download.file);
+            if (!file.isFile() || file.length() != download.bytesTotal) {
+                /*
+                 * The file was deleted or truncated since the ranges were
+                 * downloaded, e.g. by a cancel, so the completed ranges are
+                 * gone too. Download the whole object again.
+                 */
+                LOGGER.info(String.format("File of transfer %d is missing or has the wrong size,"
+                        + " restarting the download", download.id));
+                try {
+                    dbUtil.resetDownloadParts(download.id);
+                    allocateFile(file, download.bytesTotal);
+                } catch (final Exception e) {
+                    return handleFailure(e, progressListener);
+                }
+            } else {
+                /*
+                 * For a resumed download, we should calculate the bytes
+                 * already transferred.
+                 */
+                bytesAlreadyTransferred = dbUtil.queryBytesTransferredByMainUploadId(download.id);
+                if (bytesAlreadyTransferred > 0) {
+                    LOGGER.info(String.format("Resume transfer %d from %d bytes",
+                            download.id, bytesAlreadyTransferred));
+                }
+            }
+        }
+        final DownloadTaskProgressListener downloadTaskProgressListener =
+                new DownloadTaskProgressListener(bytesAlreadyTransferred);
+        updater.updateProgress(download.id, bytesAlreadyTransferred, download.bytesTotal, false);
 
-            // Reset the progress when the transfer is paused.
-            if (TransferState.PENDING_PAUSE.equals(download.state)) {
-                updater.updateState(download.id, TransferState.PAUSED);
-                LOGGER.info("Transfer is " + TransferState.PAUSED);
-                ProgressEvent resetEvent = new ProgressEvent(0);
-                resetEvent.setEventCode(ProgressEvent.RESET_EVENT_CODE);
-                progressListener.progressChanged(new ProgressEvent(0));
+        final List<TransferRecord> parts = dbUtil.getNonCompletedDownloadPartsFromDB(download.id);
+        LOGGER.info("Multipart download " + download.id + " in " + parts.size() + " parts.");
+        for (final TransferRecord part : parts) {
+            final GetObjectRequest getObjectRequest = new GetObjectRequest(download.bucketName,
+                    download.key).withRange(part.rangeStart, part.rangeLast);
+            if (download.eTag != null) {
+                getObjectRequest.withMatchingETagConstraint(download.eTag);
+            }
+            TransferUtility.appendMultipartTransferServiceUserAgentString(getObjectRequest);
+
+            final DownloadPartTaskMetadata downloadPartTaskMetadata = new DownloadPartTaskMetadata();
+            downloadPartTaskMetadata.part = part;
+            downloadPartTaskMetadata.bytesTransferredSoFar = 0;
+            downloadPartTaskMetadata.state = TransferState.WAITING;
+            downloadPartTasks.put(part.partNumber, downloadPartTaskMetadata);
+            downloadPartTaskMetadata.downloadPartTask = TransferThreadPool.submitTask(
+                    new DownloadPartTask(downloadPartTaskMetadata, downloadTaskProgressListener,
+                            getObjectRequest, s3, dbUtil));
+        }
+
+        try {
+            boolean isSuccess = true;
+            /*
+             * Future.get() will block the current thread until the method
+             * returns.
+             */
+            for (final DownloadPartTaskMetadata task : downloadPartTasks.values()) {
+                // DownloadPartTask returns false when it's waiting for network
+                final boolean b = task.downloadPartTask.get();
+                isSuccess &= b;
+            }
+            if (!isSuccess) {
+                LOGGER.info("Download part is WAITING_FOR_NETWORK.");
+                updater.updateState(download.id, TransferState.WAITING_FOR_NETWORK);
                 return false;
             }
+        } catch (final Exception e) {
+            LOGGER.error("Download resulted in an exception. " + e);
 
-            // If the thread that is executing the transfer is interrupted
-            // because of a race condition in the network or OS.
-            // interrupted and if its due to network drop, reset progress and
-            // update state to WAITING_FOR_NETWORK.
+            /*
+             * Future.get() will catch InterruptedException, but it's not a
+             * failure, it may be caused by a pause operation from applications.
+             * Cancel all the on-going part tasks.
+             */
+            for (final DownloadPartTaskMetadata task : downloadPartTasks.values()) {
+                task.downloadPartTask.cancel(true);
+            }
 
-            // Check if network is not connected, set the state to WAITING_FOR_NETWORK.
-            try {
-                if (TransferNetworkLossHandler.getInstance() != null &&
-                    !TransferNetworkLossHandler.getInstance().isNetworkConnected()) {
-                    LOGGER.info("Thread:[" + Thread.currentThread().getId() + "]: Network wasn't available.");
-                    /*
-                     * Network connection is being interrupted. Moving the TransferState to
-                     * WAITING_FOR_NETWORK till the network availability resumes.
-                     */
-                    updater.updateState(download.id, TransferState.WAITING_FOR_NETWORK);
-                    LOGGER.debug("Network Connection Interrupted: " + "Moving the TransferState to WAITING_FOR_NETWORK");
-                    ProgressEvent resetEvent = new ProgressEvent(0);
-                    resetEvent.setEventCode(ProgressEvent.RESET_EVENT_CODE);
-                    progressListener.progressChanged(new ProgressEvent(0));
-                    return false;
+            // interrupted due to network. Set the TransferState to
+            // WAITING_FOR_NETWORK if the individual parts were waiting for network
+            if (!TransferState.PENDING_CANCEL.equals(download.state)
+                    && !TransferState.PENDING_PAUSE.equals(download.state)) {
+                for (final DownloadPartTaskMetadata task : downloadPartTasks.values()) {
+                    if (TransferState.WAITING_FOR_NETWORK.equals(task.state)) {
+                        LOGGER.info("Individual part is WAITING_FOR_NETWORK.");
+                        updater.updateState(download.id, TransferState.WAITING_FOR_NETWORK);
+                        return false;
+                    }
                 }
-            } catch (TransferUtilityException transferUtilityException) {
-                LOGGER.error("TransferUtilityException: [" + transferUtilityException + "]");
             }
+            return handleFailure(e, progressListener);
+        }
 
-            if (RetryUtils.isInterrupted(e)) {
-                LOGGER.info("Transfer is interrupted. " + e);
-                updater.updateState(download.id, TransferState.FAILED);
+        updater.updateProgress(download.id, download.bytesTotal, download.bytesTotal, true);
+        updater.updateState(download.id, TransferState.COMPLETED);
+        return true;
+    }
+
+    /**
+     * Moves the download into the state matching the cause of a failure.
+     *
+     * @param e                the exception which interrupted the download
+     * @param progressListener progress listener of the download
+     * @return always false
+     */
+    private Boolean handleFailure(Exception e, ProgressListener progressListener) {
+        // No need to update the progress listener.
+        if (TransferState.PENDING_CANCEL.equals(download.state)) {
+            updater.updateState(download.id, TransferState.CANCELED);
+            LOGGER.info("Transfer is " + TransferState.CANCELED);
+            return false;
+        }
+
+        // Reset the progress when the transfer is paused.
+        if (TransferState.PENDING_PAUSE.equals(download.state)) {
+            updater.updateState(download.id, TransferState.PAUSED);
+            LOGGER.info("Transfer is " + TransferState.PAUSED);
+            ProgressEvent resetEvent = new ProgressEvent(0);
+            resetEvent.setEventCode(ProgressEvent.RESET_EVENT_CODE);
+            progressListener.progressChanged(new ProgressEvent(0));
+            return false;
+        }
+
+        // If the thread that is executing the transfer is interrupted
+        // because of a race condition in the network or OS.
+        // interrupted and if its due to network drop, reset progress and
+        // update state to WAITING_FOR_NETWORK.
+
+        // Check if network is not connected, set the state to WAITING_FOR_NETWORK.
+        try {
+            if (TransferNetworkLossHandler.getInstance() != null &&
+                !TransferNetworkLossHandler.getInstance().isNetworkConnected()) {
+                LOGGER.info("Thread:[" + Thread.currentThread().getId() + "]: Network wasn't available.");
+                /*
+                 * Network connection is being interrupted. Moving the TransferState to
+                 * WAITING_FOR_NETWORK till the network availability resumes.
+                 */
+                updater.updateState(download.id, TransferState.WAITING_FOR_NETWORK);
+                LOGGER.debug("Network Connection Interrupted: " + "Moving the TransferState to WAITING_FOR_NETWORK");
+                ProgressEvent resetEvent = new ProgressEvent(0);
+                resetEvent.setEventCode(ProgressEvent.RESET_EVENT_CODE);
+                progressListener.progressChanged(new ProgressEvent(0));
                 return false;
             }
+        } catch (TransferUtilityException transferUtilityException) {
+            LOGGER.error("TransferUtilityException: [" + transferUtilityException + "]");
+        }
 
-            // In other cases, set the transfer state to FAILED.
-            LOGGER.debug("Failed to download: " + download.id + " due to " + e.getMessage());
-            updater.throwError(download.id, e);
+        if (RetryUtils.isInterrupted(e)) {
+            LOGGER.info("Transfer is interrupted. " + e);
             updater.updateState(download.id, TransferState.FAILED);
             return false;
         }
+
+        // In other cases, set the transfer state to FAILED.
+        LOGGER.debug("Failed to download: " + download.id + " due to " + e.getMessage());
+        updater.throwError(download.id, e);
+        updater.updateState(download.id, TransferState.FAILED);
+        return false;
+    }
+
+    /**
+     * Creates the file of a multipart download with its final size, so that
+     * each byte range can be written in place.
+     *
+     * @param file       file to be written
+     * @param bytesTotal size of the object
+     * @throws IOException if the file cannot be allocated
+     */
+    private void allocateFile(File file, long bytesTotal) throws IOException {
+        // attempt to create the parent if it doesn't exist
+        final File parentDirectory = file.getParentFile();
+        if (parentDirectory != null && !parentDirectory.exists()) {
+            parentDirectory.mkdirs();
+        }
+
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.setLength(bytesTotal);
+        } finally {
+            randomAccessFile.close();
+        }
     }
 
     /**
@@ -215,4 +417,66 @@ class DownloadTask implements Callable<Boolean> {
             }
         }
     }
+
+    /**
+     * Progress Listener for the main DownloadTask of a multipart download.
+     */
+    class DownloadTaskProgressListener implements ProgressListener {
+
+        // The bytes of the ranges completed before this run.
+        private final long bytesAlreadyTransferred;
+
+        // This variable tracks the previously reported total bytes transferred.
+        private long prevTotalBytesTransferredOfAllParts;
+
+        DownloadTaskProgressListener(long bytesAlreadyTransferred) {
+            this.bytesAlreadyTransferred = bytesAlreadyTransferred;
+            this.prevTotalBytesTransferredOfAllParts = bytesAlreadyTransferred;
+        }
+
+        @Override
+        public void progressChanged(final ProgressEvent progressEvent) {
+            // No-op
+        }
+
+        public synchronized void onProgressChanged(final int partNum,
+            final long bytesTransferredSoFarForPartNum) {
+            final DownloadPartTaskMetadata partNumTask = downloadPartTasks.get(partNum);
+            if (partNumTask == null) {
+                LOGGER.info("Update received for unknown part. Ignoring.");
+                return;
+            }
+
+            partNumTask.bytesTransferredSoFar = bytesTransferredSoFarForPartNum;
+
+            // Compute the sum of bytesTransferredSoFar for all parts
+            long totalBytesTransferredOfAllParts = bytesAlreadyTransferred;
+            for (final DownloadPartTaskMetadata part : downloadPartTasks.values()) {
+                totalBytesTransferredOfAllParts += part.bytesTransferredSoFar;
+            }
+
+            if (totalBytesTransferredOfAllParts > prevTotalBytesTransferredOfAllParts) {
+                updater.updateProgress(DownloadTask.this.download.id,
+                    totalBytesTransferredOfAllParts,
+                    DownloadTask.this.download.bytesTotal,
+                    true);
+                prevTotalBytesTransferredOfAllParts = totalBytesTransferredOfAllParts;
+            }
+        }
+    }
+
+    // This class represents the state being tracked per byte range
+    class DownloadPartTaskMetadata {
+        // Reference to the part record of the range
+        TransferRecord part;
+
+        // The future task that runs DownloadPartTask to download a range
+        Future<Boolean> downloadPartTask;
+
+        // number of bytes transferred so far for this range
+        long bytesTransferredSoFar;
+
+        // state of the transfer
+        TransferState state;
+    }
 }
@@ -27,6 +27,8 @@ import android.text.TextUtils;
 import com.amazonaws.logging.Log;
 import com.amazonaws.logging.LogFactory;
 
+import java.util.Map;
+
 /**
  * Provides methods to access database through which applications can interact
  * with transfer tasks.
@@ -203,6 +205,31 @@ class TransferDBBase {
         return rowsUpdated;
     }
 
+    /**
+     * Updates multiple records in the table in one transaction.
+     *
+     * @param valuesById The values to update, keyed by the id of the record.
+     * @return Number of rows updated.
+     */
+    public synchronized int bulkUpdate(Map<Integer, ContentValues> valuesById) {
+        int rowsUpdated = 0;
+        ensureDatabaseOpen();
+        try {
+            database.beginTransaction();
+            for (final Map.Entry<Integer, ContentValues> entry : valuesById.entrySet()) {
+                rowsUpdated += database.update(TransferTable.TABLE_TRANSFER, entry.getValue(),
+                        TransferTable.COLUMN_ID + "=" + entry.getKey(), null);
+            }
+            database.setTransactionSuccessful();
+        } catch (final Exception e) {
+            LOGGER.error("bulkUpdate error : ", e);
+            rowsUpdated = 0;
+        } finally {
+            database.endTransaction();
+        }
+        return rowsUpdated;
+    }
+
     /**
      * Deletes a record in the table.
      *
@@ -269,6 +296,40 @@ class TransferDBBase {
         return mainUploadId;
     }
 
+    /**
+     * Inserts the part records of an existing transfer in one transaction.
+     *
+     * @param uri The Uri of a table.
+     * @param mainTransferId The id of the transfer the parts belong to.
+     * @param valuesArray A array of values to insert.
+     * @return The number of part records inserted.
+     */
+    public int bulkInsertParts(Uri uri, int mainTransferId, ContentValues[] valuesArray) {
+        final int uriType = uriMatcher.match(uri);
+        int rowsInserted = 0;
+        ensureDatabaseOpen();
+        switch (uriType) {
+            case TRANSFERS:
+                try {
+                    database.beginTransaction();
+                    for (final ContentValues values : valuesArray) {
+                        values.put(TransferTable.COLUMN_MAIN_UPLOAD_ID, mainTransferId);
+                        database.insertOrThrow(TransferTable.TABLE_TRANSFER, null, values);
+                    }
+                    database.setTransactionSuccessful();
+                    rowsInserted = valuesArray.length;
+                } catch (final Exception e) {
+                    LOGGER.error("bulkInsertParts error : ", e);
+                } finally {
+                    database.endTransaction();
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown URI: " + uri);
+        }
+        return rowsInserted;
+    }
+
     private void ensureDatabaseOpen() {
         // close and reopen database.
         synchronized (LOCK) {
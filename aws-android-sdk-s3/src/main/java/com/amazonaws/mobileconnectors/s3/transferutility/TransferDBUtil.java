@@ -33,7 +33,9 @@ import com.google.gson.Gson;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Provides methods to conveniently perform database operations.
@@ -168,6 +170,60 @@ class TransferDBUtil {
         return transferDBBase.bulkInsert(transferDBBase.getContentUri(), valuesArray);
     }
 
+    /**
+     * Splits a download into byte ranges of the given size and inserts a part
+     * record for each range. The main record is marked as a multipart
+     * download of the given total size, and the ETag of the object is saved
+     * so that a resumed download only continues while the object is
+     * unchanged.
+     *
+     * @param download The main record of the download.
+     * @param bytesTotal The size of the object to download.
+     * @param eTag The ETag of the object to download.
+     * @param partSize The size of each byte range.
+     * @return The number of part records inserted.
+     */
+    public int insertMultipartDownloadRecords(TransferRecord download, long bytesTotal,
+            String eTag, long partSize) {
+        final int partCount = (int) ((bytesTotal + partSize - 1) / partSize);
+        final ContentValues[] valuesArray = new ContentValues[partCount];
+        long rangeStart = 0;
+        for (int i = 0; i < partCount; i++) {
+            final long rangeLast = Math.min(rangeStart + partSize, bytesTotal) - 1;
+            valuesArray[i] = generateContentValuesForDownloadPart(download, i + 1,
+                    rangeStart, rangeLast, i == partCount - 1);
+            rangeStart = rangeLast + 1;
+        }
+
+        final int inserted = transferDBBase.bulkInsertParts(transferDBBase.getContentUri(),
+                download.id, valuesArray);
+        if (inserted != partCount) {
+            return 0;
+        }
+
+        final ContentValues values = new ContentValues();
+        values.put(TransferTable.COLUMN_IS_MULTIPART, 1);
+        values.put(TransferTable.COLUMN_BYTES_TOTAL, bytesTotal);
+        values.put(TransferTable.COLUMN_ETAG, eTag);
+        transferDBBase.update(getRecordUri(download.id), values, null, null);
+        return inserted;
+    }
+
+    /**
+     * Moves all the byte ranges of a multipart download back to WAITING, so
+     * that the whole object is downloaded again.
+     *
+     * @param mainTransferId The id of the main record of the download.
+     * @return Number of rows updated.
+     */
+    public int resetDownloadParts(int mainTransferId) {
+        final ContentValues values = new ContentValues();
+        values.put(TransferTable.COLUMN_STATE, TransferState.WAITING.toString());
+        values.put(TransferTable.COLUMN_BYTES_CURRENT, 0L);
+        return transferDBBase.update(transferDBBase.getContentUri(), values,
+                TransferTable.COLUMN_MAIN_UPLOAD_ID + "=" + mainTransferId, null);
+    }
+
     /**
      * Writes transfer status including transfer state, current transferred
      * bytes and total bytes into database.
@@ -197,6 +253,23 @@ class TransferDBUtil {
         return transferDBBase.update(getRecordUri(id), values, null, null);
     }
 
+    /**
+     * Updates the current bytes of multiple transfer records in one
+     * transaction.
+     *
+     * @param bytesById The bytes currently transferred, keyed by transfer id
+     * @return Number of rows updated.
+     */
+    public int updateBytesTransferred(Map<Integer, Long> bytesById) {
+        final Map<Integer, ContentValues> valuesById = new HashMap<Integer, ContentValues>();
+        for (final Map.Entry<Integer, Long> entry : bytesById.entrySet()) {
+            final ContentValues values = new ContentValues();
+            values.put(TransferTable.COLUMN_BYTES_CURRENT, entry.getValue());
+            valuesById.put(entry.getKey(), values);
+        }
+        return transferDBBase.bulkUpdate(valuesById);
+    }
+
     /**
      * Updates the total bytes of a download record.
      *
@@ -638,6 +711,36 @@ class TransferDBUtil {
         return list;
     }
 
+    /**
+     * Queries the byte ranges of a multipart download that are not completed
+     * yet. It's used when starting or resuming a multipart download.
+     *
+     * @param mainTransferId The id of the main record of the download
+     * @return A list of the part records of the ranges left to download
+     */
+    public List<TransferRecord> getNonCompletedDownloadPartsFromDB(int mainTransferId) {
+        final List<TransferRecord> list = new ArrayList<TransferRecord>();
+        Cursor c = null;
+        try {
+            c = transferDBBase.query(getPartUri(mainTransferId), null, null, null, null);
+            while (c.moveToNext()) {
+                if (TransferState.PART_COMPLETED.equals(TransferState.getState(c.getString(c
+                        .getColumnIndexOrThrow(TransferTable.COLUMN_STATE))))) {
+                    continue;
+                }
+                final TransferRecord part = new TransferRecord(
+                        c.getInt(c.getColumnIndexOrThrow(TransferTable.COLUMN_ID)));
+                part.updateFromDB(c);
+                list.add(part);
+            }
+        } finally {
+            if (c != null) {
+                c.close();
+            }
+        }
+        return list;
+    }
+
     /**
      * Queries waiting for network partUpload tasks of a multipart upload and returns
      * true if one such partUpload tasks
@@ -735,6 +838,37 @@ class TransferDBUtil {
         return values;
     }
 
+    /**
+     * Generates a ContentValues object to insert into the database for one
+     * byte range of a multipart download.
+     *
+     * @param download The main record of the download.
+     * @param partNumber The part number of this range.
+     * @param rangeStart The index of the first byte of the range.
+     * @param rangeLast The index of the last byte of the range.
+     * @param isLastPart Whether this range is the last range of the object.
+     * @return The ContentValues object generated.
+     */
+    private ContentValues generateContentValuesForDownloadPart(TransferRecord download,
+            int partNumber, long rangeStart, long rangeLast, boolean isLastPart) {
+        final ContentValues values = new ContentValues();
+        values.put(TransferTable.COLUMN_TYPE, TransferType.DOWNLOAD.toString());
+        values.put(TransferTable.COLUMN_STATE, TransferState.WAITING.toString());
+        values.put(TransferTable.COLUMN_BUCKET_NAME, download.bucketName);
+        values.put(TransferTable.COLUMN_KEY, download.key);
+        values.put(TransferTable.COLUMN_FILE, download.file);
+        values.put(TransferTable.COLUMN_BYTES_CURRENT, 0L);
+        values.put(TransferTable.COLUMN_BYTES_TOTAL, rangeLast - rangeStart + 1);
+        values.put(TransferTable.COLUMN_IS_MULTIPART, 1);
+        values.put(TransferTable.COLUMN_PART_NUM, partNumber);
+        values.put(TransferTable.COLUMN_FILE_OFFSET, rangeStart);
+        values.put(TransferTable.COLUMN_DATA_RANGE_START, rangeStart);
+        values.put(TransferTable.COLUMN_DATA_RANGE_LAST, rangeLast);
+        values.put(TransferTable.COLUMN_IS_LAST_PART, isLastPart ? 1 : 0);
+        values.put(TransferTable.COLUMN_IS_ENCRYPTED, 0);
+        return values;
+    }
+
     /**
      * Adds mappings to a ContentValues object for the data in the passed in
      * ObjectMetadata
@@ -27,15 +27,30 @@ import com.amazonaws.logging.LogFactory;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A class that tracks active transfers. It has a static map that holds weak
  * references of {@link TransferListener}.
+ * <p>
+ * Progress updates are coalesced per transfer without locking. The latest
+ * progress of every transfer is written to the database in one transaction
+ * once the persist interval or byte threshold of the transfer is reached,
+ * and progress callbacks are sent at most once per notify interval for each
+ * transfer. Progress held back by either limit is written and delivered by a
+ * trailing flush, so the last update of a transfer is never lost.
  */
 class TransferStatusUpdater {
     private static final Log LOGGER = LogFactory.getLog(TransferStatusUpdater.class);
@@ -74,6 +89,84 @@ class TransferStatusUpdater {
      */
     private static TransferStatusUpdater transferStatusUpdater;
 
+    /**
+     * The latest progress of each transfer which is not written to the
+     * database yet.
+     */
+    private final ConcurrentMap<Integer, ProgressUpdate> pendingProgress =
+            new ConcurrentHashMap<Integer, ProgressUpdate>();
+
+    /**
+     * The bytes current of each transfer last written to the database.
+     */
+    private final ConcurrentMap<Integer, Long> persistedProgress =
+            new ConcurrentHashMap<Integer, Long>();
+
+    /**
+     * The time of the last progress callback of each transfer.
+     */
+    private final ConcurrentMap<Integer, Long> lastNotifyTimes =
+            new ConcurrentHashMap<Integer, Long>();
+
+    /**
+     * The latest progress of each transfer whose callback was held back by
+     * the notify interval.
+     */
+    private final ConcurrentMap<Integer, ProgressUpdate> pendingNotifications =
+            new ConcurrentHashMap<Integer, ProgressUpdate>();
+
+    /**
+     * The sequence number of the last progress callback delivered for each
+     * transfer with progress. Only updated on the main thread, and removed
+     * along with the progress of the transfer so that callbacks still queued
+     * are dropped.
+     */
+    private final ConcurrentMap<Integer, Long> deliveredSequences =
+            new ConcurrentHashMap<Integer, Long>();
+
+    /**
+     * Orders the progress updates, so that a callback posted late never
+     * overrides a newer one.
+     */
+    private final AtomicLong progressSequence = new AtomicLong(0);
+
+    /**
+     * The time of the earliest trailing flush scheduled, or Long.MAX_VALUE if
+     * none is.
+     */
+    private final AtomicLong trailingFlushTime = new AtomicLong(Long.MAX_VALUE);
+
+    /**
+     * Runs the trailing flushes, created when first needed.
+     */
+    private ScheduledExecutorService trailingFlushExecutor;
+
+    /**
+     * Whether a thread is currently writing the pending progress.
+     */
+    private final AtomicBoolean flushing = new AtomicBoolean(false);
+
+    /**
+     * The time of the last write of the pending progress.
+     */
+    private final AtomicLong lastFlushTime = new AtomicLong(0);
+
+    /**
+     * Number of progress updates replaced by a later update before being
+     * written to the database.
+     */
+    private final AtomicLong coalescedProgressEvents = new AtomicLong(0);
+
+    /**
+     * Number of progress callbacks skipped because of the notify interval.
+     */
+    private final AtomicLong droppedProgressEvents = new AtomicLong(0);
+
+    /**
+     * The progress settings of transfers which have no options.
+     */
+    private static final TransferUtilityOptions DEFAULT_OPTIONS = new TransferUtilityOptions();
+
     /**
      * This class is instantiated by TransferService and TransferUtility.
      * The updater is made a singleton. Use #getInstance for getting
@@ -99,6 +192,22 @@ class TransferStatusUpdater {
         return transferStatusUpdater;
     }
 
+    /**
+     * @return the number of progress updates which were replaced by a later
+     *         update before being written to the database.
+     */
+    long getCoalescedProgressEventCount() {
+        return coalescedProgressEvents.get();
+    }
+
+    /**
+     * @return the number of progress callbacks which were skipped because of
+     *         the notify interval.
+     */
+    long getDroppedProgressEventCount() {
+        return droppedProgressEvents.get();
+    }
+
     /**
      * Gets all active transfers.
      *
@@ -137,6 +246,7 @@ class TransferStatusUpdater {
             LISTENERS.remove(id);
         }
         transfers.remove(id);
+        clearProgress(id);
     }
     
     /**
@@ -168,7 +278,12 @@ class TransferStatusUpdater {
     synchronized void updateState(final int id, final TransferState newState) {
         boolean shouldNotNotify = STATES_NOT_TO_NOTIFY.contains(newState);
         final TransferRecord transfer = transfers.get(id);
+        // the progress is saved along with the state
+        final ProgressUpdate progress = pendingProgress.remove(id);
         if (transfer == null) {
+            if (progress != null) {
+                dbUtil.updateBytesTransferred(id, progress.bytesCurrent);
+            }
             // still wants to save state
             if (dbUtil.updateState(id, newState) == 0) {
                 LOGGER.warn("Failed to update the status of transfer " + id);
@@ -182,6 +297,12 @@ class TransferStatusUpdater {
             }
         }
 
+        if (TransferState.COMPLETED.equals(newState) ||
+            TransferState.FAILED.equals(newState) ||
+            TransferState.CANCELED.equals(newState)) {
+            clearProgress(id);
+        }
+
         if (shouldNotNotify) {
             return;
         }
@@ -221,50 +342,218 @@ class TransferStatusUpdater {
     /**
      * Updates the transfer progress of a transfer. It will trigger
      * {@link TransferListener#onProgressChanged(int, long, long)} of associated
-     * LISTENERS if the update exceeds either time threshold.
+     * LISTENERS if the last callback of the transfer is older than the notify
+     * interval, or if the transfer is complete.
+     * <p>
+     * The progress is coalesced with the pending progress of the transfer and
+     * written to the database along with the pending progress of all the
+     * other transfers once the persist interval or byte threshold is reached.
+     * The persist and notify settings are those of the
+     * {@link TransferUtilityOptions} of the transfer. The progress of a
+     * transfer which is no longer tracked is dropped.
      *
      * @param id id of the transfer
      * @param bytesCurrent current transferred bytes
      * @param bytesTotal total bytes
+     * @param notifyListener whether to invoke the LISTENERS
      */
-    synchronized void updateProgress(final int id, 
-        final long bytesCurrent, 
-        final long bytesTotal, 
+    void updateProgress(final int id,
+        final long bytesCurrent,
+        final long bytesTotal,
         final boolean notifyListener) {
 
         final TransferRecord transfer = transfers.get(id);
-        if (transfer != null) {
-            transfer.bytesCurrent = bytesCurrent;
-            transfer.bytesTotal = bytesTotal;
+        if (transfer == null) {
+            // the transfer was removed, its record may be deleted already
+            LOGGER.debug("Dropping progress of transfer " + id + " which is no longer tracked.");
+            return;
         }
+        transfer.bytesCurrent = bytesCurrent;
+        transfer.bytesTotal = bytesTotal;
+        final TransferUtilityOptions options = transfer.transferUtilityOptions != null
+                ? transfer.transferUtilityOptions : DEFAULT_OPTIONS;
+        deliveredSequences.putIfAbsent(id, 0L);
 
         // update bytes transferred so that the transfer observer may pick it
         // up.
-        dbUtil.updateBytesTransferred(id, bytesCurrent);
+        final ProgressUpdate update = new ProgressUpdate(progressSequence.incrementAndGet(),
+                bytesCurrent, bytesTotal);
+        if (pendingProgress.put(id, update) != null) {
+            coalescedProgressEvents.incrementAndGet();
+        }
+        final long now = System.currentTimeMillis();
+        final Long persisted = persistedProgress.get(id);
+        if (persisted == null
+                || bytesCurrent >= bytesTotal
+                || Math.abs(bytesCurrent - persisted) >= options.getProgressPersistThreshold()
+                || now - lastFlushTime.get() >= options.getProgressPersistInterval()) {
+            if (!flushProgress(now)) {
+                // another thread is writing, the update is written later
+                scheduleTrailingFlush(options.getProgressPersistInterval());
+            }
+        } else {
+            scheduleTrailingFlush(options.getProgressPersistInterval());
+        }
 
         if (!notifyListener) {
             return;
         }
 
+        final Long lastNotifyTime = lastNotifyTimes.get(id);
+        if (bytesCurrent < bytesTotal
+                && lastNotifyTime != null
+                && now - lastNotifyTime < options.getProgressNotifyInterval()) {
+            droppedProgressEvents.incrementAndGet();
+            pendingNotifications.put(id, update);
+            scheduleTrailingFlush(options.getProgressNotifyInterval() - (now - lastNotifyTime));
+            return;
+        }
+        lastNotifyTimes.put(id, now);
+        pendingNotifications.remove(id);
+        notifyProgress(id, update);
+    }
+
+    /**
+     * Posts the progress callbacks of a transfer to the main thread. A
+     * callback is skipped when a newer progress was already delivered.
+     *
+     * @param id id of the transfer
+     * @param update the progress to deliver
+     */
+    private void notifyProgress(final int id, final ProgressUpdate update) {
         // invoke LISTENERS
-        synchronized (LISTENERS) {
-            final List<TransferListener> list = LISTENERS.get(id);
-            if (list == null || list.isEmpty()) {
+        final List<TransferListener> list = LISTENERS.get(id);
+        if (list == null || list.isEmpty()) {
+            return;
+        }
+
+        // invoke on main thread
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                final Long delivered = deliveredSequences.get(id);
+                // skipped if the progress was cleared or a newer one was
+                // delivered
+                if (delivered == null || delivered > update.sequence
+                        || !deliveredSequences.replace(id, delivered, update.sequence)) {
+                    return;
+                }
+                for (final TransferListener l : list) {
+                    l.onProgressChanged(id, update.bytesCurrent, update.bytesTotal);
+                }
+            }
+        });
+    }
+
+    /**
+     * Schedules a flush of the progress which is held back, unless a flush is
+     * already scheduled no later than that.
+     *
+     * @param delayMillis delay of the flush in milliseconds
+     */
+    private void scheduleTrailingFlush(long delayMillis) {
+        final long delay = Math.max(delayMillis, 0);
+        final long time = System.currentTimeMillis() + delay;
+        long scheduled;
+        do {
+            scheduled = trailingFlushTime.get();
+            if (scheduled <= time) {
                 return;
             }
+        } while (!trailingFlushTime.compareAndSet(scheduled, time));
+
+        synchronized (trailingFlushTime) {
+            if (trailingFlushExecutor == null) {
+                trailingFlushExecutor = Executors.newSingleThreadScheduledExecutor(
+                        new ThreadFactory() {
+                            @Override
+                            public Thread newThread(Runnable r) {
+                                final Thread thread = new Thread(r, "TransferStatusUpdater");
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+            }
+            trailingFlushExecutor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    trailingFlushTime.compareAndSet(time, Long.MAX_VALUE);
+                    flushPendingProgress();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
 
-            for (final TransferListener l : list) {
-                // invoke on main thread
-                mainHandler.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        l.onProgressChanged(id, bytesCurrent, bytesTotal);
+    /**
+     * Writes the pending progress of all transfers to the database and
+     * delivers the callbacks which were held back by the notify interval.
+     */
+    void flushPendingProgress() {
+        final long now = System.currentTimeMillis();
+        if (!flushProgress(now)) {
+            scheduleTrailingFlush(DEFAULT_OPTIONS.getProgressPersistInterval());
+        }
+        for (final Map.Entry<Integer, ProgressUpdate> entry : pendingNotifications.entrySet()) {
+            // skipped if a newer callback was sent in the meantime
+            if (pendingNotifications.remove(entry.getKey(), entry.getValue())) {
+                lastNotifyTimes.put(entry.getKey(), now);
+                notifyProgress(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Writes the pending progress of all transfers to the database in one
+     * transaction. Returns immediately if another thread is already writing.
+     * The write holds the lock of the updater, as updateState does when it
+     * writes the progress along with the state, so an older progress is never
+     * written after a newer one.
+     *
+     * @param now the current time in milliseconds
+     * @return false if another thread was writing, in which case the progress
+     *         received meanwhile is written by the next flush.
+     */
+    private boolean flushProgress(long now) {
+        if (!flushing.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            lastFlushTime.set(now);
+            synchronized (this) {
+                final Map<Integer, Long> batch = new HashMap<Integer, Long>();
+                for (final Map.Entry<Integer, ProgressUpdate> entry : pendingProgress.entrySet()) {
+                    // only take the entry if it wasn't replaced in the meantime,
+                    // and drop it if the transfer was removed since
+                    if (pendingProgress.remove(entry.getKey(), entry.getValue())
+                            && transfers.containsKey(entry.getKey())) {
+                        batch.put(entry.getKey(), entry.getValue().bytesCurrent);
                     }
-                });
+                }
+                if (batch.isEmpty()) {
+                    return true;
+                }
+                dbUtil.updateBytesTransferred(batch);
+                persistedProgress.putAll(batch);
             }
+            return true;
+        } finally {
+            flushing.set(false);
         }
     }
 
+    /**
+     * Forgets the progress tracked for a transfer.
+     *
+     * @param id id of the transfer
+     */
+    private void clearProgress(int id) {
+        pendingProgress.remove(id);
+        persistedProgress.remove(id);
+        lastNotifyTimes.remove(id);
+        pendingNotifications.remove(id);
+        deliveredSequences.remove(id);
+    }
+
     /**
      * Throws an error to transfer. It triggers
      * {@link TransferListener#onError(int, Exception)} of associated LISTENERS.
@@ -300,6 +589,11 @@ class TransferStatusUpdater {
             LISTENERS.clear();
         }
         transfers.clear();
+        pendingProgress.clear();
+        persistedProgress.clear();
+        lastNotifyTimes.clear();
+        pendingNotifications.clear();
+        deliveredSequences.clear();
     }
 
     /**
@@ -402,4 +696,19 @@ class TransferStatusUpdater {
         LOGGER.info("Creating a new progress listener for transfer: " + id);
         return new TransferProgressListener(transfer);
     }
+
+    /**
+     * The progress of a transfer which is not written to the database yet.
+     */
+    private static final class ProgressUpdate {
+        private final long sequence;
+        private final long bytesCurrent;
+        private final long bytesTotal;
+
+        ProgressUpdate(long sequence, long bytesCurrent, long bytesTotal) {
+            this.sequence = sequence;
+            this.bytesCurrent = bytesCurrent;
+            this.bytesTotal = bytesTotal;
+        }
+    }
 }
@@ -49,6 +49,29 @@ public class TransferUtilityOptions implements Serializable {
      */
     private static final int MILLIS_IN_MINUTE = 60 * 1000;
 
+    /**
+     * Smallest byte range a download is split into.
+     */
+    static final long MINIMUM_DOWNLOAD_PART_SIZE = 1024 * 1024;
+
+    /**
+     * Default interval in milliseconds between two writes of the transfer
+     * progress to the database.
+     */
+    static final long DEFAULT_PROGRESS_PERSIST_INTERVAL = 1000;
+
+    /**
+     * Default number of bytes transferred after which the progress of a
+     * transfer is written to the database.
+     */
+    static final long DEFAULT_PROGRESS_PERSIST_THRESHOLD = 1024 * 1024;
+
+    /**
+     * Default minimum interval in milliseconds between two progress callbacks
+     * of a transfer.
+     */
+    static final long DEFAULT_PROGRESS_NOTIFY_INTERVAL = 100;
+
     /**
      * TransferService checks for the transfers that are waiting or in progress
      * and restarts the transfer for every time interval in milliseconds.
@@ -68,6 +91,30 @@ public class TransferUtilityOptions implements Serializable {
      * Type of connection to use for transfers.
      */
     private TransferNetworkConnectionType transferNetworkConnectionType;
+
+    /**
+     * Size in bytes of the ranges a download is split into. 0 downloads
+     * the object over a single connection.
+     */
+    private long downloadPartSize;
+
+    /**
+     * Interval in milliseconds between two writes of the transfer progress to
+     * the database.
+     */
+    private long progressPersistInterval;
+
+    /**
+     * Number of bytes transferred after which the progress of a transfer is
+     * written to the database, even within the persist interval.
+     */
+    private long progressPersistThreshold;
+
+    /**
+     * Minimum interval in milliseconds between two progress callbacks of a
+     * transfer.
+     */
+    private long progressNotifyInterval;
     
     /**
      * Constructor that sets the options to the
@@ -78,6 +125,9 @@ public class TransferUtilityOptions implements Serializable {
         this.transferServiceCheckTimeInterval = getDefaultCheckTimeInterval();
         this.transferThreadPoolSize = getDefaultThreadPoolSize();
         this.transferNetworkConnectionType = getDefaultTransferNetworkConnectionType();
+        this.progressPersistInterval = DEFAULT_PROGRESS_PERSIST_INTERVAL;
+        this.progressPersistThreshold = DEFAULT_PROGRESS_PERSIST_THRESHOLD;
+        this.progressNotifyInterval = DEFAULT_PROGRESS_NOTIFY_INTERVAL;
     }
 
     /**
@@ -93,6 +143,9 @@ public class TransferUtilityOptions implements Serializable {
         this.transferServiceCheckTimeInterval = getDefaultCheckTimeInterval();
         this.transferThreadPoolSize = transferThreadPoolSize;
         this.transferNetworkConnectionType = transferNetworkConnectionType;
+        this.progressPersistInterval = DEFAULT_PROGRESS_PERSIST_INTERVAL;
+        this.progressPersistThreshold = DEFAULT_PROGRESS_PERSIST_THRESHOLD;
+        this.progressNotifyInterval = DEFAULT_PROGRESS_NOTIFY_INTERVAL;
     }
 
     /**
@@ -153,6 +206,114 @@ public class TransferUtilityOptions implements Serializable {
         return transferNetworkConnectionType;
     }
 
+    /**
+     * Retrieve the size of the byte ranges downloads are split into.
+     *
+     * @return the download part size in bytes, 0 if ranged downloads are
+     *         disabled.
+     */
+    public long getDownloadPartSize() {
+        return downloadPartSize;
+    }
+
+    /**
+     * Set the size of the byte ranges downloads are split into. Objects larger
+     * than this size are downloaded with concurrent ranged GET requests which
+     * write in place into the target file, and a resumed download only fetches
+     * the ranges that were not completed. Values smaller than 1 MB are raised
+     * to 1 MB. Set 0 (the default) to download each object over a single
+     * connection.
+     *
+     * @param downloadPartSize the download part size in bytes.
+     */
+    public void setDownloadPartSize(final long downloadPartSize) {
+        if (downloadPartSize <= 0) {
+            this.downloadPartSize = 0;
+        } else {
+            this.downloadPartSize = Math.max(downloadPartSize, MINIMUM_DOWNLOAD_PART_SIZE);
+        }
+    }
+
+    /**
+     * Retrieve the interval between two writes of the transfer progress to
+     * the database.
+     *
+     * @return the progress persist interval in milliseconds.
+     */
+    public long getProgressPersistInterval() {
+        return progressPersistInterval;
+    }
+
+    /**
+     * Set the interval between two writes of the transfer progress to the
+     * database. Progress events received in between are coalesced per
+     * transfer and written in one transaction. If it's negative, then set the
+     * default value.
+     *
+     * @param progressPersistInterval the progress persist interval in
+     *            milliseconds.
+     */
+    public void setProgressPersistInterval(final long progressPersistInterval) {
+        if (progressPersistInterval < 0) {
+            this.progressPersistInterval = DEFAULT_PROGRESS_PERSIST_INTERVAL;
+        } else {
+            this.progressPersistInterval = progressPersistInterval;
+        }
+    }
+
+    /**
+     * Retrieve the number of bytes after which the progress of a transfer is
+     * written to the database.
+     *
+     * @return the progress persist threshold in bytes.
+     */
+    public long getProgressPersistThreshold() {
+        return progressPersistThreshold;
+    }
+
+    /**
+     * Set the number of bytes transferred after which the progress of a
+     * transfer is written to the database, even within the persist interval.
+     * If it's negative, then set the default value.
+     *
+     * @param progressPersistThreshold the progress persist threshold in bytes.
+     */
+    public void setProgressPersistThreshold(final long progressPersistThreshold) {
+        if (progressPersistThreshold < 0) {
+            this.progressPersistThreshold = DEFAULT_PROGRESS_PERSIST_THRESHOLD;
+        } else {
+            this.progressPersistThreshold = progressPersistThreshold;
+        }
+    }
+
+    /**
+     * Retrieve the minimum interval between two progress callbacks of a
+     * transfer.
+     *
+     * @return the progress notify interval in milliseconds.
+     */
+    public long getProgressNotifyInterval() {
+        return progressNotifyInterval;
+    }
+
+    /**
+     * Set the minimum interval between two
+     * {@link TransferListener#onProgressChanged(int, long, long)} callbacks of
+     * a transfer. Progress events received in between are dropped, except
+     * the one completing the transfer. If it's negative, then set the default
+     * value.
+     *
+     * @param progressNotifyInterval the progress notify interval in
+     *            milliseconds.
+     */
+    public void setProgressNotifyInterval(final long progressNotifyInterval) {
+        if (progressNotifyInterval < 0) {
+            this.progressNotifyInterval = DEFAULT_PROGRESS_NOTIFY_INTERVAL;
+        } else {
+            this.progressNotifyInterval = progressNotifyInterval;
+        }
+    }
+
     /**
      * Return the default thread pool size.
      * 
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.s3.model.transform;
+
+import static com.amazonaws.util.StringUtils.UTF8;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Replaces every carriage return (\r) in a UTF-8 encoded XML document with the
+ * explicit character entity {@code &#013;} as the document is read, so that
+ * the SAX parser doesn't normalize it to a line feed. A 0x0D byte can only
+ * ever be a carriage return in UTF-8, so the document doesn't need to be
+ * decoded, nor read into memory first.
+ */
+final class CarriageReturnEscapingInputStream extends FilterInputStream {
+
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final byte[] ESCAPED_CARRIAGE_RETURN = "&#013;".getBytes(UTF8);
+    private static final int BUFFER_SIZE = 8192;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    /**
+     * The position in {@link #ESCAPED_CARRIAGE_RETURN} of the next byte to
+     * return, or its length when no escape sequence is pending.
+     */
+    private int escapePosition = ESCAPED_CARRIAGE_RETURN.length;
+
+    /**
+     * @param in the XML document to escape
+     */
+    CarriageReturnEscapingInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        final int read = read(b, 0, 1);
+        return read == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        int count = 0;
+        while (count < len) {
+            if (escapePosition < ESCAPED_CARRIAGE_RETURN.length) {
+                b[off + count++] = ESCAPED_CARRIAGE_RETURN[escapePosition++];
+                continue;
+            }
+            if (position == limit) {
+                if (count > 0) {
+                    // don't block for more input when there is already some
+                    // to return
+                    break;
+                }
+                final int read = in.read(buffer, 0, BUFFER_SIZE);
+                if (read == -1) {
+                    return -1;
+                }
+                position = 0;
+                limit = read;
+            }
+            final byte next = buffer[position++];
+            if (next == CARRIAGE_RETURN) {
+                escapePosition = 0;
+            } else {
+                b[off + count++] = next;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        final byte[] skipBuffer = new byte[(int) Math.min(BUFFER_SIZE, Math.max(n, 0))];
+        long skipped = 0;
+        while (skipped < n) {
+            final int read = read(skipBuffer, 0, (int) Math.min(skipBuffer.length, n - skipped));
+            if (read == -1) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (ESCAPED_CARRIAGE_RETURN.length - escapePosition) + (limit - position);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        // not supported
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+}
@@ -18,8 +18,6 @@
 
 package com.amazonaws.services.s3.model.transform;
 
-import static com.amazonaws.util.StringUtils.UTF8;
-
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.internal.Constants;
 import com.amazonaws.services.s3.internal.DeleteObjectsResponse;
@@ -123,7 +121,6 @@ import org.xml.sax.helpers.DefaultHandler;
 import org.xml.sax.helpers.XMLReaderFactory;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -141,7 +138,17 @@ import java.util.Map;
 public class XmlResponsesSaxParser {
     private static final Log log = LogFactory.getLog(XmlResponsesSaxParser.class);
 
-    private XMLReader xr = null;
+    /**
+     * The XML readers are expensive to create, and one is needed for every
+     * response, so each thread reuses its own.
+     */
+    private static final ThreadLocal<XMLReader> XML_READER = new ThreadLocal<XMLReader>();
+
+    /**
+     * Handler left on a reader between documents, so that it doesn't keep the
+     * handler of the last document it parsed reachable.
+     */
+    private static final DefaultHandler NO_OP_HANDLER = new DefaultHandler();
 
     private final boolean sanitizeXmlDocument = true;
 
@@ -152,13 +159,30 @@ public class XmlResponsesSaxParser {
      */
     public XmlResponsesSaxParser() throws AmazonClientException {
         // Ensure we can load the XML Reader.
+        getXmlReader();
+    }
+
+    /**
+     * Returns the XML reader of the current thread, creating it first if
+     * needed.
+     */
+    private static XMLReader getXmlReader() {
+        XMLReader xr = XML_READER.get();
+        if (xr == null) {
+            xr = createXmlReader();
+            XML_READER.set(xr);
+        }
+        return xr;
+    }
+
+    private static XMLReader createXmlReader() {
         try {
-            xr = XMLReaderFactory.createXMLReader();
+            return XMLReaderFactory.createXMLReader();
         } catch (final SAXException e) {
             System.setProperty("org.xml.sax.driver", "org.xmlpull.v1.sax2.Driver");
             try {
                 // Try once more...
-                xr = XMLReaderFactory.createXMLReader();
+                return XMLReaderFactory.createXMLReader();
             } catch (final SAXException e2) {
                 throw new AmazonClientException(
                         "Couldn't initialize a sax driver for the XMLReader", e);
@@ -177,6 +201,8 @@ public class XmlResponsesSaxParser {
      */
     protected void parseXmlInputStream(DefaultHandler handler, InputStream inputStream)
             throws IOException {
+        final XMLReader xr = getXmlReader();
+        boolean parsed = false;
         try {
 
             if (log.isDebugEnabled()) {
@@ -188,6 +214,7 @@ public class XmlResponsesSaxParser {
             xr.setContentHandler(handler);
             xr.setErrorHandler(handler);
             xr.parse(new InputSource(breader));
+            parsed = true;
 
         } catch (final IOException e) {
             throw e;
@@ -202,9 +229,29 @@ public class XmlResponsesSaxParser {
             }
             throw new AmazonClientException("Failed to parse XML document with handler "
                     + handler.getClass(), t);
+        } finally {
+            if (parsed) {
+                xr.setContentHandler(NO_OP_HANDLER);
+                xr.setErrorHandler(NO_OP_HANDLER);
+            } else {
+                // a reader left in the middle of a document isn't reused
+                XML_READER.remove();
+            }
         }
     }
 
+    /**
+     * Returns the XML document of the input stream with any carriage return
+     * (\r) characters replaced by explicit XML character entities, to prevent
+     * the SAX parser from misinterpreting 0x0D characters as 0x0A and being
+     * unable to parse the XML. The characters are replaced as the document is
+     * read, without reading the whole document into memory first.
+     *
+     * @param handler the handler the XML document is destined for
+     * @param inputStream an input stream containing the XML document
+     * @return the sanitized XML document
+     * @throws IOException on error reading from the input stream
+     */
     protected InputStream sanitizeXmlDocument(DefaultHandler handler, InputStream inputStream)
             throws IOException {
 
@@ -216,57 +263,7 @@ public class XmlResponsesSaxParser {
             if (log.isDebugEnabled()) {
                 log.debug("Sanitizing XML document destined for handler " + handler.getClass());
             }
-
-            InputStream sanitizedInputStream = null;
-
-            try {
-
-                /*
-                 * Read object listing XML document from input stream provided
-                 * into a string buffer, so we can replace troublesome
-                 * characters before sending the document to the XML parser.
-                 */
-                final StringBuilder listingDocBuffer = new StringBuilder();
-                final BufferedReader br = new BufferedReader(
-                        new InputStreamReader(inputStream, Constants.DEFAULT_ENCODING));
-
-                final char[] buf = new char[8192];
-                int read = -1;
-                while ((read = br.read(buf)) != -1) {
-                    listingDocBuffer.append(buf, 0, read);
-                }
-                br.close();
-
-                /*
-                 * Replace any carriage return (\r) characters with explicit XML
-                 * character entities, to prevent the SAX parser from
-                 * misinterpreting 0x0D characters as 0x0A and being unable to
-                 * parse the XML.
-                 */
-                final String listingDoc = listingDocBuffer.toString().replaceAll("\r", "&#013;");
-
-                sanitizedInputStream = new ByteArrayInputStream(
-                        listingDoc.getBytes(UTF8));
-
-            } catch (final IOException e) {
-                throw e;
-
-            } catch (final Throwable t) {
-                try {
-                    inputStream.close();
-                } catch (final IOException e) {
-                    if (log.isErrorEnabled()) {
-                        log.error(
-                                "Unable to close response InputStream after failure sanitizing XML document",
-                                e);
-                    }
-                }
-                throw new AmazonClientException(
-                        "Failed to sanitize XML document destined for handler "
-                                + handler.getClass(),
-                        t);
-            }
-            return sanitizedInputStream;
+            return new CarriageReturnEscapingInputStream(inputStream);
         }
     }
 
@@ -0,0 +1,222 @@
+/**
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.s3.transferutility;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.util.IOUtils;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class DownloadTaskTest {
+
+    private static final String BUCKET = "bucket";
+    private static final String KEY = "key";
+    private static final String ETAG = "current-etag";
+    private static final long PART_SIZE = TransferUtilityOptions.MINIMUM_DOWNLOAD_PART_SIZE;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final byte[] content = new byte[(int) (PART_SIZE * 5 / 2)];
+    private TransferDBUtil dbUtil;
+    private TransferStatusUpdater updater;
+    private AmazonS3 s3;
+    private File file;
+
+    @Before
+    public void setup() throws Exception {
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * 31 + i / 7);
+        }
+        dbUtil = new TransferDBUtil(RuntimeEnvironment.application);
+        updater = new TransferStatusUpdater(dbUtil);
+        file = new File(folder.getRoot(), "download");
+
+        final ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(content.length);
+        metadata.setHeader(Headers.ETAG, ETAG);
+        s3 = mock(AmazonS3.class);
+        when(s3.getObjectMetadata(any(GetObjectMetadataRequest.class))).thenReturn(metadata);
+        when(s3.getObject(any(GetObjectRequest.class))).thenAnswer(new Answer<S3Object>() {
+            @Override
+            public S3Object answer(InvocationOnMock invocation) {
+                final GetObjectRequest request = (GetObjectRequest) invocation.getArguments()[0];
+                final List<String> eTags = request.getMatchingETagConstraints();
+                if (eTags != null && !eTags.isEmpty() && !eTags.contains(ETAG)) {
+                    // the constraint isn't met, as AmazonS3Client does
+                    return null;
+                }
+                final long[] range = request.getRange();
+                final int start = range == null ? 0 : (int) range[0];
+                final int end = range == null || range[1] < 0
+                        ? content.length : (int) range[1] + 1;
+                final S3Object object = new S3Object();
+                object.setObjectContent(new ByteArrayInputStream(
+                        Arrays.copyOfRange(content, start, end)));
+                object.getObjectMetadata().setHeader(Headers.ETAG, ETAG);
+                return object;
+            }
+        });
+    }
+
+    private TransferRecord insertDownload() {
+        final TransferUtilityOptions options = new TransferUtilityOptions();
+        options.setDownloadPartSize(PART_SIZE);
+        final int id = Integer.parseInt(dbUtil.insertSingleTransferRecord(TransferType.DOWNLOAD,
+                BUCKET, KEY, file, options).getLastPathSegment());
+        final TransferRecord download = dbUtil.getTransferById(id);
+        updater.addTransfer(download);
+        return download;
+    }
+
+    /*
+     * Records the ranges of a download as a previous run would have, and
+     * returns the main record as it is read when the download is resumed.
+     */
+    private TransferRecord insertRecordedDownload(String eTag) {
+        final TransferRecord download = insertDownload();
+        assertEquals(3, dbUtil.insertMultipartDownloadRecords(download, content.length, eTag,
+                PART_SIZE));
+        final TransferRecord resumed = dbUtil.getTransferById(download.id);
+        updater.addTransfer(resumed);
+        return resumed;
+    }
+
+    private boolean runDownload(TransferRecord download) {
+        return new DownloadTask(download, s3, dbUtil, updater).call();
+    }
+
+    private byte[] readFile() throws Exception {
+        return IOUtils.toByteArray(new FileInputStream(file));
+    }
+
+    @Test
+    public void testInsertMultipartDownloadRecords() {
+        final TransferRecord download = insertRecordedDownload(ETAG);
+
+        assertEquals(1, download.isMultipart);
+        assertEquals(content.length, download.bytesTotal);
+        assertEquals(ETAG, download.eTag);
+
+        final List<TransferRecord> parts = dbUtil.getNonCompletedDownloadPartsFromDB(download.id);
+        assertEquals(3, parts.size());
+        long rangeStart = 0;
+        for (int i = 0; i < parts.size(); i++) {
+            final TransferRecord part = parts.get(i);
+            final long rangeLast = Math.min(rangeStart + PART_SIZE, content.length) - 1;
+            assertEquals(i + 1, part.partNumber);
+            assertEquals(download.id, part.mainUploadId);
+            assertEquals(rangeStart, part.rangeStart);
+            assertEquals(rangeLast, part.rangeLast);
+            assertEquals(rangeLast - rangeStart + 1, part.bytesTotal);
+            assertEquals(i == parts.size() - 1 ? 1 : 0, part.isLastPart);
+            assertEquals(TransferState.WAITING, part.state);
+            rangeStart = rangeLast + 1;
+        }
+        assertEquals(content.length, rangeStart);
+    }
+
+    @Test
+    public void testDownloadInRanges() throws Exception {
+        final TransferRecord download = insertDownload();
+
+        assertTrue(runDownload(download));
+
+        assertEquals(TransferState.COMPLETED, download.state);
+        assertArrayEquals(content, readFile());
+        verify(s3, times(3)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    public void testResumeDownloadsIncompleteRanges() throws Exception {
+        final TransferRecord download = insertRecordedDownload(ETAG);
+        // the first range was downloaded by the previous run
+        final RandomAccessFile partial = new RandomAccessFile(file, "rw");
+        partial.setLength(content.length);
+        partial.write(content, 0, (int) PART_SIZE);
+        partial.close();
+        final TransferRecord first = dbUtil.getNonCompletedDownloadPartsFromDB(download.id).get(0);
+        dbUtil.updateState(first.id, TransferState.PART_COMPLETED);
+
+        assertTrue(runDownload(download));
+
+        assertEquals(TransferState.COMPLETED, download.state);
+        assertArrayEquals(content, readFile());
+        verify(s3, times(2)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    public void testResumeRestartsWhenFileIsMissing() throws Exception {
+        final TransferRecord download = insertRecordedDownload(ETAG);
+        for (final TransferRecord part : dbUtil.getNonCompletedDownloadPartsFromDB(download.id)) {
+            if (part.partNumber != 3) {
+                dbUtil.updateState(part.id, TransferState.PART_COMPLETED);
+            }
+        }
+        assertFalse(file.exists());
+
+        assertTrue(runDownload(download));
+
+        assertEquals(TransferState.COMPLETED, download.state);
+        assertArrayEquals(content, readFile());
+        verify(s3, times(3)).getObject(any(GetObjectRequest.class));
+    }
+
+    @Test
+    public void testResumeFailsWhenObjectIsModified() throws Exception {
+        final TransferRecord download = insertRecordedDownload("previous-etag");
+        final RandomAccessFile partial = new RandomAccessFile(file, "rw");
+        partial.setLength(content.length);
+        partial.close();
+
+        assertFalse(runDownload(download));
+
+        assertEquals(TransferState.FAILED, download.state);
+    }
+}
@@ -59,6 +59,7 @@ public class GsonSerializationTest {
                 TransferUtilityOptions.getDefaultThreadPoolSize()));
         assertThat(jsonOptions, containsString("\"transferNetworkConnectionType\":" +
                 "\"" + TransferUtilityOptions.getDefaultTransferNetworkConnectionType() + "\""));
+        assertThat(jsonOptions, containsString("\"downloadPartSize\":0"));
     }
 
     @Test
@@ -77,5 +78,51 @@ public class GsonSerializationTest {
                 tuOptions.getTransferThreadPoolSize());
         assertEquals(TransferNetworkConnectionType.ANY,
                 tuOptions.getTransferNetworkConnectionType());
+        assertEquals(0, tuOptions.getDownloadPartSize());
+    }
+
+    @Test
+    public void testTransferUtilityOptionsDownloadPartSizeRoundTrip() {
+        TransferUtilityOptions tuOptions = new TransferUtilityOptions();
+        tuOptions.setDownloadPartSize(8 * 1024 * 1024);
+
+        TransferUtilityOptions deserialized = gson.fromJson(gson.toJson(tuOptions),
+                TransferUtilityOptions.class);
+
+        assertEquals(8 * 1024 * 1024, deserialized.getDownloadPartSize());
+    }
+
+    @Test
+    public void testTransferUtilityOptionsDownloadPartSizeBounds() {
+        TransferUtilityOptions tuOptions = new TransferUtilityOptions();
+
+        tuOptions.setDownloadPartSize(1024);
+        assertEquals(TransferUtilityOptions.MINIMUM_DOWNLOAD_PART_SIZE,
+                tuOptions.getDownloadPartSize());
+
+        tuOptions.setDownloadPartSize(-1);
+        assertEquals(0, tuOptions.getDownloadPartSize());
+    }
+
+    @Test
+    public void testTransferUtilityOptionsProgressDefaults() {
+        final String jsonOptions = "{" +
+                "\"transferThreadPoolSize\":10" +
+                "}";
+
+        TransferUtilityOptions tuOptions = gson.fromJson(jsonOptions, TransferUtilityOptions.class);
+
+        assertEquals(TransferUtilityOptions.DEFAULT_PROGRESS_PERSIST_INTERVAL,
+                tuOptions.getProgressPersistInterval());
+        assertEquals(TransferUtilityOptions.DEFAULT_PROGRESS_PERSIST_THRESHOLD,
+                tuOptions.getProgressPersistThreshold());
+        assertEquals(TransferUtilityOptions.DEFAULT_PROGRESS_NOTIFY_INTERVAL,
+                tuOptions.getProgressNotifyInterval());
+
+        tuOptions.setProgressNotifyInterval(-1);
+        assertEquals(TransferUtilityOptions.DEFAULT_PROGRESS_NOTIFY_INTERVAL,
+                tuOptions.getProgressNotifyInterval());
+        tuOptions.setProgressPersistThreshold(0);
+        assertEquals(0, tuOptions.getProgressPersistThreshold());
     }
 }
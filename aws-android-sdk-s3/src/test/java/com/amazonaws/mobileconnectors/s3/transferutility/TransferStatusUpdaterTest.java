@@ -0,0 +1,213 @@
+/**
+ * Copyright 2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.s3.transferutility;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class TransferStatusUpdaterTest {
+
+    private static final long TOTAL = 1000L;
+    private static final long NEVER = 60 * 60 * 1000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TransferDBUtil dbUtil;
+    private TransferStatusUpdater updater;
+    private final List<Integer> registeredIds = new ArrayList<Integer>();
+    private final ProgressListener listener = new ProgressListener();
+
+    @Before
+    public void setup() {
+        dbUtil = new TransferDBUtil(RuntimeEnvironment.application);
+        updater = new TransferStatusUpdater(dbUtil);
+    }
+
+    @After
+    public void teardown() {
+        for (final int id : registeredIds) {
+            TransferStatusUpdater.unregisterListener(id, listener);
+        }
+    }
+
+    private int insertTransfer(long persistInterval, long persistThreshold, long notifyInterval)
+            throws Exception {
+        final TransferUtilityOptions options = new TransferUtilityOptions();
+        options.setProgressPersistInterval(persistInterval);
+        options.setProgressPersistThreshold(persistThreshold);
+        options.setProgressNotifyInterval(notifyInterval);
+        final File file = folder.newFile();
+        final int id = Integer.parseInt(dbUtil.insertSingleTransferRecord(TransferType.UPLOAD,
+                "bucket", file.getName(), file, options).getLastPathSegment());
+        updater.addTransfer(dbUtil.getTransferById(id));
+        TransferStatusUpdater.registerListener(id, listener);
+        registeredIds.add(id);
+        return id;
+    }
+
+    private long persistedBytes(int id) {
+        return dbUtil.getTransferById(id).bytesCurrent;
+    }
+
+    private List<Long> deliveredProgress(int id) {
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        final List<Long> progress = listener.progress.get(id);
+        return progress == null ? new ArrayList<Long>() : progress;
+    }
+
+    @Test
+    public void testCoalescesProgressWithinPersistInterval() throws Exception {
+        final int id = insertTransfer(NEVER, TOTAL, 0);
+
+        updater.updateProgress(id, 100, TOTAL, false);
+        updater.updateProgress(id, 200, TOTAL, false);
+        updater.updateProgress(id, 300, TOTAL, false);
+
+        // the first progress is written at once, the others are coalesced
+        assertEquals(100, persistedBytes(id));
+        assertEquals(1, updater.getCoalescedProgressEventCount());
+
+        updater.flushPendingProgress();
+        assertEquals(300, persistedBytes(id));
+    }
+
+    @Test
+    public void testPersistsWhenThresholdIsCrossed() throws Exception {
+        final int id = insertTransfer(NEVER, 200, 0);
+
+        updater.updateProgress(id, 100, TOTAL, false);
+        updater.updateProgress(id, 200, TOTAL, false);
+        assertEquals(100, persistedBytes(id));
+
+        updater.updateProgress(id, 300, TOTAL, false);
+        assertEquals(300, persistedBytes(id));
+    }
+
+    @Test
+    public void testPersistsCompletedProgress() throws Exception {
+        final int id = insertTransfer(NEVER, TOTAL, 0);
+
+        updater.updateProgress(id, 100, TOTAL, false);
+        updater.updateProgress(id, TOTAL, TOTAL, false);
+
+        assertEquals(TOTAL, persistedBytes(id));
+    }
+
+    @Test
+    public void testDeliversLatestDroppedProgress() throws Exception {
+        final int id = insertTransfer(NEVER, TOTAL, NEVER);
+
+        updater.updateProgress(id, 100, TOTAL, true);
+        updater.updateProgress(id, 200, TOTAL, true);
+        updater.updateProgress(id, 300, TOTAL, true);
+
+        assertEquals(Arrays.asList(100L), deliveredProgress(id));
+        assertEquals(2, updater.getDroppedProgressEventCount());
+
+        updater.flushPendingProgress();
+        assertEquals(Arrays.asList(100L, 300L), deliveredProgress(id));
+
+        // nothing is held back anymore
+        updater.flushPendingProgress();
+        assertEquals(Arrays.asList(100L, 300L), deliveredProgress(id));
+    }
+
+    @Test
+    public void testCompletedProgressIsNotDropped() throws Exception {
+        final int id = insertTransfer(NEVER, TOTAL, NEVER);
+
+        updater.updateProgress(id, 100, TOTAL, true);
+        updater.updateProgress(id, TOTAL, TOTAL, true);
+
+        assertEquals(Arrays.asList(100L, TOTAL), deliveredProgress(id));
+        assertEquals(0, updater.getDroppedProgressEventCount());
+    }
+
+    @Test
+    public void testOptionsArePerTransfer() throws Exception {
+        final int throttled = insertTransfer(NEVER, TOTAL, NEVER);
+        final int unthrottled = insertTransfer(NEVER, TOTAL, 0);
+
+        for (long bytes = 100; bytes <= 300; bytes += 100) {
+            updater.updateProgress(throttled, bytes, TOTAL, true);
+            updater.updateProgress(unthrottled, bytes, TOTAL, true);
+        }
+
+        assertEquals(Arrays.asList(100L), deliveredProgress(throttled));
+        assertEquals(Arrays.asList(100L, 200L, 300L), deliveredProgress(unthrottled));
+        assertEquals(2, updater.getDroppedProgressEventCount());
+    }
+
+    @Test
+    public void testProgressOfRemovedTransferIsDropped() throws Exception {
+        final int id = insertTransfer(NEVER, TOTAL, 0);
+        updater.updateProgress(id, 100, TOTAL, true);
+        assertEquals(Arrays.asList(100L), deliveredProgress(id));
+
+        // a callback still queued when the transfer is removed isn't delivered
+        ShadowLooper.pauseMainLooper();
+        updater.updateProgress(id, 200, TOTAL, true);
+        updater.removeTransfer(id);
+        ShadowLooper.unPauseMainLooper();
+        assertEquals(Arrays.asList(100L), deliveredProgress(id));
+
+        updater.updateProgress(id, 300, TOTAL, false);
+        updater.flushPendingProgress();
+        assertEquals(100, persistedBytes(id));
+    }
+
+    private static final class ProgressListener implements TransferListener {
+        private final Map<Integer, List<Long>> progress = new HashMap<Integer, List<Long>>();
+
+        @Override
+        public void onStateChanged(int id, TransferState state) {
+        }
+
+        @Override
+        public void onProgressChanged(int id, long bytesCurrent, long bytesTotal) {
+            List<Long> list = progress.get(id);
+            if (list == null) {
+                list = new ArrayList<Long>();
+                progress.put(id, list);
+            }
+            list.add(bytesCurrent);
+        }
+
+        @Override
+        public void onError(int id, Exception ex) {
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.s3.model.transform;
+
+import static com.amazonaws.util.StringUtils.UTF8;
+import static org.junit.Assert.assertEquals;
+
+import com.amazonaws.services.s3.model.ObjectListing;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+public class CarriageReturnEscapingInputStreamTest {
+
+    private static InputStream escape(String document) {
+        return new CarriageReturnEscapingInputStream(
+                new ByteArrayInputStream(document.getBytes(UTF8)));
+    }
+
+    private static String readFully(InputStream in, int chunkSize) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[chunkSize];
+        int read;
+        while ((read = in.read(buffer, 0, chunkSize)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), UTF8);
+    }
+
+    @Test
+    public void testEscapesCarriageReturns() throws Exception {
+        assertEquals("a&#013;b&#013;&#013;c\n", readFully(escape("a\rb\r\rc\n"), 1024));
+        assertEquals("", readFully(escape(""), 1024));
+        assertEquals("&#013;", readFully(escape("\r"), 1024));
+    }
+
+    @Test
+    public void testEscapesAcrossReads() throws Exception {
+        final StringBuilder document = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            document.append("key-\u00e9-").append(i).append('\r');
+        }
+        final String expected = document.toString().replace("\r", "&#013;");
+        for (final int chunkSize : new int[] {
+                1, 2, 5, 7, 4096, 8192, 100000
+        }) {
+            assertEquals(expected, readFully(escape(document.toString()), chunkSize));
+        }
+    }
+
+    @Test
+    public void testSingleByteRead() throws Exception {
+        final InputStream in = escape("\u00e9\r");
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int read;
+        while ((read = in.read()) != -1) {
+            out.write(read);
+        }
+        assertEquals("\u00e9&#013;", new String(out.toByteArray(), UTF8));
+    }
+
+    @Test
+    public void testSkip() throws Exception {
+        final InputStream in = escape("a\rb");
+        assertEquals(3, in.skip(3));
+        assertEquals("013;b", readFully(in, 16));
+    }
+
+    @Test
+    public void testListingKeysKeepCarriageReturns() throws Exception {
+        final String document = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">"
+                + "<Name>bucket</Name><Prefix></Prefix><Marker></Marker>"
+                + "<MaxKeys>1000</MaxKeys><IsTruncated>false</IsTruncated>"
+                + "<Contents><Key>line\r\nbreak</Key><Size>1</Size></Contents>"
+                + "<Contents><Key>plain</Key><Size>2</Size></Contents>"
+                + "</ListBucketResult>";
+
+        final XmlResponsesSaxParser parser = new XmlResponsesSaxParser();
+        // parse twice to reuse the XML reader of the thread
+        for (int i = 0; i < 2; i++) {
+            final ObjectListing listing = parser.parseListBucketObjectsResponse(
+                    new ByteArrayInputStream(document.getBytes(UTF8)), false)
+                    .getObjectListing();
+            assertEquals(2, listing.getObjectSummaries().size());
+            assertEquals("line\r\nbreak", listing.getObjectSummaries().get(0).getKey());
+            assertEquals("plain", listing.getObjectSummaries().get(1).getKey());
+        }
+    }
+}